@@ -127,6 +127,11 @@ public class CrescoCPMSLogger implements CPMSLogger {
         sendCPMSTaskOutput(scriptedTask, output);
     }
 
+    public void cpmsTransferMetrics(ScriptedTask scriptedTask, String metrics) {
+        logger.info("Sending transfer metrics for task: {}", scriptedTask.toJson());
+        sendCPMSTransferMetrics(scriptedTask, metrics);
+    }
+
     public CPMSLogger cloneLogger(Class cls) {
         return new CrescoCPMSLoggerBuilder()
                 .withClass(cls)
@@ -283,6 +288,21 @@ public class CrescoCPMSLogger implements CPMSLogger {
         }
     }
 
+    private void sendCPMSTransferMetrics(ScriptedTask scriptedTask, String metrics) {
+        CPMSTransferMetrics transferMetrics = new CPMSTransferMetrics(scriptedTask.toJson(), metrics);
+        try {
+            TextMessage cpmsLogDataPlaneMessage = pluginBuilder.getAgentService().getDataPlaneService()
+                    .createTextMessage();
+            cpmsLogDataPlaneMessage.setText(gson.toJson(transferMetrics));
+            cpmsLogDataPlaneMessage.setStringProperty(CrescoCPMSStatics.LOGGING_DATA_PLANE_KEY,
+                    CrescoCPMSStatics.TRANSFER_METRICS_DATA_PLANE_VALUE);
+            pluginBuilder.getAgentService().getDataPlaneService().sendMessage(TopicType.AGENT, cpmsLogDataPlaneMessage);
+        } catch (JMSException e) {
+            logger.error("Failed to generate transfer metrics message: {}, code: {}", e.getMessage(), e.getErrorCode());
+            logger.error("JMSException:\n" + ExceptionUtils.getStackTrace(e));
+        }
+    }
+
     private String replaceBrackets(String logMessage, Object... params) {
         int replaced = 0;
         while (logMessage.contains("{}") && replaced < params.length) {
@@ -6,6 +6,7 @@ public class CrescoCPMSStatics {
     public static final String LOG_MESSAGES_DATA_PLANE_VALUE = "cpmsLogMessages";
     public static final String HEARTBEAT_MESSAGES_DATA_PLANE_VALUE = "cpmsHeartbeatMessages";
     public static final String TASK_OUTPUT_DATA_PLANE_VALUE = "cpmsTaskOutputMessages";
+    public static final String TRANSFER_METRICS_DATA_PLANE_VALUE = "cpmsTransferMetricsMessages";
 
     // Miscellaneous
     public static final String DEFAULT_INSTANCE_ID_URL = "http://169.254.169.254/latest/meta-data/instance-id";
@@ -117,6 +117,10 @@ public class BasicCPMSLogger implements CPMSLogger {
         msgEventLogger.info(formalizeLogMessage("TASK:\n" + scriptedTask.toJson() + "\nOUTPUT:\n" + output));
     }
 
+    public void cpmsTransferMetrics(ScriptedTask scriptedTask, String metrics) {
+        msgEventLogger.info(formalizeLogMessage("TASK:\n" + scriptedTask.toJson() + "\nMETRICS:\n" + metrics));
+    }
+
     private String formalizeLogMessage(String logMessage) {
         StringBuilder sb = new StringBuilder();
         if (getPipelineID() != null)
@@ -33,6 +33,8 @@ public interface CPMSLogger {
 
     void cpmsTaskOutput(ScriptedTask scriptedTask, String output);
 
+    void cpmsTransferMetrics(ScriptedTask scriptedTask, String metrics);
+
     CPMSLogger cloneLogger(Class clazz);
 
     String getPipelineID();
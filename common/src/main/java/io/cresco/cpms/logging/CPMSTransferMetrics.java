@@ -0,0 +1,37 @@
+package io.cresco.cpms.logging;
+
+import java.util.Date;
+
+public class CPMSTransferMetrics {
+    private final Date ts;
+    private final String task;
+    private final String metrics;
+
+    public CPMSTransferMetrics(String task, String metrics) {
+        this.ts = new Date();
+        this.task = task;
+        this.metrics = metrics;
+    }
+
+    public Date getTs() {
+        return ts;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public String getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CPMSTransferMetrics (");
+        if (getTs() != null)
+            sb.append(String.format(",TS:%s", getTs()));
+        if (getTask() != null)
+            sb.append(String.format(",T:%s", getTask()));
+        return sb.toString();
+    }
+}
@@ -10,7 +10,108 @@ public class CPMSStatics {
     // ObjectStorage
     public static final String UNCOMPRESSED_SIZE_METADATA_TAG_KEY = "uncompressedsize";
     public static final String PART_SIZE_METADATA_TAG_KEY = "partsize";
+    public static final String CONTENT_MD5_METADATA_TAG_KEY = "contentmd5";
     public static final int DEFAULT_PART_SIZE = 8;
+    public static final int DEFAULT_S3_MAX_CONNECTIONS = 64;
+    public static final long DEFAULT_S3_CONNECTION_MAX_IDLE_SECONDS = 60;
+    public static final long DEFAULT_S3_CLIENT_IDLE_TIMEOUT_SECONDS = 300;
+    public static final int S3_MAXIMUM_UPLOAD_PARTS = 10000;
+    public static final int AZURE_MAXIMUM_BLOCKS = 50000;
+
+    // Azure Clients
+    public static final int DEFAULT_AZURE_MAX_CONNECTIONS = 64;
+    public static final long DEFAULT_AZURE_CONNECTION_MAX_IDLE_SECONDS = 60;
+    public static final long DEFAULT_AZURE_CLIENT_IDLE_TIMEOUT_SECONDS = 300;
+    public static final long DEFAULT_AZURE_BLOCK_SIZE = 0;
+    public static final int DEFAULT_AZURE_MAX_CONCURRENCY = 0;
+    public static final long DEFAULT_AZURE_MAX_SINGLE_UPLOAD_SIZE = 32L * 1024 * 1024;
+    public static final long AZURE_MINIMUM_BLOCK_SIZE = 4L * 1024 * 1024;
+    public static final long AZURE_MAXIMUM_SINGLE_UPLOAD_SIZE = 5000L * 1024 * 1024;
+    public static final int DEFAULT_BATCH_BUFFERED_CHUNKS = 4;
+
+    // SFTP Sessions
+    public static final int DEFAULT_SFTP_MAX_CHANNELS_PER_SESSION = 8;
+    public static final int DEFAULT_SFTP_MAX_SESSIONS_PER_REMOTE = 4;
+    public static final long DEFAULT_SFTP_SESSION_IDLE_TIMEOUT_SECONDS = 300;
+    public static final long DEFAULT_SFTP_HEALTH_CHECK_INTERVAL_SECONDS = 30;
+
+    // SFTP Transfers
+    public static final long DEFAULT_SFTP_PART_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_SFTP_PARALLEL_TRANSFER_THRESHOLD = 128L * 1024 * 1024;
+    public static final String SFTP_PARTIAL_TRANSFER_SUFFIX = ".cpms-partial";
+    public static final boolean DEFAULT_SFTP_SYNC_CHECKSUMS = false;
+
+    // Checksums
+    public static final TransferVerification DEFAULT_TRANSFER_VERIFICATION = TransferVerification.INLINE;
+    public static final int DEFAULT_CHECKSUM_BUFFER_SIZE = 1024 * 1024;
+
+    // Local Copies
+    public static final LocalCopyMode DEFAULT_LOCAL_COPY_MODE = LocalCopyMode.CLONE;
+    public static final long DEFAULT_LOCAL_COPY_CHUNK_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_PARALLEL_COPY_THRESHOLD = 256L * 1024 * 1024;
+    public static final int DEFAULT_PARALLEL_COPY_WORKERS = 4;
+    public static final String[] NETWORK_FILE_STORE_TYPES = {"nfs", "nfs4", "lustre", "cifs", "smb3", "smbfs", "gpfs",
+            "beegfs", "ceph", "fuse.glusterfs", "fuse.cephfs"};
+
+    // Resumable Transfers
+    public static final boolean DEFAULT_RESUMABLE_TRANSFERS = true;
+    public static final long DEFAULT_RESUMABLE_TRANSFER_THRESHOLD = 256L * 1024 * 1024;
+    public static final int DEFAULT_TRANSFER_CONCURRENCY = 8;
+    public static final int DEFAULT_MAXIMUM_TRANSFER_CONCURRENCY = 32;
+    public static final String TRANSFER_JOURNAL_SUFFIX = ".cpms-transfer";
+
+    // Streamed Uploads
+    public static final boolean DEFAULT_STREAMED_ARCHIVE_UPLOADS = false;
+    public static final long DEFAULT_STREAMING_BUFFER_MEMORY = 256L * 1024 * 1024;
+
+    // Metadata Cache
+    public static final long DEFAULT_METADATA_CACHE_TTL_SECONDS = 30;
+    public static final long DEFAULT_METADATA_CACHE_MAX_ENTRIES = 10000;
+
+    // Bulk Deletes
+    public static final int S3_MAXIMUM_DELETE_BATCH = 1000;
+    public static final int DEFAULT_DELETE_RETRY_ATTEMPTS = 5;
+    public static final long DEFAULT_DELETE_RETRY_BACKOFF_MILLIS = 250;
+
+    // Server-side Copies
+    public static final long S3_MAXIMUM_COPY_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+    public static final long DEFAULT_COPY_POLL_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_PROGRESS_PERCENT_STEP = 10;
+
+    // Transfer Scheduling
+    public static final TransferPriority DEFAULT_TRANSFER_PRIORITY = TransferPriority.NORMAL;
+    public static final int DEFAULT_SCHEDULER_MAXIMUM_PARTS = 64;
+    public static final int DEFAULT_SCHEDULER_PROVIDER_PARTS = 48;
+    public static final int DEFAULT_SCHEDULER_DESTINATION_PARTS = 32;
+
+    // Bandwidth Throttling
+    public static final long DEFAULT_BANDWIDTH_LIMIT = 0;
+    public static final double DEFAULT_REQUEST_LIMIT = 0;
+    public static final long DEFAULT_THROTTLE_BURST_MILLIS = 1000;
+    public static final int DEFAULT_THROTTLE_CHUNK_SIZE = 64 * 1024;
+
+    // Adaptive Transfers
+    public static final boolean DEFAULT_ADAPTIVE_TRANSFERS = false;
+    public static final long DEFAULT_ADAPTIVE_TARGET_PART_MILLIS = 4000;
+    public static final int DEFAULT_ADAPTIVE_PARTS_PER_WORKER = 4;
+    public static final long DEFAULT_ADAPTIVE_MAXIMUM_PART_SIZE = 512L * 1024 * 1024;
+    public static final long S3_MAXIMUM_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    public static final long AZURE_MAXIMUM_BLOCK_SIZE = 4000L * 1024 * 1024;
+    public static final int DEFAULT_THROTTLE_RETRY_ATTEMPTS = 5;
+    public static final long DEFAULT_THROTTLE_BACKOFF_MILLIS = 500;
+
+    // Transfer Metrics
+    public static final int DEFAULT_METRICS_MAXIMUM_TRANSFER_RECORDS = 1000;
+
+    // Storage Listing
+    public static final int DEFAULT_LISTING_PAGE_SIZE = 1000;
+    public static final int DEFAULT_LISTING_PREFETCH_PAGES = 2;
+
+    // Skip Identical
+    public static final boolean DEFAULT_SKIP_IDENTICAL = false;
+    public static final long DEFAULT_CONTENT_HASH_CACHE_MAX_ENTRIES = 100000;
+    public static final boolean DEFAULT_CONTENT_HASH_ATTRIBUTES = true;
+    public static final String CONTENT_HASH_ATTRIBUTE_NAME = "cpms.contentmd5";
 
     // Telemetry
     public static final int HEARTBEAT_INTERVAL_IN_SECONDS = 5;
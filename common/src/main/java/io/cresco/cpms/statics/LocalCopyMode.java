@@ -0,0 +1,5 @@
+package io.cresco.cpms.statics;
+
+public enum LocalCopyMode {
+    COPY, CLONE, HARDLINK
+}
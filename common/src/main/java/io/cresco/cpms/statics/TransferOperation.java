@@ -0,0 +1,5 @@
+package io.cresco.cpms.statics;
+
+public enum TransferOperation {
+    HEAD, LIST, PUT, PUT_PART, GET, GET_RANGE, COPY, COMMIT, DELETE
+}
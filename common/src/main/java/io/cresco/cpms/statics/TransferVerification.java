@@ -0,0 +1,5 @@
+package io.cresco.cpms.statics;
+
+public enum TransferVerification {
+    INLINE, REREAD, REREAD_DIRECT
+}
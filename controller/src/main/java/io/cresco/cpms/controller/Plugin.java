@@ -7,6 +7,7 @@ import io.cresco.cpms.logging.CrescoCPMSLoggerBuilder;
 import io.cresco.cpms.controller.listeners.HeartbeatListener;
 import io.cresco.cpms.controller.listeners.LogListener;
 import io.cresco.cpms.controller.listeners.TaskOutputListener;
+import io.cresco.cpms.controller.listeners.TransferMetricsListener;
 import io.cresco.library.agent.AgentService;
 import io.cresco.library.messaging.MsgEvent;
 import io.cresco.library.plugin.PluginBuilder;
@@ -37,6 +38,7 @@ public class Plugin implements PluginService {
     private HeartbeatListener heartbeatListener;
     private LogListener logListener;
     private TaskOutputListener taskOutputListener;
+    private TransferMetricsListener transferMetricsListener;
     private CrescoSessionFactoryManager sessionFactoryManager;
 
     @Override
@@ -74,6 +76,9 @@ public class Plugin implements PluginService {
             taskOutputListener = new TaskOutputListener(pluginBuilder);
             taskOutputListener.start();
 
+            transferMetricsListener = new TransferMetricsListener(pluginBuilder);
+            transferMetricsListener.start();
+
             Thread.sleep(1000);
             cpmsLogger.cpmsHeartbeat();
             cpmsLogger.cpmsInfo("Test log message");
@@ -109,6 +114,11 @@ public class Plugin implements PluginService {
             taskOutputListener.stop();
         }
 
+        if (transferMetricsListener != null) {
+            logger.info("Stopping transfer metrics listener");
+            transferMetricsListener.stop();
+        }
+
         if (sessionFactoryManager != null) {
             logger.info("Stopping Cresco session factory manager");
             sessionFactoryManager.close();
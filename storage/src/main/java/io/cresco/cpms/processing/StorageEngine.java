@@ -4,6 +4,7 @@ import io.cresco.cpms.exceptions.StorageExecutionException;
 import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
 import io.cresco.cpms.logging.CPMSLogger;
 import io.cresco.cpms.scripting.StorageTask;
+import io.cresco.cpms.statics.ArchiveCompression;
 import io.cresco.cpms.statics.BagItType;
 import io.cresco.cpms.storage.encapsulation.Archiver;
 import io.cresco.cpms.storage.encapsulation.ArchiverBuilder;
@@ -11,8 +12,13 @@ import io.cresco.cpms.storage.transfer.*;
 import io.cresco.cpms.storage.utilities.StorageParameters;
 import io.cresco.cpms.storage.utilities.StorageProvider;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @SuppressWarnings({"unused", "WeakerAccess", "BooleanMethodIsAlwaysInverted", "SameParameterValue"})
 public class StorageEngine {
@@ -46,6 +52,31 @@ public class StorageEngine {
             logger.cpmsError("Submitted storage job cannot be null");
             return new StorageTaskResultBuilder().withSuccess(false).build();
         }
+        TransferMetrics transferMetrics = new TransferMetricsBuilder()
+                .withParent(TransferMetrics.getGlobalInstance()).withLogger(logger).build();
+        TransferMetricsSummary summary = null;
+        try {
+            StorageTaskResult storageTaskResult = runStorageJob(storageTask, transferMetrics);
+            summary = transferMetrics.getSummary();
+            if (storageTaskResult != null)
+                storageTaskResult.setTransferMetrics(summary);
+            return storageTaskResult;
+        } finally {
+            if (summary == null)
+                summary = transferMetrics.getSummary();
+            logger.cpmsTransferMetrics(storageTask, summary.toJson());
+        }
+    }
+
+    /**
+     * Executes a supplied storage job, recording its requests and transfers
+     * @param storageTask The storage job script to execute
+     * @param transferMetrics The metrics the job's transfer adapters record into
+     * @return A StorageTaskResult object with information about the success of the job execution
+     * @throws ExecutionException If there was a failure in job execution
+     */
+    private StorageTaskResult runStorageJob(StorageTask storageTask, TransferMetrics transferMetrics)
+            throws ExecutionException, StorageExecutionException {
         switch(storageTask.getAction()) {
             case "list": {
                 logger.info("List task");
@@ -54,22 +85,24 @@ public class StorageEngine {
                 logger.trace("Source Container: {}", sourceStorageParameters.getContainer());
                 logger.trace("Source Prefix: {}", sourceStorageParameters.getPrefix());
                 TransferPath sourceTransferPath = sourceStorageParameters.getTransferPath();
-                TransferAdapter transferAdapter;
-                if (sourceStorageParameters.getStorageProvider() == StorageProvider.AWS) {
-                    transferAdapter = new S3ObjectStorageBuilder().withLogger(logger).build();
-                } else if (sourceStorageParameters.getStorageProvider() == StorageProvider.Azure) {
-                    transferAdapter = new AzureBlobStorageBuilder().withLogger(logger).build();
-                } else if (sourceStorageParameters.getStorageProvider() == StorageProvider.remote) {
-                    transferAdapter = new RemoteFileSystemStorageBuilder().withLogger(logger).build();
-                } else if (sourceStorageParameters.getStorageProvider() == StorageProvider.local) {
-                    transferAdapter = new LocalFileSystemStorageBuilder().withLogger(logger).build();
-                } else {
+                TransferAdapter transferAdapter = buildTransferAdapter(sourceStorageParameters, storageTask,
+                        transferMetrics);
+                if (transferAdapter == null) {
                     logger.error("Storage provider [{}] is not implemented yet!",
                             sourceStorageParameters.getStorageProvider().name());
                     return new StorageTaskResultBuilder().withSuccess(false).withSourcePath(storageTask.getSourcePath())
                             .build();
                 }
-                transferAdapter.listFilesInPath(sourceTransferPath).forEach(System.out::println);
+                try (Stream<String> files = transferAdapter.streamFilesInPath(sourceTransferPath)) {
+                    files.forEach(System.out::println);
+                } catch (RuntimeException e) {
+                    logger.cpmsError("Failed to list [{}]: {}", storageTask.getSourcePath(), e.getMessage());
+                    return new StorageTaskResultBuilder()
+                            .withSuccess(false)
+                            .withSourcePath(storageTask.getSourcePath())
+                            .withErrorMessage(e.getMessage())
+                            .build();
+                }
                 return new StorageTaskResultBuilder().withSuccess(true).withSourcePath(storageTask.getSourcePath())
                         .build();
             }
@@ -102,6 +135,7 @@ public class StorageEngine {
                         !destinationStorageParameters.getPrefix().isEmpty())
                     destinationKey += destinationStorageParameters.getPrefix() + "/";
                 Path localWorkingPath = sourceStorageParameters.getPath();
+                Archiver streamingArchiver = null;
                 if (Files.isDirectory(localWorkingPath)) {
                     Archiver archiver = new ArchiverBuilder()
                             .withBagItType(storageTask.getDestinationArchiving())
@@ -109,8 +143,9 @@ public class StorageEngine {
                             .withBagItHiddenfiles(storageTask.getDestinationHiddenFiles())
                             .withArchiveCompression(storageTask.getDestinationCompression())
                             .build();
-                    if (storageTask.getDestinationArchiving() != null &&
-                            !storageTask.getDestinationArchiving().equals(BagItType.None)) {
+                    boolean archived = storageTask.getDestinationArchiving() != null &&
+                            !storageTask.getDestinationArchiving().equals(BagItType.None);
+                    if (archived) {
                         logger.cpmsInfo("Archiving directory [{}]", localWorkingPath);
                         localWorkingPath = archiver.bagItUp(localWorkingPath).getFileName();
                         if (localWorkingPath == null || !Files.exists(localWorkingPath)) {
@@ -135,8 +170,12 @@ public class StorageEngine {
                                     .build();
                         }
                     }
-                    if (storageTask.getDestinationCompression() != null &&
-                            !storageTask.getDestinationArchiving().equals(BagItType.None)) {
+                    if (storageTask.getDestinationCompression() != null && archived &&
+                            storageTask.getDestinationStreaming() &&
+                            storageTask.getDestinationCompression() != ArchiveCompression.NONE) {
+                        logger.cpmsInfo("Streaming compressed directory [{}] to destination", localWorkingPath);
+                        streamingArchiver = archiver;
+                    } else if (storageTask.getDestinationCompression() != null && archived) {
                         logger.cpmsInfo("Compressing directory [{}]", localWorkingPath);
                         localWorkingPath = archiver.archive(localWorkingPath.toFile());
                         if (localWorkingPath == null || !Files.exists(localWorkingPath)) {
@@ -150,30 +189,20 @@ public class StorageEngine {
                                     .build();
                         }
                     }
-                    if (storageTask.getDestinationArchiving() != null) {
+                    if (storageTask.getDestinationArchiving() != null && streamingArchiver == null) {
                         logger.cpmsInfo("Reverting archiving on directory [{}]", localWorkingPath);
                         archiver.debagify(sourceStorageParameters.getPath());
                     }
                 }
-                destinationKey += localWorkingPath.getFileName();
+                destinationKey += (streamingArchiver != null) ?
+                        streamingArchiver.getArchiveFileName(localWorkingPath.toFile()) :
+                        localWorkingPath.getFileName();
                 logger.trace("Destination Key: {}",  destinationKey);
-                String finalDestinationKey;
                 TransferPath destinationTransferPath = new TransferPath(destinationStorageParameters.getContainer(),
                         destinationKey);
-                TransferAdapter transferAdapter;
-                if (destinationStorageParameters.getStorageProvider() == StorageProvider.AWS) {
-                    transferAdapter = new S3ObjectStorageBuilder().withLogger(logger).build();
-                    finalDestinationKey = StorageParameters.AWS_PREFIX;
-                } else if (destinationStorageParameters.getStorageProvider() == StorageProvider.Azure) {
-                    transferAdapter = new AzureBlobStorageBuilder().withLogger(logger).build();
-                    finalDestinationKey = StorageParameters.AZURE_PREFIX;
-                } else if (destinationStorageParameters.getStorageProvider() == StorageProvider.remote) {
-                    transferAdapter = new RemoteFileSystemStorageBuilder().withLogger(logger).build();
-                    finalDestinationKey = StorageParameters.REMOTE_PREFIX;
-                } else if (destinationStorageParameters.getStorageProvider() == StorageProvider.local) {
-                    transferAdapter = new LocalFileSystemStorageBuilder().withLogger(logger).build();
-                    finalDestinationKey = "";
-                } else {
+                TransferAdapter transferAdapter = buildTransferAdapter(destinationStorageParameters, storageTask,
+                        transferMetrics);
+                if (transferAdapter == null) {
                     logger.error("Storage provider [{}] is not implemented yet!",
                             destinationStorageParameters.getStorageProvider().name());
                     return new StorageTaskResultBuilder()
@@ -181,8 +210,40 @@ public class StorageEngine {
                             .withSourcePath(storageTask.getSourcePath())
                             .build();
                 }
+                String finalDestinationKey = switch (destinationStorageParameters.getStorageProvider()) {
+                    case AWS -> StorageParameters.AWS_PREFIX;
+                    case Azure -> StorageParameters.AZURE_PREFIX;
+                    case remote -> StorageParameters.REMOTE_PREFIX;
+                    default -> "";
+                };
                 try {
-                    if (transferAdapter.uploadFile(localWorkingPath, destinationTransferPath)) {
+                    boolean uploaded;
+                    if (streamingArchiver != null) {
+                        Archiver archiver = streamingArchiver;
+                        File archiveSource = localWorkingPath.toFile();
+                        try {
+                            uploaded = transferAdapter.uploadStream(out -> archiver.archive(out, archiveSource),
+                                    archiver.estimateArchiveSize(archiveSource), destinationTransferPath);
+                        } finally {
+                            if (storageTask.getDestinationArchiving() != null) {
+                                logger.cpmsInfo("Reverting archiving on directory [{}]", localWorkingPath);
+                                archiver.debagify(sourceStorageParameters.getPath());
+                            }
+                        }
+                    } else if (Files.isDirectory(localWorkingPath) &&
+                            transferAdapter instanceof AzureBlobStorage azureBlobStorage) {
+                        BatchTransferResult batchTransferResult = azureBlobStorage.uploadDirectory(localWorkingPath,
+                                destinationTransferPath);
+                        uploaded = batchTransferResult.isSuccess();
+                    } else if (Files.isDirectory(localWorkingPath) &&
+                            transferAdapter instanceof RemoteFileSystemStorage remoteFileSystemStorage) {
+                        BatchTransferResult batchTransferResult = remoteFileSystemStorage.syncDirectory(
+                                localWorkingPath, destinationTransferPath);
+                        uploaded = batchTransferResult.isSuccess();
+                    } else {
+                        uploaded = transferAdapter.uploadFile(localWorkingPath, destinationTransferPath);
+                    }
+                    if (uploaded) {
                         if (destinationStorageParameters.getContainer() != null)
                             if (destinationStorageParameters.getStorageProvider() == StorageProvider.AWS ||
                                     //destinationStorageParameters.getStorageProvider() == StorageProvider.GCS ||
@@ -236,14 +297,9 @@ public class StorageEngine {
                 logger.trace("Source Container: {}", sourceStorageParameters.getContainer());
                 logger.trace("Source Prefix: {}", sourceStorageParameters.getPrefix());
                 TransferPath sourceTransferPath = sourceStorageParameters.getTransferPath();
-                TransferAdapter transferAdapter;
-                if (sourceStorageParameters.getStorageProvider() == StorageProvider.AWS) {
-                    transferAdapter = new S3ObjectStorageBuilder().withLogger(logger).build();
-                } else if (sourceStorageParameters.getStorageProvider() == StorageProvider.Azure) {
-                    transferAdapter = new AzureBlobStorageBuilder().withLogger(logger).build();
-                } else if (sourceStorageParameters.getStorageProvider() == StorageProvider.local) {
-                    transferAdapter = new LocalFileSystemStorageBuilder().withLogger(logger).build();
-                } else {
+                TransferAdapter transferAdapter = buildTransferAdapter(sourceStorageParameters, storageTask,
+                        transferMetrics);
+                if (transferAdapter == null) {
                     logger.error("Storage provider [{}] is not implemented yet!",
                             sourceStorageParameters.getStorageProvider().name());
                     return new StorageTaskResultBuilder().withSuccess(false).build();
@@ -251,6 +307,15 @@ public class StorageEngine {
                 StorageParameters destinationStorageParameters = new StorageParameters(storageTask.getDestinationPath());
                 logger.trace("Source Path: {}", storageTask.getDestinationPath());
                 logger.trace("Source Storage Provider: {}", destinationStorageParameters.getStorageProvider());
+                Path sourceFileName = getObjectFileName(sourceTransferPath);
+                if (storageTask.getDestinationStreaming() && sourceFileName != null &&
+                        new ArchiverBuilder().withLogger(logger).build().isArchive(sourceFileName))
+                    return downloadAndExtract(storageTask, transferAdapter, sourceTransferPath, sourceFileName,
+                            destinationStorageParameters.getPath());
+                if (transferAdapter instanceof AzureBlobStorage azureBlobStorage &&
+                        sourceTransferPath.getPath() != null && sourceTransferPath.getPath().endsWith("/"))
+                    return downloadPrefix(storageTask, azureBlobStorage, sourceTransferPath,
+                            destinationStorageParameters.getPath());
                 try {
                     Path finalDestinationPath = transferAdapter.downloadFile(sourceTransferPath, destinationStorageParameters.getPath());
                     if (finalDestinationPath != null) {
@@ -331,6 +396,101 @@ public class StorageEngine {
                             .build();
                 }
             }
+            case "delete": {
+                logger.info("Delete task");
+                if (storageTask.getSourcePath() == null || storageTask.getSourcePath().isEmpty()) {
+                    logger.cpmsError("Source path to delete [{}] cannot be empty", storageTask.getSourcePath());
+                    return new StorageTaskResultBuilder().withSuccess(false).build();
+                }
+                StorageParameters sourceStorageParameters = new StorageParameters(storageTask.getSourcePath());
+                logger.trace("Source Storage Provider: {}", sourceStorageParameters.getStorageProvider());
+                logger.trace("Source Container: {}", sourceStorageParameters.getContainer());
+                logger.trace("Source Prefix: {}", sourceStorageParameters.getPrefix());
+                TransferPath sourceTransferPath = sourceStorageParameters.getTransferPath();
+                TransferAdapter transferAdapter = buildTransferAdapter(sourceStorageParameters, storageTask,
+                        transferMetrics);
+                if (transferAdapter == null) {
+                    logger.error("Storage provider [{}] is not implemented yet!",
+                            sourceStorageParameters.getStorageProvider().name());
+                    return new StorageTaskResultBuilder().withSuccess(false).withSourcePath(storageTask.getSourcePath())
+                            .build();
+                }
+                try {
+                    DeleteResult deleteResult = transferAdapter.deletePath(sourceTransferPath);
+                    if (!deleteResult.isSuccess()) {
+                        deleteResult.getFailures().forEach((key, reason) ->
+                                logger.cpmsError("Failed to delete [{}]: {}", key, reason));
+                        return new StorageTaskResultBuilder()
+                                .withSuccess(false)
+                                .withSourcePath(storageTask.getSourcePath())
+                                .withErrorMessage(String.format("Failed to delete %d of %d file(s) from [%s]",
+                                        deleteResult.getFailedCount(),
+                                        deleteResult.getFailedCount() + deleteResult.getDeletedCount(),
+                                        storageTask.getSourcePath()))
+                                .build();
+                    }
+                    return new StorageTaskResultBuilder()
+                            .withSuccess(true)
+                            .withSourcePath(storageTask.getSourcePath())
+                            .build();
+                } catch (IOException e) {
+                    logger.error("Failed to delete path due to IOException!");
+                    return new StorageTaskResultBuilder()
+                            .withSuccess(false)
+                            .withSourcePath(storageTask.getSourcePath())
+                            .withErrorMessage(e.getMessage())
+                            .build();
+                }
+            }
+            case "copy": {
+                logger.info("Copy task");
+                StorageParameters sourceStorageParameters = new StorageParameters(storageTask.getSourcePath());
+                logger.trace("Source Storage Provider: {}", sourceStorageParameters.getStorageProvider());
+                logger.trace("Source Container: {}", sourceStorageParameters.getContainer());
+                logger.trace("Source Prefix: {}", sourceStorageParameters.getPrefix());
+                StorageParameters destinationStorageParameters =
+                        new StorageParameters(storageTask.getDestinationPath());
+                logger.trace("Destination Storage Provider: {}", destinationStorageParameters.getStorageProvider());
+                logger.trace("Destination Container: {}", destinationStorageParameters.getContainer());
+                logger.trace("Destination Prefix: {}", destinationStorageParameters.getPrefix());
+                if (sourceStorageParameters.getStorageProvider() !=
+                        destinationStorageParameters.getStorageProvider()) {
+                    logger.cpmsError("Copies between storage providers [{}] and [{}] are not supported, " +
+                                    "use a download and an upload instead",
+                            sourceStorageParameters.getStorageProvider().name(),
+                            destinationStorageParameters.getStorageProvider().name());
+                    return new StorageTaskResultBuilder().withSuccess(false).withSourcePath(storageTask.getSourcePath())
+                            .withDestinationPath(storageTask.getDestinationPath()).build();
+                }
+                TransferAdapter transferAdapter = buildTransferAdapter(sourceStorageParameters, storageTask,
+                        transferMetrics);
+                if (transferAdapter == null) {
+                    logger.error("Storage provider [{}] is not implemented yet!",
+                            sourceStorageParameters.getStorageProvider().name());
+                    return new StorageTaskResultBuilder().withSuccess(false).withSourcePath(storageTask.getSourcePath())
+                            .withDestinationPath(storageTask.getDestinationPath()).build();
+                }
+                try {
+                    boolean copied = transferAdapter.copyPath(sourceStorageParameters.getTransferPath(),
+                            destinationStorageParameters.getTransferPath());
+                    StorageTaskResultBuilder storageTaskResultBuilder = new StorageTaskResultBuilder()
+                            .withSuccess(copied)
+                            .withSourcePath(storageTask.getSourcePath())
+                            .withDestinationPath(storageTask.getDestinationPath());
+                    if (!copied)
+                        storageTaskResultBuilder.withErrorMessage(String.format("Failed to copy [%s] to [%s]",
+                                storageTask.getSourcePath(), storageTask.getDestinationPath()));
+                    return storageTaskResultBuilder.build();
+                } catch (IOException e) {
+                    logger.error("Failed to copy path due to IOException!");
+                    return new StorageTaskResultBuilder()
+                            .withSuccess(false)
+                            .withSourcePath(storageTask.getSourcePath())
+                            .withDestinationPath(storageTask.getDestinationPath())
+                            .withErrorMessage(e.getMessage())
+                            .build();
+                }
+            }
             default: {
                 logger.cpmsError("An invalid StorageJob type [{}] was encountered", storageTask.getAction());
                 return new StorageTaskResultBuilder()
@@ -342,6 +502,215 @@ public class StorageEngine {
         }
     }
 
+    /**
+     * Builds the transfer adapter for a storage location, configured with the job's transfer settings
+     * @param storageParameters The location the adapter will transfer to or from
+     * @param storageTask The storage job the adapter is for
+     * @param transferMetrics The metrics the adapter records into
+     * @return The transfer adapter, or null if the location's storage provider is not implemented
+     * @throws StorageExecutionException If the adapter could not be configured
+     */
+    private TransferAdapter buildTransferAdapter(StorageParameters storageParameters, StorageTask storageTask,
+                                                 TransferMetrics transferMetrics) throws StorageExecutionException {
+        return switch (storageParameters.getStorageProvider()) {
+            case AWS -> new S3ObjectStorageBuilder().withLogger(logger)
+                    .withTransferPriority(storageTask.getPriority()).withTransferRun(storageTask.getId())
+                    .withBandwidthLimit(storageTask.getBandwidthLimit())
+                    .withRequestLimit(storageTask.getRequestLimit())
+                    .withTransferMetrics(transferMetrics)
+                    .withSkipIdentical(storageTask.getSkipIdentical())
+                    .withAdaptiveTransfers(storageTask.getAdaptiveTransfers())
+                    .build();
+            case Azure -> new AzureBlobStorageBuilder().withLogger(logger)
+                    .withTransferPriority(storageTask.getPriority()).withTransferRun(storageTask.getId())
+                    .withBandwidthLimit(storageTask.getBandwidthLimit())
+                    .withRequestLimit(storageTask.getRequestLimit())
+                    .withTransferMetrics(transferMetrics)
+                    .withSkipIdentical(storageTask.getSkipIdentical())
+                    .withAdaptiveTransfers(storageTask.getAdaptiveTransfers())
+                    .withBlockSize(storageTask.getBlockSize())
+                    .withMaxConcurrency(storageTask.getMaxConcurrency())
+                    .withMaxSingleUploadSize(storageTask.getMaxSingleUploadSize())
+                    .build();
+            case remote -> new RemoteFileSystemStorageBuilder().withLogger(logger)
+                    .withTransferPriority(storageTask.getPriority()).withTransferRun(storageTask.getId())
+                    .withBandwidthLimit(storageTask.getBandwidthLimit())
+                    .withRequestLimit(storageTask.getRequestLimit())
+                    .withTransferMetrics(transferMetrics)
+                    .withSkipIdentical(storageTask.getSkipIdentical())
+                    .build();
+            case local -> new LocalFileSystemStorageBuilder().withLogger(logger)
+                    .withTransferPriority(storageTask.getPriority()).withTransferRun(storageTask.getId())
+                    .withBandwidthLimit(storageTask.getBandwidthLimit())
+                    .withRequestLimit(storageTask.getRequestLimit())
+                    .withTransferMetrics(transferMetrics)
+                    .withSkipIdentical(storageTask.getSkipIdentical())
+                    .build();
+            default -> null;
+        };
+    }
+
+    /**
+     * Downloads an archived object straight into its extracted form, verifying any BagIt data against the checksums
+     * computed while the files were written. A folder this download created is removed again if the extraction or
+     * the verification fails.
+     * @param storageTask The download job being executed
+     * @param transferAdapter The adapter of the source storage provider
+     * @param sourceTransferPath The archived object to download
+     * @param sourceFileName The file name of the archived object
+     * @param destination The local directory to extract into
+     * @return A StorageTaskResult object with information about the success of the download
+     */
+    private StorageTaskResult downloadAndExtract(StorageTask storageTask, TransferAdapter transferAdapter,
+                                                 TransferPath sourceTransferPath, Path sourceFileName,
+                                                 Path destination) {
+        Archiver archiver = new ArchiverBuilder().withLogger(logger).build();
+        String archiveName = sourceFileName.toString();
+        String folderName = archiveName;
+        for (String suffix : new String[]{".tar.gz", ".tgz", ".tar"})
+            if (archiveName.endsWith(suffix)) {
+                folderName = archiveName.substring(0, archiveName.length() - suffix.length());
+                break;
+            }
+        Path finalDestinationFolder = destination.resolve(folderName);
+        boolean existingFolder = Files.exists(finalDestinationFolder);
+        logger.cpmsInfo("Streaming [{}] into [{}]", sourceTransferPath, finalDestinationFolder);
+        Map<Path, Map<String, String>> checksums;
+        try {
+            Files.createDirectories(destination);
+            try (InputStream in = transferAdapter.downloadStream(sourceTransferPath)) {
+                checksums = archiver.extract(in, destination.toFile());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to download file due to IOException!");
+            if (!existingFolder)
+                discardExtraction(finalDestinationFolder);
+            return new StorageTaskResultBuilder()
+                    .withSuccess(false)
+                    .withSourcePath(storageTask.getSourcePath())
+                    .withDestinationPath(storageTask.getDestinationPath())
+                    .withErrorMessage(e.getMessage())
+                    .build();
+        }
+        if (checksums == null || !Files.exists(finalDestinationFolder)) {
+            logger.cpmsError("Failed to unbox [{}] to [{}]", sourceTransferPath, finalDestinationFolder);
+            if (!existingFolder)
+                discardExtraction(finalDestinationFolder);
+            return new StorageTaskResultBuilder()
+                    .withSuccess(false)
+                    .withSourcePath(storageTask.getSourcePath())
+                    .withDestinationPath(storageTask.getDestinationPath())
+                    .withErrorMessage(String.format("Failed to unbox [%s] to [%s]", sourceTransferPath,
+                            finalDestinationFolder))
+                    .build();
+        }
+        if (archiver.isBag(finalDestinationFolder)) {
+            logger.cpmsInfo("Verifying [{}] using BagIt data", finalDestinationFolder);
+            if (!archiver.verifyBag(finalDestinationFolder, checksums)) {
+                logger.cpmsError("Failed to verify [{}] using BagIt data", finalDestinationFolder);
+                if (!existingFolder)
+                    discardExtraction(finalDestinationFolder);
+                return new StorageTaskResultBuilder()
+                        .withSuccess(false)
+                        .withSourcePath(storageTask.getSourcePath())
+                        .withDestinationPath(storageTask.getDestinationPath())
+                        .withErrorMessage(String.format("Failed to verify [%s] using BagIt data",
+                                finalDestinationFolder))
+                        .build();
+            }
+            logger.cpmsInfo("Reverting [{}] to original format", finalDestinationFolder);
+            archiver.debagify(finalDestinationFolder);
+        }
+        return new StorageTaskResultBuilder()
+                .withSuccess(true)
+                .withSourcePath(storageTask.getSourcePath())
+                .withDestinationPath(finalDestinationFolder.toAbsolutePath().toString())
+                .build();
+    }
+
+    /**
+     * Removes what a failed extraction wrote beneath a folder, along with the folder itself. Symbolic links are
+     * removed without following them.
+     * @param folder The folder the archive was being extracted into
+     */
+    private void discardExtraction(Path folder) {
+        if (!Files.exists(folder, LinkOption.NOFOLLOW_LINKS))
+            return;
+        logger.cpmsInfo("Removing partially extracted [{}]", folder);
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    logger.error("Failed to remove [{}]: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Failed to clean up [{}]: {}", folder, e.getMessage());
+        }
+    }
+
+    /**
+     * @param transferPath A path on a storage provider
+     * @return The file name the path's object ends in, or null if the path names only a container or a root
+     */
+    private static Path getObjectFileName(TransferPath transferPath) {
+        if (transferPath.getPath() == null || transferPath.getPath().isEmpty())
+            return null;
+        return Paths.get(transferPath.getPath()).getFileName();
+    }
+
+    /**
+     * Downloads every blob beneath an Azure prefix as one batch of concurrent transfers
+     * @param storageTask The download job being executed
+     * @param azureBlobStorage The adapter of the source storage account
+     * @param sourceTransferPath The prefix to download
+     * @param destination The local directory to download into
+     * @return A StorageTaskResult object with information about the success of the download
+     */
+    private StorageTaskResult downloadPrefix(StorageTask storageTask, AzureBlobStorage azureBlobStorage,
+                                             TransferPath sourceTransferPath, Path destination) {
+        try {
+            BatchTransferResult batchTransferResult = azureBlobStorage.downloadPrefix(sourceTransferPath,
+                    destination);
+            if (!batchTransferResult.isSuccess()) {
+                logger.cpmsError("Failed to download {} of the files in [{}]", batchTransferResult.getFailedCount(),
+                        sourceTransferPath);
+                return new StorageTaskResultBuilder()
+                        .withSuccess(false)
+                        .withSourcePath(storageTask.getSourcePath())
+                        .withDestinationPath(storageTask.getDestinationPath())
+                        .withErrorMessage(String.format("Failed to download %d of %d files",
+                                batchTransferResult.getFailedCount(), batchTransferResult.getFailedCount() +
+                                        batchTransferResult.getTransferredCount()))
+                        .build();
+            }
+            return new StorageTaskResultBuilder()
+                    .withSuccess(true)
+                    .withSourcePath(storageTask.getSourcePath())
+                    .withDestinationPath(destination.toAbsolutePath().toString())
+                    .build();
+        } catch (IOException e) {
+            logger.error("Failed to download files due to IOException!");
+            return new StorageTaskResultBuilder()
+                    .withSuccess(false)
+                    .withSourcePath(storageTask.getSourcePath())
+                    .withDestinationPath(storageTask.getDestinationPath())
+                    .withErrorMessage(e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Releases the node-wide storage resources shared between storage jobs, such as pooled provider clients. Should be
+     * called once by the owning CLI or plugin when it stops.
+     */
+    public static void shutdown() {
+        S3ClientManager.getInstance().shutdown();
+        AzureClientManager.getInstance().shutdown();
+        SftpSessionManager.getInstance().shutdown();
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
@@ -1,16 +1,20 @@
 package io.cresco.cpms.processing;
 
+import io.cresco.cpms.storage.transfer.TransferMetricsSummary;
+
 public class StorageTaskResult {
     private boolean success;
     private String errorMessage;
     private String sourcePath;
     private String destinationPath;
+    private TransferMetricsSummary transferMetrics;
 
     public StorageTaskResult(StorageTaskResultBuilder builder) {
         this.success = builder.getSuccess();
         this.errorMessage = builder.getErrorMessage();
         this.sourcePath = builder.getSourcePath();
         this.destinationPath = builder.getDestinationPath();
+        this.transferMetrics = builder.getTransferMetrics();
     }
 
     public boolean getSuccess() {
@@ -28,4 +32,26 @@ public class StorageTaskResult {
     public String getDestinationPath() {
         return destinationPath;
     }
+
+    /**
+     * @return The requests, throughput and time breakdown of the task's transfers, or null if none were recorded
+     */
+    public TransferMetricsSummary getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    /**
+     * @return The number of files left in place because the destination already held identical content
+     */
+    public long getSkipped() {
+        return (transferMetrics != null) ? transferMetrics.getSkipped() : 0L;
+    }
+
+    public long getSkippedBytes() {
+        return (transferMetrics != null) ? transferMetrics.getSkippedBytes() : 0L;
+    }
+
+    void setTransferMetrics(TransferMetricsSummary transferMetrics) {
+        this.transferMetrics = transferMetrics;
+    }
 }
@@ -1,6 +1,7 @@
 package io.cresco.cpms.processing;
 
 import io.cresco.cpms.storage.transfer.S3ObjectStorage;
+import io.cresco.cpms.storage.transfer.TransferMetricsSummary;
 
 public class StorageTaskResultBuilder {
     private boolean success;
@@ -8,6 +9,7 @@ public class StorageTaskResultBuilder {
 
     private String sourcePath;
     private String destinationPath;
+    private TransferMetricsSummary transferMetrics;
 
     public StorageTaskResultBuilder() {
         this.success = false;
@@ -33,6 +35,11 @@ public class StorageTaskResultBuilder {
         return this;
     }
 
+    public StorageTaskResultBuilder withTransferMetrics(TransferMetricsSummary transferMetrics) {
+        this.transferMetrics = transferMetrics;
+        return this;
+    }
+
     public StorageTaskResult build() {
         StorageTaskResult storageTaskResult = new StorageTaskResult(this);
         validateStorageTaskResultObject(storageTaskResult);
@@ -58,4 +65,8 @@ public class StorageTaskResultBuilder {
     public String getDestinationPath() {
         return destinationPath;
     }
+
+    public TransferMetricsSummary getTransferMetrics() {
+        return transferMetrics;
+    }
 }
@@ -3,6 +3,8 @@ package io.cresco.cpms.scripting;
 import io.cresco.cpms.statics.ArchiveCompression;
 import io.cresco.cpms.statics.BagItHashingAlgorithm;
 import io.cresco.cpms.statics.BagItType;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferPriority;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Map;
@@ -18,6 +20,15 @@ public class StorageTask implements ScriptedTask {
     private BagItHashingAlgorithm destinationHashing;
     private final boolean destinationHiddenFiles;
     private ArchiveCompression destinationCompression;
+    private final boolean destinationStreaming;
+    private final TransferPriority priority;
+    private final long bandwidthLimit;
+    private final double requestLimit;
+    private final boolean adaptiveTransfers;
+    private final long blockSize;
+    private final int maxConcurrency;
+    private final long maxSingleUploadSize;
+    private final boolean skipIdentical;
     private final String storageTaskJSON;
 
     public StorageTask(Map<String, String> storageTaskMap) throws ScriptException {
@@ -50,12 +61,14 @@ public class StorageTask implements ScriptedTask {
                     String.format("Storage task [%s] is missing required parameter [action]", getName())
             );
         this.action = storageTaskScript.action;
-        if ((getAction().equals("upload") || getAction().equals("download")) && StringUtils.isBlank(storageTaskScript.sourcePath))
+        if ((getAction().equals("upload") || getAction().equals("download") || getAction().equals("copy") ||
+                getAction().equals("delete")) && StringUtils.isBlank(storageTaskScript.sourcePath))
             throw new ScriptException(
                     String.format("Storage task [%s] is missing required parameter [sourcePath]", getName())
             );
         this.sourcePath = storageTaskScript.sourcePath;
-        if ((getAction().equals("upload") || getAction().equals("download")) && StringUtils.isBlank(storageTaskScript.destinationPath))
+        if ((getAction().equals("upload") || getAction().equals("download") || getAction().equals("copy")) &&
+                StringUtils.isBlank(storageTaskScript.destinationPath))
             throw new ScriptException(
                     String.format("Storage task [%s] is missing required parameter [destinationPath]", getName())
             );
@@ -67,6 +80,44 @@ public class StorageTask implements ScriptedTask {
         this.destinationHiddenFiles = storageTaskScript.destinationHiddenFiles;
         if (storageTaskScript.destinationCompression != null)
             this.destinationCompression = ArchiveCompression.valueOf(storageTaskScript.destinationCompression);
+        this.destinationStreaming = (storageTaskScript.destinationStreaming != null) ?
+                storageTaskScript.destinationStreaming : CPMSStatics.DEFAULT_STREAMED_ARCHIVE_UPLOADS;
+        this.priority = (storageTaskScript.priority != null) ?
+                TransferPriority.valueOf(storageTaskScript.priority) : CPMSStatics.DEFAULT_TRANSFER_PRIORITY;
+        if (storageTaskScript.bandwidthLimit != null && storageTaskScript.bandwidthLimit < 0)
+            throw new ScriptException(
+                    String.format("Storage task [%s] has a negative [bandwidthLimit]", getName())
+            );
+        this.bandwidthLimit = (storageTaskScript.bandwidthLimit != null) ?
+                storageTaskScript.bandwidthLimit : CPMSStatics.DEFAULT_BANDWIDTH_LIMIT;
+        if (storageTaskScript.requestLimit != null && storageTaskScript.requestLimit < 0)
+            throw new ScriptException(
+                    String.format("Storage task [%s] has a negative [requestLimit]", getName())
+            );
+        this.requestLimit = (storageTaskScript.requestLimit != null) ?
+                storageTaskScript.requestLimit : CPMSStatics.DEFAULT_REQUEST_LIMIT;
+        this.adaptiveTransfers = (storageTaskScript.adaptiveTransfers != null) ?
+                storageTaskScript.adaptiveTransfers : CPMSStatics.DEFAULT_ADAPTIVE_TRANSFERS;
+        if (storageTaskScript.blockSize != null && storageTaskScript.blockSize < 0)
+            throw new ScriptException(
+                    String.format("Storage task [%s] has a negative [blockSize]", getName())
+            );
+        this.blockSize = (storageTaskScript.blockSize != null) ?
+                storageTaskScript.blockSize : CPMSStatics.DEFAULT_AZURE_BLOCK_SIZE;
+        if (storageTaskScript.maxConcurrency != null && storageTaskScript.maxConcurrency < 0)
+            throw new ScriptException(
+                    String.format("Storage task [%s] has a negative [maxConcurrency]", getName())
+            );
+        this.maxConcurrency = (storageTaskScript.maxConcurrency != null) ?
+                storageTaskScript.maxConcurrency : CPMSStatics.DEFAULT_AZURE_MAX_CONCURRENCY;
+        if (storageTaskScript.maxSingleUploadSize != null && storageTaskScript.maxSingleUploadSize <= 0)
+            throw new ScriptException(
+                    String.format("Storage task [%s] has a non-positive [maxSingleUploadSize]", getName())
+            );
+        this.maxSingleUploadSize = (storageTaskScript.maxSingleUploadSize != null) ?
+                storageTaskScript.maxSingleUploadSize : CPMSStatics.DEFAULT_AZURE_MAX_SINGLE_UPLOAD_SIZE;
+        this.skipIdentical = (storageTaskScript.skipIdentical != null) ?
+                storageTaskScript.skipIdentical : CPMSStatics.DEFAULT_SKIP_IDENTICAL;
     }
 
     public String getId() { return id; }
@@ -107,6 +158,42 @@ public class StorageTask implements ScriptedTask {
         return destinationCompression;
     }
 
+    public boolean getDestinationStreaming() {
+        return destinationStreaming;
+    }
+
+    public TransferPriority getPriority() {
+        return priority;
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public double getRequestLimit() {
+        return requestLimit;
+    }
+
+    public boolean getAdaptiveTransfers() {
+        return adaptiveTransfers;
+    }
+
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public long getMaxSingleUploadSize() {
+        return maxSingleUploadSize;
+    }
+
+    public boolean getSkipIdentical() {
+        return skipIdentical;
+    }
+
     public String getStorageTaskJSON() {
         return storageTaskJSON;
     }
@@ -125,7 +212,16 @@ public class StorageTask implements ScriptedTask {
                         \tDestination Archiving: %s
                         \tDestination Hashing: %s
                         \tDestination Hidden Files: %b
-                        \tDestination Compression: %s""",
+                        \tDestination Compression: %s
+                        \tDestination Streaming: %b
+                        \tPriority: %s
+                        \tBandwidth Limit: %d bytes/s
+                        \tRequest Limit: %.1f requests/s
+                        \tAdaptive Transfers: %b
+                        \tBlock Size: %d bytes
+                        \tMax Concurrency: %d
+                        \tMax Single Upload Size: %d bytes
+                        \tSkip Identical: %b""",
                 getId(), getName(),
                 getAction(),
                 getSourcePath(),
@@ -133,7 +229,16 @@ public class StorageTask implements ScriptedTask {
                 getDestinationArchiving(),
                 getDestinationHashing(),
                 getDestinationHiddenFiles(),
-                getDestinationCompression()
+                getDestinationCompression(),
+                getDestinationStreaming(),
+                getPriority(),
+                getBandwidthLimit(),
+                getRequestLimit(),
+                getAdaptiveTransfers(),
+                getBlockSize(),
+                getMaxConcurrency(),
+                getMaxSingleUploadSize(),
+                getSkipIdentical()
         );
     }
 }
@@ -50,9 +50,36 @@ public class StorageTaskScript extends ScriptedTaskScript {
     @SerializedName("destination_compression")
     public String destinationCompression;
 
+    @SerializedName("destination_streaming")
+    public Boolean destinationStreaming;
+
     @SerializedName("destination_path")
     public String destinationPath;
 
+    @SerializedName("priority")
+    public String priority;
+
+    @SerializedName("bandwidth_limit")
+    public Long bandwidthLimit;
+
+    @SerializedName("request_limit")
+    public Double requestLimit;
+
+    @SerializedName("adaptive_transfers")
+    public Boolean adaptiveTransfers;
+
+    @SerializedName("block_size")
+    public Long blockSize;
+
+    @SerializedName("max_concurrency")
+    public Integer maxConcurrency;
+
+    @SerializedName("max_single_upload_size")
+    public Long maxSingleUploadSize;
+
+    @SerializedName("skip_identical")
+    public Boolean skipIdentical;
+
     @Override
     public String toString() {
         Map<String, Object> toPrint = new HashMap<>();
@@ -66,6 +93,15 @@ public class StorageTaskScript extends ScriptedTaskScript {
         toPrint.put("destination_hashing", this.destinationHashing);
         toPrint.put("destination_hidden_files", this.destinationHiddenFiles);
         toPrint.put("destination_compression", this.destinationCompression);
+        toPrint.put("destination_streaming", this.destinationStreaming);
+        toPrint.put("priority", this.priority);
+        toPrint.put("bandwidth_limit", this.bandwidthLimit);
+        toPrint.put("request_limit", this.requestLimit);
+        toPrint.put("adaptive_transfers", this.adaptiveTransfers);
+        toPrint.put("block_size", this.blockSize);
+        toPrint.put("max_concurrency", this.maxConcurrency);
+        toPrint.put("max_single_upload_size", this.maxSingleUploadSize);
+        toPrint.put("skip_identical", this.skipIdentical);
         return toPrint.toString();
     }
 }
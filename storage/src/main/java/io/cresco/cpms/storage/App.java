@@ -13,6 +13,8 @@ import io.cresco.cpms.scripting.StorageTask;
 import io.cresco.cpms.scripting.StorageTaskScript;
 import io.cresco.cpms.statics.ArchiveCompression;
 import io.cresco.cpms.statics.BagItType;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferPriority;
 import io.cresco.cpms.storage.encapsulation.Archiver;
 import io.cresco.cpms.storage.encapsulation.ArchiverBuilder;
 import io.cresco.cpms.storage.transfer.*;
@@ -46,6 +48,15 @@ public class App {
                 .choices(BagItType.values()).setDefault(BagItType.None);
         parser.addArgument("-c", "--compress").type(new ReflectArgumentType<>(ArchiveCompression.class))
                 .choices(ArchiveCompression.values()).setDefault(ArchiveCompression.NONE);
+        parser.addArgument("-p", "--priority").type(new ReflectArgumentType<>(TransferPriority.class))
+                .choices(TransferPriority.values()).setDefault(TransferPriority.NORMAL);
+        parser.addArgument("-b", "--bandwidth-limit").type(Long.class).setDefault(0L);
+        parser.addArgument("-r", "--request-limit").type(Double.class).setDefault(0.0);
+        parser.addArgument("-t", "--tune").action(Arguments.storeTrue());
+        parser.addArgument("-k", "--block-size").type(Long.class).setDefault(0L);
+        parser.addArgument("-n", "--max-concurrency").type(Integer.class).setDefault(0);
+        parser.addArgument("-s", "--max-single-upload-size").type(Long.class)
+                .setDefault(CPMSStatics.DEFAULT_AZURE_MAX_SINGLE_UPLOAD_SIZE);
         parser.addArgument("command").nargs("?");
         parser.addArgument("parameters").nargs("*");
         Namespace ns = null;
@@ -59,6 +70,13 @@ public class App {
         Boolean verbose = ns.getBoolean("verbose");
         BagItType bagItType = ns.get("archive");
         ArchiveCompression archiveCompression = ns.get("compress");
+        TransferPriority transferPriority = ns.get("priority");
+        Long bandwidthLimit = ns.getLong("bandwidth_limit");
+        Double requestLimit = ns.getDouble("request_limit");
+        Boolean tune = ns.getBoolean("tune");
+        Long blockSize = ns.getLong("block_size");
+        Integer maxConcurrency = ns.getInt("max_concurrency");
+        Long maxSingleUploadSize = ns.getLong("max_single_upload_size");
         String command = ns.getString("command");
         List<String> parameters = ns.getList("parameters");
 
@@ -113,6 +131,7 @@ public class App {
             simpleLogger.info("\t- upload <local_path_or_file> <remote_path>");
             simpleLogger.info("\t- download <remote_path_or_object> <local_path>");
             simpleLogger.info("\t- copy <source_path_or_object> <destination_path>");
+            simpleLogger.info("\t- delete <path_or_object>");
             return;
         }
         logger.debug("Command: {}", command);
@@ -142,6 +161,18 @@ public class App {
                     return;
                 }
                 break;
+            case "copy":
+                if (parameters.size() != 2) {
+                    simpleLogger.info("copy usage: <source_path_or_object> <destination_path>");
+                    return;
+                }
+                break;
+            case "delete":
+                if (parameters.size() != 1) {
+                    simpleLogger.info("delete usage: <path_or_object>");
+                    return;
+                }
+                break;
         }
         logger.trace("Building StorageEngine instance");
         StorageEngine storageEngine;
@@ -177,6 +208,7 @@ public class App {
                     }
                     break;
                 case "list":
+                case "delete":
                     storageTaskJSON.put("source_path", parameters.getFirst());
                     break;
                 case "upload":
@@ -201,9 +233,18 @@ public class App {
                 storageTaskJSON.put("name", "cli-task-name");
                 storageTaskJSON.put("type", "storage");
                 storageTaskJSON.put("action", command);
+                storageTaskJSON.put("priority", transferPriority.name());
+                storageTaskJSON.put("bandwidth_limit", bandwidthLimit.toString());
+                storageTaskJSON.put("request_limit", requestLimit.toString());
+                storageTaskJSON.put("adaptive_transfers", tune.toString());
+                storageTaskJSON.put("block_size", blockSize.toString());
+                storageTaskJSON.put("max_concurrency", maxConcurrency.toString());
+                storageTaskJSON.put("max_single_upload_size", maxSingleUploadSize.toString());
                 storageTask =  new StorageTask(storageTaskJSON);
             }
             StorageTaskResult storageTaskResult = storageEngine.runStorageJob(storageTask);
+            if (verbose && storageTaskResult.getTransferMetrics() != null)
+                simpleLogger.info("\nTransfer metrics:\n{}", storageTaskResult.getTransferMetrics());
             if (storageTaskResult.getSuccess())
                 simpleLogger.info("\nSuccessfully completed storage job");
             else
@@ -211,6 +252,8 @@ public class App {
                         (verbose) ? "" : " Please rerun using -v for more information.");
         } catch (ExecutionException | ScriptException | StorageExecutionException e) {
             simpleLogger.error("\nERROR: Failed to execute storage job: {}", e.getMessage());
+        } finally {
+            StorageEngine.shutdown();
         }
     }
 }
@@ -10,6 +10,7 @@ import io.cresco.cpms.logging.CPMSLogger;
 import io.cresco.cpms.statics.ArchiveCompression;
 import io.cresco.cpms.statics.BagItHashingAlgorithm;
 import io.cresco.cpms.statics.BagItType;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
@@ -24,9 +25,14 @@ import org.jspecify.annotations.NonNull;
 import java.io.*;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
@@ -244,13 +250,24 @@ public class Archiver {
      * @return Whether the bag is valid or not
      */
     public boolean verifyBag(Path path) {
-        logger.trace("verifyBag({})", path);
+        return verifyBag(path, Collections.emptyMap());
+    }
+
+    /**
+     * Verifies the bag at the given path, using checksums computed while its files were extracted instead of reading
+     * those files again
+     * @param path Path of the bag to verify
+     * @param extractedChecksums Checksums returned by {@link #extract(InputStream, File)}
+     * @return Whether the bag is valid or not
+     */
+    public boolean verifyBag(Path path, Map<Path, Map<String, String>> extractedChecksums) {
+        logger.trace("verifyBag({}, {} known checksums)", path, extractedChecksums.size());
         LargeBagVerifier verifier = new LargeBagVerifier();
         Bag bag = readBag(path);
         if (bag == null)
             return false;
         try {
-            verifier.isValid(bag, bagitHiddenFiles);
+            verifier.isValid(bag, bagitHiddenFiles, extractedChecksums);
             verifier.close();
             return true;
         } catch (IOException e) {
@@ -390,6 +407,51 @@ public class Archiver {
         }
     }
 
+    /**
+     * Streams an archive of the given file(s) to an output stream instead of a local file, so the archive can be
+     * uploaded while it is being packed
+     * @param outputStream Stream to write the archive to, closed once the archive is complete
+     * @param files File(s) to pack into the archive
+     * @throws IOException Upon failure to read the files or write the archive
+     */
+    public void archive(OutputStream outputStream, File... files) throws IOException {
+        logger.trace("archive(stream, '{}'...)", (files.length > 0) ? files[0] : "NULL");
+        if (archiveCompression != ArchiveCompression.TAR && archiveCompression != ArchiveCompression.GZIP)
+            throw new IOException(String.format("Archive type [%s] cannot be streamed", archiveCompression));
+        try (TarArchiveOutputStream out = (archiveCompression == ArchiveCompression.GZIP) ?
+                getGZIPTarArchiveOutputStream(outputStream) : getTarArchiveOutputStream(outputStream)) {
+            for (File file : files)
+                addToArchiveCompression(out, file, ".");
+        }
+    }
+
+    /**
+     * Returns the name {@link #archive(File...)} would give the archive of a file
+     * @param file The file or directory to archive
+     * @return The archive's file name
+     */
+    public String getArchiveFileName(File file) {
+        return file.getName() + getCompressionFileExtension();
+    }
+
+    /**
+     * Estimates the size of an uncompressed archive of the given file(s): their contents plus a header and padding
+     * for every entry. Compression normally makes the archive smaller.
+     * @param files File(s) to pack into the archive
+     * @return The estimated archive size in bytes
+     * @throws IOException Upon failure to walk the files
+     */
+    public long estimateArchiveSize(File... files) throws IOException {
+        long size = 1024;
+        for (File file : files) {
+            try (Stream<Path> paths = Files.walk(file.toPath())) {
+                size += paths.mapToLong(path -> 1024 + (Files.isRegularFile(path) ? path.toFile().length() : 0))
+                        .sum();
+            }
+        }
+        return size;
+    }
+
     public void mtPack(Path path, File... files) throws IOException {
         logger.trace("mtPack('{}','{}')", path.toAbsolutePath(), StringUtils.join(files));
         try (TarArchiveOutputStream out = getTarArchiveOutputStream(path)) {
@@ -430,7 +492,11 @@ public class Archiver {
     }
 
     private TarArchiveOutputStream getTarArchiveOutputStream(Path path) throws IOException {
-        TarArchiveOutputStream taos = new TarArchiveOutputStream(Files.newOutputStream(path));
+        return getTarArchiveOutputStream(Files.newOutputStream(path));
+    }
+
+    private TarArchiveOutputStream getTarArchiveOutputStream(OutputStream outputStream) {
+        TarArchiveOutputStream taos = new TarArchiveOutputStream(outputStream);
         // TAR has an 8 gig file limit by default, this gets around that
         taos.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
         // TAR originally didn't support long file names, so enable the support for it
@@ -440,7 +506,11 @@ public class Archiver {
     }
 
     private TarArchiveOutputStream getGZIPTarArchiveOutputStream(Path path) throws IOException {
-        TarArchiveOutputStream taos = new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(path)));
+        return getGZIPTarArchiveOutputStream(Files.newOutputStream(path));
+    }
+
+    private TarArchiveOutputStream getGZIPTarArchiveOutputStream(OutputStream outputStream) throws IOException {
+        TarArchiveOutputStream taos = new TarArchiveOutputStream(new GzipCompressorOutputStream(outputStream));
         // TAR has an 8 gig file limit by default, this gets around that
         taos.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
         // TAR originally didn't support long file names, so enable the support for it
@@ -586,6 +656,42 @@ public class Archiver {
         }
     }
 
+    /**
+     * Extracts a TAR or GZIP'd TAR archive as it is read from a stream, so extraction starts with the first bytes to
+     * arrive and the archive itself never touches disk. Every file is hashed as it is written, using the configured
+     * BagIt hashing algorithm and the algorithm of any manifest already extracted, so the bag can then be verified
+     * with {@link #verifyBag(Path, Map)} without reading the files back. The stream is read to its end so any
+     * verification done by the stream itself completes.
+     * @param in Stream of the archive, gzip compression is detected from its leading bytes
+     * @param out Directory to extract into
+     * @return Checksums of every extracted file keyed by absolute path then message digest name, or null on failure
+     */
+    public Map<Path, Map<String, String>> extract(InputStream in, File out) {
+        logger.trace("extract(stream, '{}')", out.getAbsolutePath());
+        if (!out.exists() && !out.mkdirs()) {
+            logger.error("Failed to create output directory [{}]", out.getAbsolutePath());
+            return null;
+        }
+        try (BufferedInputStream source = new BufferedInputStream(in)) {
+            source.mark(2);
+            byte[] signature = new byte[2];
+            int signatureLength = source.readNBytes(signature, 0, 2);
+            source.reset();
+            boolean gzip = GzipCompressorInputStream.matches(signature, signatureLength);
+            logger.trace("Detected stream compression: {}", gzip ? "gzip" : "none");
+            try (TarArchiveInputStream fin = new TarArchiveInputStream(gzip ?
+                    new GzipCompressorInputStream(source) : source)) {
+                Map<Path, Map<String, String>> checksums = extractStreamWithChecksums(fin, out);
+                IOUtils.consume(source);
+                return checksums;
+            }
+        } catch (IOException ioe) {
+            logger.error("Failed to extract stream to [{}] - [{}:{}]\n{}", out, ioe.getClass().getCanonicalName(),
+                    ioe.getMessage(), ExceptionUtils.getStackTrace(ioe));
+            return null;
+        }
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
@@ -624,6 +730,57 @@ public class Archiver {
         }
     }
 
+    private Map<Path, Map<String, String>> extractStreamWithChecksums(TarArchiveInputStream fin, File out)
+            throws IOException {
+        Map<Path, Map<String, String>> checksums = new HashMap<>();
+        Set<String> algorithms = new LinkedHashSet<>();
+        if (bagitHashing != null)
+            algorithms.add(StandardSupportedAlgorithms.valueOf(bagitHashing.name()).getMessageDigestName());
+        Path root = out.toPath().toAbsolutePath().normalize();
+        byte[] buffer = new byte[1024 * 1024];
+        TarArchiveEntry entry;
+        while ((entry = fin.getNextEntry()) != null) {
+            if (entry.isDirectory())
+                continue;
+            Path target = root.resolve(entry.getName()).normalize();
+            if (!target.startsWith(root))
+                throw new IOException(String.format("Archive entry [%s] is outside of [%s]", entry.getName(), root));
+            Files.createDirectories(target.getParent());
+            List<MessageDigest> digests = new ArrayList<>();
+            for (String algorithm : algorithms) {
+                try {
+                    digests.add(MessageDigest.getInstance(algorithm));
+                } catch (NoSuchAlgorithmException e) {
+                    logger.error("Unsupported hashing algorithm [{}]", algorithm);
+                }
+            }
+            try (OutputStream fout = Files.newOutputStream(target)) {
+                int read;
+                while ((read = fin.read(buffer)) != -1) {
+                    for (MessageDigest digest : digests)
+                        digest.update(buffer, 0, read);
+                    fout.write(buffer, 0, read);
+                }
+            }
+            Map<String, String> fileChecksums = new HashMap<>();
+            for (MessageDigest digest : digests)
+                fileChecksums.put(digest.getAlgorithm(), Hex.encodeHexString(digest.digest()));
+            checksums.put(target, fileChecksums);
+            String fileName = target.getFileName().toString();
+            if ((fileName.startsWith("manifest-") || fileName.startsWith("tagmanifest-")) &&
+                    fileName.endsWith(".txt")) {
+                String bagitName = fileName.substring(fileName.indexOf('-') + 1, fileName.length() - 4);
+                try {
+                    algorithms.add(StandardSupportedAlgorithms.valueOf(bagitName.toUpperCase())
+                            .getMessageDigestName());
+                } catch (IllegalArgumentException e) {
+                    logger.debug("Manifest [{}] uses an unknown algorithm, its files will be hashed on verify", target);
+                }
+            }
+        }
+        return checksums;
+    }
+
     private boolean moveToFolder(Path srcFolder, Path dstFolder) {
         try {
             if (!Files.exists(srcFolder)) {
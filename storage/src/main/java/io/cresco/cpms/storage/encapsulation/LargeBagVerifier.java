@@ -118,27 +118,69 @@ public class LargeBagVerifier implements AutoCloseable {
      * @throws InvalidBagitFileFormatException if the manifest is not formatted properly
      */
     public void isValid(final Bag bag, final boolean ignoreHiddenFiles) throws IOException, MissingPayloadManifestException, MissingBagitFileException, MissingPayloadDirectoryException, FileNotInPayloadDirectoryException, InterruptedException, MaliciousPathException, CorruptChecksumException, VerificationException, UnsupportedAlgorithmException, InvalidBagitFileFormatException{
+        isValid(bag, ignoreHiddenFiles, Collections.emptyMap());
+    }
+
+    /**
+     * Same as {@link #isValid(Bag, boolean)}, but checksums already computed while the files were written (for
+     * example during archive extraction) are compared directly instead of reading the files again. Files without a
+     * known checksum for a manifest's algorithm are hashed from disk as usual.
+     *
+     * @param bag the {@link Bag} object to check
+     * @param ignoreHiddenFiles ignore hidden files unless explicitly listed in manifest(s)
+     * @param knownChecksums hex checksums keyed by absolute normalized file path, then by message digest name
+     *
+     * @throws IOException if there is an error reading a file
+     * @throws MissingPayloadManifestException if there is not at least one payload manifest
+     * @throws MissingBagitFileException  if there is no bagit.txt file
+     * @throws MissingPayloadDirectoryException if there is no /data directory
+     * @throws FileNotInPayloadDirectoryException if a manifest lists a file but it is not in the payload directory
+     * @throws InterruptedException if the threads are interrupted when checking if all files are listed in manifest(s)
+     * @throws MaliciousPathException if there is path that is referenced in the manifest that is outside the bag root directory
+     * @throws CorruptChecksumException If the checksums don't match
+     * @throws VerificationException some other exception happened during processing so capture it here.
+     * @throws UnsupportedAlgorithmException if the manifest uses a algorithm that isn't supported
+     * @throws InvalidBagitFileFormatException if the manifest is not formatted properly
+     */
+    public void isValid(final Bag bag, final boolean ignoreHiddenFiles, final Map<Path, Map<String, String>> knownChecksums) throws IOException, MissingPayloadManifestException, MissingBagitFileException, MissingPayloadDirectoryException, FileNotInPayloadDirectoryException, InterruptedException, MaliciousPathException, CorruptChecksumException, VerificationException, UnsupportedAlgorithmException, InvalidBagitFileFormatException{
         logger.info(messages.getString("checking_bag_is_valid"), bag.getRootDir());
         isComplete(bag, ignoreHiddenFiles);
 
         logger.debug(messages.getString("checking_payload_checksums"));
         for(final Manifest payloadManifest : bag.getPayLoadManifests()){
-            checkHashes(payloadManifest);
+            checkHashes(payloadManifest, knownChecksums);
         }
 
         logger.debug(messages.getString("checking_tag_file_checksums"));
         for(final Manifest tagManifest : bag.getTagManifests()){
-            checkHashes(tagManifest);
+            checkHashes(tagManifest, knownChecksums);
         }
     }
 
     /*
      * Check the supplied checksum hashes against the generated checksum hashes
      */
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     void checkHashes(final Manifest manifest) throws CorruptChecksumException, InterruptedException, VerificationException{
+        checkHashes(manifest, Collections.emptyMap());
+    }
+
+    /*
+     * Check the supplied checksum hashes against already known checksums, generating the rest
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    void checkHashes(final Manifest manifest, final Map<Path, Map<String, String>> knownChecksums) throws CorruptChecksumException, InterruptedException, VerificationException{
+        final String algorithm = manifest.getAlgorithm().getMessageDigestName();
         LinkedList<Map.Entry<Path, String>> toProcess = new LinkedList<>();
-        toProcess.addAll(manifest.getFileToChecksumMap().entrySet());
+        for (final Map.Entry<Path, String> entry : manifest.getFileToChecksumMap().entrySet()) {
+            final String known = knownChecksums.getOrDefault(entry.getKey().toAbsolutePath().normalize(),
+                    Collections.emptyMap()).get(algorithm);
+            if (known == null) {
+                toProcess.add(entry);
+            } else if (!known.equalsIgnoreCase(entry.getValue())) {
+                throw new CorruptChecksumException("File [{}] is suppose to have a [{}] hash of [{}] but was computed [{}].",
+                        entry.getKey(), algorithm, entry.getValue(), known);
+            }
+        }
 
         while (toProcess.size() > 0) {
             HashMap<Path, String> batchToProcess = new HashMap<>();
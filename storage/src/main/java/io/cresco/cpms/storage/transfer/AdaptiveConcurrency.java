@@ -0,0 +1,172 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Number of parts a transfer keeps in flight, tuned while the transfer runs. Completed parts are grouped into windows
+ * of as many parts as are in flight; after each window the aggregate throughput is compared with the previous window
+ * and the limit keeps stepping in the same direction while throughput improves, reversing when it falls. Small changes
+ * in throughput leave the limit where it is, so a transfer settles once adding parts stops paying off. A part failing
+ * with a throttling response from the provider halves the limit at once.
+ */
+@SuppressWarnings({"unused"})
+public class AdaptiveConcurrency {
+    private static final double SIGNIFICANT_CHANGE = 0.05;
+
+    private final int minimum;
+    private final int maximum;
+    private final Predicate<Throwable> throttling;
+    private int limit;
+    private int direction = 1;
+    private double previousThroughput = 0;
+    private long windowStart = 0;
+    private long windowBytes = 0;
+    private int windowParts = 0;
+    private long completedBytes = 0;
+    private long busyNanos = 0;
+    private long completedParts = 0;
+    private int throttleCount = 0;
+
+    /**
+     * @param initial Number of parts in flight at the start
+     * @param maximum Largest number of parts ever in flight, a maximum no larger than the initial value fixes the
+     *                concurrency
+     */
+    public AdaptiveConcurrency(int initial, int maximum) {
+        this(initial, maximum, failure -> false);
+    }
+
+    /**
+     * @param initial Number of parts in flight at the start
+     * @param maximum Largest number of parts ever in flight, a maximum no larger than the initial value fixes the
+     *                concurrency
+     * @param throttling Recognizes the provider's throttling responses among part failures
+     */
+    public AdaptiveConcurrency(int initial, int maximum, Predicate<Throwable> throttling) {
+        this.limit = Math.max(1, initial);
+        this.maximum = Math.max(this.limit, maximum);
+        this.minimum = (this.maximum == this.limit) ? this.limit : 1;
+        this.throttling = throttling;
+    }
+
+    /**
+     * Concurrency which never changes
+     * @param concurrency Number of parts in flight
+     * @return The fixed concurrency
+     */
+    public static AdaptiveConcurrency fixed(int concurrency) {
+        return new AdaptiveConcurrency(concurrency, concurrency);
+    }
+
+    /**
+     * Records a completed part and adjusts the limit at the end of a window
+     * @param bytes Size of the part
+     * @param nanos Time spent transferring the part
+     */
+    public synchronized void record(long bytes, long nanos) {
+        long now = System.nanoTime();
+        if (windowStart == 0)
+            windowStart = now - nanos;
+        completedBytes += bytes;
+        busyNanos += nanos;
+        completedParts++;
+        windowBytes += bytes;
+        windowParts++;
+        if (windowParts < limit || minimum == maximum)
+            return;
+        double throughput = windowBytes / (double) Math.max(1, now - windowStart);
+        boolean step = true;
+        if (previousThroughput > 0) {
+            if (throughput < previousThroughput * (1 - SIGNIFICANT_CHANGE))
+                direction = -direction;
+            else if (throughput < previousThroughput * (1 + SIGNIFICANT_CHANGE))
+                step = false;
+        }
+        if (step) {
+            if (limit + direction < minimum || limit + direction > maximum)
+                direction = -direction;
+            else
+                limit += direction;
+        }
+        previousThroughput = throughput;
+        windowStart = now;
+        windowBytes = 0;
+        windowParts = 0;
+        notifyAll();
+    }
+
+    /**
+     * @param failure The failure of a part
+     * @return Whether the provider failed the part because it is throttling requests
+     */
+    public boolean isThrottling(Throwable failure) {
+        return throttling.test(failure);
+    }
+
+    /**
+     * Halves the limit after a throttling response and restarts the throughput comparison, so the limit then climbs
+     * back only as far as the provider allows
+     */
+    public synchronized void throttled() {
+        throttleCount++;
+        limit = Math.max(minimum, limit / 2);
+        direction = 1;
+        previousThroughput = 0;
+        windowStart = 0;
+        windowBytes = 0;
+        windowParts = 0;
+    }
+
+    /**
+     * Blocks a worker while it is beyond the current limit
+     * @param worker Zero-based index of the worker
+     * @param finished Whether the transfer has run out of parts or failed
+     * @return Whether the worker may take another part
+     * @throws InterruptedException If interrupted while waiting
+     */
+    synchronized boolean awaitTurn(int worker, BooleanSupplier finished) throws InterruptedException {
+        while (worker >= limit && !finished.getAsBoolean())
+            wait();
+        return !finished.getAsBoolean();
+    }
+
+    /**
+     * Releases waiting workers once the transfer has run out of parts or failed
+     */
+    synchronized void release() {
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public int getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Average throughput of a single part so far
+     * @return Bytes per second per part in flight
+     */
+    public synchronized double getPartThroughput() {
+        return (busyNanos == 0) ? 0 : completedBytes * 1e9 / busyNanos;
+    }
+
+    /**
+     * Average time taken by a single part so far
+     * @return Milliseconds per part
+     */
+    public synchronized double getAveragePartMillis() {
+        return (completedParts == 0) ? 0 : busyNanos / 1e6 / completedParts;
+    }
+
+    public synchronized long getCompletedParts() {
+        return completedParts;
+    }
+
+    public synchronized int getThrottleCount() {
+        return throttleCount;
+    }
+}
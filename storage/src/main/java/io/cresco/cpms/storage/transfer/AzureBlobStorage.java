@@ -1,33 +1,96 @@
 package io.cresco.cpms.storage.transfer;
 
 import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.rest.PagedResponse;
 import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
 import com.azure.core.util.ProgressListener;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.core.util.polling.SyncPoller;
+import com.azure.storage.blob.BlobAsyncClient;
 import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
 import com.azure.storage.blob.BlobServiceClient;
-import com.azure.storage.blob.BlobServiceClientBuilder;
 import com.azure.storage.blob.models.*;
-import com.azure.storage.blob.options.BlobDownloadToFileOptions;
+import com.azure.storage.blob.options.BlobBeginCopyOptions;
 import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import com.google.common.collect.Iterators;
 import io.cresco.cpms.exceptions.StorageExecutionException;
 import io.cresco.cpms.logging.CPMSLogger;
-import org.apache.commons.codec.digest.DigestUtils;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferOperation;
+import io.cresco.cpms.storage.utilities.StorageProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @SuppressWarnings("unused")
 public class AzureBlobStorage implements TransferAdapter {
     private final String endpoint;
     private final TokenCredential tokenCredential;
+    private final AzureClientKey clientKey;
+    private final long blockSize;
+    private final int maxConcurrency;
+    private final long maxSingleUploadSize;
+    private final ChecksumEngine checksumEngine;
+    private final boolean resumableTransfers;
+    private final long resumableTransferThreshold;
+    private final int transferConcurrency;
+    private final int maximumTransferConcurrency;
+    private final MetadataCache metadataCache;
+    private final String metadataNamespace;
+    private final boolean adaptiveTransfers;
+    private final TransferTuner transferTuner;
+    private final String transferDestination;
+    private final TransferScheduler.Lane transferLane;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final TransferMetrics transferMetrics;
+    private final boolean skipIdentical;
+    private final ContentHashCache contentHashCache;
 
     private CPMSLogger logger;
 
@@ -40,14 +103,38 @@ public class AzureBlobStorage implements TransferAdapter {
             throw new StorageExecutionException("Azure Storage Endpoint not provided");
         this.endpoint = builder.getEndpoint();
         this.tokenCredential = builder.getTokenCredential();
+        this.clientKey = new AzureClientKey(builder);
+        this.blockSize = builder.getBlockSize();
+        this.maxConcurrency = builder.getMaxConcurrency();
+        this.maxSingleUploadSize = builder.getMaxSingleUploadSize();
+        this.checksumEngine = builder.getChecksumEngine();
+        this.resumableTransfers = builder.isResumableTransfers();
+        this.resumableTransferThreshold = builder.getResumableTransferThreshold();
+        this.transferConcurrency = builder.getTransferConcurrency();
+        this.maximumTransferConcurrency = builder.getMaximumTransferConcurrency();
+        this.metadataCache = builder.getMetadataCache();
+        this.metadataNamespace = String.format("azure|%s", endpoint);
+        this.adaptiveTransfers = builder.isAdaptiveTransfers();
+        this.transferTuner = builder.getTransferTuner();
+        this.transferDestination = "azure|" + endpoint;
+        this.transferLane = builder.getTransferScheduler().lane(StorageProvider.Azure, transferDestination,
+                builder.getTransferPriority(), builder.getTransferRun());
+        this.bandwidthLimiter = new BandwidthLimiterBuilder().withBytesPerSecond(builder.getBandwidthLimit())
+                .withRequestsPerSecond(builder.getRequestLimit()).withParent(builder.getBandwidthLimiter())
+                .withLogger(builder.getLogger()).build();
+        this.transferMetrics = new TransferMetricsBuilder().withParent(builder.getTransferMetrics())
+                .withLogger(builder.getLogger()).build();
+        this.skipIdentical = builder.isSkipIdentical();
+        this.contentHashCache = builder.getContentHashCache();
         setLogger(builder.getLogger());
     }
 
     private BlobServiceClient getBlobServiceClient() {
-        return new BlobServiceClientBuilder()
-                .endpoint(endpoint)
-                .credential(tokenCredential)
-                .buildClient();
+        return AzureClientManager.getInstance().getClient(clientKey);
+    }
+
+    private BlobServiceAsyncClient getBlobServiceAsyncClient() {
+        return AzureClientManager.getInstance().getAsyncClient(clientKey);
     }
 
     /*
@@ -56,37 +143,95 @@ public class AzureBlobStorage implements TransferAdapter {
 
     private List<BlobContainerItem> listContainers() {
         logger.debug("listContainers()");
-        return getBlobServiceClient().listBlobContainers().stream().toList();
+        try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.LIST)) {
+            List<BlobContainerItem> containers = getBlobServiceClient().listBlobContainers().stream().toList();
+            sample.complete();
+            return containers;
+        }
     }
 
     private boolean doesBlobContainerExist(String container) {
         logger.debug("doesContainerExist({})", container);
-        return getBlobServiceClient().getBlobContainerClient(container).exists();
+        if (Boolean.TRUE.equals(metadataCache.getContainer(metadataNamespace, container)))
+            return true;
+        boolean exists;
+        try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.HEAD)) {
+            exists = getBlobServiceClient().getBlobContainerClient(container).exists();
+            sample.complete();
+        }
+        if (exists)
+            metadataCache.putContainer(metadataNamespace, container, true);
+        return exists;
     }
 
     private boolean createContainer(String container) {
         logger.debug("createContainer({})", container);
-        return getBlobServiceClient().getBlobContainerClient(container).createIfNotExists();
+        boolean created = getBlobServiceClient().getBlobContainerClient(container).createIfNotExists();
+        metadataCache.putContainer(metadataNamespace, container, true);
+        return created;
     }
 
     private boolean doesBlobExist(String container, String key) {
         logger.debug("doesBlobItemExist({}, {})", container, key);
+        Optional<BlobProperties> cached = metadataCache.getObject(metadataNamespace, container, key);
+        if (cached != null)
+            return cached.isPresent();
         if (!doesBlobContainerExist(container))
             return false;
-        return getBlobServiceClient().getBlobContainerClient(container).getBlobClient(key).exists();
+        return getBlobProperties(container, key) != null;
+    }
+
+    /**
+     * Fetches the properties of a blob, refreshing its entry in the metadata cache. Used directly wherever the
+     * current ETag and Content-MD5 of the blob are needed.
+     * @param container The container of the blob
+     * @param key The blob name
+     * @return The blob properties, or null if the blob does not exist
+     */
+    private BlobProperties getBlobProperties(String container, String key) {
+        logger.debug("getBlobProperties({}, {})", container, key);
+        try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.HEAD)) {
+            BlobProperties blobProperties;
+            try {
+                blobProperties = getBlobServiceClient()
+                        .getBlobContainerClient(container)
+                        .getBlobClient(key)
+                        .getProperties();
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == 404)
+                    sample.complete();
+                throw e;
+            }
+            sample.complete();
+            metadataCache.putObject(metadataNamespace, container, key, blobProperties);
+            return blobProperties;
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() != 404)
+                throw e;
+            metadataCache.putObject(metadataNamespace, container, key, null);
+            return null;
+        }
     }
 
-    private List<BlobItem> listContainerBlobs(String container) {
-        logger.debug("listContainerBlobs({})", container);
-        return getBlobServiceClient().getBlobContainerClient(container).listBlobs().stream()
-                .collect(Collectors.toList());
+    private Stream<BlobItem> streamContainerBlobs(String container, String prefix) {
+        return streamContainerBlobs(container, prefix, false);
     }
 
-    private List<BlobItem> listContainerBlobs(String container, String prefix) {
-        logger.debug("listContainerBlobs({}, {})", container, prefix);
-        ListBlobsOptions listBlobsOptions = new ListBlobsOptions().setPrefix(prefix);
-        return getBlobServiceClient().getBlobContainerClient(container).listBlobs(listBlobsOptions, null)
-                .stream().collect(Collectors.toList());
+    /**
+     * @param retrieveMetadata Whether each listed blob should carry its user metadata
+     */
+    private Stream<BlobItem> streamContainerBlobs(String container, String prefix, boolean retrieveMetadata) {
+        logger.debug("streamContainerBlobs({}, {}, {})", container, prefix, retrieveMetadata);
+        ListBlobsOptions listBlobsOptions = new ListBlobsOptions()
+                .setMaxResultsPerPage(CPMSStatics.DEFAULT_LISTING_PAGE_SIZE)
+                .setDetails(new BlobListDetails().setRetrieveMetadata(retrieveMetadata));
+        if (prefix != null)
+            listBlobsOptions.setPrefix(prefix);
+        Iterator<List<BlobItem>> pages = Iterators.transform(transferMetrics.meterPages(TransferOperation.LIST,
+                getBlobServiceClient().getBlobContainerClient(container).listBlobs(listBlobsOptions, null)
+                        .iterableByPage().iterator()),
+                PagedResponse::getValue);
+        return PrefetchingIterator.fromPages(pages, null).stream();
     }
 
     private boolean uploadFileToBlob(Path uploadPath, String container, String key) throws IOException {
@@ -95,29 +240,51 @@ public class AzureBlobStorage implements TransferAdapter {
             throw new IOException("file to upload does not exist");
         if (!doesBlobContainerExist(container))
             throw new IOException("target container does not exist");
-        logger.debug("Computing MD5 checksum of file to upload");
-        String localChecksum;
-        try (InputStream in = new FileInputStream(uploadPath.toFile())) {
-            localChecksum = DigestUtils.md5Hex(in);
-        } catch (Exception e) {
-            logger.error("Failed to compute the local MD5 checksum of file to upload: {}", e);
-            return false;
-        }
-        logger.trace("Local MD5 checksum: {}", localChecksum);
+        if (resumableTransfers && Files.size(uploadPath) >= resumableTransferThreshold ||
+                adaptiveTransfers && Files.size(uploadPath) > CPMSStatics.DEFAULT_PART_SIZE * 1024L * 1024L)
+            return uploadFileToBlobResumable(uploadPath, container, key);
         BlobClient blobClient = getBlobServiceClient()
                 .getBlobContainerClient(container)
                 .getBlobClient(key);
-        CrescoAzureLoggingTransferListener listener = new CrescoAzureLoggingTransferListener(logger,
-                uploadPath.toFile().length());
-        ParallelTransferOptions parallelTransferOptions = new ParallelTransferOptions().setProgressListener(listener);
-        try (BufferedInputStream stream = new BufferedInputStream(new FileInputStream(uploadPath.toFile()))) {
+        long size = Files.size(uploadPath);
+        CrescoAzureLoggingTransferListener listener = new CrescoAzureLoggingTransferListener(logger, size);
+        long uploadBlockSize = parallelBlockSize(size);
+        com.azure.storage.blob.models.ParallelTransferOptions parallelTransferOptions =
+                new com.azure.storage.blob.models.ParallelTransferOptions()
+                        .setBlockSizeLong(uploadBlockSize)
+                        .setMaxConcurrency(parallelConcurrency(size, uploadBlockSize))
+                        .setMaxSingleUploadSizeLong(maxSingleUploadSize)
+                        .setProgressListener(listener);
+        try (DigestInputStream digestStream = new DigestInputStream(
+                new BufferedInputStream(new FileInputStream(uploadPath.toFile())), MessageDigest.getInstance("MD5"));
+             InputStream stream = bandwidthLimiter.throttle(digestStream)) {
             BlobParallelUploadOptions uploadOptions = new BlobParallelUploadOptions(stream)
-                    .setParallelTransferOptions(parallelTransferOptions);
+                    .setParallelTransferOptions(parallelTransferOptions)
+                    .setComputeMd5(true);
             logger.cpmsInfo("Starting upload of {} to {}/{}", uploadPath, container, key);
-            Response<BlockBlobItem> response = blobClient.uploadWithResponse(uploadOptions, null, null);
+            Response<BlockBlobItem> response;
+            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT, size)) {
+                response = blobClient.uploadWithResponse(uploadOptions, null, null);
+                sample.complete();
+            }
+            byte[] localChecksum = digestStream.getMessageDigest().digest();
+            logger.trace("Local MD5 checksum: {}", HexFormat.of().formatHex(localChecksum));
+            if (skipIdentical)
+                contentHashCache.putMd5(uploadPath, HexFormat.of().formatHex(localChecksum));
+            if (response.getValue().getContentMd5() == null) {
+                logger.trace("Uploaded as blocks, each verified by Azure against its transactional MD5");
+                BlobRequestConditions requestConditions = new BlobRequestConditions()
+                        .setIfMatch(response.getValue().getETag());
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COMMIT, 0)) {
+                    blobClient.setHttpHeadersWithResponse(new BlobHttpHeaders().setContentMd5(localChecksum),
+                            requestConditions, null, Context.NONE);
+                    sample.complete();
+                }
+                return true;
+            }
             String azureChecksum = HexFormat.of().formatHex(response.getValue().getContentMd5());
             logger.trace("Response getContentMd5: {}", azureChecksum);
-            return azureChecksum.equals(localChecksum);
+            return Arrays.equals(response.getValue().getContentMd5(), localChecksum);
         } catch (Exception e) {
             logger.cpmsError("Failed to upload file: {}", e.getMessage());
             return false;
@@ -128,15 +295,13 @@ public class AzureBlobStorage implements TransferAdapter {
         logger.debug("downloadBlob({}, {}, {})", container, key, destinationDirectory);
         if (!doesBlobContainerExist(container))
             throw new IOException("target container does not exist");
-        if (!doesBlobExist(container, key))
+        BlobProperties blobProperties = getBlobProperties(container, key);
+        if (blobProperties == null)
             throw new IOException("target object does not exist");
         try {
             BlobClient blobClient = getBlobServiceClient()
                     .getBlobContainerClient(container)
                     .getBlobClient(key);
-            BlobProperties blobProperties = blobClient.getProperties();
-            String azureChecksum = HexFormat.of().formatHex(blobProperties.getContentMd5());
-            logger.trace("Remote getContentMd5: {}", azureChecksum);
             if (!Files.exists(destinationDirectory)) {
                 try {
                     Files.createDirectories(destinationDirectory);
@@ -148,34 +313,841 @@ public class AzureBlobStorage implements TransferAdapter {
             }
             int prefixLength = key.lastIndexOf("/") + 1;
             Path outFile = destinationDirectory.resolve(key.substring(prefixLength));
-            CrescoAzureLoggingTransferListener listener = new CrescoAzureLoggingTransferListener(logger,
-                    blobProperties.getBlobSize());
-            com.azure.storage.common.ParallelTransferOptions parallelTransferOptions =
-                    new com.azure.storage.common.ParallelTransferOptions().setProgressListener(listener);
-            BlobDownloadToFileOptions downloadOptions = new BlobDownloadToFileOptions(outFile.toString())
-                    .setParallelTransferOptions(parallelTransferOptions);
-            blobClient.downloadToFileWithResponse(downloadOptions, null, null);
-            String localChecksum;
-            try (InputStream in = new FileInputStream(outFile.toFile())) {
-                localChecksum = DigestUtils.md5Hex(in);
-            } catch (Exception e) {
-                logger.error("Failed to compute the local MD5 checksum of downloaded file: {}", e);
-                return null;
-            }
-            logger.trace("Local MD5 checksum: {}", localChecksum);
-            if (localChecksum.equals(azureChecksum))
+            if (skipIdentical && isIdentical(blobProperties.getBlobSize(), blobProperties.getContentMd5(), outFile)) {
+                logger.cpmsInfo("Skipping download of [{}/{}], [{}] already holds identical content", container, key,
+                        outFile);
+                transferMetrics.recordSkipped(blobProperties.getBlobSize());
                 return outFile;
-            return null;
+            }
+            if (resumableTransfers && blobProperties.getBlobSize() >= resumableTransferThreshold ||
+                    bandwidthLimiter.isLimited() && blobProperties.getBlobSize() > 0 ||
+                    adaptiveTransfers && blobProperties.getBlobSize() > CPMSStatics.DEFAULT_PART_SIZE * 1024L * 1024L)
+                return downloadBlobToFileResumable(blobClient, blobProperties, container, key, outFile);
+            long size = blobProperties.getBlobSize();
+            CrescoAzureLoggingTransferListener listener = new CrescoAzureLoggingTransferListener(logger, size);
+            long downloadBlockSize = parallelBlockSize(size);
+            try (InputStream in = openBlobStream(blobClient, blobProperties, container, key, downloadBlockSize,
+                    parallelConcurrency(size, downloadBlockSize));
+                 OutputStream out = Files.newOutputStream(outFile)) {
+                byte[] buffer = new byte[CPMSStatics.DEFAULT_CHECKSUM_BUFFER_SIZE];
+                long transferred = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    transferred += read;
+                    listener.handleProgress(transferred);
+                }
+            }
+            if (skipIdentical && blobProperties.getContentMd5() != null)
+                contentHashCache.putMd5(outFile, HexFormat.of().formatHex(blobProperties.getContentMd5()));
+            return outFile;
         } catch (Exception e) {
             logger.cpmsError("Failed to download file: {}", e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Uploads a file as journaled blocks staged in parallel and committed once all are present, so an upload
+     * interrupted by a failure or restart continues from the last staged block instead of from the first byte. Each
+     * block is sent with its MD5 for the service to validate, and the committed blob carries the whole-file MD5.
+     * @param uploadPath The local file
+     * @param container The target container
+     * @param key The target blob name
+     * @return Whether the upload completed
+     * @throws IOException If the local file or journal cannot be read
+     */
+    private boolean uploadFileToBlobResumable(Path uploadPath, String container, String key) throws IOException {
+        logger.debug("uploadFileToBlobResumable({}, {}, {})", uploadPath, container, key);
+        long size = Files.size(uploadPath);
+        long lastModified = Files.getLastModifiedTime(uploadPath).toMillis();
+        TransferTuner.Plan plan = planTransfer(size, transferConcurrency);
+        TransferJournal.State expected = new TransferJournal.State("upload", "azure", container, key, size,
+                lastModified, plan.getPartSize());
+        Path journalPath = TransferJournal.journalPathFor(uploadPath);
+        BlockBlobClient blockBlobClient = getBlobServiceClient()
+                .getBlobContainerClient(container)
+                .getBlobClient(key)
+                .getBlockBlobClient();
+        try (FileChannel channel = FileChannel.open(uploadPath, StandardOpenOption.READ)) {
+            if (adaptiveTransfers)
+                expected.partSize = journaledPartSize(journalPath, expected);
+            TransferJournal journal = resumeBlobUpload(blockBlobClient, uploadPath, journalPath, expected);
+            if (journal == null) {
+                expected.transferId = UUID.randomUUID().toString();
+                expected.fileDigest = computeDigests(uploadPath, EnumSet.of(DigestAlgorithm.MD5))
+                        .getDigestBase64(DigestAlgorithm.MD5);
+                journal = TransferJournal.create(journalPath, expected);
+                logger.cpmsInfo("Starting resumable upload of [{}] to [{}/{}]", uploadPath, container, key);
+            }
+            TransferJournal.State state = journal.getState();
+            int partCount = state.getPartCount();
+            List<Integer> remaining = journal.getRemainingParts();
+            logger.cpmsInfo("Uploading {} of {} block(s) of [{}]", remaining.size(), partCount, uploadPath);
+            TransferJournal finalJournal = journal;
+            ParallelPartRunner.run(remaining, plan.getConcurrency(), state::getPartLength, partNumber -> {
+                long offset = state.getPartOffset(partNumber);
+                long length = state.getPartLength(partNumber);
+                String blockId = blockId(state.transferId, partNumber);
+                byte[] md5;
+                try (FileRegionInputStream hashing = new FileRegionInputStream(channel, offset, length,
+                        DigestAlgorithm.MD5)) {
+                    hashing.transferTo(OutputStream.nullOutputStream());
+                    md5 = hashing.digest();
+                }
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT_PART, length)) {
+                    blockBlobClient.stageBlockWithResponse(blockId,
+                            bandwidthLimiter.throttle(new FileRegionInputStream(channel, offset, length, null)),
+                            length, md5, null, null, Context.NONE);
+                    sample.complete();
+                }
+                finalJournal.recordPart(new TransferJournal.PartRecord(partNumber, length, blockId,
+                        HexFormat.of().formatHex(md5), null));
+                logger.debug("Staged block {}/{} of [{}]", partNumber, partCount, uploadPath);
+            });
+            List<String> blockIds = new ArrayList<>(partCount);
+            for (TransferJournal.PartRecord part : journal.getCompletedParts().values())
+                blockIds.add(part.eTag);
+            BlockBlobCommitBlockListOptions commitOptions = new BlockBlobCommitBlockListOptions(blockIds)
+                    .setHeaders(new BlobHttpHeaders().setContentMd5(Base64.getDecoder().decode(state.fileDigest)));
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.COMMIT)) {
+                blockBlobClient.commitBlockListWithResponse(commitOptions, null, Context.NONE);
+                sample.complete();
+            }
+            journal.delete();
+            transferTuner.record(StorageProvider.Azure, transferDestination, plan.getConcurrency());
+            transferMetrics.recordRetries(plan.getConcurrency().getThrottleCount());
+            return true;
+        } catch (Exception e) {
+            logger.cpmsError("Resumable upload of [{}] stopped, it will continue from the last completed block " +
+                    "when retried: {}", uploadPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Picks up a journaled block upload, keeping only the blocks Azure still holds uncommitted with the recorded
+     * size. If the local file was rewritten since the journal was started, the staged blocks are only reused when the
+     * file's MD5 is unchanged.
+     * @return The journal to continue, or null if a new upload must be started
+     */
+    private TransferJournal resumeBlobUpload(BlockBlobClient blockBlobClient, Path uploadPath, Path journalPath,
+                                             TransferJournal.State expected) throws IOException {
+        TransferJournal journal = TransferJournal.load(journalPath);
+        if (journal == null)
+            return null;
+        TransferJournal.State state = journal.getState();
+        if (!state.matches(expected) || state.transferId == null || state.fileDigest == null) {
+            logger.debug("Discarding journal [{}] for a different transfer", journalPath);
+            journal.delete();
+            return null;
+        }
+        if (state.lastModified != expected.lastModified) {
+            String fileDigest = computeDigests(uploadPath, EnumSet.of(DigestAlgorithm.MD5))
+                    .getDigestBase64(DigestAlgorithm.MD5);
+            if (!fileDigest.equals(state.fileDigest)) {
+                logger.debug("[{}] changed since journal [{}] was started, starting over", uploadPath, journalPath);
+                journal.delete();
+                return null;
+            }
+        }
+        Map<String, Long> stagedBlocks = new HashMap<>();
+        try {
+            for (Block block : blockBlobClient.listBlocks(BlockListType.UNCOMMITTED).getUncommittedBlocks())
+                stagedBlocks.put(block.getName(), block.getSizeLong());
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() != 404)
+                throw e;
+        }
+        for (TransferJournal.PartRecord part : journal.getCompletedParts().values())
+            if (!Long.valueOf(part.length).equals(stagedBlocks.get(part.eTag)))
+                journal.discardPart(part.partNumber);
+        logger.cpmsInfo("Resuming upload of [{}] with {} of {} block(s) already staged", uploadPath,
+                journal.getCompletedParts().size(), state.getPartCount());
+        return journal;
+    }
+
+    /**
+     * Uploads the output of a writer as staged blocks, sending each block from memory as soon as it fills so
+     * producing the content and uploading it overlap and nothing is staged on disk. Each block is sent with its MD5
+     * for the service to validate, and the committed blob carries the MD5 of the whole stream.
+     * @param streamWriter Producer of the content
+     * @param sizeHint Expected size of the content in bytes
+     * @param container The target container
+     * @param key The target blob name
+     * @return Whether the upload completed
+     * @throws IOException If the target container does not exist
+     */
+    private boolean uploadStreamToBlob(TransferAdapter.StreamWriter streamWriter, long sizeHint, String container,
+                                       String key) throws IOException {
+        logger.debug("uploadStreamToBlob({}, {}, {})", sizeHint, container, key);
+        if (!doesBlobContainerExist(container))
+            throw new IOException("target container does not exist");
+        TransferTuner.Plan plan = planTransfer(sizeHint, transferConcurrency);
+        long streamPartSize = plan.getPartSize();
+        BlockBlobClient blockBlobClient = getBlobServiceClient()
+                .getBlobContainerClient(container)
+                .getBlobClient(key)
+                .getBlockBlobClient();
+        String transferId = UUID.randomUUID().toString();
+        logger.cpmsInfo("Starting streamed upload to [{}/{}]", container, key);
+        MultipartUploadOutputStream out = new MultipartUploadOutputStream(streamPartSize,
+                plan.getConcurrency().getLimit(), DigestAlgorithm.MD5, (partNumber, buffer, length, md5) -> {
+            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT_PART, length)) {
+                blockBlobClient.stageBlockWithResponse(blockId(transferId, partNumber),
+                        bandwidthLimiter.throttle(new ByteArrayInputStream(buffer, 0, length)), length, md5, null,
+                        null, Context.NONE);
+                sample.complete();
+            }
+            logger.debug("Staged streamed block {} of [{}/{}]", partNumber, container, key);
+        });
+        try {
+            streamWriter.writeTo(out);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            out.cancel();
+            logger.cpmsError("Streamed upload to [{}/{}] failed: {}", container, key, e.getMessage());
+            return false;
+        }
+        try {
+            List<String> blockIds = new ArrayList<>(out.getPartCount());
+            for (int partNumber = 1; partNumber <= out.getPartCount(); partNumber++)
+                blockIds.add(blockId(transferId, partNumber));
+            BlockBlobCommitBlockListOptions commitOptions = new BlockBlobCommitBlockListOptions(blockIds)
+                    .setHeaders(new BlobHttpHeaders().setContentMd5(out.getStreamDigest()));
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.COMMIT)) {
+                blockBlobClient.commitBlockListWithResponse(commitOptions, null, Context.NONE);
+                sample.complete();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            logger.cpmsError("Failed to commit streamed upload to [{}/{}]: {}", container, key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens a blob as a stream of ranged downloads fetched concurrently ahead of the reader and checks the MD5 of the
+     * whole stream against the blob's Content-MD5 once it has been read. Every range is requested against the blob's
+     * ETag, so a blob replaced mid-read fails the stream instead of mixing two versions.
+     * @param container The source container
+     * @param key The source blob name
+     * @return The verifying stream of the blob
+     * @throws IOException If the blob does not exist or has no Content-MD5 to verify against
+     */
+    private InputStream openBlobStream(String container, String key) throws IOException {
+        logger.debug("openBlobStream({}, {})", container, key);
+        BlobProperties blobProperties = getBlobProperties(container, key);
+        if (blobProperties == null)
+            throw new IOException("target object does not exist");
+        BlobClient blobClient = getBlobServiceClient()
+                .getBlobContainerClient(container)
+                .getBlobClient(key);
+        TransferTuner.Plan plan = planTransfer(blobProperties.getBlobSize(), transferConcurrency);
+        return openBlobStream(blobClient, blobProperties, container, key, plan.getPartSize(),
+                plan.getConcurrency().getLimit());
+    }
+
+    /**
+     * Opens a blob as ranges fetched concurrently and read in order, with the MD5 of the whole blob computed as it is
+     * read and checked against the blob's Content-MD5 once the last byte has been read
+     * @param blobClient The source blob
+     * @param blobProperties The blob's current properties
+     * @param container The source container
+     * @param key The source blob name
+     * @param partSize Size of each range in bytes
+     * @param concurrency Maximum number of ranges fetched at once
+     * @return The stream of the blob, failing at its end if the checksums do not match
+     * @throws IOException If the blob has no Content-MD5 to verify against
+     */
+    private InputStream openBlobStream(BlobClient blobClient, BlobProperties blobProperties, String container,
+                                       String key, long partSize, int concurrency) throws IOException {
+        byte[] azureChecksum = blobProperties.getContentMd5();
+        if (azureChecksum == null)
+            throw new IOException(String.format("Blob [%s/%s] has no Content-MD5 to verify the download against",
+                    container, key));
+        long size = blobProperties.getBlobSize();
+        BlobRequestConditions requestConditions = new BlobRequestConditions().setIfMatch(blobProperties.getETag());
+        return new MultipartDownloadInputStream(size, partSize, concurrency, DigestAlgorithm.MD5,
+                (partNumber, offset, buffer, length) -> {
+                    BufferRegionOutputStream region = new BufferRegionOutputStream(buffer, length);
+                    try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET_RANGE, length)) {
+                        blobClient.downloadStreamWithResponse(bandwidthLimiter.throttle(region),
+                                new BlobRange(offset, (long) length), null, requestConditions, false, null,
+                                Context.NONE);
+                        sample.complete();
+                    }
+                    if (region.getBytesWritten() != length)
+                        throw new IOException(String.format("Range %d ended after %d of %d bytes", partNumber,
+                                region.getBytesWritten(), length));
+                },
+                stream -> {
+                    byte[] localChecksum = stream.getStreamDigest();
+                    if (!Arrays.equals(localChecksum, azureChecksum))
+                        throw new IOException(String.format(
+                                "Checksums do not match for [%s/%s] [local: %s, Azure: %s]", container, key,
+                                HexFormat.of().formatHex(localChecksum), HexFormat.of().formatHex(azureChecksum)));
+                    logger.cpmsInfo("Verified streamed blob [{}/{}] via checksums", container, key);
+                });
+    }
+
+    /**
+     * Block IDs must all have the same length within a blob, so the part number is zero-padded
+     */
+    private static String blockId(String transferId, int partNumber) {
+        return Base64.getEncoder().encodeToString(String.format("%s-%06d", transferId, partNumber)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Downloads a blob as journaled byte ranges written into place, so a download interrupted by a failure or
+     * restart continues from the last completed range. Every range is requested against the blob's ETag, so a blob
+     * replaced mid-transfer fails the download instead of mixing two versions.
+     * @param blobClient The source blob
+     * @param blobProperties The blob's current properties
+     * @param container The source container
+     * @param key The source blob name
+     * @param outFile The local file to write
+     * @return The downloaded file, or null if the download failed or could not be verified
+     */
+    private Path downloadBlobToFileResumable(BlobClient blobClient, BlobProperties blobProperties, String container,
+                                             String key, Path outFile) {
+        logger.debug("downloadBlobToFileResumable({}, {}, {})", container, key, outFile);
+        long size = blobProperties.getBlobSize();
+        TransferTuner.Plan plan = planTransfer(size, maximumTransferConcurrency);
+        TransferJournal.State expected = new TransferJournal.State("download", "azure", container, key, size, 0L,
+                plan.getPartSize());
+        expected.remoteETag = blobProperties.getETag();
+        try {
+            if (adaptiveTransfers)
+                expected.partSize = journaledPartSize(TransferJournal.journalPathFor(outFile), expected);
+            TransferJournal journal = TransferJournal.openDownload(outFile, expected);
+            if (journal.getCompletedParts().isEmpty())
+                logger.cpmsInfo("Starting resumable download of [{}/{}] to [{}]", container, key, outFile);
+            else
+                logger.cpmsInfo("Resuming download of [{}/{}] with {} of {} part(s) already complete", container,
+                        key, journal.getCompletedParts().size(), journal.getState().getPartCount());
+            TransferJournal.State state = journal.getState();
+            int partCount = state.getPartCount();
+            BlobRequestConditions requestConditions = new BlobRequestConditions().setIfMatch(state.remoteETag);
+            try (FileChannel channel = FileChannel.open(outFile, StandardOpenOption.WRITE)) {
+                RangedDownloader.download(channel, size, state.partSize, journal.getRemainingParts(),
+                        plan.getConcurrency(),
+                        (partNumber, offset, length, out) -> {
+                            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET_RANGE, length)) {
+                                blobClient.downloadStreamWithResponse(bandwidthLimiter.throttle(out),
+                                        new BlobRange(offset, length), null, requestConditions, false, null,
+                                        Context.NONE);
+                                sample.complete();
+                            }
+                        },
+                        (partNumber, length, md5) -> {
+                            channel.force(false);
+                            journal.recordPart(new TransferJournal.PartRecord(partNumber, length, null,
+                                    HexFormat.of().formatHex(md5), null));
+                            logger.debug("Downloaded part {}/{} of [{}/{}]", partNumber, partCount, container,
+                                    key);
+                        });
+            }
+            transferTuner.record(StorageProvider.Azure, transferDestination, plan.getConcurrency());
+            transferMetrics.recordRetries(plan.getConcurrency().getThrottleCount());
+            byte[] azureChecksum = blobProperties.getContentMd5();
+            if (azureChecksum == null) {
+                logger.cpmsError("Blob [{}/{}] has no Content-MD5 to verify the download against", container, key);
+                return null;
+            }
+            logger.cpmsInfo("Verifying download [{}] via checksums", outFile);
+            byte[] localChecksum = (partCount == 1) ?
+                    HexFormat.of().parseHex(journal.getCompletedParts().get(1).md5) :
+                    computeDigests(outFile, EnumSet.of(DigestAlgorithm.MD5))
+                            .getDigest(DigestAlgorithm.MD5);
+            journal.delete();
+            if (!Arrays.equals(localChecksum, azureChecksum)) {
+                logger.cpmsError("Checksums do not match [local: {}, Azure: {}]",
+                        HexFormat.of().formatHex(localChecksum), HexFormat.of().formatHex(azureChecksum));
+                return null;
+            }
+            return outFile;
+        } catch (Exception e) {
+            logger.cpmsError("Resumable download of [{}/{}] stopped, it will continue from the last completed " +
+                    "part when retried: {}", container, key, e.getMessage());
+            return null;
+        }
+    }
+
     /*
         Logging Setup
      */
 
+    /**
+     * Copies a blob within the storage account with a server-side copy, polling the destination for progress until
+     * the service completes it. The copy is pinned to the source ETag, and the size and Content-MD5 of the copy must
+     * match the source's once it completes.
+     * @param sourceContainer The source container
+     * @param sourceKey The source blob name
+     * @param destinationContainer The target container
+     * @param destinationKey The target blob name
+     * @return Whether the blob was copied and its checksums match
+     */
+    private boolean copyBlob(String sourceContainer, String sourceKey, String destinationContainer,
+                             String destinationKey) {
+        logger.debug("copyBlob({}, {}, {}, {})", sourceContainer, sourceKey, destinationContainer, destinationKey);
+        BlobProperties sourceProperties = getBlobProperties(sourceContainer, sourceKey);
+        if (sourceProperties == null) {
+            logger.cpmsError("Container [{}] does not contain [{}]", sourceContainer, sourceKey);
+            return false;
+        }
+        BlobServiceClient blobServiceClient = getBlobServiceClient();
+        BlobClient sourceClient = blobServiceClient.getBlobContainerClient(sourceContainer).getBlobClient(sourceKey);
+        BlobClient destinationClient = blobServiceClient.getBlobContainerClient(destinationContainer)
+                .getBlobClient(destinationKey);
+        metadataCache.invalidateObject(metadataNamespace, destinationContainer, destinationKey);
+        Duration pollInterval = Duration.ofMillis(CPMSStatics.DEFAULT_COPY_POLL_INTERVAL_MILLIS);
+        TransferProgress progress = new TransferProgress(logger,
+                String.format("Copy of [%s/%s]", sourceContainer, sourceKey), sourceProperties.getBlobSize());
+        try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COPY, 0)) {
+            SyncPoller<BlobCopyInfo, Void> poller = destinationClient.beginCopy(
+                    new BlobBeginCopyOptions(sourceClient.getBlobUrl())
+                            .setSourceRequestConditions(new BlobBeginCopySourceRequestConditions()
+                                    .setIfMatch(sourceProperties.getETag()))
+                            .setPollInterval(pollInterval));
+            PollResponse<BlobCopyInfo> response = poller.poll();
+            while (!response.getStatus().isComplete()) {
+                progress.update(copiedBytes(destinationClient.getProperties().getCopyProgress()));
+                Thread.sleep(pollInterval.toMillis());
+                response = poller.poll();
+            }
+            if (response.getStatus() != LongRunningOperationStatus.SUCCESSFULLY_COMPLETED) {
+                logger.cpmsError("Copy of [{}/{}] failed: {}", sourceContainer, sourceKey,
+                        (response.getValue() != null) ? response.getValue().getError() : response.getStatus());
+                return false;
+            }
+            sample.complete();
+        } catch (BlobStorageException | InterruptedIOException e) {
+            logger.cpmsError("Copy of [{}/{}] failed: {}", sourceContainer, sourceKey, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.cpmsError("Interrupted while copying [{}/{}]", sourceContainer, sourceKey);
+            return false;
+        }
+        progress.update(sourceProperties.getBlobSize());
+        logger.cpmsInfo("Verifying copy [{}/{}] via checksums", destinationContainer, destinationKey);
+        BlobProperties copyProperties = getBlobProperties(destinationContainer, destinationKey);
+        if (copyProperties == null || copyProperties.getBlobSize() != sourceProperties.getBlobSize()) {
+            logger.cpmsError("The copy [{}/{}] is missing or does not match the size of its source",
+                    destinationContainer, destinationKey);
+            return false;
+        }
+        if (sourceProperties.getContentMd5() == null) {
+            logger.debug("Source [{}/{}] has no Content-MD5, the copy was checked by size only", sourceContainer,
+                    sourceKey);
+            return true;
+        }
+        String azureChecksum = HexFormat.of().formatHex(sourceProperties.getContentMd5());
+        String copyChecksum = (copyProperties.getContentMd5() != null) ?
+                HexFormat.of().formatHex(copyProperties.getContentMd5()) : "";
+        logger.trace("azureChecksum: {}, copyChecksum: {}", azureChecksum, copyChecksum);
+        if (!copyChecksum.equals(azureChecksum))
+            logger.cpmsError("Checksums do not match [source: {}, copy: {}]", azureChecksum, copyChecksum);
+        return copyChecksum.equals(azureChecksum);
+    }
+
+    /**
+     * Reads the bytes copied so far from a blob's copy progress, which the service reports as "copied/total"
+     */
+    private static long copiedBytes(String copyProgress) {
+        if (copyProgress == null || !copyProgress.contains("/"))
+            return 0;
+        try {
+            return Long.parseLong(copyProgress.substring(0, copyProgress.indexOf('/')));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Chooses the block size and concurrency of a block transfer. In adaptive mode they come from the transfer tuner;
+     * otherwise the block size is the smallest within the block count limit and the concurrency starts at the
+     * configured value.
+     * @param size Size of the blob in bytes
+     * @param maximumConcurrency Largest number of blocks in flight when not adaptive
+     * @return The plan for the transfer
+     */
+    /**
+     * Runs the transfers of a batch through the asynchronous client, subscribing to no more than the batch
+     * concurrency at once. Transfers are only requested from the source as earlier ones finish, so a directory walk
+     * or listing feeding the batch stays just ahead of the transfers instead of being read up front.
+     * @param kind The kind of batch, for metrics and logging
+     * @param container The remote container of the batch, or null if it spans containers
+     * @param path The remote prefix of the batch, or its local folder if it spans containers
+     * @param result The result the transfers record into
+     * @param transfers One transfer per file, each recording its own outcome
+     * @return The result of the batch
+     * @throws IOException If the source of the batch failed part way
+     */
+    private BatchTransferResult runBatch(String kind, String container, String path, BatchTransferResult result,
+                                         Stream<Mono<Void>> transfers) throws IOException {
+        int concurrency = (maxConcurrency > 0) ? maxConcurrency : maximumTransferConcurrency;
+        String location = (container == null) ? path : container + "/" + path;
+        logger.cpmsInfo("Starting {} of [{}] with up to {} file(s) in flight", kind, location, concurrency);
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer(kind, container, path)) {
+            Flux.fromStream(transfers)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(Function.identity(), concurrency)
+                    .then()
+                    .block();
+            transfer.complete(result.isSuccess());
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("Failed %s of [%s] after %d file(s): %s", kind, location,
+                    result.getTransferredCount() + result.getFailedCount(), e.getMessage()), e);
+        }
+        logger.cpmsInfo("Finished {} of [{}]: {}", kind, location, result);
+        return result;
+    }
+
+    /**
+     * Runs the transfer of one file of a batch off the client's event loop, recording its failure, if any, instead
+     * of failing the batch
+     */
+    private Mono<Void> settleTransfer(BatchTransferResult result, String key, Mono<Void> transfer) {
+        return transfer
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    String reason = (e.getMessage() != null) ? e.getMessage() : e.toString();
+                    logger.cpmsError("Failed to transfer [{}]: {}", key, reason);
+                    result.recordFailure(key, reason);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Runs the transfer of one file of a batch unless identical files are skipped and the destination already holds
+     * the same content, in which case the file is recorded as skipped. The local file is hashed, if its hash is not
+     * cached, off the client's event loop.
+     * @param size Size of the blob in bytes, or null if there is no blob
+     * @param azureChecksum Content-MD5 of the blob, or null if it has none
+     * @param localPath The local side of the transfer
+     */
+    private Mono<Void> skipIdenticalOr(BatchTransferResult result, String key, Long size, byte[] azureChecksum,
+                                       Path localPath, Mono<Void> transfer) {
+        if (!skipIdentical || size == null || azureChecksum == null)
+            return transfer;
+        return Mono.fromCallable(() -> isIdentical(size, azureChecksum, localPath))
+                .flatMap(identical -> {
+                    if (!identical)
+                        return transfer;
+                    logger.debug("Skipping [{}], [{}] already holds identical content", key, localPath);
+                    result.recordSkipped(key, size);
+                    transferMetrics.recordSkipped(size);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Whether a blob already holds the content of a local file, judged by its size and Content-MD5
+     * @param size Size of the blob in bytes
+     * @param azureChecksum Content-MD5 of the blob, or null if it has none
+     * @param localPath The local file
+     * @return Whether the blob and the file hold the same content
+     */
+    private boolean isIdentical(Long size, byte[] azureChecksum, Path localPath) {
+        try {
+            if (size == null || azureChecksum == null || !Files.isRegularFile(localPath) ||
+                    size != Files.size(localPath))
+                return false;
+            return HexFormat.of().formatHex(azureChecksum).equalsIgnoreCase(contentHashCache.getMd5(localPath));
+        } catch (IOException e) {
+            logger.debug("Failed to compare [{}] with its blob: {}", localPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Lists the blobs beneath a prefix by name when identical files are skipped, so a batch upload can compare each
+     * file with its blob without fetching the blob's properties
+     */
+    private Map<String, BlobItemProperties> listExistingBlobs(String container, String prefix) {
+        if (!skipIdentical)
+            return Collections.emptyMap();
+        try (Stream<BlobItem> blobs = streamContainerBlobs(container, prefix)) {
+            return blobs
+                    .filter(blob -> blob.getProperties() != null)
+                    .collect(Collectors.toMap(BlobItem::getName, BlobItem::getProperties, (first, second) -> first));
+        }
+    }
+
+    /**
+     * Uploads one file of a batch. A file which fits in a single request is read in chunks as the client sends it,
+     * with its MD5 computed on the way and checked against the MD5 Azure computed from the body it received. Larger
+     * files are uploaded through {@link #uploadFileToBlob(Path, String, String)}.
+     */
+    private Mono<Void> uploadBlobAsync(BlobContainerAsyncClient containerClient, Path uploadPath, String key,
+                                       BatchTransferResult result) {
+        String container = containerClient.getBlobContainerName();
+        return Mono.fromCallable(() -> Files.size(uploadPath)).flatMap(size -> {
+            if (size > maxSingleUploadSize)
+                return Mono.fromCallable(() -> {
+                    if (!uploadFileToBlob(uploadPath, container, key))
+                        throw new IOException("Upload failed or could not be verified");
+                    BlobProperties blobProperties = getBlobProperties(container, key);
+                    result.recordTransferred(key, size,
+                            (blobProperties != null && blobProperties.getContentMd5() != null) ?
+                                    HexFormat.of().formatHex(blobProperties.getContentMd5()) : null);
+                    return size;
+                }).then();
+            DigestAlgorithm.Digester digester = DigestAlgorithm.MD5.newDigester();
+            BlobAsyncClient blobClient = containerClient.getBlobAsyncClient(key);
+            BlobParallelUploadOptions uploadOptions = new BlobParallelUploadOptions(readFile(uploadPath, digester))
+                    .setParallelTransferOptions(new com.azure.storage.blob.models.ParallelTransferOptions()
+                            .setBlockSizeLong(parallelBlockSize(size))
+                            .setMaxConcurrency(1)
+                            .setMaxSingleUploadSizeLong(maxSingleUploadSize))
+                    .setComputeMd5(true);
+            return Mono.using(() -> acquirePermit(TransferOperation.PUT, size),
+                    sample -> blobClient.uploadWithResponse(uploadOptions)
+                            .flatMap(response -> {
+                                byte[] localChecksum = digester.digest();
+                                byte[] azureChecksum = response.getValue().getContentMd5();
+                                if (azureChecksum == null)
+                                    return blobClient.setHttpHeadersWithResponse(
+                                            new BlobHttpHeaders().setContentMd5(localChecksum),
+                                            new BlobRequestConditions().setIfMatch(response.getValue().getETag()))
+                                            .thenReturn(localChecksum);
+                                if (!Arrays.equals(localChecksum, azureChecksum))
+                                    return Mono.error(new IOException(String.format(
+                                            "Checksums do not match [local: %s, Azure: %s]",
+                                            HexFormat.of().formatHex(localChecksum),
+                                            HexFormat.of().formatHex(azureChecksum))));
+                                return Mono.just(localChecksum);
+                            })
+                            .doOnNext(localChecksum -> {
+                                sample.complete();
+                                result.recordTransferred(key, size, HexFormat.of().formatHex(localChecksum));
+                                if (skipIdentical)
+                                    contentHashCache.putMd5(uploadPath, HexFormat.of().formatHex(localChecksum));
+                            }),
+                    TransferMetrics.Sample::close)
+                    .then();
+        }).doFinally(signal -> metadataCache.invalidateObject(metadataNamespace, container, key));
+    }
+
+    /**
+     * Downloads one blob of a batch. A blob which fits in a single request is written to its file as the response
+     * arrives, with its MD5 computed on the way and checked against the blob's Content-MD5, and only a few chunks
+     * are buffered ahead of the disk. Larger blobs are downloaded through
+     * {@link #downloadBlobToFile(String, String, Path)}.
+     */
+    private Mono<Void> downloadBlobAsync(BlobContainerAsyncClient containerClient, String key, long size,
+                                         byte[] azureChecksum, String eTag, Path outFile,
+                                         BatchTransferResult result) {
+        String container = containerClient.getBlobContainerName();
+        String checksum = (azureChecksum != null) ? HexFormat.of().formatHex(azureChecksum) : null;
+        if (size > maxSingleUploadSize)
+            return Mono.fromCallable(() -> {
+                if (downloadBlobToFile(container, key, outFile.getParent()) == null)
+                    throw new IOException("Download failed or could not be verified");
+                result.recordTransferred(key, size, checksum);
+                return size;
+            }).then();
+        if (azureChecksum == null)
+            return Mono.error(new IOException(String.format(
+                    "Blob [%s/%s] has no Content-MD5 to verify the download against", container, key)));
+        DigestAlgorithm.Digester digester = DigestAlgorithm.MD5.newDigester();
+        BlobAsyncClient blobClient = containerClient.getBlobAsyncClient(key);
+        return Mono.using(() -> acquirePermit(TransferOperation.GET, size),
+                sample -> Mono.using(() -> {
+                            Files.createDirectories(outFile.getParent());
+                            return FileChannel.open(outFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                    StandardOpenOption.TRUNCATE_EXISTING);
+                        },
+                        channel -> blobClient.downloadStreamWithResponse(null, null,
+                                        new BlobRequestConditions().setIfMatch(eTag), false)
+                                .flatMapMany(response -> response.getValue())
+                                .publishOn(Schedulers.boundedElastic(), CPMSStatics.DEFAULT_BATCH_BUFFERED_CHUNKS)
+                                .handle((ByteBuffer buffer, SynchronousSink<Void> sink) -> {
+                                    try {
+                                        bandwidthLimiter.acquireBytes(buffer.remaining());
+                                        digester.update(buffer.duplicate());
+                                        while (buffer.hasRemaining())
+                                            channel.write(buffer);
+                                    } catch (IOException e) {
+                                        sink.error(e);
+                                    }
+                                })
+                                .then(Mono.fromCallable(digester::digest)),
+                        channel -> {
+                            try {
+                                channel.close();
+                            } catch (IOException e) {
+                                logger.debug("Failed to close [{}]: {}", outFile, e.getMessage());
+                            }
+                        })
+                        .flatMap(localChecksum -> {
+                            if (Arrays.equals(localChecksum, azureChecksum))
+                                return Mono.just(localChecksum);
+                            try {
+                                Files.deleteIfExists(outFile);
+                            } catch (IOException e) {
+                                logger.debug("Failed to remove [{}]: {}", outFile, e.getMessage());
+                            }
+                            return Mono.error(new IOException(String.format(
+                                    "Checksums do not match [local: %s, Azure: %s]",
+                                    HexFormat.of().formatHex(localChecksum), checksum)));
+                        })
+                        .doOnNext(localChecksum -> {
+                            sample.complete();
+                            result.recordTransferred(key, size, checksum);
+                            if (skipIdentical)
+                                contentHashCache.putMd5(outFile, checksum);
+                        }),
+                TransferMetrics.Sample::close)
+                .then();
+    }
+
+    /**
+     * Reads a file as a stream of chunks for the asynchronous client, digesting each chunk and waiting on the
+     * bandwidth limiter before handing it on. Chunks are only read as the client requests them.
+     */
+    private Flux<ByteBuffer> readFile(Path path, DigestAlgorithm.Digester digester) {
+        return Flux.using(() -> FileChannel.open(path, StandardOpenOption.READ),
+                channel -> Flux.<ByteBuffer>generate(sink -> {
+                    try {
+                        ByteBuffer buffer = ByteBuffer.allocate(CPMSStatics.DEFAULT_THROTTLE_CHUNK_SIZE);
+                        if (channel.read(buffer) == -1) {
+                            sink.complete();
+                            return;
+                        }
+                        buffer.flip();
+                        bandwidthLimiter.acquireBytes(buffer.remaining());
+                        digester.update(buffer.duplicate());
+                        sink.next(buffer);
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                }),
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        logger.debug("Failed to close [{}]: {}", path, e.getMessage());
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static String batchPrefix(String path) {
+        if (path == null || path.isEmpty())
+            return "";
+        return path.endsWith("/") ? path : path + "/";
+    }
+
+    private TransferTuner.Plan planTransfer(long size, int maximumConcurrency) {
+        long minimumPartSize = CPMSStatics.DEFAULT_PART_SIZE * 1024L * 1024L;
+        if (adaptiveTransfers)
+            return transferTuner.plan(StorageProvider.Azure, transferDestination, size, minimumPartSize,
+                    CPMSStatics.AZURE_MAXIMUM_BLOCKS, transferConcurrency, maximumTransferConcurrency,
+                    AzureBlobStorage::isThrottling);
+        return new TransferTuner.Plan(ChecksumEngine.optimalPartSize(size, minimumPartSize,
+                CPMSStatics.AZURE_MAXIMUM_BLOCKS),
+                new AdaptiveConcurrency(transferConcurrency, maximumConcurrency, AzureBlobStorage::isThrottling));
+    }
+
+    /**
+     * Keeps the block size of an unfinished journaled transfer, which the tuner may plan differently since it started
+     * @return The journaled block size, or the planned one if there is no usable journal
+     */
+    /**
+     * Chooses the block size of a transfer left to the SDK. A configured block size is used as given; otherwise
+     * blocks are sized so each worker gets a few of them, without letting every worker's buffered block together
+     * exceed the streaming buffer memory. Either way the object stays within Azure's block count limit.
+     * @param size Size of the object in bytes
+     * @return The block size in bytes
+     */
+    private long parallelBlockSize(long size) {
+        long floor = ChecksumEngine.optimalPartSize(size, CPMSStatics.AZURE_MINIMUM_BLOCK_SIZE,
+                CPMSStatics.AZURE_MAXIMUM_BLOCKS);
+        if (blockSize > 0)
+            return Math.max(blockSize, floor);
+        long target = size / ((long) maximumTransferConcurrency * CPMSStatics.DEFAULT_ADAPTIVE_PARTS_PER_WORKER);
+        return Math.max(floor, Math.min(target,
+                CPMSStatics.DEFAULT_STREAMING_BUFFER_MEMORY / maximumTransferConcurrency));
+    }
+
+    /**
+     * Chooses the number of blocks in flight of a transfer left to the SDK. A configured concurrency is used as
+     * given; otherwise as many blocks as the object has are sent at once, up to the maximum transfer concurrency and
+     * to what the streaming buffer memory can hold.
+     * @param size Size of the object in bytes
+     * @param blockSize Block size of the transfer in bytes
+     * @return The number of blocks in flight
+     */
+    private int parallelConcurrency(long size, long blockSize) {
+        if (maxConcurrency > 0)
+            return maxConcurrency;
+        long blocks = (size + blockSize - 1) / blockSize;
+        long buffered = CPMSStatics.DEFAULT_STREAMING_BUFFER_MEMORY / blockSize;
+        int concurrency = (int) Math.max(1, Math.min(maximumTransferConcurrency, Math.min(blocks, buffered)));
+        logger.debug("Transferring {} bytes in {} byte blocks with {} in flight", size, blockSize, concurrency);
+        return concurrency;
+    }
+
+    private long journaledPartSize(Path journalPath, TransferJournal.State expected) throws IOException {
+        long journaled = TransferJournal.journaledPartSize(journalPath, expected);
+        return (journaled > 0) ? journaled : expected.partSize;
+    }
+
+    /**
+     * @param failure The failure of a block
+     * @return Whether Azure failed the block because the account is busy, once the SDK's own retries ran out
+     */
+    private static boolean isThrottling(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause())
+            if (cause instanceof BlobStorageException e && (e.getStatusCode() == 503 || e.getStatusCode() == 429 ||
+                    BlobErrorCode.SERVER_BUSY.equals(e.getErrorCode())))
+                return true;
+        return false;
+    }
+
+    private ChecksumResult computeDigests(Path path, Set<DigestAlgorithm> algorithms) throws IOException {
+        return transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                () -> checksumEngine.computeDigests(path, algorithms));
+    }
+
+    /**
+     * Waits for this adapter's request rate limit and then for a transfer scheduler permit, and starts timing the
+     * request
+     * @param operation The kind of request
+     * @param bytes Number of bytes the request transfers, zero for requests such as deletes
+     * @return The request's sample holding the permit, which must be completed once the request succeeds and closed
+     * once it has finished
+     */
+    private TransferMetrics.Sample acquirePermit(TransferOperation operation, long bytes)
+            throws InterruptedIOException {
+        long queuedAt = System.nanoTime();
+        bandwidthLimiter.acquireRequest();
+        return transferMetrics.start(operation, bytes, queuedAt, transferLane.acquire(bytes));
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * @return This adapter's bandwidth limiter, whose limits may be changed while transfers are running
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    /**
+     * @return The metrics of this adapter's requests and transfers
+     */
+    @Override
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
@@ -200,6 +1172,18 @@ public class AzureBlobStorage implements TransferAdapter {
         return tokenCredential;
     }
 
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public long getMaxSingleUploadSize() {
+        return maxSingleUploadSize;
+    }
+
     /*
         Interface Methods
      */
@@ -227,21 +1211,77 @@ public class AzureBlobStorage implements TransferAdapter {
      */
     @Override
     public List<String> listFilesInPath(TransferPath transferPath) {
+        try (Stream<String> files = streamFilesInPath(transferPath)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Lazily streams the files in a path in this provider, following provider pagination and fetching the next page
+     * in the background while the current one is consumed. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the contents of the path or an empty stream
+     */
+    @Override
+    public Stream<String> streamFilesInPath(TransferPath transferPath) {
         if (transferPath == null)
-            return List.of();
-        if (transferPath.getContainer() != null) {
-            if (transferPath.getPath() != null) {
-                return listContainerBlobs(transferPath.getContainer(), transferPath.getPath()).stream()
-                        .map(BlobItem::getName).collect(Collectors.toList());
-            } else {
-                return listContainerBlobs(transferPath.getContainer()).stream()
-                        .map(BlobItem::getName).collect(Collectors.toList());
-            }
-        } else {
-            return listContainers().stream().map(BlobContainerItem::getName).collect(Collectors.toList());
+            return Stream.empty();
+        if (transferPath.getContainer() != null)
+            return streamContainerBlobs(transferPath.getContainer(), transferPath.getPath()).map(BlobItem::getName);
+        return listContainers().stream().map(BlobContainerItem::getName);
+    }
+
+    /**
+     * List the files in a path in this provider along with the size, modification time, checksum and storage class
+     * the provider's listing returns for each, without requesting any file's metadata separately
+     *
+     * @param transferPath The path to list the contents of
+     * @return The entries in the path, in the order of {@link #listFilesInPath}, or an empty list
+     */
+    @Override
+    public List<StorageEntry> listEntriesInPath(TransferPath transferPath) {
+        try (Stream<StorageEntry> entries = streamEntriesInPath(transferPath)) {
+            return entries.collect(Collectors.toList());
         }
     }
 
+    /**
+     * Lazily streams the entries in a path in this provider as {@link #listEntriesInPath} lists them, following
+     * provider pagination like {@link #streamFilesInPath}. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the entries in the path or an empty stream
+     */
+    @Override
+    public Stream<StorageEntry> streamEntriesInPath(TransferPath transferPath) {
+        if (transferPath == null)
+            return Stream.empty();
+        if (transferPath.getContainer() != null)
+            return streamContainerBlobs(transferPath.getContainer(), transferPath.getPath(), true)
+                    .map(this::toStorageEntry);
+        return listContainers().stream().map(container -> new StorageEntry(container.getName(), true, -1,
+                (container.getProperties() == null || container.getProperties().getLastModified() == null) ? null :
+                        container.getProperties().getLastModified().toInstant(),
+                (container.getProperties() == null || container.getProperties().getETag() == null) ? null :
+                        container.getProperties().getETag().replace("\"", ""),
+                null, null, container.getMetadata()));
+    }
+
+    private StorageEntry toStorageEntry(BlobItem blobItem) {
+        BlobItemProperties properties = blobItem.getProperties();
+        if (properties == null)
+            return new StorageEntry(blobItem.getName(), Boolean.TRUE.equals(blobItem.isPrefix()), -1, null, null,
+                    null, null, blobItem.getMetadata());
+        return new StorageEntry(blobItem.getName(), Boolean.TRUE.equals(blobItem.isPrefix()),
+                (properties.getContentLength() == null) ? -1 : properties.getContentLength(),
+                (properties.getLastModified() == null) ? null : properties.getLastModified().toInstant(),
+                (properties.getETag() == null) ? null : properties.getETag().replace("\"", ""),
+                (properties.getContentMd5() == null) ? null : HexFormat.of().formatHex(properties.getContentMd5()),
+                (properties.getAccessTier() == null) ? null : properties.getAccessTier().toString(),
+                blobItem.getMetadata());
+    }
+
     /**
      * Uploads a local file to the indicated container
      *
@@ -252,7 +1292,44 @@ public class AzureBlobStorage implements TransferAdapter {
      */
     @Override
     public boolean uploadFile(Path uploadPath, TransferPath transferPath) throws IOException {
-        return uploadFileToBlob(uploadPath, transferPath.getContainer(), transferPath.getPath());
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("upload", transferPath.getContainer(),
+                transferPath.getPath())) {
+            if (skipIdentical) {
+                BlobProperties blobProperties = getBlobProperties(transferPath.getContainer(), transferPath.getPath());
+                if (blobProperties != null &&
+                        isIdentical(blobProperties.getBlobSize(), blobProperties.getContentMd5(), uploadPath)) {
+                    logger.cpmsInfo("Skipping upload of [{}], [{}/{}] already holds identical content", uploadPath,
+                            transferPath.getContainer(), transferPath.getPath());
+                    transferMetrics.recordSkipped(blobProperties.getBlobSize());
+                    return transfer.complete(true);
+                }
+            }
+            return transfer.complete(uploadFileToBlob(uploadPath, transferPath.getContainer(),
+                    transferPath.getPath()));
+        } finally {
+            metadataCache.invalidateObject(metadataNamespace, transferPath.getContainer(), transferPath.getPath());
+        }
+    }
+
+    /**
+     * Uploads the bytes produced by a writer to the indicated container without staging them in a local file
+     *
+     * @param streamWriter  Producer of the content to upload
+     * @param sizeHint      Expected size of the content in bytes, used to size upload parts
+     * @param transferPath  Remote path for upload
+     * @return Whether the content was successfully uploaded
+     * @throws IOException if the container doesn't exist remotely
+     */
+    @Override
+    public boolean uploadStream(StreamWriter streamWriter, long sizeHint, TransferPath transferPath)
+            throws IOException {
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("stream upload",
+                transferPath.getContainer(), transferPath.getPath())) {
+            return transfer.complete(uploadStreamToBlob(streamWriter, sizeHint, transferPath.getContainer(),
+                    transferPath.getPath()));
+        } finally {
+            metadataCache.invalidateObject(metadataNamespace, transferPath.getContainer(), transferPath.getPath());
+        }
     }
 
     /**
@@ -265,7 +1342,330 @@ public class AzureBlobStorage implements TransferAdapter {
      */
     @Override
     public Path downloadFile(TransferPath transferPath, Path destinationFolder) throws IOException {
-        return downloadBlobToFile(transferPath.getContainer(), transferPath.getPath(), destinationFolder);
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("download", transferPath.getContainer(),
+                transferPath.getPath())) {
+            Path downloaded = downloadBlobToFile(transferPath.getContainer(), transferPath.getPath(),
+                    destinationFolder);
+            transfer.complete(downloaded != null);
+            return downloaded;
+        }
+    }
+
+    /**
+     * Opens a remote file as a stream without saving it locally. Where the provider supports it, the file is fetched
+     * as concurrent byte ranges ahead of the reader and checked against the provider's checksum once it has been
+     * read to the end, in which case a mismatch is reported as an IOException instead of the end of the stream.
+     *
+     * @param transferPath  Remote path to download
+     * @return A stream of the remote file, which must be closed
+     * @throws IOException if the object doesn't exist remotely or cannot be opened
+     */
+    @Override
+    public InputStream downloadStream(TransferPath transferPath) throws IOException {
+        return openBlobStream(transferPath.getContainer(), transferPath.getPath());
+    }
+
+    /**
+     * Deletes a remote file, or every file beneath a remote directory or prefix. Blobs beneath a prefix are deleted
+     * concurrently as the listing is paged through, with throttled requests retried by the client's retry policy.
+     *
+     * @param transferPath  Remote path to delete, which must name more than a container
+     * @return The number of files deleted and the reason any file could not be deleted
+     * @throws IOException if the path cannot be listed or names a whole container
+     */
+    @Override
+    public DeleteResult deletePath(TransferPath transferPath) throws IOException {
+        if (transferPath == null || transferPath.getPath() == null || transferPath.getPath().isEmpty())
+            throw new IOException("Refusing to delete the whole of a container");
+        String container = transferPath.getContainer();
+        String path = transferPath.getPath();
+        if (!doesBlobContainerExist(container))
+            throw new IOException("target container does not exist");
+        BlobContainerClient containerClient = getBlobServiceClient().getBlobContainerClient(container);
+        DeleteResult result = new DeleteResult();
+        ArrayDeque<Future<?>> inFlight = new ArrayDeque<>();
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("delete", container, path);
+             Stream<BlobItem> blobs = Stream.concat(
+                (!path.endsWith("/") && doesBlobExist(container, path)) ?
+                        Stream.of(new BlobItem().setName(path)) : Stream.empty(),
+                streamContainerBlobs(container, path.endsWith("/") ? path : path + "/"))) {
+            Iterator<BlobItem> iterator = blobs.iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next().getName();
+                if (inFlight.size() >= transferConcurrency)
+                    awaitTask(inFlight.poll());
+                inFlight.add(ParallelPartRunner.submit(() -> {
+                    metadataCache.invalidateObject(metadataNamespace, container, key);
+                    try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.DELETE, 0)) {
+                        containerClient.getBlobClient(key).delete();
+                        result.recordDeleted(1);
+                        sample.complete();
+                    } catch (BlobStorageException e) {
+                        result.recordFailure(key, String.format("%s: %s", e.getErrorCode(), e.getMessage()));
+                    } catch (InterruptedIOException e) {
+                        result.recordFailure(key, e.getMessage());
+                    }
+                }));
+            }
+            while (!inFlight.isEmpty())
+                awaitTask(inFlight.poll());
+            transfer.complete(result.isSuccess());
+        } catch (BlobStorageException e) {
+            throw new IOException(String.format("Failed to list [%s/%s] for deletion: %s", container, path,
+                    e.getMessage()), e);
+        } finally {
+            inFlight.forEach(delete -> delete.cancel(true));
+        }
+        logger.cpmsInfo("Deleted {} blob(s) from [{}/{}], {} failed", result.getDeletedCount(), container, path,
+                result.getFailedCount());
+        return result;
+    }
+
+    /**
+     * Copies a remote file, or every file beneath a remote directory or prefix, to another path in this provider
+     * without passing the content through this node. Blobs beneath a prefix are copied concurrently as the listing is
+     * paged through, each as a server-side copy within the storage account.
+     *
+     * @param sourcePath       Remote path to copy, which must name more than a container
+     * @param destinationPath  Remote path to copy to, keeping the source path if only a container is named
+     * @return Whether every file was copied and verified
+     * @throws IOException if the source doesn't exist, names a whole container or the provider cannot copy in place
+     */
+    @Override
+    public boolean copyPath(TransferPath sourcePath, TransferPath destinationPath) throws IOException {
+        if (sourcePath == null || sourcePath.getPath() == null || sourcePath.getPath().isEmpty())
+            throw new IOException("Refusing to copy the whole of a container");
+        String sourceContainer = sourcePath.getContainer();
+        String source = sourcePath.getPath();
+        String destinationContainer = destinationPath.getContainer();
+        String destination = (destinationPath.getPath() == null || destinationPath.getPath().isEmpty()) ?
+                source : destinationPath.getPath();
+        if (!doesBlobContainerExist(sourceContainer))
+            throw new IOException("source container does not exist");
+        if (!doesBlobContainerExist(destinationContainer))
+            throw new IOException("target container does not exist");
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("copy", sourceContainer, source)) {
+            return transfer.complete(copyContainerPath(sourceContainer, source, destinationContainer, destination));
+        }
+    }
+
+    /**
+     * Copies a blob, or every blob beneath a prefix, concurrently as the listing is paged through
+     */
+    private boolean copyContainerPath(String sourceContainer, String source, String destinationContainer,
+                                      String destination) throws IOException {
+        if (!source.endsWith("/") && getBlobProperties(sourceContainer, source) != null)
+            return copyBlob(sourceContainer, source, destinationContainer, destination);
+        String sourcePrefix = source.endsWith("/") ? source : source + "/";
+        String destinationPrefix = destination.endsWith("/") ? destination : destination + "/";
+        AtomicLong copied = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ArrayDeque<Future<?>> inFlight = new ArrayDeque<>();
+        try (Stream<BlobItem> blobs = streamContainerBlobs(sourceContainer, sourcePrefix)) {
+            Iterator<BlobItem> iterator = blobs.iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next().getName();
+                String destinationKey = destinationPrefix + key.substring(sourcePrefix.length());
+                if (inFlight.size() >= transferConcurrency)
+                    awaitTask(inFlight.poll());
+                inFlight.add(ParallelPartRunner.submit(() ->
+                        (copyBlob(sourceContainer, key, destinationContainer, destinationKey) ? copied : failed)
+                                .incrementAndGet()));
+            }
+            while (!inFlight.isEmpty())
+                awaitTask(inFlight.poll());
+        } catch (BlobStorageException e) {
+            throw new IOException(String.format("Failed to list [%s/%s] for copying: %s", sourceContainer, source,
+                    e.getMessage()), e);
+        } finally {
+            inFlight.forEach(copy -> copy.cancel(true));
+        }
+        if (copied.get() + failed.get() == 0)
+            throw new IOException(String.format("Container [%s] does not contain [%s]", sourceContainer, source));
+        logger.cpmsInfo("Copied {} blob(s) from [{}/{}] to [{}/{}], {} failed", copied.get(), sourceContainer, source,
+                destinationContainer, destination, failed.get());
+        return failed.get() == 0;
+    }
+
+    /**
+     * Uploads every file beneath a local directory to blobs beneath a remote prefix, keeping their paths relative to
+     * the directory. Files are uploaded concurrently through the asynchronous client as the directory is walked,
+     * with no more in flight than the configured maximum concurrency, or the maximum transfer concurrency if none is
+     * configured. When identical files are skipped the prefix is listed first, and a file whose blob already has its
+     * size and MD5 is left in place.
+     *
+     * @param localDirectory The local directory to upload
+     * @param transferPath   Remote prefix to upload beneath
+     * @return The files uploaded with the MD5 each was verified with, and the reason any file could not be uploaded
+     * @throws IOException if the directory cannot be walked or the container doesn't exist remotely
+     */
+    public BatchTransferResult uploadDirectory(Path localDirectory, TransferPath transferPath) throws IOException {
+        if (!Files.isDirectory(localDirectory))
+            throw new IOException("directory to upload does not exist");
+        if (!doesBlobContainerExist(transferPath.getContainer()))
+            throw new IOException("target container does not exist");
+        BlobContainerAsyncClient containerClient = getBlobServiceAsyncClient()
+                .getBlobContainerAsyncClient(transferPath.getContainer());
+        String prefix = batchPrefix(transferPath.getPath());
+        BatchTransferResult result = new BatchTransferResult();
+        Map<String, BlobItemProperties> existing = listExistingBlobs(transferPath.getContainer(), prefix);
+        try (Stream<Path> files = Files.walk(localDirectory)) {
+            return runBatch("directory upload", transferPath.getContainer(), prefix, result, files
+                    .filter(Files::isRegularFile)
+                    .map(file -> {
+                        String key = prefix + localDirectory.relativize(file).toString()
+                                .replace(File.separatorChar, '/');
+                        BlobItemProperties blob = existing.get(key);
+                        return settleTransfer(result, key, skipIdenticalOr(result, key,
+                                (blob == null) ? null : blob.getContentLength(),
+                                (blob == null) ? null : blob.getContentMd5(), file,
+                                uploadBlobAsync(containerClient, file, key, result)));
+                    }));
+        }
+    }
+
+    /**
+     * Uploads a list of local files to blobs beneath a remote prefix, each named after its file. Files are uploaded
+     * concurrently through the asynchronous client as for {@link #uploadDirectory(Path, TransferPath)}.
+     *
+     * @param uploadPaths  Paths of the local files to upload
+     * @param transferPath Remote prefix to upload beneath
+     * @return The files uploaded with the MD5 each was verified with, and the reason any file could not be uploaded
+     * @throws IOException if the container doesn't exist remotely
+     */
+    public BatchTransferResult uploadFiles(List<Path> uploadPaths, TransferPath transferPath) throws IOException {
+        if (!doesBlobContainerExist(transferPath.getContainer()))
+            throw new IOException("target container does not exist");
+        BlobContainerAsyncClient containerClient = getBlobServiceAsyncClient()
+                .getBlobContainerAsyncClient(transferPath.getContainer());
+        String prefix = batchPrefix(transferPath.getPath());
+        BatchTransferResult result = new BatchTransferResult();
+        Map<String, BlobItemProperties> existing = listExistingBlobs(transferPath.getContainer(), prefix);
+        return runBatch("batch upload", transferPath.getContainer(), prefix, result, uploadPaths.stream()
+                .map(file -> {
+                    String key = prefix + file.getFileName();
+                    BlobItemProperties blob = existing.get(key);
+                    return settleTransfer(result, key, skipIdenticalOr(result, key,
+                            (blob == null) ? null : blob.getContentLength(),
+                            (blob == null) ? null : blob.getContentMd5(), file,
+                            uploadBlobAsync(containerClient, file, key, result)));
+                }));
+    }
+
+    /**
+     * Downloads every blob beneath a remote prefix into a local folder, keeping their names relative to the prefix.
+     * Blobs are downloaded concurrently through the asynchronous client as the listing is paged through, with no
+     * more in flight than the configured maximum concurrency, or the maximum transfer concurrency if none is
+     * configured. Each blob is verified against the Content-MD5 returned by the listing.
+     *
+     * @param transferPath      Remote prefix to download
+     * @param destinationFolder The folder in which to download the blobs
+     * @return The blobs downloaded with the MD5 each was verified with, and the reason any blob could not be
+     *         downloaded
+     * @throws IOException if the container doesn't exist remotely, cannot be listed or has nothing beneath the prefix
+     */
+    public BatchTransferResult downloadPrefix(TransferPath transferPath, Path destinationFolder)
+            throws IOException {
+        if (!doesBlobContainerExist(transferPath.getContainer()))
+            throw new IOException("target container does not exist");
+        BlobContainerAsyncClient containerClient = getBlobServiceAsyncClient()
+                .getBlobContainerAsyncClient(transferPath.getContainer());
+        String prefix = batchPrefix(transferPath.getPath());
+        Path root = destinationFolder.toAbsolutePath().normalize();
+        BatchTransferResult result = new BatchTransferResult();
+        try (Stream<BlobItem> blobs = streamContainerBlobs(transferPath.getContainer(), prefix)) {
+            runBatch("prefix download", transferPath.getContainer(), prefix, result, blobs
+                    .filter(blob -> !blob.getName().endsWith("/"))
+                    .map(blob -> {
+                        Path outFile = root.resolve(blob.getName().substring(prefix.length())).normalize();
+                        Mono<Void> transfer = outFile.startsWith(root) ?
+                                skipIdenticalOr(result, blob.getName(), blob.getProperties().getContentLength(),
+                                        blob.getProperties().getContentMd5(), outFile,
+                                        downloadBlobAsync(containerClient, blob.getName(),
+                                                blob.getProperties().getContentLength(),
+                                                blob.getProperties().getContentMd5(), blob.getProperties().getETag(),
+                                                outFile, result)) :
+                                Mono.error(new IOException(String.format("Blob would be written outside [%s]",
+                                        root)));
+                        return settleTransfer(result, blob.getName(), transfer);
+                    }));
+        }
+        if (result.getTransferredCount() + result.getSkippedCount() + result.getFailedCount() == 0)
+            throw new IOException(String.format("Container [%s] does not contain [%s]", transferPath.getContainer(),
+                    prefix));
+        return result;
+    }
+
+    /**
+     * Downloads a list of remote files into a local folder, each named after its blob. Blobs are downloaded
+     * concurrently through the asynchronous client as for {@link #downloadPrefix(TransferPath, Path)}, each
+     * verified against its Content-MD5.
+     *
+     * @param transferPaths     Remote paths of the blobs to download
+     * @param destinationFolder The folder in which to download the blobs
+     * @return The blobs downloaded with the MD5 each was verified with, and the reason any blob could not be
+     *         downloaded
+     */
+    public BatchTransferResult downloadFiles(List<TransferPath> transferPaths, Path destinationFolder)
+            throws IOException {
+        BlobServiceAsyncClient serviceClient = getBlobServiceAsyncClient();
+        BatchTransferResult result = new BatchTransferResult();
+        return runBatch("batch download", null, destinationFolder.toString(), result, transferPaths.stream()
+                .map(transferPath -> {
+                    String key = transferPath.getPath();
+                    Path outFile = destinationFolder.resolve(key.substring(key.lastIndexOf("/") + 1));
+                    return settleTransfer(result, transferPath.getContainer() + "/" + key,
+                            Mono.fromCallable(() -> getBlobProperties(transferPath.getContainer(), key))
+                                    .switchIfEmpty(Mono.error(new IOException("target object does not exist")))
+                                    .flatMap(blobProperties -> skipIdenticalOr(result,
+                                            transferPath.getContainer() + "/" + key, blobProperties.getBlobSize(),
+                                            blobProperties.getContentMd5(), outFile, downloadBlobAsync(
+                                            serviceClient.getBlobContainerAsyncClient(transferPath.getContainer()),
+                                            key, blobProperties.getBlobSize(), blobProperties.getContentMd5(),
+                                            blobProperties.getETag(), outFile, result))));
+                }));
+    }
+
+    private void awaitTask(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for blobs");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Output stream filling the start of a fixed-size buffer, used to receive a ranged download in place
+     */
+    private static class BufferRegionOutputStream extends OutputStream {
+        private final byte[] buffer;
+        private final int length;
+        private int position = 0;
+
+        public BufferRegionOutputStream(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            if (position + len > length)
+                throw new IOException(String.format("Write of %d bytes overruns range of %d bytes", len, length));
+            System.arraycopy(bytes, off, buffer, position, len);
+            position += len;
+        }
+
+        public int getBytesWritten() {
+            return position;
+        }
     }
 
     private static class CrescoAzureLoggingTransferListener implements ProgressListener {
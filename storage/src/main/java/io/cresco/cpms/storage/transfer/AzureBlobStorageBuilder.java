@@ -2,15 +2,42 @@ package io.cresco.cpms.storage.transfer;
 
 import com.azure.core.credential.BasicAuthenticationCredential;
 import com.azure.core.credential.TokenCredential;
-import com.azure.identity.DefaultAzureCredentialBuilder;
 import io.cresco.cpms.exceptions.StorageExecutionException;
 import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
 import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferPriority;
+
+import java.util.UUID;
 
 @SuppressWarnings("unused")
 public class AzureBlobStorageBuilder {
     private String endpoint;
     private TokenCredential tokenCredential;
+    private String username;
+    private String password;
+    private int maxConnections;
+    private long blockSize;
+    private int maxConcurrency;
+    private long maxSingleUploadSize;
+    private ChecksumEngine checksumEngine;
+    private boolean resumableTransfers;
+    private long resumableTransferThreshold;
+    private int transferConcurrency;
+    private int maximumTransferConcurrency;
+    private MetadataCache metadataCache;
+    private boolean adaptiveTransfers;
+    private TransferTuner transferTuner;
+
+    private TransferScheduler transferScheduler;
+    private TransferPriority transferPriority;
+    private String transferRun;
+    private BandwidthLimiter bandwidthLimiter;
+    private TransferMetrics transferMetrics;
+    private boolean skipIdentical;
+    private ContentHashCache contentHashCache;
+    private long bandwidthLimit;
+    private double requestLimit;
 
     private CPMSLogger logger;
 
@@ -19,7 +46,28 @@ public class AzureBlobStorageBuilder {
         if (System.getenv("AZURE_STORAGE_ACCOUNT_NAME") != null)
             this.endpoint = String.format("https://%s.blob.core.windows.net",
                     System.getenv("AZURE_STORAGE_ACCOUNT_NAME"));
-        this.tokenCredential = new DefaultAzureCredentialBuilder().build();
+        this.tokenCredential = AzureClientManager.getInstance().getDefaultCredential();
+        this.maxConnections = CPMSStatics.DEFAULT_AZURE_MAX_CONNECTIONS;
+        this.blockSize = CPMSStatics.DEFAULT_AZURE_BLOCK_SIZE;
+        this.maxConcurrency = CPMSStatics.DEFAULT_AZURE_MAX_CONCURRENCY;
+        this.maxSingleUploadSize = CPMSStatics.DEFAULT_AZURE_MAX_SINGLE_UPLOAD_SIZE;
+        this.checksumEngine = ChecksumEngine.getSharedInstance();
+        this.resumableTransfers = CPMSStatics.DEFAULT_RESUMABLE_TRANSFERS;
+        this.resumableTransferThreshold = CPMSStatics.DEFAULT_RESUMABLE_TRANSFER_THRESHOLD;
+        this.transferConcurrency = CPMSStatics.DEFAULT_TRANSFER_CONCURRENCY;
+        this.maximumTransferConcurrency = CPMSStatics.DEFAULT_MAXIMUM_TRANSFER_CONCURRENCY;
+        this.metadataCache = MetadataCache.getSharedInstance();
+        this.adaptiveTransfers = CPMSStatics.DEFAULT_ADAPTIVE_TRANSFERS;
+        this.transferTuner = TransferTuner.getSharedInstance();
+        this.transferScheduler = TransferScheduler.getSharedInstance();
+        this.transferPriority = CPMSStatics.DEFAULT_TRANSFER_PRIORITY;
+        this.transferRun = UUID.randomUUID().toString();
+        this.bandwidthLimiter = BandwidthLimiter.getGlobalInstance();
+        this.transferMetrics = TransferMetrics.getGlobalInstance();
+        this.skipIdentical = CPMSStatics.DEFAULT_SKIP_IDENTICAL;
+        this.contentHashCache = ContentHashCache.getSharedInstance();
+        this.bandwidthLimit = CPMSStatics.DEFAULT_BANDWIDTH_LIMIT;
+        this.requestLimit = CPMSStatics.DEFAULT_REQUEST_LIMIT;
     }
 
     public AzureBlobStorageBuilder withEndpoint(String endpoint) {
@@ -27,6 +75,138 @@ public class AzureBlobStorageBuilder {
         return this;
     }
 
+    public AzureBlobStorageBuilder withMaxConnections(int maxConnections) {
+        if (maxConnections > 0)
+            this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * @param blockSize Block size of parallel uploads and downloads in bytes, or 0 to size blocks by the object
+     */
+    public AzureBlobStorageBuilder withBlockSize(long blockSize) {
+        if (blockSize >= 0 && blockSize <= CPMSStatics.AZURE_MAXIMUM_BLOCK_SIZE)
+            this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * @param maxConcurrency Blocks in flight during parallel uploads and downloads, or 0 to choose by the object
+     */
+    public AzureBlobStorageBuilder withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency >= 0)
+            this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @param maxSingleUploadSize Largest upload sent as a single request rather than as blocks, in bytes
+     */
+    public AzureBlobStorageBuilder withMaxSingleUploadSize(long maxSingleUploadSize) {
+        if (maxSingleUploadSize > 0 && maxSingleUploadSize <= CPMSStatics.AZURE_MAXIMUM_SINGLE_UPLOAD_SIZE)
+            this.maxSingleUploadSize = maxSingleUploadSize;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withChecksumEngine(ChecksumEngine checksumEngine) {
+        if (checksumEngine != null)
+            this.checksumEngine = checksumEngine;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withResumableTransfers(boolean resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withResumableTransferThreshold(long resumableTransferThreshold) {
+        if (resumableTransferThreshold >= 0)
+            this.resumableTransferThreshold = resumableTransferThreshold;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withTransferConcurrency(int transferConcurrency) {
+        if (transferConcurrency > 0)
+            this.transferConcurrency = transferConcurrency;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withMaximumTransferConcurrency(int maximumTransferConcurrency) {
+        if (maximumTransferConcurrency > 0)
+            this.maximumTransferConcurrency = maximumTransferConcurrency;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withMetadataCache(MetadataCache metadataCache) {
+        if (metadataCache != null)
+            this.metadataCache = metadataCache;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withAdaptiveTransfers(boolean adaptiveTransfers) {
+        this.adaptiveTransfers = adaptiveTransfers;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withTransferTuner(TransferTuner transferTuner) {
+        if (transferTuner != null)
+            this.transferTuner = transferTuner;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withTransferScheduler(TransferScheduler transferScheduler) {
+        if (transferScheduler != null)
+            this.transferScheduler = transferScheduler;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withTransferPriority(TransferPriority transferPriority) {
+        if (transferPriority != null)
+            this.transferPriority = transferPriority;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withTransferRun(String transferRun) {
+        if (transferRun != null && !transferRun.isBlank())
+            this.transferRun = transferRun;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        if (bandwidthLimiter != null)
+            this.bandwidthLimiter = bandwidthLimiter;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withTransferMetrics(TransferMetrics transferMetrics) {
+        if (transferMetrics != null)
+            this.transferMetrics = transferMetrics;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withSkipIdentical(boolean skipIdentical) {
+        this.skipIdentical = skipIdentical;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withContentHashCache(ContentHashCache contentHashCache) {
+        if (contentHashCache != null)
+            this.contentHashCache = contentHashCache;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withBandwidthLimit(long bandwidthLimit) {
+        if (bandwidthLimit >= 0)
+            this.bandwidthLimit = bandwidthLimit;
+        return this;
+    }
+
+    public AzureBlobStorageBuilder withRequestLimit(double requestLimit) {
+        if (requestLimit >= 0)
+            this.requestLimit = requestLimit;
+        return this;
+    }
+
     public AzureBlobStorageBuilder withLogger(CPMSLogger logger) {
         setLogger(logger);
         return this;
@@ -34,6 +214,8 @@ public class AzureBlobStorageBuilder {
 
     public AzureBlobStorageBuilder withStaticCredentials(String username, String password) {
         this.tokenCredential = new BasicAuthenticationCredential(username, password);
+        this.username = username;
+        this.password = password;
         return this;
     }
 
@@ -51,6 +233,42 @@ public class AzureBlobStorageBuilder {
         return endpoint;
     }
 
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
+
+    public String getTransferRun() {
+        return transferRun;
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    public boolean isSkipIdentical() {
+        return skipIdentical;
+    }
+
+    public ContentHashCache getContentHashCache() {
+        return contentHashCache;
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public double getRequestLimit() {
+        return requestLimit;
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
@@ -62,4 +280,60 @@ public class AzureBlobStorageBuilder {
     public TokenCredential getTokenCredential() {
         return tokenCredential;
     }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public long getMaxSingleUploadSize() {
+        return maxSingleUploadSize;
+    }
+
+    public ChecksumEngine getChecksumEngine() {
+        return checksumEngine;
+    }
+
+    public boolean isResumableTransfers() {
+        return resumableTransfers;
+    }
+
+    public long getResumableTransferThreshold() {
+        return resumableTransferThreshold;
+    }
+
+    public int getTransferConcurrency() {
+        return transferConcurrency;
+    }
+
+    public int getMaximumTransferConcurrency() {
+        return maximumTransferConcurrency;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    public boolean isAdaptiveTransfers() {
+        return adaptiveTransfers;
+    }
+
+    public TransferTuner getTransferTuner() {
+        return transferTuner;
+    }
 }
@@ -0,0 +1,76 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.azure.core.credential.TokenCredential;
+
+import java.util.Objects;
+
+/**
+ * Identifies a shared Azure client held by the {@link AzureClientManager}. Two storage adapters built with the same
+ * endpoint, credentials and connection limit share the same client and HTTP connection pool. Static credentials are
+ * compared by value; any other credential is compared by identity, so adapters using the node's default credential
+ * share a client.
+ */
+public class AzureClientKey {
+    private final String endpoint;
+    private final String username;
+    private final String password;
+    private final TokenCredential tokenCredential;
+    private final int maxConnections;
+
+    public AzureClientKey(AzureBlobStorageBuilder builder) {
+        this.endpoint = builder.getEndpoint();
+        this.username = builder.getUsername();
+        this.password = builder.getPassword();
+        this.tokenCredential = builder.getTokenCredential();
+        this.maxConnections = builder.getMaxConnections();
+    }
+
+    public boolean hasStaticCredentials() {
+        return username != null && password != null;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public TokenCredential getTokenCredential() {
+        return tokenCredential;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof AzureClientKey that))
+            return false;
+        if (hasStaticCredentials() != that.hasStaticCredentials())
+            return false;
+        if (hasStaticCredentials()) {
+            if (!username.equals(that.username) || !password.equals(that.password))
+                return false;
+        } else if (tokenCredential != that.tokenCredential) {
+            return false;
+        }
+        return maxConnections == that.maxConnections &&
+                Objects.equals(endpoint, that.endpoint);
+    }
+
+    @Override
+    public int hashCode() {
+        return hasStaticCredentials() ?
+                Objects.hash(endpoint, username, password, maxConnections) :
+                Objects.hash(endpoint, System.identityHashCode(tokenCredential), maxConnections);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        Azure Client Key (credential: %s, endpoint: %s)""",
+                hasStaticCredentials() ? username : "token", endpoint
+        );
+    }
+}
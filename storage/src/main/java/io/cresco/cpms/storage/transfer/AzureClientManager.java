@@ -0,0 +1,154 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.util.HttpClientOptions;
+import com.azure.identity.DefaultAzureCredentialBuilder;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-wide holder of long-lived Azure clients. Building a {@link BlobServiceClient} builds an HTTP pipeline and
+ * connection pool with it, so one client is kept per {@link AzureClientKey} and handed to every adapter and call
+ * with that key. Azure clients hold no resources that need closing, so clients left unused for longer than the
+ * client idle timeout are simply dropped, along with their pools, the next time a client is requested.
+ * <p>
+ * The manager also holds the node's default credential, so its token cache is shared by every adapter which is not
+ * given credentials of its own.
+ */
+@SuppressWarnings({"unused"})
+public class AzureClientManager {
+    private static final AzureClientManager instance = new AzureClientManager();
+
+    private final Map<AzureClientKey, AzureClientEntry> entries = new ConcurrentHashMap<>();
+    private final CPMSLogger logger;
+    private Duration clientIdleTimeout;
+    private TokenCredential defaultCredential;
+
+    AzureClientManager() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(AzureClientManager.class).build();
+        this.clientIdleTimeout = Duration.ofSeconds(CPMSStatics.DEFAULT_AZURE_CLIENT_IDLE_TIMEOUT_SECONDS);
+    }
+
+    public static AzureClientManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the shared client for a key, building it on first use
+     * @param key The client key
+     * @return The shared client, which must not be kept beyond the call it is fetched for
+     */
+    public BlobServiceClient getClient(AzureClientKey key) {
+        evictIdleClients();
+        return entries.computeIfAbsent(key, AzureClientEntry::new).getClient();
+    }
+
+    /**
+     * Returns the shared asynchronous client for a key, building it on first use. It shares the connection pool of
+     * the key's synchronous client.
+     * @param key The client key
+     * @return The shared asynchronous client, which must not be kept beyond the call it is fetched for
+     */
+    public BlobServiceAsyncClient getAsyncClient(AzureClientKey key) {
+        evictIdleClients();
+        return entries.computeIfAbsent(key, AzureClientEntry::new).getAsyncClient();
+    }
+
+    /**
+     * @return The node's default Azure credential, built on first use
+     */
+    public synchronized TokenCredential getDefaultCredential() {
+        if (defaultCredential == null)
+            defaultCredential = new DefaultAzureCredentialBuilder().build();
+        return defaultCredential;
+    }
+
+    /**
+     * Drops every shared client that has been idle longer than the idle timeout
+     */
+    public void evictIdleClients() {
+        long cutoff = System.currentTimeMillis() - clientIdleTimeout.toMillis();
+        entries.values().removeIf(entry -> {
+            if (!entry.isIdleSince(cutoff))
+                return false;
+            logger.debug("Evicting idle Azure client for [{}]", entry.getKey());
+            return true;
+        });
+    }
+
+    /**
+     * Drops all shared clients. The manager can be used again afterward.
+     */
+    public void shutdown() {
+        logger.debug("Shutting down shared Azure clients");
+        entries.clear();
+    }
+
+    public int getClientCount() {
+        return entries.size();
+    }
+
+    public Duration getClientIdleTimeout() {
+        return clientIdleTimeout;
+    }
+
+    public void setClientIdleTimeout(Duration clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+    }
+
+    private static class AzureClientEntry {
+        private final AzureClientKey key;
+        private BlobServiceClient client;
+        private BlobServiceAsyncClient asyncClient;
+        private long lastAccess;
+
+        AzureClientEntry(AzureClientKey key) {
+            this.key = key;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized boolean isIdleSince(long cutoff) {
+            return lastAccess < cutoff;
+        }
+
+        AzureClientKey getKey() {
+            return key;
+        }
+
+        synchronized BlobServiceClient getClient() {
+            lastAccess = System.currentTimeMillis();
+            if (client == null)
+                build();
+            return client;
+        }
+
+        synchronized BlobServiceAsyncClient getAsyncClient() {
+            lastAccess = System.currentTimeMillis();
+            if (asyncClient == null)
+                build();
+            return asyncClient;
+        }
+
+        private void build() {
+            HttpClientOptions httpClientOptions = new HttpClientOptions()
+                    .setMaximumConnectionPoolSize(key.getMaxConnections())
+                    .setConnectionIdleTimeout(Duration.ofSeconds(
+                            CPMSStatics.DEFAULT_AZURE_CONNECTION_MAX_IDLE_SECONDS));
+            BlobServiceClientBuilder builder = new BlobServiceClientBuilder()
+                    .endpoint(key.getEndpoint())
+                    .credential(key.getTokenCredential())
+                    .httpClient(HttpClient.createDefault(httpClientOptions));
+            client = builder.buildClient();
+            asyncClient = builder.buildAsyncClient();
+        }
+    }
+}
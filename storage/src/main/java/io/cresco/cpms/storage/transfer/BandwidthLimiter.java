@@ -0,0 +1,250 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.CPMSLogger;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limits on the bytes and requests per second a transfer sends or receives, so storage transfers leave
+ * room on shared uplinks for heartbeats and other traffic. Each limiter may have a parent, normally the node-wide
+ * global limiter, whose limits apply on top of its own.
+ * <p>
+ * A limit of zero means unlimited. Limits can be changed while transfers are running, and time-of-day windows can
+ * replace the bandwidth limit during part of the day, for example to throttle harder during working hours. Buckets
+ * hold up to {@code burstMillis} of their rate; larger amounts are taken on credit and waited off, so one large part
+ * delays the next rather than being refused.
+ */
+@SuppressWarnings({"unused"})
+public class BandwidthLimiter {
+    private static final BandwidthLimiter globalInstance = new BandwidthLimiterBuilder().build();
+
+    private final BandwidthLimiter parent;
+    private final long burstMillis;
+    private final TokenBucket byteBucket;
+    private final TokenBucket requestBucket;
+    private final List<ScheduleWindow> schedule = new CopyOnWriteArrayList<>();
+    private volatile long bytesPerSecond;
+    private volatile double requestsPerSecond;
+
+    private CPMSLogger logger;
+
+    /**
+     * Bandwidth limiter constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public BandwidthLimiter(BandwidthLimiterBuilder builder) {
+        this.parent = builder.getParent();
+        this.burstMillis = builder.getBurstMillis();
+        this.byteBucket = new TokenBucket();
+        this.requestBucket = new TokenBucket();
+        this.bytesPerSecond = builder.getBytesPerSecond();
+        this.requestsPerSecond = builder.getRequestsPerSecond();
+        this.schedule.addAll(builder.getSchedule());
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide limiter, unlimited until configured, which the limiters of adapters use as their parent
+     * @return The global bandwidth limiter
+     */
+    public static BandwidthLimiter getGlobalInstance() {
+        return globalInstance;
+    }
+
+    /**
+     * Blocks until this limiter and its parents allow the given number of bytes to be transferred
+     * @param bytes Number of bytes about to be sent or received
+     * @throws InterruptedIOException If interrupted while waiting
+     */
+    public void acquireBytes(long bytes) throws InterruptedIOException {
+        if (bytes > 0)
+            await(byteBucket.reserve(bytes, getEffectiveBytesPerSecond()));
+        if (parent != null)
+            parent.acquireBytes(bytes);
+    }
+
+    /**
+     * Blocks until this limiter and its parents allow another request to be sent
+     * @throws InterruptedIOException If interrupted while waiting
+     */
+    public void acquireRequest() throws InterruptedIOException {
+        await(requestBucket.reserve(1, requestsPerSecond));
+        if (parent != null)
+            parent.acquireRequest();
+    }
+
+    private void await(long waitNanos) throws InterruptedIOException {
+        if (waitNanos <= 0)
+            return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for transfer bandwidth");
+        }
+    }
+
+    /**
+     * @param in The stream to read from
+     * @return A stream which waits for bandwidth before passing on each chunk it reads
+     */
+    public InputStream throttle(InputStream in) {
+        return new ThrottledInputStream(in, this);
+    }
+
+    /**
+     * @param out The stream to write to
+     * @return A stream which waits for bandwidth before passing on each chunk written to it
+     */
+    public OutputStream throttle(OutputStream out) {
+        return new ThrottledOutputStream(out, this);
+    }
+
+    /**
+     * Whether a bandwidth limit currently applies, in which case adapters send whole-file transfers as parts they
+     * can meter instead of handing them to provider SDKs which read the file themselves
+     * @return Whether this limiter or one of its parents has a bandwidth limit in effect
+     */
+    public boolean isLimited() {
+        return getEffectiveBytesPerSecond() > 0 || (parent != null && parent.isLimited());
+    }
+
+    /**
+     * @return The bandwidth limit in effect at this time of day, in bytes per second, or zero if unlimited
+     */
+    public long getEffectiveBytesPerSecond() {
+        LocalTime now = LocalTime.now();
+        for (ScheduleWindow window : schedule)
+            if (window.contains(now))
+                return window.getBytesPerSecond();
+        return bytesPerSecond;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @param bytesPerSecond The bandwidth limit outside of any schedule window, zero for unlimited
+     */
+    public void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        logger.debug("Bandwidth limit set to {} bytes/s", this.bytesPerSecond);
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @param requestsPerSecond The request rate limit, zero for unlimited
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = Math.max(0, requestsPerSecond);
+        logger.debug("Request limit set to {} requests/s", this.requestsPerSecond);
+    }
+
+    /**
+     * Replaces the bandwidth limit between two times of day. The first window containing the current time applies.
+     * @param start Start of the window
+     * @param end End of the window, which may be before the start for a window spanning midnight
+     * @param bytesPerSecond The bandwidth limit within the window, zero for unlimited
+     */
+    public void addScheduleWindow(LocalTime start, LocalTime end, long bytesPerSecond) {
+        schedule.add(new ScheduleWindow(start, end, bytesPerSecond));
+    }
+
+    public void clearSchedule() {
+        schedule.clear();
+    }
+
+    public List<ScheduleWindow> getSchedule() {
+        return List.copyOf(schedule);
+    }
+
+    public BandwidthLimiter getParent() {
+        return parent;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(BandwidthLimiter.class);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        {
+                            "bytes_per_second": %d,
+                            "effective_bytes_per_second": %d,
+                            "requests_per_second": %.1f,
+                            "schedule_windows": %d
+                        }""",
+                getBytesPerSecond(), getEffectiveBytesPerSecond(), getRequestsPerSecond(), schedule.size());
+    }
+
+    /**
+     * A time of day during which a different bandwidth limit applies
+     */
+    public static final class ScheduleWindow {
+        private final LocalTime start;
+        private final LocalTime end;
+        private final long bytesPerSecond;
+
+        public ScheduleWindow(LocalTime start, LocalTime end, long bytesPerSecond) {
+            this.start = start;
+            this.end = end;
+            this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        }
+
+        public boolean contains(LocalTime time) {
+            if (start.isBefore(end))
+                return !time.isBefore(start) && time.isBefore(end);
+            return !time.isBefore(start) || time.isBefore(end);
+        }
+
+        public LocalTime getStart() {
+            return start;
+        }
+
+        public LocalTime getEnd() {
+            return end;
+        }
+
+        public long getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+    }
+
+    /**
+     * Tokens refill continuously at the current rate up to the burst size. Reservations may take the balance below
+     * zero, and the caller waits until it would have refilled back to zero.
+     */
+    private final class TokenBucket {
+        private double tokens = 0;
+        private long refilledAt = System.nanoTime();
+
+        private synchronized long reserve(double amount, double rate) {
+            long now = System.nanoTime();
+            if (rate <= 0) {
+                tokens = 0;
+                refilledAt = now;
+                return 0;
+            }
+            double capacity = rate * burstMillis / 1000.0;
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+            tokens -= amount;
+            return (tokens >= 0) ? 0 : (long) (-tokens / rate * 1e9);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings({"unused"})
+public class BandwidthLimiterBuilder {
+    private long bytesPerSecond;
+    private double requestsPerSecond;
+    private long burstMillis;
+    private final List<BandwidthLimiter.ScheduleWindow> schedule = new ArrayList<>();
+    private BandwidthLimiter parent;
+
+    private CPMSLogger logger;
+
+    public BandwidthLimiterBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(BandwidthLimiterBuilder.class).build();
+        this.bytesPerSecond = CPMSStatics.DEFAULT_BANDWIDTH_LIMIT;
+        this.requestsPerSecond = CPMSStatics.DEFAULT_REQUEST_LIMIT;
+        this.burstMillis = CPMSStatics.DEFAULT_THROTTLE_BURST_MILLIS;
+    }
+
+    public BandwidthLimiterBuilder withBytesPerSecond(long bytesPerSecond) {
+        if (bytesPerSecond >= 0)
+            this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    public BandwidthLimiterBuilder withRequestsPerSecond(double requestsPerSecond) {
+        if (requestsPerSecond >= 0)
+            this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    public BandwidthLimiterBuilder withBurstMillis(long burstMillis) {
+        if (burstMillis > 0)
+            this.burstMillis = burstMillis;
+        return this;
+    }
+
+    public BandwidthLimiterBuilder withScheduleWindow(LocalTime start, LocalTime end, long bytesPerSecond) {
+        if (start != null && end != null && !start.equals(end))
+            this.schedule.add(new BandwidthLimiter.ScheduleWindow(start, end, bytesPerSecond));
+        return this;
+    }
+
+    public BandwidthLimiterBuilder withParent(BandwidthLimiter parent) {
+        this.parent = parent;
+        return this;
+    }
+
+    public BandwidthLimiterBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public BandwidthLimiter build() {
+        BandwidthLimiter bandwidthLimiter = new BandwidthLimiter(this);
+        validateBandwidthLimiterObject(bandwidthLimiter);
+        return bandwidthLimiter;
+    }
+
+    public void validateBandwidthLimiterObject(BandwidthLimiter bandwidthLimiter) {
+        //Todo: Add some validation here
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public long getBurstMillis() {
+        return burstMillis;
+    }
+
+    public List<BandwidthLimiter.ScheduleWindow> getSchedule() {
+        return schedule;
+    }
+
+    public BandwidthLimiter getParent() {
+        return parent;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(BandwidthLimiterBuilder.class);
+    }
+}
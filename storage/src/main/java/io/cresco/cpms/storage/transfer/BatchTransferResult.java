@@ -0,0 +1,92 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of transferring a set of files, counting the files and bytes moved or skipped as already up to date,
+ * recording the MD5 each file was verified with and why each remaining file could not be transferred. Files of a
+ * batch report into the same result concurrently.
+ */
+@SuppressWarnings({"unused"})
+public class BatchTransferResult {
+    private long transferredCount = 0;
+    private long transferredBytes = 0;
+    private long skippedCount = 0;
+    private long skippedBytes = 0;
+    private final Map<String, String> checksums = new TreeMap<>();
+    private final Map<String, String> failures = new TreeMap<>();
+
+    synchronized void recordTransferred(String key, long bytes, String checksum) {
+        transferredCount++;
+        transferredBytes += bytes;
+        if (checksum != null)
+            checksums.put(key, checksum);
+    }
+
+    synchronized void recordSkipped(String key, long bytes) {
+        skippedCount++;
+        skippedBytes += bytes;
+    }
+
+    synchronized void recordFailure(String key, String reason) {
+        failures.put(key, reason);
+    }
+
+    /**
+     * @return Whether every file of the batch was transferred
+     */
+    public synchronized boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    public synchronized long getTransferredCount() {
+        return transferredCount;
+    }
+
+    public synchronized long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * @return The number of files left alone because the destination already held them
+     */
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public synchronized long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    public synchronized long getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * @return The hex MD5 each transferred file was verified with, keyed by object
+     */
+    public synchronized Map<String, String> getChecksums() {
+        return Collections.unmodifiableMap(new TreeMap<>(checksums));
+    }
+
+    /**
+     * @return The reason each file could not be transferred, keyed by object
+     */
+    public synchronized Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(new TreeMap<>(failures));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("""
+                BatchTransferResult {
+                    transferred: %d,
+                    bytes: %d,
+                    skipped: %d,
+                    skipped_bytes: %d,
+                    failed: %d
+                }""", transferredCount, transferredBytes, skippedCount, skippedBytes, failures.size());
+    }
+}
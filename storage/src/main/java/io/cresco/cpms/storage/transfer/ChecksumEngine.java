@@ -0,0 +1,433 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes per-part digests of local files. Parts are hashed concurrently using positional reads on a single
+ * {@link FileChannel} into pooled direct buffers, and every requested algorithm is fed from the same read, so a file
+ * is read exactly once and no per-part arrays are allocated.
+ */
+@SuppressWarnings({"unused"})
+public class ChecksumEngine {
+    private static final ExecutorService hashingExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cpms-checksum");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final OpenOption directOpenOption = loadDirectOpenOption();
+    private static final ChecksumEngine sharedInstance = new ChecksumEngineBuilder().build();
+
+    private final int concurrency;
+    private final DirectBufferPool bufferPool;
+
+    private CPMSLogger logger;
+
+    /**
+     * Checksum engine constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public ChecksumEngine(ChecksumEngineBuilder builder) {
+        this.concurrency = builder.getConcurrency();
+        this.bufferPool = new DirectBufferPool(builder.getBufferSize(), builder.getConcurrency());
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide engine sized to the available processors
+     * @return The shared checksum engine
+     */
+    public static ChecksumEngine getSharedInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * Calculates the part size S3 uses for a multipart upload, growing the minimum part size when the object would
+     * otherwise exceed the maximum number of parts
+     * @param contentLength Size of the object in bytes
+     * @param minimumPartSize Configured minimum part size in bytes
+     * @return The part size in bytes
+     */
+    public static long optimalPartSize(long contentLength, long minimumPartSize) {
+        return optimalPartSize(contentLength, minimumPartSize, CPMSStatics.S3_MAXIMUM_UPLOAD_PARTS);
+    }
+
+    /**
+     * Calculates the smallest part size, no smaller than the given minimum, which keeps an object within a
+     * provider's maximum number of parts
+     * @param contentLength Size of the object in bytes
+     * @param minimumPartSize Configured minimum part size in bytes
+     * @param maximumParts Maximum number of parts the provider accepts
+     * @return The part size in bytes
+     */
+    public static long optimalPartSize(long contentLength, long minimumPartSize, int maximumParts) {
+        long partsLimitedSize = (contentLength + maximumParts - 1) / maximumParts;
+        return Math.max(partsLimitedSize, minimumPartSize);
+    }
+
+    /**
+     * Computes digests over the whole file as a single part
+     * @param path The file to hash
+     * @param algorithms The digests to compute
+     * @return The digests of the file
+     * @throws IOException If the file cannot be read
+     */
+    public ChecksumResult computeDigests(Path path, Set<DigestAlgorithm> algorithms) throws IOException {
+        return computePartDigests(path, Long.MAX_VALUE, algorithms);
+    }
+
+    /**
+     * Computes digests of each fixed-size part of a file, hashing parts concurrently
+     * @param path The file to hash
+     * @param partSize Size of each part in bytes, the final part may be shorter
+     * @param algorithms The digests to compute for every part
+     * @return The per-part digests of the file
+     * @throws IOException If the file cannot be read
+     */
+    public ChecksumResult computePartDigests(Path path, long partSize, Set<DigestAlgorithm> algorithms)
+            throws IOException {
+        logger.trace("computePartDigests({}, {}, {})", path, partSize, algorithms);
+        if (partSize <= 0)
+            throw new IllegalArgumentException("Part size must be positive");
+        if (algorithms == null || algorithms.isEmpty())
+            throw new IllegalArgumentException("At least one digest algorithm is required");
+        DigestAlgorithm[] requested = EnumSet.copyOf(algorithms).toArray(new DigestAlgorithm[0]);
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int partCount = (size == 0) ? 1 : (int) ((size - 1) / partSize + 1);
+            Map<DigestAlgorithm, byte[][]> partDigests = new EnumMap<>(DigestAlgorithm.class);
+            for (DigestAlgorithm algorithm : requested)
+                partDigests.put(algorithm, new byte[partCount][]);
+            AtomicInteger nextPart = new AtomicInteger(0);
+            AtomicBoolean failed = new AtomicBoolean(false);
+            int workers = Math.min(concurrency, partCount);
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(hashingExecutor.submit(() -> {
+                    ByteBuffer buffer = bufferPool.acquire();
+                    try {
+                        int part;
+                        while (!failed.get() && (part = nextPart.getAndIncrement()) < partCount) {
+                            long offset = part * partSize;
+                            long length = Math.min(partSize, size - offset);
+                            hashPart(channel, buffer, offset, length, requested, partDigests, part);
+                        }
+                    } catch (Throwable t) {
+                        failed.set(true);
+                        throw t;
+                    } finally {
+                        bufferPool.release(buffer);
+                    }
+                    return null;
+                }));
+            }
+            awaitWorkers(futures);
+            logger.debug("Hashed [{}] ({} bytes, {} part(s)) in {} ms", path, size, partCount,
+                    System.currentTimeMillis() - start);
+            return new ChecksumResult(size, partSize, partCount, partDigests);
+        }
+    }
+
+    /**
+     * Copies a file while digesting it, so the copy and its checksum cost a single read of the source
+     * @param source The file to copy
+     * @param destination The file to create or overwrite
+     * @param partSize Size of each digested part in bytes
+     * @param algorithms The digests to compute for every part
+     * @return The per-part digests of the copied bytes
+     * @throws IOException If the source cannot be read or the destination cannot be written
+     */
+    public ChecksumResult copyWithDigests(Path source, Path destination, long partSize,
+                                          Set<DigestAlgorithm> algorithms) throws IOException {
+        return copyWithDigests(source, destination, partSize, algorithms, null);
+    }
+
+    /**
+     * Copies a file while digesting it, waiting on a bandwidth limiter before writing each buffer. Every buffer is
+     * digested between being read from the source and being written to the destination, so the digests describe
+     * exactly the bytes handed to the destination and the source is only read once.
+     * @param source The file to copy
+     * @param destination The file to create or overwrite
+     * @param partSize Size of each digested part in bytes
+     * @param algorithms The digests to compute for every part
+     * @param bandwidthLimiter The limiter to wait on, may be null
+     * @return The per-part digests of the copied bytes
+     * @throws IOException If the source cannot be read or the destination cannot be written
+     */
+    public ChecksumResult copyWithDigests(Path source, Path destination, long partSize,
+                                          Set<DigestAlgorithm> algorithms, BandwidthLimiter bandwidthLimiter)
+            throws IOException {
+        logger.trace("copyWithDigests({}, {}, {}, {})", source, destination, partSize, algorithms);
+        StreamingDigester digester = new StreamingDigester(partSize, algorithms);
+        ByteBuffer buffer;
+        try {
+            buffer = bufferPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a copy buffer");
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            while (in.read(buffer) > 0) {
+                buffer.flip();
+                if (bandwidthLimiter != null)
+                    bandwidthLimiter.acquireBytes(buffer.remaining());
+                digester.update(buffer);
+                while (buffer.hasRemaining())
+                    out.write(buffer);
+                buffer.clear();
+            }
+            out.force(false);
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return digester.finish();
+    }
+
+    /**
+     * Copies a file as fixed-size parts on several workers at once, each moving its parts with positional reads and
+     * writes into a destination sized up front, and digesting every part in the same read. Combining the per-part
+     * digests gives a digest tree of the file, as {@link ChecksumResult#getCompositeDigestBase64} does.
+     * @param source The file to copy
+     * @param destination The file to create or overwrite
+     * @param partSize Size of each part in bytes, a multiple of the buffer size keeps every read aligned
+     * @param workers Number of parts to copy at once, no more than this engine's concurrency
+     * @param algorithms The digests to compute for every part
+     * @param bandwidthLimiter The limiter to wait on before writing each buffer, may be null
+     * @return The per-part digests of the copied bytes
+     * @throws IOException If the source cannot be read or the destination cannot be written
+     */
+    public ChecksumResult copyPartsWithDigests(Path source, Path destination, long partSize, int workers,
+                                               Set<DigestAlgorithm> algorithms, BandwidthLimiter bandwidthLimiter)
+            throws IOException {
+        logger.trace("copyPartsWithDigests({}, {}, {}, {}, {})", source, destination, partSize, workers, algorithms);
+        if (partSize <= 0)
+            throw new IllegalArgumentException("Part size must be positive");
+        if (algorithms == null || algorithms.isEmpty())
+            throw new IllegalArgumentException("At least one digest algorithm is required");
+        DigestAlgorithm[] requested = EnumSet.copyOf(algorithms).toArray(new DigestAlgorithm[0]);
+        long start = System.currentTimeMillis();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            int partCount = (size == 0) ? 1 : (int) ((size - 1) / partSize + 1);
+            Map<DigestAlgorithm, byte[][]> partDigests = new EnumMap<>(DigestAlgorithm.class);
+            for (DigestAlgorithm algorithm : requested)
+                partDigests.put(algorithm, new byte[partCount][]);
+            if (size > 0)
+                out.write(ByteBuffer.allocate(1), size - 1);
+            AtomicInteger nextPart = new AtomicInteger(0);
+            AtomicBoolean failed = new AtomicBoolean(false);
+            int workerCount = Math.max(1, Math.min(Math.min(workers, concurrency), partCount));
+            List<Future<?>> futures = new ArrayList<>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                futures.add(hashingExecutor.submit(() -> {
+                    ByteBuffer buffer = bufferPool.acquire();
+                    try {
+                        int part;
+                        while (!failed.get() && (part = nextPart.getAndIncrement()) < partCount) {
+                            long offset = part * partSize;
+                            long length = Math.min(partSize, size - offset);
+                            copyPart(in, out, buffer, offset, length, requested, partDigests, part,
+                                    bandwidthLimiter);
+                        }
+                    } catch (Throwable t) {
+                        failed.set(true);
+                        throw t;
+                    } finally {
+                        bufferPool.release(buffer);
+                    }
+                    return null;
+                }));
+            }
+            awaitWorkers(futures);
+            out.force(false);
+            logger.debug("Copied [{}] to [{}] ({} bytes, {} part(s), {} worker(s)) in {} ms", source, destination,
+                    size, partCount, workerCount, System.currentTimeMillis() - start);
+            return new ChecksumResult(size, partSize, partCount, partDigests);
+        }
+    }
+
+    private void copyPart(FileChannel in, FileChannel out, ByteBuffer buffer, long offset, long length,
+                          DigestAlgorithm[] algorithms, Map<DigestAlgorithm, byte[][]> partDigests, int part,
+                          BandwidthLimiter bandwidthLimiter) throws IOException {
+        DigestAlgorithm.Digester[] digesters = new DigestAlgorithm.Digester[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++)
+            digesters[i] = algorithms[i].newDigester();
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            buffer.clear();
+            if (end - position < buffer.capacity())
+                buffer.limit((int) (end - position));
+            int read = in.read(buffer, position);
+            if (read < 0)
+                throw new IOException(String.format("File truncated while copying at offset %d", position));
+            buffer.flip();
+            if (bandwidthLimiter != null && bandwidthLimiter.isLimited())
+                bandwidthLimiter.acquireBytes(read);
+            for (DigestAlgorithm.Digester digester : digesters) {
+                buffer.rewind();
+                digester.update(buffer);
+            }
+            buffer.rewind();
+            long written = position;
+            while (buffer.hasRemaining())
+                written += out.write(buffer, written);
+            position += read;
+        }
+        for (int i = 0; i < algorithms.length; i++)
+            partDigests.get(algorithms[i])[part] = digesters[i].digest();
+    }
+
+    /**
+     * Computes digests over the whole file with direct I/O, bypassing the page cache, so a file that was just written
+     * is hashed as it was stored rather than as it is still cached. Where the file store does not support direct I/O
+     * the file is hashed through the cache instead.
+     * @param path The file to hash
+     * @param algorithms The digests to compute
+     * @return The digests of the file
+     * @throws IOException If the file cannot be read
+     */
+    public ChecksumResult computeUncachedDigests(Path path, Set<DigestAlgorithm> algorithms) throws IOException {
+        logger.trace("computeUncachedDigests({}, {})", path, algorithms);
+        if (directOpenOption == null) {
+            logger.debug("Direct I/O is not available in this runtime, hashing [{}] through the page cache", path);
+            return computeDigests(path, algorithms);
+        }
+        FileChannel channel;
+        int alignment;
+        try {
+            alignment = (int) Files.getFileStore(path).getBlockSize();
+            channel = FileChannel.open(path, StandardOpenOption.READ, directOpenOption);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Stores such as tmpfs refuse O_DIRECT
+            logger.debug("Direct I/O is not available for [{}], hashing through the page cache: {}", path,
+                    e.toString());
+            return computeDigests(path, algorithms);
+        }
+        StreamingDigester digester = new StreamingDigester(Long.MAX_VALUE, algorithms);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(getBufferSize() + alignment).alignedSlice(alignment);
+        try (channel) {
+            // Direct reads must start at aligned offsets, so a short read, which only happens at the end of the file,
+            // has to be the last one
+            int read;
+            while ((read = channel.read(buffer)) > 0) {
+                buffer.flip();
+                digester.update(buffer);
+                buffer.clear();
+                if (read < buffer.capacity())
+                    break;
+            }
+        }
+        return digester.finish();
+    }
+
+    /**
+     * Looks up the JDK's direct I/O open option by name, as it lives in the JDK-specific com.sun.nio.file package
+     * which other runtimes need not provide. Without it, uncached digests are computed through the page cache.
+     * @return The direct I/O open option, or null if this runtime has none
+     */
+    private static OpenOption loadDirectOpenOption() {
+        try {
+            Class<?> extendedOpenOption = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+            for (Object option : extendedOpenOption.getEnumConstants())
+                if (((Enum<?>) option).name().equals("DIRECT"))
+                    return (OpenOption) option;
+        } catch (ClassNotFoundException | LinkageError | ClassCastException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private void hashPart(FileChannel channel, ByteBuffer buffer, long offset, long length,
+                          DigestAlgorithm[] algorithms, Map<DigestAlgorithm, byte[][]> partDigests, int part)
+            throws IOException {
+        DigestAlgorithm.Digester[] digesters = new DigestAlgorithm.Digester[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++)
+            digesters[i] = algorithms[i].newDigester();
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            buffer.clear();
+            if (end - position < buffer.capacity())
+                buffer.limit((int) (end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new IOException(String.format("File truncated while hashing at offset %d", position));
+            buffer.flip();
+            for (DigestAlgorithm.Digester digester : digesters) {
+                buffer.rewind();
+                digester.update(buffer);
+            }
+            position += read;
+        }
+        for (int i = 0; i < algorithms.length; i++)
+            partDigests.get(algorithms[i])[part] = digesters[i].digest();
+    }
+
+    private void awaitWorkers(List<Future<?>> futures) throws IOException {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new InterruptedIOException("Interrupted while hashing file parts");
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = e.getCause();
+            }
+        }
+        if (failure instanceof IOException ioException)
+            throw ioException;
+        if (failure instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (failure instanceof InterruptedException)
+            throw new InterruptedIOException("Interrupted while hashing file parts");
+        if (failure != null)
+            throw new IOException("Failed to hash file parts", failure);
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getBufferSize() {
+        return bufferPool.getBufferSize();
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(ChecksumEngine.class);
+    }
+}
@@ -0,0 +1,62 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+@SuppressWarnings({"unused"})
+public class ChecksumEngineBuilder {
+    private int concurrency;
+    private int bufferSize;
+
+    private CPMSLogger logger;
+
+    public ChecksumEngineBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(ChecksumEngineBuilder.class).build();
+        this.concurrency = Runtime.getRuntime().availableProcessors();
+        this.bufferSize = CPMSStatics.DEFAULT_CHECKSUM_BUFFER_SIZE;
+    }
+
+    public ChecksumEngineBuilder withConcurrency(int concurrency) {
+        if (concurrency > 0)
+            this.concurrency = concurrency;
+        return this;
+    }
+
+    public ChecksumEngineBuilder withBufferSize(int bufferSize) {
+        if (bufferSize > 0)
+            this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public ChecksumEngineBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public ChecksumEngine build() {
+        ChecksumEngine checksumEngine = new ChecksumEngine(this);
+        validateChecksumEngineObject(checksumEngine);
+        return checksumEngine;
+    }
+
+    public void validateChecksumEngineObject(ChecksumEngine checksumEngine) {
+        //Todo: Add some validation here
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(ChecksumEngineBuilder.class);
+    }
+}
@@ -0,0 +1,141 @@
+package io.cresco.cpms.storage.transfer;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-part digests of a file as produced by the {@link ChecksumEngine}, along with the provider checksums that can be
+ * derived from them without another read of the file
+ */
+@SuppressWarnings({"unused"})
+public class ChecksumResult {
+    private final long size;
+    private final long partSize;
+    private final int partCount;
+    private final Map<DigestAlgorithm, byte[][]> partDigests;
+
+    ChecksumResult(long size, long partSize, int partCount, Map<DigestAlgorithm, byte[][]> partDigests) {
+        this.size = size;
+        this.partSize = partSize;
+        this.partCount = partCount;
+        this.partDigests = new EnumMap<>(partDigests);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public Set<DigestAlgorithm> getAlgorithms() {
+        return Collections.unmodifiableSet(partDigests.keySet());
+    }
+
+    /**
+     * Returns the raw digest of a single part
+     * @param algorithm The digest algorithm
+     * @param partIndex Zero-based index of the part
+     * @return The raw digest bytes, or null if the algorithm was not computed
+     */
+    public byte[] getPartDigest(DigestAlgorithm algorithm, int partIndex) {
+        byte[][] digests = partDigests.get(algorithm);
+        if (digests == null)
+            return null;
+        return digests[partIndex].clone();
+    }
+
+    /**
+     * Returns the raw digests of every part, in part order
+     * @param algorithm The digest algorithm
+     * @return The raw digests, or an empty list if the algorithm was not computed
+     */
+    public List<byte[]> getPartDigests(DigestAlgorithm algorithm) {
+        byte[][] digests = partDigests.get(algorithm);
+        if (digests == null)
+            return Collections.emptyList();
+        return List.of(digests);
+    }
+
+    /**
+     * Returns the digest of the whole file, which is only known when the file was hashed as a single part
+     * @param algorithm The digest algorithm
+     * @return The raw digest bytes, or null if the file spans multiple parts or the algorithm was not computed
+     */
+    public byte[] getDigest(DigestAlgorithm algorithm) {
+        if (partCount != 1)
+            return null;
+        return getPartDigest(algorithm, 0);
+    }
+
+    public String getDigestHex(DigestAlgorithm algorithm) {
+        byte[] digest = getDigest(algorithm);
+        return (digest != null) ? Hex.encodeHexString(digest) : null;
+    }
+
+    public String getDigestBase64(DigestAlgorithm algorithm) {
+        byte[] digest = getDigest(algorithm);
+        return (digest != null) ? Base64.getEncoder().encodeToString(digest) : null;
+    }
+
+    /**
+     * Builds the ETag S3 would report for this file
+     * @param multipart Whether the object was uploaded in multiple parts
+     * @return The ETag without surrounding quotes, or null if MD5 part digests were not computed
+     */
+    public String getETag(boolean multipart) {
+        if (!partDigests.containsKey(DigestAlgorithm.MD5))
+            return null;
+        if (!multipart)
+            return getDigestHex(DigestAlgorithm.MD5);
+        return Hex.encodeHexString(combinePartDigests(DigestAlgorithm.MD5)) + "-" + partCount;
+    }
+
+    /**
+     * Builds a composite checksum in the form S3 reports for multipart uploads: the digest of the concatenated part
+     * digests, base64 encoded, followed by the part count
+     * @param algorithm The digest algorithm
+     * @return The composite checksum, or null if the algorithm was not computed
+     */
+    public String getCompositeDigestBase64(DigestAlgorithm algorithm) {
+        if (!partDigests.containsKey(algorithm))
+            return null;
+        return Base64.getEncoder().encodeToString(combinePartDigests(algorithm)) + "-" + partCount;
+    }
+
+    private byte[] combinePartDigests(DigestAlgorithm algorithm) {
+        byte[][] digests = partDigests.get(algorithm);
+        int length = 0;
+        for (byte[] digest : digests)
+            length += digest.length;
+        byte[] concatenated = new byte[length];
+        int offset = 0;
+        for (byte[] digest : digests) {
+            System.arraycopy(digest, 0, concatenated, offset, digest.length);
+            offset += digest.length;
+        }
+        return algorithm.digest(concatenated);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                ChecksumResult {
+                    size: %d,
+                    partSize: %d,
+                    partCount: %d,
+                    algorithms: %s
+                }""", size, partSize, partCount, partDigests.keySet());
+    }
+}
@@ -0,0 +1,216 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.EnumSet;
+
+/**
+ * Cache of the MD5 of local files, used to tell whether a destination already holds the content of a transfer
+ * without reading either file again. Each hash is kept with the size and modification time of the file it was computed
+ * from and is ignored once either changes. Where the file store supports user-defined extended attributes the hash is
+ * also stored on the file itself, so it outlives this node and is found again by the next run of a task.
+ */
+@SuppressWarnings({"unused"})
+public class ContentHashCache {
+    private static final ContentHashCache sharedInstance = new ContentHashCacheBuilder().build();
+
+    private final ChecksumEngine checksumEngine;
+    private final long maximumEntries;
+    private final boolean extendedAttributes;
+    private final Cache<Path, Entry> entries;
+
+    private CPMSLogger logger;
+
+    /**
+     * Content hash cache constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public ContentHashCache(ContentHashCacheBuilder builder) {
+        this.checksumEngine = builder.getChecksumEngine();
+        this.maximumEntries = builder.getMaximumEntries();
+        this.extendedAttributes = builder.isExtendedAttributes();
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maximumEntries)
+                .build();
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide cache shared by adapters which are not given their own
+     * @return The shared content hash cache
+     */
+    public static ContentHashCache getSharedInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * Returns the MD5 of a file, hashing it only if no hash of its current size and modification time is known
+     * @param path The local file
+     * @return The hex MD5 of the file
+     * @throws IOException If the file cannot be read
+     */
+    public String getMd5(Path path) throws IOException {
+        String md5 = getCachedMd5(path);
+        if (md5 != null)
+            return md5;
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        md5 = checksumEngine.computeDigests(path, EnumSet.of(DigestAlgorithm.MD5)).getDigestHex(DigestAlgorithm.MD5);
+        store(path, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), md5));
+        return md5;
+    }
+
+    /**
+     * Looks up the MD5 of a file without reading it
+     * @param path The local file
+     * @return The hex MD5 of the file, or null if none is known for its current size and modification time
+     */
+    public String getCachedMd5(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            Entry entry = entries.getIfPresent(key);
+            if (entry != null && entry.matches(size, modified))
+                return entry.md5;
+            entry = readAttribute(key);
+            if (entry != null && entry.matches(size, modified)) {
+                entries.put(key, entry);
+                return entry.md5;
+            }
+        } catch (IOException e) {
+            logger.trace("No content hash for {}: {}", key, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Records the MD5 of a file whose content was just written or verified, so it need not be hashed again
+     * @param path The local file
+     * @param md5 The hex MD5 of the file as it is now
+     */
+    public void putMd5(Path path, String md5) {
+        if (md5 == null)
+            return;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            store(path, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), md5));
+        } catch (IOException e) {
+            logger.debug("Failed to record the content hash of {}: {}", path, e.getMessage());
+        }
+    }
+
+    public void invalidate(Path path) {
+        entries.invalidate(path.toAbsolutePath().normalize());
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    private void store(Path path, Entry entry) {
+        Path key = path.toAbsolutePath().normalize();
+        entries.put(key, entry);
+        if (!extendedAttributes)
+            return;
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(key, UserDefinedFileAttributeView.class);
+        if (view == null)
+            return;
+        try {
+            view.write(CPMSStatics.CONTENT_HASH_ATTRIBUTE_NAME,
+                    StandardCharsets.US_ASCII.encode(entry.toAttribute()));
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.trace("Failed to store the content hash of {} on the file: {}", key, e.getMessage());
+        }
+    }
+
+    private Entry readAttribute(Path path) {
+        if (!extendedAttributes)
+            return null;
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        if (view == null)
+            return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(view.size(CPMSStatics.CONTENT_HASH_ATTRIBUTE_NAME));
+            view.read(CPMSStatics.CONTENT_HASH_ATTRIBUTE_NAME, buffer);
+            buffer.flip();
+            return Entry.fromAttribute(StandardCharsets.US_ASCII.decode(buffer).toString());
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public ChecksumEngine getChecksumEngine() {
+        return checksumEngine;
+    }
+
+    public long getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    public boolean isExtendedAttributes() {
+        return extendedAttributes;
+    }
+
+    public long getSize() {
+        return entries.size();
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(ContentHashCache.class);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                ContentHashCache {
+                    size: %d,
+                    maximum_entries: %d,
+                    extended_attributes: %b
+                }""", entries.size(), maximumEntries, extendedAttributes);
+    }
+
+    /**
+     * The MD5 of a file along with the size and modification time it was computed at
+     */
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final String md5;
+
+        private Entry(long size, long modified, String md5) {
+            this.size = size;
+            this.modified = modified;
+            this.md5 = md5;
+        }
+
+        boolean matches(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+
+        String toAttribute() {
+            return size + ":" + modified + ":" + md5;
+        }
+
+        static Entry fromAttribute(String attribute) {
+            String[] fields = attribute.split(":");
+            if (fields.length != 3)
+                throw new IllegalArgumentException("Malformed content hash attribute: " + attribute);
+            return new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+@SuppressWarnings({"unused"})
+public class ContentHashCacheBuilder {
+    private ChecksumEngine checksumEngine;
+    private long maximumEntries;
+    private boolean extendedAttributes;
+
+    private CPMSLogger logger;
+
+    public ContentHashCacheBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(ContentHashCacheBuilder.class).build();
+        this.checksumEngine = ChecksumEngine.getSharedInstance();
+        this.maximumEntries = CPMSStatics.DEFAULT_CONTENT_HASH_CACHE_MAX_ENTRIES;
+        this.extendedAttributes = CPMSStatics.DEFAULT_CONTENT_HASH_ATTRIBUTES;
+    }
+
+    public ContentHashCacheBuilder withChecksumEngine(ChecksumEngine checksumEngine) {
+        if (checksumEngine != null)
+            this.checksumEngine = checksumEngine;
+        return this;
+    }
+
+    public ContentHashCacheBuilder withMaximumEntries(long maximumEntries) {
+        if (maximumEntries >= 0)
+            this.maximumEntries = maximumEntries;
+        return this;
+    }
+
+    public ContentHashCacheBuilder withExtendedAttributes(boolean extendedAttributes) {
+        this.extendedAttributes = extendedAttributes;
+        return this;
+    }
+
+    public ContentHashCacheBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public ContentHashCache build() {
+        ContentHashCache contentHashCache = new ContentHashCache(this);
+        validateContentHashCacheObject(contentHashCache);
+        return contentHashCache;
+    }
+
+    public void validateContentHashCacheObject(ContentHashCache contentHashCache) {
+        //Todo: Add some validation here
+    }
+
+    public ChecksumEngine getChecksumEngine() {
+        return checksumEngine;
+    }
+
+    public long getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    public boolean isExtendedAttributes() {
+        return extendedAttributes;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(ContentHashCacheBuilder.class);
+    }
+}
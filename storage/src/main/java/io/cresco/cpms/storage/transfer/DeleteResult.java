@@ -0,0 +1,54 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of deleting a path, counting the objects removed and recording why each remaining object could not be
+ * deleted. Batches of a bulk delete may report into the same result concurrently.
+ */
+@SuppressWarnings({"unused"})
+public class DeleteResult {
+    private long deletedCount = 0;
+    private final Map<String, String> failures = new TreeMap<>();
+
+    synchronized void recordDeleted(long count) {
+        deletedCount += count;
+    }
+
+    synchronized void recordFailure(String key, String reason) {
+        failures.put(key, reason);
+    }
+
+    /**
+     * @return Whether every object under the path was deleted
+     */
+    public synchronized boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    public synchronized long getDeletedCount() {
+        return deletedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * @return The reason each object could not be deleted, keyed by object
+     */
+    public synchronized Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(new TreeMap<>(failures));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("""
+                DeleteResult {
+                    deleted: %d,
+                    failed: %d
+                }""", deletedCount, failures.size());
+    }
+}
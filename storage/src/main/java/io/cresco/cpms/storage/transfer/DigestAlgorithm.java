@@ -0,0 +1,112 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Digests the checksum engine can compute over file parts
+ */
+public enum DigestAlgorithm {
+    MD5("MD5"),
+    SHA1("SHA-1"),
+    SHA256("SHA-256"),
+    CRC32("CRC32"),
+    CRC32C("CRC32C");
+
+    private final String algorithmName;
+
+    DigestAlgorithm(String algorithmName) {
+        this.algorithmName = algorithmName;
+    }
+
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+
+    /**
+     * Builds a new, empty digester for this algorithm
+     * @return The digester
+     */
+    public Digester newDigester() {
+        return switch (this) {
+            case CRC32 -> new ChecksumDigester(new CRC32());
+            case CRC32C -> new ChecksumDigester(new CRC32C());
+            default -> {
+                try {
+                    yield new MessageDigestDigester(MessageDigest.getInstance(algorithmName));
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(String.format("Digest algorithm [%s] is not available",
+                            algorithmName), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Digests a complete byte array in one call
+     * @param data The bytes to digest
+     * @return The resulting digest
+     */
+    public byte[] digest(byte[] data) {
+        Digester digester = newDigester();
+        digester.update(ByteBuffer.wrap(data));
+        return digester.digest();
+    }
+
+    /**
+     * Incremental digest over a sequence of buffers
+     */
+    public interface Digester {
+        /**
+         * Consumes the remaining bytes of the buffer, leaving its position at its limit
+         * @param buffer The bytes to digest
+         */
+        void update(ByteBuffer buffer);
+
+        /**
+         * Completes the digest
+         * @return The digest bytes (big-endian for CRC values)
+         */
+        byte[] digest();
+    }
+
+    private static class MessageDigestDigester implements Digester {
+        private final MessageDigest messageDigest;
+
+        MessageDigestDigester(MessageDigest messageDigest) {
+            this.messageDigest = messageDigest;
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            messageDigest.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return messageDigest.digest();
+        }
+    }
+
+    private static class ChecksumDigester implements Digester {
+        private final Checksum checksum;
+
+        ChecksumDigester(Checksum checksum) {
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            checksum.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return ByteBuffer.allocate(Integer.BYTES).putInt((int) checksum.getValue()).array();
+        }
+    }
+}
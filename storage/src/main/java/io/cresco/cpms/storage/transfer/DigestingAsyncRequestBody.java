@@ -0,0 +1,63 @@
+package io.cresco.cpms.storage.transfer;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Request body which digests the bytes of another body as the SDK consumes them, so an upload is hashed by the same
+ * read that sends it. The digester is reset whenever the body is subscribed to again.
+ */
+public class DigestingAsyncRequestBody implements AsyncRequestBody {
+    private final AsyncRequestBody delegate;
+    private final StreamingDigester digester;
+
+    public DigestingAsyncRequestBody(AsyncRequestBody delegate, StreamingDigester digester) {
+        this.delegate = delegate;
+        this.digester = digester;
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public String contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        digester.reset();
+        delegate.subscribe(new Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                digester.update(buffer);
+                subscriber.onNext(buffer);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+    }
+
+    public StreamingDigester getDigester() {
+        return digester;
+    }
+}
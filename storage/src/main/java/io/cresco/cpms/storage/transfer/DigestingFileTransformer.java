@@ -0,0 +1,118 @@
+package io.cresco.cpms.storage.transfer;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Response transformer which writes an object body to a file while digesting it, so a download is verified without
+ * reading the file back. The provider delivers the body in order even when it is fetched as parallel ranges.
+ *
+ * @param <ResponseT> The type of the provider response
+ */
+public class DigestingFileTransformer<ResponseT> implements AsyncResponseTransformer<ResponseT, ResponseT> {
+    private final Path destination;
+    private final StreamingDigester digester;
+    private volatile CompletableFuture<ResponseT> future;
+    private volatile ResponseT response;
+    private volatile FileChannel channel;
+
+    public DigestingFileTransformer(Path destination, StreamingDigester digester) {
+        this.destination = destination;
+        this.digester = digester;
+    }
+
+    @Override
+    public CompletableFuture<ResponseT> prepare() {
+        closeChannel();
+        digester.reset();
+        future = new CompletableFuture<>();
+        try {
+            channel = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void onResponse(ResponseT response) {
+        this.response = response;
+    }
+
+    @Override
+    public void onStream(SdkPublisher<ByteBuffer> publisher) {
+        publisher.subscribe(new Subscriber<ByteBuffer>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                try {
+                    digester.update(buffer);
+                    while (buffer.hasRemaining())
+                        channel.write(buffer);
+                } catch (IOException e) {
+                    subscription.cancel();
+                    exceptionOccurred(new UncheckedIOException(e));
+                    return;
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                exceptionOccurred(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    channel.force(false);
+                    closeChannel();
+                    future.complete(response);
+                } catch (IOException e) {
+                    exceptionOccurred(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void exceptionOccurred(Throwable error) {
+        closeChannel();
+        if (future != null)
+            future.completeExceptionally(error);
+    }
+
+    public StreamingDigester getDigester() {
+        return digester;
+    }
+
+    private void closeChannel() {
+        FileChannel open = channel;
+        channel = null;
+        if (open == null)
+            return;
+        try {
+            open.close();
+        } catch (IOException ignored) {
+            // Nothing further can be written, the transfer outcome is reported through the future
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounded pool of equally sized direct buffers. Buffers are allocated lazily up to the pool size and reused after
+ * release, so steady-state hashing and copying allocate nothing.
+ */
+public class DirectBufferPool {
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final Semaphore available;
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+
+    public DirectBufferPool(int bufferSize, int maxBuffers) {
+        if (bufferSize <= 0 || maxBuffers <= 0)
+            throw new IllegalArgumentException("Buffer size and count must be positive");
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.available = new Semaphore(maxBuffers);
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, waiting if every buffer is in use
+     * @return A cleared direct buffer of the pool's buffer size
+     * @throws InterruptedException If interrupted while waiting for a buffer
+     */
+    public ByteBuffer acquire() throws InterruptedException {
+        available.acquire();
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null)
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer previously taken from this pool
+     * @param buffer The buffer to return
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null)
+            return;
+        idle.offer(buffer);
+        available.release();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getMaxBuffers() {
+        return maxBuffers;
+    }
+}
@@ -0,0 +1,106 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream over a fixed region of a file, read with positional reads so many regions of the same channel can be
+ * streamed concurrently. Bytes read are optionally fed to a digester exactly once, even when a provider rewinds the
+ * stream to retry a request.
+ */
+public class FileRegionInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long offset;
+    private final long length;
+    private final DigestAlgorithm.Digester digester;
+    private long position = 0;
+    private long markPosition = 0;
+    private long digested = 0;
+
+    /**
+     * @param channel The open file channel, which is not closed by this stream
+     * @param offset Offset of the region in the file
+     * @param length Length of the region in bytes
+     * @param algorithm Digest to compute over the bytes read, may be null
+     */
+    public FileRegionInputStream(FileChannel channel, long offset, long length, DigestAlgorithm algorithm) {
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+        this.digester = (algorithm != null) ? algorithm.newDigester() : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return (read == -1) ? -1 : (single[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        long remaining = length - position;
+        if (remaining <= 0)
+            return -1;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, off, (int) Math.min(len, remaining));
+        int read = channel.read(buffer, offset + position);
+        if (read < 0)
+            throw new IOException(String.format("File truncated at offset %d", offset + position));
+        if (digester != null && position + read > digested) {
+            int skip = (int) Math.max(0, digested - position);
+            digester.update(ByteBuffer.wrap(bytes, off + skip, read - skip));
+            digested = position + read;
+        }
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        byte[] scratch = new byte[8192];
+        while (skipped < n) {
+            int read = read(scratch, 0, (int) Math.min(scratch.length, n - skipped));
+            if (read < 0)
+                break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, length - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        markPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = markPosition;
+    }
+
+    /**
+     * Completes the digest of every byte of the region read so far
+     * @return The digest bytes, or null if no digest was requested
+     */
+    public byte[] digest() {
+        return (digester != null) ? digester.digest() : null;
+    }
+
+    public long getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,69 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Output stream writing into a fixed region of a file with positional writes, so many regions of the same channel can
+ * be filled concurrently. Bytes written are optionally fed to a digester.
+ */
+public class FileRegionOutputStream extends OutputStream {
+    private final FileChannel channel;
+    private final long offset;
+    private final long length;
+    private final DigestAlgorithm.Digester digester;
+    private long position = 0;
+
+    /**
+     * @param channel The open file channel, which is not closed by this stream
+     * @param offset Offset of the region in the file
+     * @param length Length of the region in bytes
+     * @param algorithm Digest to compute over the bytes written, may be null
+     */
+    public FileRegionOutputStream(FileChannel channel, long offset, long length, DigestAlgorithm algorithm) {
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+        this.digester = (algorithm != null) ? algorithm.newDigester() : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        if (position + len > length)
+            throw new IOException(String.format("Write of %d bytes overruns region of %d bytes at offset %d", len,
+                    length, offset));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, off, len);
+        if (digester != null) {
+            digester.update(buffer);
+            buffer.position(off);
+        }
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, offset + position);
+    }
+
+    /**
+     * Completes the digest of the bytes written
+     * @return The digest bytes, or null if no digest was requested
+     */
+    public byte[] digest() {
+        return (digester != null) ? digester.digest() : null;
+    }
+
+    /**
+     * @return Whether the whole region has been written
+     */
+    public boolean isComplete() {
+        return position == length;
+    }
+
+    public long getBytesWritten() {
+        return position;
+    }
+}
@@ -0,0 +1,85 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Log-linear histogram of latencies in microseconds, in the manner of HdrHistogram. Values below
+ * {@code 2 * SUB_BUCKETS} are counted exactly and larger values fall into buckets whose width doubles with each power
+ * of two, so any recorded value is reported within about 3% of itself while the whole range of a long fits in under
+ * two thousand counters. Recording is lock-free and may happen from any number of threads.
+ */
+@SuppressWarnings({"unused"})
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 2 * SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param micros The latency to record, negative values are recorded as zero
+     */
+    public void record(long micros) {
+        micros = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulate(micros);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean latency in microseconds, or zero if nothing was recorded
+     */
+    public double getMean() {
+        long recorded = count.get();
+        return (recorded == 0) ? 0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return The latency in microseconds at or below which the given percentage of recorded values fall, or zero if
+     * nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long recorded = count.get();
+        if (recorded == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank)
+                return Math.min(highestValueIn(bucket), max.get());
+        }
+        return max.get();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS)
+            return bucket;
+        int offset = bucket - 2 * SUB_BUCKETS;
+        int shift = offset / SUB_BUCKETS + 1;
+        long lowest = (long) (SUB_BUCKETS + offset % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -1,20 +1,46 @@
 package io.cresco.cpms.storage.transfer;
 
+import com.google.common.collect.Iterators;
 import io.cresco.cpms.logging.CPMSLogger;
-import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.FileUtils;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.LocalCopyMode;
+import io.cresco.cpms.statics.TransferOperation;
+import io.cresco.cpms.statics.TransferVerification;
+import io.cresco.cpms.storage.utilities.StorageProvider;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 public class LocalFileSystemStorage implements TransferAdapter {
+    private final ChecksumEngine checksumEngine;
+    private final TransferVerification transferVerification;
+    private final LocalCopyMode localCopyMode;
+    private final long parallelCopyThreshold;
+    private final int parallelCopyWorkers;
+    private final TransferScheduler.Lane transferLane;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final TransferMetrics transferMetrics;
+    private final boolean skipIdentical;
+    private final ContentHashCache contentHashCache;
+
     private CPMSLogger logger;
 
     /**
@@ -22,6 +48,20 @@ public class LocalFileSystemStorage implements TransferAdapter {
      * @param builder - Builder object
      */
     public LocalFileSystemStorage(LocalFileSystemStorageBuilder builder) {
+        this.checksumEngine = builder.getChecksumEngine();
+        this.transferVerification = builder.getTransferVerification();
+        this.localCopyMode = builder.getLocalCopyMode();
+        this.parallelCopyThreshold = builder.getParallelCopyThreshold();
+        this.parallelCopyWorkers = builder.getParallelCopyWorkers();
+        this.transferLane = builder.getTransferScheduler().lane(StorageProvider.local, "local",
+                builder.getTransferPriority(), builder.getTransferRun());
+        this.bandwidthLimiter = new BandwidthLimiterBuilder().withBytesPerSecond(builder.getBandwidthLimit())
+                .withRequestsPerSecond(builder.getRequestLimit()).withParent(builder.getBandwidthLimiter())
+                .withLogger(builder.getLogger()).build();
+        this.transferMetrics = new TransferMetricsBuilder().withParent(builder.getTransferMetrics())
+                .withLogger(builder.getLogger()).build();
+        this.skipIdentical = builder.isSkipIdentical();
+        this.contentHashCache = builder.getContentHashCache();
         setLogger(builder.getLogger());
     }
 
@@ -46,12 +86,83 @@ public class LocalFileSystemStorage implements TransferAdapter {
     @Override
     public List<String> listFilesInPath(TransferPath transferPath) {
         logger.debug("List files in path: {}", transferPath.getPath());
+        try (Stream<String> files = streamFilesInPath(transferPath)) {
+            return files.toList();
+        }
+    }
+
+    /**
+     * Lazily streams the files in a path in this provider, following provider pagination and fetching the next page
+     * in the background while the current one is consumed. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the contents of the path or an empty stream
+     */
+    @Override
+    public Stream<String> streamFilesInPath(TransferPath transferPath) {
+        logger.debug("Stream files in path: {}", transferPath.getPath());
         if (!doesPathExist(transferPath))
-            return List.of();
-        try (Stream<Path> paths = Files.list(Paths.get(transferPath.getPath()))) {
-            return paths.map(Path::toAbsolutePath).map(Path::toString).toList();
+            return Stream.empty();
+        try {
+            DirectoryStream<Path> directoryStream = Files.newDirectoryStream(Paths.get(transferPath.getPath()));
+            Iterator<List<String>> pages = Iterators.partition(
+                    Iterators.transform(directoryStream.iterator(), path -> path.toAbsolutePath().toString()),
+                    CPMSStatics.DEFAULT_LISTING_PAGE_SIZE);
+            return PrefetchingIterator.fromPages(pages, directoryStream).stream();
         } catch (IOException e) {
-            return List.of();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * List the files in a path in this provider along with the size, modification time, checksum and storage class
+     * the provider's listing returns for each, without requesting any file's metadata separately
+     *
+     * @param transferPath The path to list the contents of
+     * @return The entries in the path, in the order of {@link #listFilesInPath}, or an empty list
+     */
+    @Override
+    public List<StorageEntry> listEntriesInPath(TransferPath transferPath) {
+        try (Stream<StorageEntry> entries = streamEntriesInPath(transferPath)) {
+            return entries.toList();
+        }
+    }
+
+    /**
+     * Lazily streams the entries in a path in this provider as {@link #listEntriesInPath} lists them, following
+     * provider pagination like {@link #streamFilesInPath}. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the entries in the path or an empty stream
+     */
+    @Override
+    public Stream<StorageEntry> streamEntriesInPath(TransferPath transferPath) {
+        logger.debug("Stream entries in path: {}", transferPath.getPath());
+        if (!doesPathExist(transferPath))
+            return Stream.empty();
+        try {
+            DirectoryStream<Path> directoryStream = Files.newDirectoryStream(Paths.get(transferPath.getPath()));
+            Iterator<List<StorageEntry>> pages = Iterators.partition(
+                    Iterators.transform(directoryStream.iterator(), this::toStorageEntry),
+                    CPMSStatics.DEFAULT_LISTING_PAGE_SIZE);
+            return PrefetchingIterator.fromPages(pages, directoryStream).stream();
+        } catch (IOException e) {
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Local files carry no stored checksum, so only the attributes read with the directory entry are listed
+     */
+    private StorageEntry toStorageEntry(Path path) {
+        String name = path.toAbsolutePath().toString();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new StorageEntry(name, attributes.isDirectory(), attributes.size(),
+                    attributes.lastModifiedTime().toInstant(), null, null, null, null);
+        } catch (IOException e) {
+            logger.debug("Failed to read the attributes of {}: {}", path, e.getMessage());
+            return new StorageEntry(name, Files.isDirectory(path), -1, null, null, null, null, null);
         }
     }
 
@@ -66,28 +177,45 @@ public class LocalFileSystemStorage implements TransferAdapter {
     @Override
     public boolean uploadFile(Path uploadPath, TransferPath transferPath) throws IOException {
         logger.debug("Upload file in path: {} -> {}", uploadPath,  transferPath);
-        String localChecksum;
-        try (InputStream in = new FileInputStream(uploadPath.toFile())) {
-            localChecksum = DigestUtils.md5Hex(in);
-            logger.debug("Local checksum: {}", localChecksum);
-        } catch (Exception e) {
-            logger.error("Failed to compute the MD5 checksum of file to copy: {}", e);
-            return false;
+        Path destination = Paths.get(transferPath.getPath());
+        if (destination.toAbsolutePath().getParent() != null)
+            Files.createDirectories(destination.toAbsolutePath().getParent());
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("upload", null,
+                destination.toString())) {
+            return transfer.complete(copyLocal(uploadPath, destination));
         }
-        FileUtils.copyFile(uploadPath.toFile(), new File(transferPath.getPath()));
-        if (!Files.exists(Paths.get(transferPath.getPath()))) {
-            logger.error("The copied file {} does not exist", transferPath.getPath());
-            return false;
-        }
-        String remoteChecksum;
-        try (InputStream in = new FileInputStream(transferPath.getPath())) {
-            remoteChecksum = DigestUtils.md5Hex(in);
-            logger.debug("Remote checksum: {}", remoteChecksum);
-        } catch (Exception e) {
-            logger.error("Failed to compute the MD5 checksum of copied file: {}", e);
-            return false;
+    }
+
+    /**
+     * Uploads the bytes produced by a writer to the indicated container without staging them in a local file
+     *
+     * @param streamWriter  Producer of the content to upload
+     * @param sizeHint      Expected size of the content in bytes, used to size upload parts
+     * @param transferPath  Remote path for upload
+     * @return Whether the content was successfully uploaded
+     * @throws IOException if the destination cannot be created
+     */
+    @Override
+    public boolean uploadStream(StreamWriter streamWriter, long sizeHint, TransferPath transferPath)
+            throws IOException {
+        logger.debug("Upload stream to path: {}", transferPath);
+        Path destination = Paths.get(transferPath.getPath());
+        if (destination.toAbsolutePath().getParent() != null)
+            Files.createDirectories(destination.toAbsolutePath().getParent());
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("stream upload", null,
+                destination.toString())) {
+            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT, sizeHint);
+                 OutputStream out = bandwidthLimiter.throttle(new BufferedOutputStream(
+                         Files.newOutputStream(destination), CPMSStatics.DEFAULT_CHECKSUM_BUFFER_SIZE))) {
+                streamWriter.writeTo(out);
+                sample.complete();
+            } catch (IOException e) {
+                logger.error("Failed to write stream to {}: {}", destination, e.getMessage());
+                Files.deleteIfExists(destination);
+                return false;
+            }
+            return transfer.complete(true);
         }
-        return remoteChecksum.equals(localChecksum);
     }
 
     /**
@@ -103,32 +231,373 @@ public class LocalFileSystemStorage implements TransferAdapter {
         logger.debug("Download file in path: {} -> {}",
                 Paths.get(transferPath.getPath()).toAbsolutePath().normalize(),
                 destinationFolder.toAbsolutePath().normalize());
-        String remoteChecksum;
-        try (InputStream in = new FileInputStream(transferPath.getPath())) {
-            remoteChecksum = DigestUtils.md5Hex(in);
-            logger.debug("Remote checksum: {}", remoteChecksum);
-        } catch (Exception e) {
-            logger.error("Failed to compute the MD5 checksum of copied file: {}", e);
-            return null;
-        }
-        FileUtils.copyFileToDirectory(new File(transferPath.getPath()), destinationFolder.toFile());
+        Files.createDirectories(destinationFolder);
         Path downloadedPath = destinationFolder.resolve(Paths.get(transferPath.getPath()).getFileName().toString());
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("download", null,
+                transferPath.getPath())) {
+            if (!transfer.complete(copyLocal(Paths.get(transferPath.getPath()), downloadedPath)))
+                return null;
+        }
         logger.debug("Downloaded file: {}", downloadedPath.toAbsolutePath().normalize());
-        if (!Files.exists(downloadedPath)) {
-            logger.error("The copied file {} does not exist", downloadedPath.toAbsolutePath().normalize());
-            return null;
-        }
-        String localChecksum;
-        try (InputStream in = new FileInputStream(downloadedPath.toFile())) {
-            localChecksum = DigestUtils.md5Hex(in);
-            logger.debug("Local checksum: {}", localChecksum);
-        } catch (Exception e) {
-            logger.error("Failed to compute the MD5 checksum of file to copy: {}", e);
-            return null;
-        }
-        if (localChecksum.equals(remoteChecksum))
-            return downloadedPath;
-        return null;
+        return downloadedPath;
+    }
+
+    /**
+     * Opens a remote file as a stream without saving it locally
+     *
+     * @param transferPath  Remote path to download
+     * @return A stream of the remote file, which must be closed
+     * @throws IOException if the file doesn't exist
+     */
+    @Override
+    public InputStream downloadStream(TransferPath transferPath) throws IOException {
+        logger.debug("Download stream from path: {}", transferPath);
+        return new BufferedInputStream(Files.newInputStream(Paths.get(transferPath.getPath())),
+                CPMSStatics.DEFAULT_CHECKSUM_BUFFER_SIZE);
+    }
+
+    /**
+     * Deletes a remote file, or every file beneath a remote directory along with the directory itself. Symbolic links
+     * are deleted without following them, and a file system root, a top-level directory or the user's home directory
+     * is never deleted.
+     *
+     * @param transferPath  Remote path to delete
+     * @return The number of files deleted and the reason any file could not be deleted
+     * @throws IOException if the path is refused or cannot be listed
+     */
+    @Override
+    public DeleteResult deletePath(TransferPath transferPath) throws IOException {
+        if (transferPath == null || transferPath.getPath() == null || transferPath.getPath().isEmpty())
+            throw new IOException("Refusing to delete an empty path");
+        Path target = Paths.get(transferPath.getPath()).toAbsolutePath().normalize();
+        Path home = Paths.get(System.getProperty("user.home")).toAbsolutePath().normalize();
+        if (target.equals(target.getRoot()) || target.getNameCount() < 2 || home.startsWith(target))
+            throw new IOException(String.format("Refusing to delete [%s]", target));
+        DeleteResult result = new DeleteResult();
+        if (!Files.exists(target, LinkOption.NOFOLLOW_LINKS))
+            return result;
+        try (Stream<Path> paths = Files.walk(target)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    boolean file = !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+                    Files.delete(path);
+                    if (file)
+                        result.recordDeleted(1);
+                } catch (IOException e) {
+                    result.recordFailure(path.toString(), e.getMessage());
+                }
+            });
+        }
+        logger.cpmsInfo("Deleted {} file(s) from [{}], {} failed", result.getDeletedCount(), target,
+                result.getFailedCount());
+        return result;
+    }
+
+    /**
+     * Copies a file, or every file beneath a directory, to another local path. Files are copied in place where the
+     * source and destination share a file store, and otherwise streamed through this node with inline hashing.
+     *
+     * @param sourcePath       Local path to copy
+     * @param destinationPath  Local path to copy to
+     * @return Whether every file was copied and verified
+     * @throws IOException if the source doesn't exist or the destination cannot be created
+     */
+    @Override
+    public boolean copyPath(TransferPath sourcePath, TransferPath destinationPath) throws IOException {
+        if (sourcePath == null || sourcePath.getPath() == null || sourcePath.getPath().isEmpty())
+            throw new IOException("Refusing to copy an empty path");
+        Path source = Paths.get(sourcePath.getPath());
+        Path destination = Paths.get(destinationPath.getPath());
+        if (!Files.exists(source))
+            throw new IOException(String.format("Source [%s] does not exist", source));
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("copy", null, source.toString())) {
+            return transfer.complete(copyDirectory(source, destination));
+        }
+    }
+
+    /**
+     * Copies a file, or every file beneath a directory, one file at a time
+     */
+    private boolean copyDirectory(Path source, Path destination) throws IOException {
+        if (!Files.isDirectory(source))
+            return copyLocal(source, destination);
+        long copied = 0;
+        long failed = 0;
+        try (Stream<Path> paths = Files.walk(source)) {
+            Iterator<Path> iterator = paths.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (copyLocal(file, destination.resolve(source.relativize(file).toString())))
+                    copied++;
+                else
+                    failed++;
+            }
+        }
+        logger.cpmsInfo("Copied {} file(s) from [{}] to [{}], {} failed", copied, source, destination, failed);
+        return failed == 0;
+    }
+
+    /**
+     * Copies a file within this node the quickest way the copy mode allows. Where the source and the destination
+     * directory share a file store, the hard link mode links the destination to the source, and the clone mode leaves
+     * the copy to the operating system, which may clone the file's extents instead of rewriting them. Across file
+     * stores, on a network file store, while a bandwidth limit is in effect, or in the copy mode, the file is copied
+     * with {@link #copyAndVerify}, in parallel parts once it reaches the parallel copy threshold. When identical files
+     * are skipped, a destination which already holds the content of the source is left in place.
+     * @param source The file to copy
+     * @param destination The file to create or overwrite
+     * @return Whether the file was successfully copied and verified
+     * @throws IOException if the destination directory cannot be created or is the source itself
+     */
+    private boolean copyLocal(Path source, Path destination) throws IOException {
+        Path destinationDirectory = destination.toAbsolutePath().getParent();
+        if (destinationDirectory != null)
+            Files.createDirectories(destinationDirectory);
+        if (skipIdentical && isIdentical(source, destination)) {
+            logger.debug("Skipping {}, {} already holds identical content", source, destination);
+            transferMetrics.recordSkipped(Files.size(source));
+            return true;
+        }
+        if (localCopyMode == LocalCopyMode.COPY || destinationDirectory == null || bandwidthLimiter.isLimited())
+            return copyAndVerify(source, destination);
+        FileStore fileStore = Files.getFileStore(source);
+        if (!fileStore.equals(Files.getFileStore(destinationDirectory)) ||
+                (isNetworkFileStore(fileStore) && isParallelCopy(Files.size(source))))
+            return copyAndVerify(source, destination);
+        if (Files.exists(destination) && Files.isSameFile(source, destination))
+            throw new IOException(String.format("Source [%s] and destination [%s] are the same file",
+                    source, destination));
+        if (localCopyMode == LocalCopyMode.HARDLINK && linkInPlace(source, destination))
+            return true;
+        return cloneAndVerify(source, destination);
+    }
+
+    /**
+     * Whether a file store is served over the network, where one stream cannot fill the link and the operating
+     * system's copy moves the file through a single client thread
+     */
+    private boolean isNetworkFileStore(FileStore fileStore) {
+        String type = fileStore.type();
+        for (String networkType : CPMSStatics.NETWORK_FILE_STORE_TYPES)
+            if (networkType.equalsIgnoreCase(type))
+                return true;
+        return false;
+    }
+
+    private boolean isParallelCopy(long size) {
+        return parallelCopyWorkers > 1 && size >= parallelCopyThreshold;
+    }
+
+    /**
+     * Whether the destination of a copy already holds the content of the source, judged by size and then by the MD5
+     * of each file from the content hash cache. A destination linked to the source is always identical.
+     */
+    private boolean isIdentical(Path source, Path destination) throws IOException {
+        if (!Files.isRegularFile(destination) || Files.size(destination) != Files.size(source))
+            return false;
+        if (Files.isSameFile(source, destination))
+            return true;
+        return contentHashCache.getMd5(source).equals(contentHashCache.getMd5(destination));
+    }
+
+    /**
+     * Records the MD5 a copy was verified with against both of its files, so a later copy skipping identical files
+     * need not hash them again
+     * @param md5 The hex MD5 of the whole file, or null if the copy was only verified part by part
+     */
+    private void recordContentHash(Path source, Path destination, String md5) {
+        if (!skipIdentical || md5 == null)
+            return;
+        contentHashCache.putMd5(source, md5);
+        contentHashCache.putMd5(destination, md5);
+    }
+
+    /**
+     * Replaces the destination with a hard link to the source, which moves no data but shares later changes to
+     * either file with the other
+     * @return Whether the link was created, or false if the file store refused it
+     */
+    private boolean linkInPlace(Path source, Path destination) throws IOException {
+        try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COPY, 0)) {
+            try {
+                Files.deleteIfExists(destination);
+                Files.createLink(destination, source);
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.debug("Failed to link {} to {}, copying instead: {}", destination, source, e.getMessage());
+                return false;
+            }
+            sample.complete();
+        }
+        logger.debug("Linked {} to {}", destination, source);
+        return true;
+    }
+
+    /**
+     * Leaves a copy within one file store to the operating system, which may clone the file's extents instead of
+     * rewriting them. The operating system's copy leaves no stream to hash, so with inline verification the copy is
+     * checked by size and only the source is hashed, once, through the content hash cache, which a later copy of the
+     * same file answers without reading it. With re-read verification the destination is hashed as well and compared
+     * against the source, through the page cache unless direct verification is selected.
+     * @return Whether the file was successfully copied and verified
+     */
+    private boolean cloneAndVerify(Path source, Path destination) {
+        try {
+            long size = Files.size(source);
+            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COPY, size)) {
+                Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+                sample.complete();
+            }
+            if (Files.size(destination) != size) {
+                logger.error("The copied file {} is {} bytes, expected {}", destination.toAbsolutePath().normalize(),
+                        Files.size(destination), size);
+                return false;
+            }
+            String sourceChecksum = transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                    () -> contentHashCache.getMd5(source));
+            if (transferVerification == TransferVerification.INLINE) {
+                recordContentHash(source, destination, sourceChecksum);
+                return true;
+            }
+            String destinationChecksum = computeVerificationDigests(destination, EnumSet.of(DigestAlgorithm.MD5))
+                    .getDigestHex(DigestAlgorithm.MD5);
+            logger.trace("sourceChecksum: {}, destinationChecksum: {}", sourceChecksum, destinationChecksum);
+            if (!destinationChecksum.equals(sourceChecksum)) {
+                logger.cpmsError("Checksums do not match [source: {}, copy: {}]", sourceChecksum,
+                        destinationChecksum);
+                return false;
+            }
+            recordContentHash(source, destination, sourceChecksum);
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to copy {} to {}: {}", source, destination, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copies a file, hashing it in the same read. Files at or above the parallel copy threshold are copied as
+     * aligned parts on several workers and hashed part by part, which is compared as the digest of the part
+     * digests. With inline verification the copy is checked against the size of the hashed stream; with re-read
+     * verification the destination is hashed again and compared.
+     * @param source The file to copy
+     * @param destination The file to create or overwrite
+     * @return Whether the file was successfully copied and verified
+     * @throws IOException if the source and destination are the same file
+     */
+    private boolean copyAndVerify(Path source, Path destination) throws IOException {
+        if (Files.exists(destination) && Files.isSameFile(source, destination))
+            throw new IOException(String.format("Source [%s] and destination [%s] are the same file",
+                    source, destination));
+        Set<DigestAlgorithm> algorithms = EnumSet.of(DigestAlgorithm.MD5);
+        long size = Files.size(source);
+        long partSize = isParallelCopy(size) ? CPMSStatics.DEFAULT_LOCAL_COPY_CHUNK_SIZE : 0;
+        String sourceChecksum;
+        long copiedBytes;
+        try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COPY, size)) {
+            ChecksumResult copied;
+            if (partSize > 0) {
+                copied = checksumEngine.copyPartsWithDigests(source, destination, partSize, parallelCopyWorkers,
+                        algorithms, bandwidthLimiter);
+                sourceChecksum = copied.getCompositeDigestBase64(DigestAlgorithm.MD5);
+            } else {
+                copied = checksumEngine.copyWithDigests(source, destination, Long.MAX_VALUE, algorithms,
+                        bandwidthLimiter);
+                sourceChecksum = copied.getDigestHex(DigestAlgorithm.MD5);
+            }
+            Files.setLastModifiedTime(destination, Files.getLastModifiedTime(source));
+            copiedBytes = copied.getSize();
+            logger.debug("Source checksum: {}", sourceChecksum);
+            sample.complete();
+        } catch (IOException e) {
+            logger.error("Failed to copy {} to {}: {}", source, destination, e.getMessage());
+            return false;
+        }
+        if (!Files.exists(destination)) {
+            logger.error("The copied file {} does not exist", destination.toAbsolutePath().normalize());
+            return false;
+        }
+        if (Files.size(destination) != copiedBytes) {
+            logger.error("The copied file {} is {} bytes, expected {}", destination.toAbsolutePath().normalize(),
+                    Files.size(destination), copiedBytes);
+            return false;
+        }
+        String contentMd5 = (partSize > 0) ? null : sourceChecksum;
+        if (transferVerification == TransferVerification.INLINE) {
+            recordContentHash(source, destination, contentMd5);
+            return true;
+        }
+        String destinationChecksum;
+        try {
+            if (partSize > 0 && transferVerification == TransferVerification.REREAD_DIRECT) {
+                sourceChecksum = computeDigests(source, algorithms).getDigestHex(DigestAlgorithm.MD5);
+                contentMd5 = sourceChecksum;
+                destinationChecksum = computeVerificationDigests(destination, algorithms)
+                        .getDigestHex(DigestAlgorithm.MD5);
+            } else if (partSize > 0) {
+                destinationChecksum = transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                        () -> checksumEngine.computePartDigests(destination, partSize, algorithms))
+                        .getCompositeDigestBase64(DigestAlgorithm.MD5);
+            } else {
+                destinationChecksum = computeVerificationDigests(destination, algorithms)
+                        .getDigestHex(DigestAlgorithm.MD5);
+            }
+            logger.debug("Destination checksum: {}", destinationChecksum);
+        } catch (IOException e) {
+            logger.error("Failed to compute the MD5 checksum of copied file: {}", e.getMessage());
+            return false;
+        }
+        if (!destinationChecksum.equals(sourceChecksum))
+            return false;
+        recordContentHash(source, destination, contentMd5);
+        return true;
+    }
+
+    private ChecksumResult computeDigests(Path path, Set<DigestAlgorithm> algorithms) throws IOException {
+        return transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                () -> checksumEngine.computeDigests(path, algorithms));
+    }
+
+    /**
+     * Hashes a copied file for re-read verification, bypassing the page cache when direct verification is selected
+     * so the cached pages of the write cannot stand in for what reached the disk
+     */
+    private ChecksumResult computeVerificationDigests(Path path, Set<DigestAlgorithm> algorithms)
+            throws IOException {
+        if (transferVerification != TransferVerification.REREAD_DIRECT)
+            return computeDigests(path, algorithms);
+        return transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                () -> checksumEngine.computeUncachedDigests(path, algorithms));
+    }
+
+    /**
+     * Waits for this adapter's request rate limit and then for a transfer scheduler permit, and starts timing the
+     * copy as local file I/O
+     * @param operation The kind of copy
+     * @param bytes Number of bytes the copy transfers
+     * @return The copy's sample holding the permit, which must be completed once the copy succeeds and closed once
+     * it has finished
+     */
+    private TransferMetrics.Sample acquirePermit(TransferOperation operation, long bytes)
+            throws InterruptedIOException {
+        long queuedAt = System.nanoTime();
+        bandwidthLimiter.acquireRequest();
+        return transferMetrics.startLocal(operation, bytes, queuedAt, transferLane.acquire(bytes));
+    }
+
+    /**
+     * @return This adapter's bandwidth limiter, whose limits may be changed while transfers are running
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    /**
+     * @return The metrics of this adapter's copies
+     */
+    @Override
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
     }
 
     public CPMSLogger getLogger() {
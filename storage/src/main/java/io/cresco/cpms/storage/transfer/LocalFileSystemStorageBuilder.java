@@ -2,12 +2,131 @@ package io.cresco.cpms.storage.transfer;
 
 import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
 import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.LocalCopyMode;
+import io.cresco.cpms.statics.TransferPriority;
+import io.cresco.cpms.statics.TransferVerification;
+
+import java.util.UUID;
 
 public class LocalFileSystemStorageBuilder {
+    private ChecksumEngine checksumEngine;
+    private TransferVerification transferVerification;
+    private LocalCopyMode localCopyMode;
+    private long parallelCopyThreshold;
+    private int parallelCopyWorkers;
+
+    private TransferScheduler transferScheduler;
+    private TransferPriority transferPriority;
+    private String transferRun;
+    private BandwidthLimiter bandwidthLimiter;
+    private TransferMetrics transferMetrics;
+    private boolean skipIdentical;
+    private ContentHashCache contentHashCache;
+    private long bandwidthLimit;
+    private double requestLimit;
+
     private CPMSLogger logger;
 
     public LocalFileSystemStorageBuilder() {
         this.logger = new BasicCPMSLoggerBuilder().withClass(LocalFileSystemStorageBuilder.class).build();
+        this.checksumEngine = ChecksumEngine.getSharedInstance();
+        this.transferVerification = CPMSStatics.DEFAULT_TRANSFER_VERIFICATION;
+        this.localCopyMode = CPMSStatics.DEFAULT_LOCAL_COPY_MODE;
+        this.parallelCopyThreshold = CPMSStatics.DEFAULT_PARALLEL_COPY_THRESHOLD;
+        this.parallelCopyWorkers = CPMSStatics.DEFAULT_PARALLEL_COPY_WORKERS;
+        this.transferScheduler = TransferScheduler.getSharedInstance();
+        this.transferPriority = CPMSStatics.DEFAULT_TRANSFER_PRIORITY;
+        this.transferRun = UUID.randomUUID().toString();
+        this.bandwidthLimiter = BandwidthLimiter.getGlobalInstance();
+        this.transferMetrics = TransferMetrics.getGlobalInstance();
+        this.skipIdentical = CPMSStatics.DEFAULT_SKIP_IDENTICAL;
+        this.contentHashCache = ContentHashCache.getSharedInstance();
+        this.bandwidthLimit = CPMSStatics.DEFAULT_BANDWIDTH_LIMIT;
+        this.requestLimit = CPMSStatics.DEFAULT_REQUEST_LIMIT;
+    }
+
+    public LocalFileSystemStorageBuilder withChecksumEngine(ChecksumEngine checksumEngine) {
+        if (checksumEngine != null)
+            this.checksumEngine = checksumEngine;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withTransferVerification(TransferVerification transferVerification) {
+        if (transferVerification != null)
+            this.transferVerification = transferVerification;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withLocalCopyMode(LocalCopyMode localCopyMode) {
+        if (localCopyMode != null)
+            this.localCopyMode = localCopyMode;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withParallelCopyThreshold(long parallelCopyThreshold) {
+        if (parallelCopyThreshold > 0)
+            this.parallelCopyThreshold = parallelCopyThreshold;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withParallelCopyWorkers(int parallelCopyWorkers) {
+        if (parallelCopyWorkers > 0)
+            this.parallelCopyWorkers = parallelCopyWorkers;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withTransferScheduler(TransferScheduler transferScheduler) {
+        if (transferScheduler != null)
+            this.transferScheduler = transferScheduler;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withTransferPriority(TransferPriority transferPriority) {
+        if (transferPriority != null)
+            this.transferPriority = transferPriority;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withTransferRun(String transferRun) {
+        if (transferRun != null && !transferRun.isBlank())
+            this.transferRun = transferRun;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        if (bandwidthLimiter != null)
+            this.bandwidthLimiter = bandwidthLimiter;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withTransferMetrics(TransferMetrics transferMetrics) {
+        if (transferMetrics != null)
+            this.transferMetrics = transferMetrics;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withSkipIdentical(boolean skipIdentical) {
+        this.skipIdentical = skipIdentical;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withContentHashCache(ContentHashCache contentHashCache) {
+        if (contentHashCache != null)
+            this.contentHashCache = contentHashCache;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withBandwidthLimit(long bandwidthLimit) {
+        if (bandwidthLimit >= 0)
+            this.bandwidthLimit = bandwidthLimit;
+        return this;
+    }
+
+    public LocalFileSystemStorageBuilder withRequestLimit(double requestLimit) {
+        if (requestLimit >= 0)
+            this.requestLimit = requestLimit;
+        return this;
     }
 
     public LocalFileSystemStorageBuilder withLogger(CPMSLogger logger) {
@@ -25,6 +144,62 @@ public class LocalFileSystemStorageBuilder {
         //Todo: Add some validation here
     }
 
+    public ChecksumEngine getChecksumEngine() {
+        return checksumEngine;
+    }
+
+    public TransferVerification getTransferVerification() {
+        return transferVerification;
+    }
+
+    public LocalCopyMode getLocalCopyMode() {
+        return localCopyMode;
+    }
+
+    public long getParallelCopyThreshold() {
+        return parallelCopyThreshold;
+    }
+
+    public int getParallelCopyWorkers() {
+        return parallelCopyWorkers;
+    }
+
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
+
+    public String getTransferRun() {
+        return transferRun;
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    public boolean isSkipIdentical() {
+        return skipIdentical;
+    }
+
+    public ContentHashCache getContentHashCache() {
+        return contentHashCache;
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public double getRequestLimit() {
+        return requestLimit;
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
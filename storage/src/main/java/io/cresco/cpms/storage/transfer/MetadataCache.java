@@ -0,0 +1,209 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.cresco.cpms.logging.CPMSLogger;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of remote metadata, used to skip the existence probes and HEAD requests which otherwise precede
+ * every transfer. Entries expire after a fixed time to live and the least recently used entries are evicted once the
+ * cache is full. Both present and absent results are cached, and adapters update or invalidate entries whenever they
+ * write or delete remote objects themselves, so only changes made outside this node can be observed late.
+ * <p>
+ * Entries are scoped by a namespace identifying the account or endpoint they were read from, so a single cache can
+ * be shared by every adapter on a node.
+ */
+@SuppressWarnings({"unused"})
+public class MetadataCache {
+    private static final MetadataCache sharedInstance = new MetadataCacheBuilder().build();
+
+    private final Duration timeToLive;
+    private final long maximumEntries;
+    private final Cache<EntryKey, Boolean> containers;
+    private final Cache<EntryKey, Optional<Object>> objects;
+
+    private CPMSLogger logger;
+
+    /**
+     * Metadata cache constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public MetadataCache(MetadataCacheBuilder builder) {
+        this.timeToLive = builder.getTimeToLive();
+        this.maximumEntries = builder.getMaximumEntries();
+        this.containers = CacheBuilder.newBuilder()
+                .expireAfterWrite(timeToLive)
+                .maximumSize(maximumEntries)
+                .recordStats()
+                .build();
+        this.objects = CacheBuilder.newBuilder()
+                .expireAfterWrite(timeToLive)
+                .maximumSize(maximumEntries)
+                .recordStats()
+                .build();
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide cache shared by adapters which are not given their own
+     * @return The shared metadata cache
+     */
+    public static MetadataCache getSharedInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * Looks up whether a container exists
+     * @param namespace The account or endpoint the container belongs to
+     * @param container The container name
+     * @return Whether the container exists, or null if it is not cached
+     */
+    public Boolean getContainer(String namespace, String container) {
+        return containers.getIfPresent(new EntryKey(namespace, container, null));
+    }
+
+    /**
+     * Records whether a container exists
+     * @param namespace The account or endpoint the container belongs to
+     * @param container The container name
+     * @param exists Whether the container exists
+     */
+    public void putContainer(String namespace, String container, boolean exists) {
+        containers.put(new EntryKey(namespace, container, null), exists);
+    }
+
+    /**
+     * Forgets a container and every object cached under it
+     * @param namespace The account or endpoint the container belongs to
+     * @param container The container name
+     */
+    public void invalidateContainer(String namespace, String container) {
+        containers.invalidate(new EntryKey(namespace, container, null));
+        objects.asMap().keySet().removeIf(entryKey ->
+                Objects.equals(entryKey.namespace, namespace) && Objects.equals(entryKey.container, container));
+    }
+
+    /**
+     * Looks up the metadata of an object
+     * @param namespace The account or endpoint the object belongs to
+     * @param container The container of the object
+     * @param key The object key
+     * @param <M> The provider's metadata type, which must match the type it was cached as
+     * @return The metadata, an empty optional if the object is cached as absent, or null if it is not cached
+     */
+    @SuppressWarnings("unchecked")
+    public <M> Optional<M> getObject(String namespace, String container, String key) {
+        return (Optional<M>) (Optional<?>) objects.getIfPresent(new EntryKey(namespace, container, key));
+    }
+
+    /**
+     * Records the metadata of an object
+     * @param namespace The account or endpoint the object belongs to
+     * @param container The container of the object
+     * @param key The object key
+     * @param metadata The provider's metadata of the object, or null if it does not exist
+     */
+    public void putObject(String namespace, String container, String key, Object metadata) {
+        objects.put(new EntryKey(namespace, container, key), Optional.ofNullable(metadata));
+        if (metadata != null)
+            putContainer(namespace, container, true);
+    }
+
+    /**
+     * Forgets an object, to be called whenever it is written or deleted
+     * @param namespace The account or endpoint the object belongs to
+     * @param container The container of the object
+     * @param key The object key
+     */
+    public void invalidateObject(String namespace, String container, String key) {
+        objects.invalidate(new EntryKey(namespace, container, key));
+    }
+
+    /**
+     * Forgets every cached entry
+     */
+    public void invalidateAll() {
+        containers.invalidateAll();
+        objects.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return containers.stats().hitCount() + objects.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return containers.stats().missCount() + objects.stats().missCount();
+    }
+
+    public CacheStats getContainerStats() {
+        return containers.stats();
+    }
+
+    public CacheStats getObjectStats() {
+        return objects.stats();
+    }
+
+    public long getSize() {
+        return containers.size() + objects.size();
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public long getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(MetadataCache.class);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        {
+                            "size": %d,
+                            "hits": %d,
+                            "misses": %d
+                        }""",
+                getSize(), getHitCount(), getMissCount());
+    }
+
+    private static final class EntryKey {
+        private final String namespace;
+        private final String container;
+        private final String key;
+
+        private EntryKey(String namespace, String container, String key) {
+            this.namespace = namespace;
+            this.container = container;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof EntryKey that))
+                return false;
+            return Objects.equals(namespace, that.namespace) &&
+                    Objects.equals(container, that.container) &&
+                    Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(namespace, container, key);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.time.Duration;
+
+@SuppressWarnings({"unused"})
+public class MetadataCacheBuilder {
+    private Duration timeToLive;
+    private long maximumEntries;
+
+    private CPMSLogger logger;
+
+    public MetadataCacheBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(MetadataCacheBuilder.class).build();
+        this.timeToLive = Duration.ofSeconds(CPMSStatics.DEFAULT_METADATA_CACHE_TTL_SECONDS);
+        this.maximumEntries = CPMSStatics.DEFAULT_METADATA_CACHE_MAX_ENTRIES;
+    }
+
+    public MetadataCacheBuilder withTimeToLive(Duration timeToLive) {
+        if (timeToLive != null && !timeToLive.isNegative())
+            this.timeToLive = timeToLive;
+        return this;
+    }
+
+    public MetadataCacheBuilder withMaximumEntries(long maximumEntries) {
+        if (maximumEntries >= 0)
+            this.maximumEntries = maximumEntries;
+        return this;
+    }
+
+    public MetadataCacheBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public MetadataCache build() {
+        MetadataCache metadataCache = new MetadataCache(this);
+        validateMetadataCacheObject(metadataCache);
+        return metadataCache;
+    }
+
+    public void validateMetadataCacheObject(MetadataCache metadataCache) {
+        //Todo: Add some validation here
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public long getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(MetadataCacheBuilder.class);
+    }
+}
@@ -0,0 +1,239 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Input stream over a remote object fetched as fixed-size byte ranges. Ranges ahead of the reader are fetched
+ * concurrently into a bounded set of reused in-memory buffers and handed to the reader in order, so consumers such as
+ * archive extraction can start on the first bytes while later ranges are still arriving. The MD5 of every range is
+ * computed by the worker fetching it; an optional digest of the whole stream is computed as bytes are read. Once the
+ * last byte has been read the completion check is run, and a failed check is reported as an {@link IOException} in
+ * place of the end of the stream.
+ */
+@SuppressWarnings({"unused"})
+public class MultipartDownloadInputStream extends InputStream {
+    private final long size;
+    private final int partSize;
+    private final int partCount;
+    private final int maxBuffers;
+    private final PartFetcher fetcher;
+    private final CompletionCheck completionCheck;
+    private final DigestAlgorithm.Digester streamDigester;
+    private final byte[][] partDigests;
+    private final ArrayDeque<Future<byte[]>> pendingParts = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>();
+
+    private int allocatedBuffers = 0;
+    private int nextPartToFetch = 1;
+    private int currentPart = 0;
+    private byte[] current;
+    private int currentLength = 0;
+    private int currentPosition = 0;
+    private long position = 0;
+    private boolean completed = false;
+    private boolean closed = false;
+
+    /**
+     * @param size Size of the object in bytes
+     * @param partSize Size of every range but the last in bytes
+     * @param concurrency Maximum number of ranges fetched at once, reduced if the buffers would exceed
+     *                    {@link CPMSStatics#DEFAULT_STREAMING_BUFFER_MEMORY}
+     * @param streamAlgorithm Digest to compute over the whole stream, may be null
+     * @param fetcher The fetch of a single range
+     * @param completionCheck Verification run once the whole object has been read, may be null
+     */
+    public MultipartDownloadInputStream(long size, long partSize, int concurrency, DigestAlgorithm streamAlgorithm,
+                                        PartFetcher fetcher, CompletionCheck completionCheck) {
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(String.format("Part size %d cannot be buffered in memory", partSize));
+        this.size = size;
+        this.partSize = (int) Math.min(partSize, Math.max(size, 1));
+        this.partCount = (size == 0) ? 1 : (int) ((size - 1) / this.partSize + 1);
+        long affordableBuffers = CPMSStatics.DEFAULT_STREAMING_BUFFER_MEMORY / this.partSize;
+        this.maxBuffers = (int) Math.max(2, Math.min(concurrency + 1L, affordableBuffers));
+        this.streamDigester = (streamAlgorithm != null) ? streamAlgorithm.newDigester() : null;
+        this.partDigests = new byte[partCount][];
+        this.fetcher = fetcher;
+        this.completionCheck = completionCheck;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return (read == -1) ? -1 : (single[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        if (closed)
+            throw new IOException("Stream closed");
+        if (len == 0)
+            return 0;
+        while (current == null || currentPosition == currentLength) {
+            if (!advance())
+                return -1;
+        }
+        int read = Math.min(len, currentLength - currentPosition);
+        System.arraycopy(current, currentPosition, bytes, off, read);
+        if (streamDigester != null)
+            streamDigester.update(ByteBuffer.wrap(bytes, off, read));
+        currentPosition += read;
+        position += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return (current == null) ? 0 : currentLength - currentPosition;
+    }
+
+    /**
+     * Stops fetching ranges. Ranges already in flight finish in the background and are discarded.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        for (Future<byte[]> pending : pendingParts)
+            pending.cancel(true);
+        pendingParts.clear();
+        freeBuffers.clear();
+        current = null;
+    }
+
+    /**
+     * Moves on to the next range, running the completion check after the last one
+     * @return Whether there is another range to read
+     */
+    private boolean advance() throws IOException {
+        if (current != null) {
+            freeBuffers.push(current);
+            current = null;
+        }
+        if (currentPart == partCount) {
+            if (!completed) {
+                completed = true;
+                if (completionCheck != null)
+                    completionCheck.verify(this);
+            }
+            return false;
+        }
+        fetchAhead();
+        Future<byte[]> pending = pendingParts.poll();
+        try {
+            current = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while waiting for a range to download");
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof IOException ioException)
+                throw ioException;
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+        currentPart++;
+        currentLength = partLength(currentPart);
+        currentPosition = 0;
+        fetchAhead();
+        return true;
+    }
+
+    private void fetchAhead() {
+        while (nextPartToFetch <= partCount && pendingParts.size() + ((current != null) ? 1 : 0) < maxBuffers) {
+            byte[] buffer = freeBuffers.poll();
+            if (buffer == null) {
+                buffer = new byte[partSize];
+                allocatedBuffers++;
+            }
+            int partNumber = nextPartToFetch++;
+            byte[] target = buffer;
+            pendingParts.add(ParallelPartRunner.submit(() -> {
+                int length = partLength(partNumber);
+                if (length > 0)
+                    fetcher.fetchPart(partNumber, (partNumber - 1) * (long) partSize, target, length);
+                DigestAlgorithm.Digester md5 = DigestAlgorithm.MD5.newDigester();
+                md5.update(ByteBuffer.wrap(target, 0, length));
+                partDigests[partNumber - 1] = md5.digest();
+                return target;
+            }));
+        }
+    }
+
+    private int partLength(int partNumber) {
+        return (int) Math.min(partSize, size - (partNumber - 1) * (long) partSize);
+    }
+
+    /**
+     * Per-range MD5 digests of the stream, available once it has been read to the end
+     * @return The range digests of the object
+     */
+    public ChecksumResult getChecksumResult() {
+        Map<DigestAlgorithm, byte[][]> result = new EnumMap<>(DigestAlgorithm.class);
+        result.put(DigestAlgorithm.MD5, partDigests.clone());
+        return new ChecksumResult(size, partSize, partCount, result);
+    }
+
+    /**
+     * Completes the digest of the whole stream
+     * @return The digest bytes, or null if no stream digest was requested
+     */
+    public byte[] getStreamDigest() {
+        return (streamDigester != null) ? streamDigester.digest() : null;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Fetch of a single range
+     */
+    @FunctionalInterface
+    public interface PartFetcher {
+        /**
+         * @param partNumber The one-based range number
+         * @param offset Offset of the range in the object
+         * @param buffer Buffer to fill from its start
+         * @param length Number of bytes in the range, all of which must be written to the buffer
+         * @throws Exception If the range could not be fetched in full
+         */
+        void fetchPart(int partNumber, long offset, byte[] buffer, int length) throws Exception;
+    }
+
+    /**
+     * Verification of the whole object once it has been read
+     */
+    @FunctionalInterface
+    public interface CompletionCheck {
+        /**
+         * @param stream The fully read stream, whose digests are available
+         * @throws IOException If the object does not match what was expected
+         */
+        void verify(MultipartDownloadInputStream stream) throws IOException;
+    }
+}
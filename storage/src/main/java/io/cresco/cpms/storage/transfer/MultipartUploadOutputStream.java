@@ -0,0 +1,238 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Output stream which cuts everything written to it into fixed-size parts and hands each full part to a provider
+ * upload on a worker thread while the writer carries on. Parts are held in a bounded set of reused in-memory buffers
+ * and writers block while every buffer is in flight, so the memory used is independent of the size of the stream.
+ * The MD5 of every part is computed by the worker uploading it; an optional digest of the whole stream is computed as
+ * bytes are written.
+ */
+@SuppressWarnings({"unused"})
+public class MultipartUploadOutputStream extends OutputStream {
+    private final int partSize;
+    private final int maxBuffers;
+    private final PartUploader uploader;
+    private final DigestAlgorithm.Digester streamDigester;
+    private final BlockingQueue<byte[]> freeBuffers = new LinkedBlockingQueue<>();
+    private final List<Future<?>> uploads = new ArrayList<>();
+    private final Map<Integer, byte[]> partDigests = new ConcurrentHashMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private int allocatedBuffers = 0;
+    private byte[] current;
+    private int currentLength = 0;
+    private int partCount = 0;
+    private long bytesWritten = 0;
+    private boolean closed = false;
+
+    /**
+     * @param partSize Size of every part but the last in bytes
+     * @param concurrency Maximum number of parts uploading at once, reduced if the buffers would exceed
+     *                    {@link CPMSStatics#DEFAULT_STREAMING_BUFFER_MEMORY}
+     * @param streamAlgorithm Digest to compute over the whole stream, may be null
+     * @param uploader The upload of a single part
+     */
+    public MultipartUploadOutputStream(long partSize, int concurrency, DigestAlgorithm streamAlgorithm,
+                                       PartUploader uploader) {
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(String.format("Part size %d cannot be buffered in memory", partSize));
+        this.partSize = (int) partSize;
+        long affordableBuffers = CPMSStatics.DEFAULT_STREAMING_BUFFER_MEMORY / partSize;
+        this.maxBuffers = (int) Math.max(2, Math.min(concurrency + 1L, affordableBuffers));
+        this.streamDigester = (streamAlgorithm != null) ? streamAlgorithm.newDigester() : null;
+        this.uploader = uploader;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        if (closed)
+            throw new IOException("Stream closed");
+        if (streamDigester != null)
+            streamDigester.update(ByteBuffer.wrap(bytes, off, len));
+        while (len > 0) {
+            if (current == null)
+                current = acquireBuffer();
+            int copied = Math.min(len, partSize - currentLength);
+            System.arraycopy(bytes, off, current, currentLength, copied);
+            currentLength += copied;
+            bytesWritten += copied;
+            off += copied;
+            len -= copied;
+            if (currentLength == partSize)
+                submitPart();
+        }
+    }
+
+    /**
+     * Uploads the final part and waits for every part to finish. An empty stream is uploaded as a single empty part.
+     * @throws IOException If any part failed to upload
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (currentLength > 0 || partCount == 0) {
+            if (current == null)
+                current = acquireBuffer();
+            submitPart();
+        }
+        awaitUploads();
+        freeBuffers.clear();
+        Throwable cause = failure.get();
+        if (cause instanceof IOException ioException)
+            throw ioException;
+        if (cause != null)
+            throw new IOException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Abandons the stream after a failure of the writer, waiting for in-flight parts so their buffers are no longer
+     * in use. Parts not yet uploaded are dropped.
+     */
+    public void cancel() {
+        failure.compareAndSet(null, new CancellationException("Streamed upload cancelled"));
+        closed = true;
+        try {
+            awaitUploads();
+        } catch (InterruptedIOException e) {
+            // The interrupt flag has been restored for the caller
+        }
+        freeBuffers.clear();
+    }
+
+    private byte[] acquireBuffer() throws IOException {
+        throwIfFailed();
+        byte[] buffer = freeBuffers.poll();
+        if (buffer != null)
+            return buffer;
+        if (allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            return new byte[partSize];
+        }
+        try {
+            buffer = freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a part buffer");
+        }
+        throwIfFailed();
+        return buffer;
+    }
+
+    private void submitPart() {
+        int partNumber = ++partCount;
+        byte[] buffer = current;
+        int length = currentLength;
+        current = null;
+        currentLength = 0;
+        uploads.add(ParallelPartRunner.submit(() -> {
+            try {
+                if (failure.get() != null)
+                    return;
+                DigestAlgorithm.Digester md5 = DigestAlgorithm.MD5.newDigester();
+                md5.update(ByteBuffer.wrap(buffer, 0, length));
+                byte[] partDigest = md5.digest();
+                uploader.uploadPart(partNumber, buffer, length, partDigest);
+                partDigests.put(partNumber, partDigest);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                freeBuffers.add(buffer);
+            }
+        }));
+    }
+
+    private void awaitUploads() throws InterruptedIOException {
+        for (Future<?> upload : uploads) {
+            try {
+                upload.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+                throw new InterruptedIOException("Interrupted while waiting for parts to upload");
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e.getCause());
+            }
+        }
+    }
+
+    private void throwIfFailed() throws IOException {
+        Throwable cause = failure.get();
+        if (cause instanceof IOException ioException)
+            throw ioException;
+        if (cause != null)
+            throw new IOException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Per-part MD5 digests of the stream, available once it has been closed
+     * @return The part digests of everything written
+     */
+    public ChecksumResult getChecksumResult() {
+        byte[][] digests = new byte[partCount][];
+        for (int part = 0; part < partCount; part++)
+            digests[part] = partDigests.get(part + 1);
+        Map<DigestAlgorithm, byte[][]> result = new EnumMap<>(DigestAlgorithm.class);
+        result.put(DigestAlgorithm.MD5, digests);
+        return new ChecksumResult(bytesWritten, partSize, partCount, result);
+    }
+
+    /**
+     * Completes the digest of the whole stream
+     * @return The digest bytes, or null if no stream digest was requested
+     */
+    public byte[] getStreamDigest() {
+        return (streamDigester != null) ? streamDigester.digest() : null;
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Upload of a single buffered part
+     */
+    @FunctionalInterface
+    public interface PartUploader {
+        /**
+         * @param partNumber The one-based part number
+         * @param buffer Buffer holding the part, which must not be used once this method returns
+         * @param length Number of bytes of the part at the start of the buffer
+         * @param md5 MD5 digest of the part
+         * @throws Exception If the part could not be uploaded
+         */
+        void uploadPart(int partNumber, byte[] buffer, int length, byte[] md5) throws Exception;
+    }
+}
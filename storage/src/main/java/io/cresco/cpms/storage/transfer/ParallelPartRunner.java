@@ -0,0 +1,169 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Runs the parts of a multipart transfer on a bounded number of workers. Workers stop picking up new parts as soon as
+ * one part fails, and the first failure is reported to the caller once in-flight parts have finished.
+ */
+public class ParallelPartRunner {
+    private static final ExecutorService partExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cpms-transfer-part");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ParallelPartRunner() {}
+
+    /**
+     * Transfers every listed part
+     * @param partNumbers The parts to transfer
+     * @param concurrency Maximum number of parts in flight
+     * @param task The transfer of a single part
+     * @throws IOException If any part fails
+     */
+    public static void run(List<Integer> partNumbers, int concurrency, PartTask task) throws IOException {
+        if (partNumbers.isEmpty())
+            return;
+        AtomicInteger next = new AtomicInteger(0);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        int workers = Math.max(1, Math.min(concurrency, partNumbers.size()));
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(partExecutor.submit(() -> {
+                int index;
+                while (!failed.get() && (index = next.getAndIncrement()) < partNumbers.size()) {
+                    try {
+                        task.transfer(partNumbers.get(index));
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+                return null;
+            }));
+        }
+        awaitParts(futures, failed);
+    }
+
+    private static void awaitParts(List<Future<?>> futures, AtomicBoolean failed) throws IOException {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                futures.forEach(f -> f.cancel(true));
+                throw new InterruptedIOException("Interrupted while transferring parts");
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = e.getCause();
+            }
+        }
+        if (failure instanceof IOException ioException)
+            throw ioException;
+        if (failure != null)
+            throw new IOException(failure.getMessage(), failure);
+    }
+
+    /**
+     * Transfers every listed part, keeping as many parts in flight as the adaptive concurrency currently allows. The
+     * time taken by each part is fed back to the concurrency so it can follow the throughput the transfer achieves.
+     * A part the provider throttles lowers the concurrency and is retried after an exponential backoff.
+     * @param partNumbers The parts to transfer
+     * @param concurrency The adaptive limit on parts in flight
+     * @param partLength Size of each part in bytes
+     * @param task The transfer of a single part
+     * @throws IOException If any part fails
+     */
+    public static void run(List<Integer> partNumbers, AdaptiveConcurrency concurrency, IntToLongFunction partLength,
+                           PartTask task) throws IOException {
+        if (partNumbers.isEmpty())
+            return;
+        AtomicInteger next = new AtomicInteger(0);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        BooleanSupplier finished = () -> failed.get() || next.get() >= partNumbers.size();
+        int workers = Math.max(1, Math.min(concurrency.getMaximum(), partNumbers.size()));
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            futures.add(partExecutor.submit(() -> {
+                try {
+                    int index;
+                    while (concurrency.awaitTurn(worker, finished) &&
+                            (index = next.getAndIncrement()) < partNumbers.size()) {
+                        int partNumber = partNumbers.get(index);
+                        for (int attempt = 1; ; attempt++) {
+                            long started = System.nanoTime();
+                            try {
+                                task.transfer(partNumber);
+                            } catch (Exception e) {
+                                if (attempt >= CPMSStatics.DEFAULT_THROTTLE_RETRY_ATTEMPTS ||
+                                        !concurrency.isThrottling(e))
+                                    throw e;
+                                concurrency.throttled();
+                                Thread.sleep(CPMSStatics.DEFAULT_THROTTLE_BACKOFF_MILLIS << (attempt - 1));
+                                continue;
+                            }
+                            concurrency.record(partLength.applyAsLong(partNumber), System.nanoTime() - started);
+                            break;
+                        }
+                    }
+                } catch (Exception e) {
+                    failed.set(true);
+                    throw e;
+                } finally {
+                    if (finished.getAsBoolean())
+                        concurrency.release();
+                }
+                return null;
+            }));
+        }
+        awaitParts(futures, failed);
+    }
+
+    /**
+     * Starts a single part on the shared part workers, for callers which produce parts as they go
+     * @param part The transfer of the part
+     * @return The pending part
+     */
+    static Future<?> submit(Runnable part) {
+        return partExecutor.submit(part);
+    }
+
+    /**
+     * Starts a single part producing a result on the shared part workers
+     * @param part The transfer of the part
+     * @return The pending result of the part
+     */
+    static <T> Future<T> submit(Callable<T> part) {
+        return partExecutor.submit(part);
+    }
+
+    /**
+     * Transfer of a single part
+     */
+    @FunctionalInterface
+    public interface PartTask {
+        /**
+         * @param partNumber The one-based part number
+         * @throws Exception If the part could not be transferred
+         */
+        void transfer(int partNumber) throws Exception;
+    }
+}
@@ -0,0 +1,220 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over a paged provider listing while a background thread fetches the following pages. At most a fixed
+ * number of pages are buffered ahead of the consumer, so memory use stays constant regardless of listing size.
+ *
+ * @param <T> The type of the listed entries
+ */
+public class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cpms-listing-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BlockingQueue<List<T>> pages = new LinkedBlockingQueue<>();
+    private final Semaphore pageSlots;
+    private final List<T> endOfListing = new ArrayList<>(0);
+    private final AutoCloseable resource;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile Throwable failure;
+    private Future<?> producerTask;
+    private Iterator<T> current = Collections.emptyIterator();
+    private boolean finished = false;
+
+    private PrefetchingIterator(int prefetchPages, AutoCloseable resource) {
+        this.pageSlots = new Semaphore(Math.max(1, prefetchPages));
+        this.resource = resource;
+    }
+
+    /**
+     * Builds an iterator over a pull-based page source, such as a provider paginator
+     * @param pageSource Iterator yielding successive pages of the listing
+     * @param resource Resource to close once the listing is exhausted or closed, may be null
+     * @return The prefetching iterator
+     */
+    public static <T> PrefetchingIterator<T> fromPages(Iterator<? extends List<T>> pageSource, AutoCloseable resource) {
+        PrefetchingIterator<T> iterator = new PrefetchingIterator<>(CPMSStatics.DEFAULT_LISTING_PREFETCH_PAGES,
+                resource);
+        iterator.start(() -> {
+            while (pageSource.hasNext()) {
+                if (!iterator.publish(new ArrayList<>(pageSource.next())))
+                    return;
+            }
+        });
+        return iterator;
+    }
+
+    /**
+     * Builds an iterator over a push-based source, such as a directory read callback, grouping entries into pages
+     * @param producer Producer which pushes entries into the supplied sink until the sink returns false
+     * @param pageSize Number of entries to group into a single page
+     * @param resource Resource to close once the listing is exhausted or closed, may be null
+     * @return The prefetching iterator
+     */
+    public static <T> PrefetchingIterator<T> fromProducer(Producer<T> producer, int pageSize,
+                                                          AutoCloseable resource) {
+        PrefetchingIterator<T> iterator = new PrefetchingIterator<>(CPMSStatics.DEFAULT_LISTING_PREFETCH_PAGES,
+                resource);
+        iterator.start(() -> {
+            List<List<T>> pending = new ArrayList<>(1);
+            pending.add(new ArrayList<>(pageSize));
+            producer.produce(entry -> {
+                List<T> page = pending.getFirst();
+                page.add(entry);
+                if (page.size() < pageSize)
+                    return !iterator.closed.get();
+                pending.set(0, new ArrayList<>(pageSize));
+                try {
+                    return iterator.publish(page);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+            if (!pending.getFirst().isEmpty())
+                iterator.publish(pending.getFirst());
+        });
+        return iterator;
+    }
+
+    /**
+     * Wraps this iterator in a sequential stream which closes the listing when the stream is closed
+     * @return The stream of listed entries
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed.get())
+            return false;
+        while (!current.hasNext()) {
+            if (finished)
+                return false;
+            List<T> page;
+            try {
+                page = pages.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for the next listing page", e);
+            }
+            if (page == endOfListing) {
+                finished = true;
+                close();
+                if (failure != null)
+                    rethrow(failure);
+                return false;
+            }
+            pageSlots.release();
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return current.next();
+    }
+
+    /**
+     * Stops the listing and releases its resource. Entries already fetched are dropped, so a closed iterator has no
+     * next entry rather than waiting for pages which will never come.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+        if (producerTask != null)
+            producerTask.cancel(true);
+        pages.clear();
+        pageSlots.release();
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+                // The listing is already complete or abandoned, nothing useful can be done here
+            }
+        }
+    }
+
+    private void start(Task task) {
+        producerTask = prefetchExecutor.submit(() -> {
+            try {
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                if (!closed.get())
+                    pages.offer(endOfListing);
+            }
+        });
+    }
+
+    private boolean publish(List<T> page) throws InterruptedException {
+        if (closed.get())
+            return false;
+        pageSlots.acquire();
+        if (closed.get())
+            return false;
+        pages.add(page);
+        return true;
+    }
+
+    private static void rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (failure instanceof IOException ioException)
+            throw new UncheckedIOException(ioException);
+        throw new IllegalStateException("Failed to list provider contents", failure);
+    }
+
+    /**
+     * Push-based source of listing entries
+     * @param <T> The type of the listed entries
+     */
+    @FunctionalInterface
+    public interface Producer<T> {
+        /**
+         * Pushes every entry of the listing into the sink, stopping early if the sink returns false
+         * @param sink Accepts entries and reports whether the consumer still wants more
+         * @throws Exception If the underlying provider fails
+         */
+        void produce(Predicate<T> sink) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
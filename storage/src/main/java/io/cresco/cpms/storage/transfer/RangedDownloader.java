@@ -0,0 +1,124 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Downloads a remote object as concurrent byte ranges written into place in a preallocated local file. Each range is
+ * written with positional writes as it arrives and hashed on the way through, so the per-range MD5 digests, and with
+ * them a multipart ETag, are available without reading the file back. The number of ranges in flight follows an
+ * {@link AdaptiveConcurrency}.
+ */
+@SuppressWarnings({"unused"})
+public class RangedDownloader {
+    private RangedDownloader() {}
+
+    /**
+     * Sizes a local file ahead of a ranged download so ranges can be written in any order
+     * @param file The local file, created if missing
+     * @param size Size of the remote object in bytes
+     * @throws IOException If the file cannot be sized
+     */
+    public static void preallocate(Path file, long size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.setLength(size);
+        }
+    }
+
+    /**
+     * Downloads a whole object into a file
+     * @param file The local file to write, replaced if it exists
+     * @param size Size of the remote object in bytes
+     * @param partSize Size of every range but the last in bytes
+     * @param concurrency The adaptive limit on ranges in flight
+     * @param fetcher The fetch of a single range
+     * @return The MD5 digest of every range
+     * @throws IOException If the file cannot be written or any range fails
+     */
+    public static ChecksumResult download(Path file, long size, long partSize, AdaptiveConcurrency concurrency,
+                                          RangeFetcher fetcher) throws IOException {
+        int partCount = (size == 0) ? 0 : (int) ((size - 1) / partSize + 1);
+        byte[][] digests = new byte[partCount][];
+        List<Integer> partNumbers = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++)
+            partNumbers.add(partNumber);
+        preallocate(file, size);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            download(channel, size, partSize, partNumbers, concurrency, fetcher,
+                    (partNumber, length, md5) -> digests[partNumber - 1] = md5);
+            channel.force(false);
+        }
+        Map<DigestAlgorithm, byte[][]> result = new EnumMap<>(DigestAlgorithm.class);
+        result.put(DigestAlgorithm.MD5, digests);
+        return new ChecksumResult(size, partSize, partCount, result);
+    }
+
+    /**
+     * Downloads selected ranges of an object into an open, preallocated file
+     * @param channel The open file channel, which is not closed
+     * @param size Size of the remote object in bytes
+     * @param partSize Size of every range but the last in bytes
+     * @param partNumbers The one-based ranges to download
+     * @param concurrency The adaptive limit on ranges in flight
+     * @param fetcher The fetch of a single range
+     * @param listener Notified of every range once it has been written in full
+     * @throws IOException If any range fails
+     */
+    public static void download(FileChannel channel, long size, long partSize, List<Integer> partNumbers,
+                                AdaptiveConcurrency concurrency, RangeFetcher fetcher, RangeListener listener)
+            throws IOException {
+        ParallelPartRunner.run(partNumbers, concurrency, partNumber -> rangeLength(size, partSize, partNumber),
+                partNumber -> {
+                    long offset = (partNumber - 1) * partSize;
+                    long length = rangeLength(size, partSize, partNumber);
+                    FileRegionOutputStream region = new FileRegionOutputStream(channel, offset, length,
+                            DigestAlgorithm.MD5);
+                    fetcher.fetchRange(partNumber, offset, length, region);
+                    if (!region.isComplete())
+                        throw new IOException(String.format("Range %d ended after %d of %d bytes", partNumber,
+                                region.getBytesWritten(), length));
+                    listener.rangeCompleted(partNumber, length, region.digest());
+                });
+    }
+
+    private static long rangeLength(long size, long partSize, int partNumber) {
+        return Math.min(partSize, size - (partNumber - 1) * partSize);
+    }
+
+    /**
+     * Fetch of a single range
+     */
+    @FunctionalInterface
+    public interface RangeFetcher {
+        /**
+         * @param partNumber The one-based range number
+         * @param offset Offset of the range in the object
+         * @param length Number of bytes in the range
+         * @param out Destination of the range, which must receive exactly its length
+         * @throws Exception If the range could not be fetched
+         */
+        void fetchRange(int partNumber, long offset, long length, OutputStream out) throws Exception;
+    }
+
+    /**
+     * Notification of a completed range
+     */
+    @FunctionalInterface
+    public interface RangeListener {
+        /**
+         * @param partNumber The one-based range number
+         * @param length Number of bytes in the range
+         * @param md5 MD5 digest of the range
+         * @throws IOException If the completion cannot be recorded
+         */
+        void rangeCompleted(int partNumber, long length, byte[] md5) throws IOException;
+    }
+}
@@ -2,17 +2,102 @@ package io.cresco.cpms.storage.transfer;
 
 import com.jcraft.jsch.*;
 import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferOperation;
+import io.cresco.cpms.statics.TransferPriority;
+import io.cresco.cpms.storage.utilities.StorageProvider;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 public class RemoteFileSystemStorage implements TransferAdapter {
+    /**
+     * How a local file compares with its remote copy on the attributes a listing gives
+     */
+    enum SyncMatch {
+        DIFFERENT, UNCHANGED, SAME_SIZE
+    }
+
+    private final SftpSessionManager sessionManager;
+    private final long partSize;
+    private final int transferConcurrency;
+    private final long parallelTransferThreshold;
+    private final boolean resumableTransfers;
+    private final boolean syncChecksums;
+    private final TransferScheduler transferScheduler;
+    private final TransferPriority transferPriority;
+    private final String transferRun;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final TransferMetrics transferMetrics;
+    private final boolean skipIdentical;
+    private final ContentHashCache contentHashCache;
+
     private CPMSLogger logger;
 
     public RemoteFileSystemStorage(RemoteFileSystemStorageBuilder builder) {
+        this.sessionManager = builder.getSessionManager();
+        this.partSize = builder.getPartSize();
+        this.transferConcurrency = builder.getTransferConcurrency();
+        this.parallelTransferThreshold = builder.getParallelTransferThreshold();
+        this.resumableTransfers = builder.isResumableTransfers();
+        this.syncChecksums = builder.isSyncChecksums();
+        this.transferScheduler = builder.getTransferScheduler();
+        this.transferPriority = builder.getTransferPriority();
+        this.transferRun = builder.getTransferRun();
+        this.bandwidthLimiter = new BandwidthLimiterBuilder().withBytesPerSecond(builder.getBandwidthLimit())
+                .withRequestsPerSecond(builder.getRequestLimit()).withParent(builder.getBandwidthLimiter())
+                .withLogger(builder.getLogger()).build();
+        this.transferMetrics = new TransferMetricsBuilder().withParent(builder.getTransferMetrics())
+                .withLogger(builder.getLogger()).build();
+        this.skipIdentical = builder.isSkipIdentical();
+        this.contentHashCache = builder.getContentHashCache();
         setLogger(builder.getLogger());
     }
+
+    /**
+     * Waits for this adapter's request rate limit and then for a transfer scheduler permit, and starts timing the
+     * transfer. Remote paths name their host as the container, so permits are counted per host.
+     * @param operation The kind of transfer
+     * @param host The user and host the transfer connects to
+     * @param bytes Number of bytes the transfer sends or receives
+     * @return The transfer's sample holding the permit, which must be completed once the transfer succeeds and closed
+     * once it has finished
+     */
+    private TransferMetrics.Sample acquirePermit(TransferOperation operation, String host, long bytes)
+            throws InterruptedIOException {
+        long queuedAt = System.nanoTime();
+        bandwidthLimiter.acquireRequest();
+        return transferMetrics.start(operation, bytes, queuedAt, transferScheduler.lane(StorageProvider.remote,
+                "sftp|" + host, transferPriority, transferRun).acquire(bytes));
+    }
+
     /**
      * Determines if a path exists in this provider
      *
@@ -21,28 +106,11 @@ public class RemoteFileSystemStorage implements TransferAdapter {
      */
     @Override
     public boolean doesPathExist(TransferPath transferPath) {
-        Session session = null;
-        Channel channel = null;
-        try {
-            JSch jsch = new JSch();
-            jsch.setKnownHosts("~/.ssh/known_hosts");
-            jsch.addIdentity("~/.ssh/id_rsa");
-            session = jsch.getSession(transferPath.getContainer());
-            session.connect();
-
-            channel = session.openChannel("sftp");
-            channel.connect();
-            ChannelSftp c = (ChannelSftp) channel;
-
-            c.stat(transferPath.getPath());
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer())) {
+            lease.getChannel().stat(transferPath.getPath());
             return true;
-        } catch (JSchException | SftpException e) {
+        } catch (IOException | SftpException e) {
             return false;
-        } finally {
-            if (channel != null)
-                channel.disconnect();
-            if (session != null)
-                session.disconnect();
         }
     }
 
@@ -50,51 +118,115 @@ public class RemoteFileSystemStorage implements TransferAdapter {
      * List the files in a path in this provider
      *
      * @param transferPath The path to list the contents of
-     * @return The contents of the path or an empty list
+     * @return The contents of the path
+     * @throws UncheckedIOException if the path cannot be listed
      */
     @Override
     public List<String> listFilesInPath(TransferPath transferPath) {
-        Session session = null;
-        Channel channel = null;
+        try (Stream<String> files = streamFilesInPath(transferPath)) {
+            return files.toList();
+        }
+    }
+
+    /**
+     * Lazily streams the files in a path in this provider, following provider pagination and fetching the next page
+     * in the background while the current one is consumed. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the contents of the path
+     * @throws UncheckedIOException if the remote cannot be reached, or from the stream if the path cannot be listed
+     */
+    @Override
+    public Stream<String> streamFilesInPath(TransferPath transferPath) {
         try {
-            JSch jsch = new JSch();
-            jsch.setKnownHosts("~/.ssh/known_hosts");
-            jsch.addIdentity("~/.ssh/id_rsa");
             logger.debug("TransferPath: {}", transferPath);
-            session = jsch.getSession(transferPath.getContainer());
-            session.connect();
+            SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer());
+            ChannelSftp c = lease.getChannel();
+            return PrefetchingIterator.<String>fromProducer(sink -> {
+                try {
+                    c.ls(transferPath.getPath(), lsEntry -> sink.test(lsEntry.getFilename()) ?
+                            ChannelSftp.LsEntrySelector.CONTINUE : ChannelSftp.LsEntrySelector.BREAK);
+                } catch (SftpException e) {
+                    throw listingFailure(transferPath, e);
+                }
+            }, CPMSStatics.DEFAULT_LISTING_PAGE_SIZE, lease::close).stream();
+        } catch (IOException e) {
+            logger.cpmsError("Failed to list files on remote filesystem [{}:{}]",
+                    transferPath.getContainer(), transferPath.getPath());
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            channel = session.openChannel("sftp");
-            channel.connect();
-            ChannelSftp c = (ChannelSftp) channel;
+    /**
+     * List the files in a path in this provider along with the size, modification time, checksum and storage class
+     * the provider's listing returns for each, without requesting any file's metadata separately
+     *
+     * @param transferPath The path to list the contents of
+     * @return The entries in the path, in the order of {@link #listFilesInPath}
+     * @throws UncheckedIOException if the path cannot be listed
+     */
+    @Override
+    public List<StorageEntry> listEntriesInPath(TransferPath transferPath) {
+        try (Stream<StorageEntry> entries = streamEntriesInPath(transferPath)) {
+            return entries.toList();
+        }
+    }
 
-            List<String> files = new java.util.ArrayList<>();
-            for (ChannelSftp.LsEntry lsEntry : c.ls(transferPath.getPath())) {
-                files.add(lsEntry.getFilename());
-            }
-            return files;
-        } catch (JSchException e) {
+    /**
+     * Lazily streams the entries in a path in this provider as {@link #listEntriesInPath} lists them, following
+     * provider pagination like {@link #streamFilesInPath}. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the entries in the path
+     * @throws UncheckedIOException if the remote cannot be reached, or from the stream if the path cannot be listed
+     */
+    @Override
+    public Stream<StorageEntry> streamEntriesInPath(TransferPath transferPath) {
+        try {
+            logger.debug("TransferPath: {}", transferPath);
+            SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer());
+            ChannelSftp c = lease.getChannel();
+            return PrefetchingIterator.<StorageEntry>fromProducer(sink -> {
+                try {
+                    c.ls(transferPath.getPath(), lsEntry -> sink.test(toStorageEntry(lsEntry)) ?
+                            ChannelSftp.LsEntrySelector.CONTINUE : ChannelSftp.LsEntrySelector.BREAK);
+                } catch (SftpException e) {
+                    throw listingFailure(transferPath, e);
+                }
+            }, CPMSStatics.DEFAULT_LISTING_PAGE_SIZE, lease::close).stream();
+        } catch (IOException e) {
             logger.cpmsError("Failed to list files on remote filesystem [{}:{}]",
                     transferPath.getContainer(), transferPath.getPath());
-            return List.of();
-        } catch (SftpException e) {
-            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
-                logger.cpmsError("Remote filesystem location [{}:{}] does not exist",
-                        transferPath.getContainer(), transferPath.getPath());
-            else
-                logger.cpmsError("Failed to list files on remote filesystem [{}:{}]",
-                        transferPath.getContainer(), transferPath.getPath());
-            return List.of();
-        } finally {
-            if (channel != null)
-                channel.disconnect();
-            if (session != null)
-                session.disconnect();
+            throw new UncheckedIOException(e);
         }
     }
 
     /**
-     * Uploads a local file to the indicated container
+     * Logs a failed remote listing and describes it as the exception the listing's stream fails with
+     */
+    private IOException listingFailure(TransferPath transferPath, SftpException e) {
+        String message = (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) ?
+                String.format("Remote filesystem location [%s:%s] does not exist", transferPath.getContainer(),
+                        transferPath.getPath()) :
+                String.format("Failed to list files on remote filesystem [%s:%s]: %s", transferPath.getContainer(),
+                        transferPath.getPath(), e.getMessage());
+        logger.cpmsError(message);
+        return new IOException(message, e);
+    }
+
+    /**
+     * SFTP servers return each file's attributes with the directory listing but keep no checksum, so the entry
+     * carries the size and modification time only
+     */
+    private StorageEntry toStorageEntry(ChannelSftp.LsEntry lsEntry) {
+        SftpATTRS attrs = lsEntry.getAttrs();
+        return new StorageEntry(lsEntry.getFilename(), attrs.isDir(), attrs.getSize(),
+                Instant.ofEpochSecond(Integer.toUnsignedLong(attrs.getMTime())), null, null, null, null);
+    }
+
+    /**
+     * Uploads a local file to the indicated container. Files at or above the parallel transfer threshold are written
+     * as offset ranges over several pooled SFTP channels at once.
      *
      * @param uploadPath   Path of local file to upload
      * @param transferPath Remote path for upload
@@ -103,57 +235,856 @@ public class RemoteFileSystemStorage implements TransferAdapter {
      */
     @Override
     public boolean uploadFile(Path uploadPath, TransferPath transferPath) throws IOException {
-        Session session = null;
-        Channel channel = null;
-        try {
-            JSch jsch = new JSch();
-            jsch.setKnownHosts("~/.ssh/known_hosts");
-            jsch.addIdentity("~/.ssh/id_rsa");
-            logger.debug("TransferPath: {}", transferPath);
-            session = jsch.getSession(transferPath.getContainer());
-            session.connect();
-
-            channel = session.openChannel("sftp");
-            channel.connect();
-            ChannelSftp c = (ChannelSftp) channel;
+        return uploadFile(uploadPath, transferPath, skipIdentical);
+    }
 
+    /**
+     * @param skipIfIdentical Whether to leave a remote file which already holds the local content in place, and
+     *                        otherwise give the uploaded file the local modification time so the next upload
+     *                        recognizes it
+     */
+    private boolean uploadFile(Path uploadPath, TransferPath transferPath, boolean skipIfIdentical)
+            throws IOException {
+        logger.debug("TransferPath: {}", transferPath);
+        long size = Files.size(uploadPath);
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("upload", transferPath.getContainer(),
+                transferPath.getPath())) {
+            int modified = (int) (Files.getLastModifiedTime(uploadPath).toMillis() / 1000);
+            if (skipIfIdentical) {
+                SftpATTRS remote = statRemoteIfExists(transferPath.getContainer(), transferPath.getPath());
+                if (isIdentical(uploadPath, transferPath.getContainer(), transferPath.getPath(), remote)) {
+                    if (remote.getMTime() != modified)
+                        setRemoteModified(transferPath.getContainer(), transferPath.getPath(), modified);
+                    logger.cpmsInfo("Skipping upload of [{}], [{}:{}] already holds identical content", uploadPath,
+                            transferPath.getContainer(), transferPath.getPath());
+                    transferMetrics.recordSkipped(size);
+                    return transfer.complete(true);
+                }
+            }
             logger.debug("Uploading {}", uploadPath);
             logger.debug("Uploading to {}", transferPath.getPath());
 
-            c.put(uploadPath.toString(), transferPath.getPath());
-            return true;
-        } catch (JSchException e) {
-            throw new IOException(String.format("Failed to list files on remote filesystem [%s:%s]",
-                    transferPath.getContainer(), transferPath.getPath()));
+            ChecksumResult checksum = (size >= parallelTransferThreshold) ?
+                    uploadFileInParts(uploadPath, size, transferPath) :
+                    uploadWholeFile(uploadPath, size, transferPath);
+            logger.cpmsInfo("Uploaded [{}] to [{}:{}] with MD5 [{}]", uploadPath, transferPath.getContainer(),
+                    transferPath.getPath(), checksum.getETag(checksum.getPartCount() > 1));
+            if (skipIfIdentical)
+                setRemoteModified(transferPath.getContainer(), transferPath.getPath(), modified);
+            return transfer.complete(true);
         } catch (SftpException e) {
             if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
                 throw new IOException(String.format("Remote filesystem location [%s:%s] does not exist",
                         transferPath.getContainer(), transferPath.getPath()));
             else
-                throw new IOException(String.format("Failed to list files on remote filesystem [%s:%s]",
-                        transferPath.getContainer(), transferPath.getPath()));
+                throw new IOException(String.format("Failed to upload to remote filesystem [%s:%s]: %s",
+                        transferPath.getContainer(), transferPath.getPath(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Uploads a file over a single channel, hashing it as it is sent
+     * @return The MD5 of the file
+     */
+    private ChecksumResult uploadWholeFile(Path uploadPath, long size, TransferPath transferPath)
+            throws IOException, SftpException {
+        try (FileChannel channel = FileChannel.open(uploadPath, StandardOpenOption.READ);
+             SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer());
+             TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT, transferPath.getContainer(),
+                     size)) {
+            byte[] md5 = writeRange(lease, channel, transferPath.getPath(), ChannelSftp.OVERWRITE, 0L, 0L, size);
+            sample.complete();
+            return singlePartChecksum(size, md5);
+        }
+    }
+
+    /**
+     * Uploads a file as offset ranges written concurrently into a partial file next to the destination, which is
+     * renamed into place once every range is present. Each range is hashed as it is sent and, when resumable
+     * transfers are enabled, journaled next to the local file, so an upload interrupted by a failure or restart
+     * continues from the last completed range as long as the local file and the partial file are unchanged.
+     * @return The MD5 of every range
+     */
+    private ChecksumResult uploadFileInParts(Path uploadPath, long size, TransferPath transferPath)
+            throws IOException, SftpException {
+        String container = transferPath.getContainer();
+        String partialPath = transferPath.getPath() + CPMSStatics.SFTP_PARTIAL_TRANSFER_SUFFIX;
+        TransferJournal.State expected = new TransferJournal.State("upload", "sftp", container,
+                transferPath.getPath(), size, Files.getLastModifiedTime(uploadPath).toMillis(), partSize);
+        Path journalPath = TransferJournal.journalPathFor(uploadPath);
+        TransferJournal journal = resumableTransfers ? resumeUpload(journalPath, expected, container, partialPath) :
+                null;
+        if (journal == null) {
+            preallocateRemote(container, partialPath, size);
+            if (resumableTransfers)
+                journal = TransferJournal.create(journalPath, expected);
+            logger.cpmsInfo("Starting parallel upload of [{}] to [{}:{}]", uploadPath, container,
+                    transferPath.getPath());
+        }
+        int partCount = expected.getPartCount();
+        byte[][] digests = new byte[partCount][];
+        List<Integer> remaining = journaledParts(journal, partCount, digests);
+        logger.cpmsInfo("Uploading {} of {} part(s) of [{}]", remaining.size(), partCount, uploadPath);
+        TransferJournal finalJournal = journal;
+        try (FileChannel channel = FileChannel.open(uploadPath, StandardOpenOption.READ)) {
+            ParallelPartRunner.run(remaining, transferConcurrency, partNumber -> {
+                long offset = expected.getPartOffset(partNumber);
+                long length = expected.getPartLength(partNumber);
+                try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+                     TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT_PART, container, length)) {
+                    digests[partNumber - 1] = writeRange(lease, channel, partialPath, ChannelSftp.RESUME, offset,
+                            size, length);
+                    sample.complete();
+                }
+                if (finalJournal != null)
+                    finalJournal.recordPart(new TransferJournal.PartRecord(partNumber, length, null,
+                            HexFormat.of().formatHex(digests[partNumber - 1]), null));
+                logger.debug("Uploaded part {}/{} of [{}]", partNumber, partCount, uploadPath);
+            });
+        } catch (IOException e) {
+            if (journal != null)
+                logger.cpmsError("Parallel upload of [{}] stopped, it will continue from the last completed part " +
+                        "when retried: {}", uploadPath, e.getMessage());
+            throw e;
+        }
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+             TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.COMMIT)) {
+            ChannelSftp c = lease.getChannel();
+            long written = c.stat(partialPath).getSize();
+            if (written != size)
+                throw new IOException(String.format("Partial upload [%s:%s] holds %d of %d bytes", container,
+                        partialPath, written, size));
+            renameRemote(c, partialPath, transferPath.getPath());
+            sample.complete();
+        }
+        if (journal != null)
+            journal.delete();
+        return partChecksums(size, digests);
+    }
+
+    /**
+     * Picks up a journaled parallel upload, as long as the local file has not been modified and the partial file is
+     * still on the remote with its full size
+     * @return The journal to continue, or null if a new upload must be started
+     */
+    private TransferJournal resumeUpload(Path journalPath, TransferJournal.State expected, String container,
+                                         String partialPath) throws IOException {
+        TransferJournal journal = TransferJournal.load(journalPath);
+        if (journal == null)
+            return null;
+        TransferJournal.State state = journal.getState();
+        if (!state.matches(expected) || state.lastModified != expected.lastModified) {
+            logger.debug("Discarding journal [{}] for a different transfer", journalPath);
+            journal.delete();
+            return null;
+        }
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container)) {
+            if (lease.getChannel().stat(partialPath).getSize() == expected.size) {
+                logger.cpmsInfo("Resuming upload to [{}:{}] with {} of {} part(s) already complete", container,
+                        expected.key, journal.getCompletedParts().size(), state.getPartCount());
+                return journal;
+            }
+        } catch (SftpException e) {
+            logger.debug("Partial upload [{}:{}] is gone: {}", container, partialPath, e.getMessage());
+        }
+        journal.delete();
+        return null;
+    }
+
+    /**
+     * Creates a remote file of the given size, so ranges can be written into it in any order without changing its
+     * size
+     */
+    private void preallocateRemote(String container, String remotePath, long size)
+            throws IOException, SftpException {
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+             OutputStream out = lease.getChannel().put(remotePath, null, ChannelSftp.OVERWRITE, size - 1)) {
+            out.write(0);
+        }
+    }
+
+    /**
+     * Sends one range of a local file to a remote file, hashing it on the way through. JSch opens a remote file for
+     * writing at an offset without truncating it only in RESUME mode, where it adds the remote file's current size to
+     * the requested offset; ranges of a preallocated file therefore pass the offset less the file size.
+     * @param lease The channel to write over, which is invalidated if the write fails part way
+     * @param channel The open local file
+     * @param remotePath The remote file to write
+     * @param mode The JSch transfer mode, OVERWRITE for a whole file or RESUME for a range of a preallocated one
+     * @param offset Offset of the range in both files
+     * @param remoteSize Size of the preallocated remote file, or zero when overwriting
+     * @param length Number of bytes in the range
+     * @return The MD5 of the range
+     */
+    private byte[] writeRange(SftpSessionManager.SftpLease lease, FileChannel channel, String remotePath, int mode,
+                              long offset, long remoteSize, long length) throws IOException, SftpException {
+        FileRegionInputStream region = new FileRegionInputStream(channel, offset, length, DigestAlgorithm.MD5);
+        boolean written = false;
+        try (InputStream in = bandwidthLimiter.throttle(region);
+             OutputStream out = lease.getChannel().put(remotePath, null, mode, offset - remoteSize)) {
+            in.transferTo(out);
+            written = true;
         } finally {
-            if (channel != null)
-                channel.disconnect();
-            if (session != null)
-                session.disconnect();
+            if (!written)
+                lease.invalidate();
+        }
+        return region.digest();
+    }
+
+    /**
+     * Moves a finished upload into place, replacing any existing file. Servers without the POSIX rename extension
+     * refuse to rename over an existing file, in which case the old file is removed first.
+     */
+    private void renameRemote(ChannelSftp c, String from, String to) throws SftpException {
+        try {
+            c.rename(from, to);
+        } catch (SftpException e) {
+            try {
+                c.stat(to);
+            } catch (SftpException missing) {
+                throw e;
+            }
+            c.rm(to);
+            c.rename(from, to);
         }
     }
 
     /**
-     * Downloads a remote file from the supplied location
+     * Uploads the bytes produced by a writer to the indicated container without staging them in a local file
+     *
+     * @param streamWriter Producer of the content to upload
+     * @param sizeHint     Expected size of the content in bytes, used to size upload parts
+     * @param transferPath Remote path for upload
+     * @return Whether the content was successfully uploaded
+     * @throws IOException if the container doesn't exist remotely
+     */
+    @Override
+    public boolean uploadStream(StreamWriter streamWriter, long sizeHint, TransferPath transferPath)
+            throws IOException {
+        logger.debug("TransferPath: {}", transferPath);
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("stream upload",
+                transferPath.getContainer(), transferPath.getPath());
+             SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer())) {
+            ChannelSftp c = lease.getChannel();
+
+            logger.debug("Uploading stream to {}", transferPath.getPath());
+
+            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT, transferPath.getContainer(),
+                    sizeHint);
+                 OutputStream out = bandwidthLimiter.throttle(c.put(transferPath.getPath()))) {
+                streamWriter.writeTo(out);
+                sample.complete();
+            }
+            return transfer.complete(true);
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+                throw new IOException(String.format("Remote filesystem location [%s:%s] does not exist",
+                        transferPath.getContainer(), transferPath.getPath()));
+            else
+                throw new IOException(String.format("Failed to upload to remote filesystem [%s:%s]",
+                        transferPath.getContainer(), transferPath.getPath()));
+        }
+    }
+
+    /**
+     * Downloads a remote file from the supplied location. Files at or above the parallel transfer threshold are read
+     * as offset ranges over several pooled SFTP channels at once and written into place.
      *
      * @param transferPath      Remote path for upload
      * @param destinationFolder The folder in which to download the remote object
-     * @return The final Path object of the downloaded file
+     * @return The final Path object of the downloaded file, or null if the download failed
      * @throws IOException if the object doesn't exist remotely or local download fails
      */
     @Override
     public Path downloadFile(TransferPath transferPath, Path destinationFolder) throws IOException {
-        return null;
+        logger.debug("TransferPath: {}", transferPath);
+        String container = transferPath.getContainer();
+        Files.createDirectories(destinationFolder);
+        Path outFile = destinationFolder.resolve(Paths.get(transferPath.getPath()).getFileName().toString());
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("download", container,
+                transferPath.getPath())) {
+            SftpATTRS attributes = statRemote(container, transferPath.getPath());
+            if (skipIdentical && isIdentical(outFile, container, transferPath.getPath(), attributes)) {
+                Files.setLastModifiedTime(outFile, FileTime.from(attributes.getMTime(), TimeUnit.SECONDS));
+                logger.cpmsInfo("Skipping download of [{}:{}], [{}] already holds identical content", container,
+                        transferPath.getPath(), outFile);
+                transferMetrics.recordSkipped(attributes.getSize());
+                transfer.complete(true);
+                return outFile;
+            }
+            logger.debug("Downloading {} to {}", transferPath.getPath(), outFile);
+            ChecksumResult checksum = (attributes.getSize() >= parallelTransferThreshold) ?
+                    downloadFileInParts(transferPath, attributes, outFile) :
+                    RangedDownloader.download(outFile, attributes.getSize(), Math.max(1L, attributes.getSize()),
+                            AdaptiveConcurrency.fixed(1), (partNumber, offset, length, out) ->
+                                    readRange(container, transferPath.getPath(), TransferOperation.GET, offset,
+                                            length, out));
+            if (!isUnchanged(container, transferPath.getPath(), attributes)) {
+                logger.cpmsError("Remote file [{}:{}] changed while it was being downloaded, removing [{}]",
+                        container, transferPath.getPath(), outFile);
+                Files.deleteIfExists(outFile);
+                Files.deleteIfExists(TransferJournal.journalPathFor(outFile));
+                return null;
+            }
+            logger.cpmsInfo("Downloaded [{}:{}] to [{}] with MD5 [{}]", container, transferPath.getPath(), outFile,
+                    checksum.getETag(checksum.getPartCount() > 1));
+            if (skipIdentical)
+                Files.setLastModifiedTime(outFile, FileTime.from(attributes.getMTime(), TimeUnit.SECONDS));
+            transfer.complete(true);
+            return outFile;
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+                throw new IOException(String.format("Remote filesystem location [%s:%s] does not exist",
+                        container, transferPath.getPath()));
+            else
+                throw new IOException(String.format("Failed to download from remote filesystem [%s:%s]: %s",
+                        container, transferPath.getPath(), e.getMessage()));
+        }
     }
 
+    /**
+     * Downloads a remote file as offset ranges read concurrently and written into place. Each range is hashed as it
+     * arrives and, when resumable transfers are enabled, journaled next to the local file against the remote file's
+     * size and modification time, so a download interrupted by a failure or restart continues from the last
+     * completed range unless the remote file has changed since.
+     * @return The MD5 of every range
+     */
+    private ChecksumResult downloadFileInParts(TransferPath transferPath, SftpATTRS attributes, Path outFile)
+            throws IOException {
+        String container = transferPath.getContainer();
+        long size = attributes.getSize();
+        TransferJournal.State expected = new TransferJournal.State("download", "sftp", container,
+                transferPath.getPath(), size, 0L, partSize);
+        expected.remoteETag = remoteVersion(attributes);
+        TransferJournal journal = null;
+        if (resumableTransfers) {
+            journal = TransferJournal.openDownload(outFile, expected);
+            if (!journal.getCompletedParts().isEmpty())
+                logger.cpmsInfo("Resuming download of [{}:{}] with {} of {} part(s) already complete", container,
+                        transferPath.getPath(), journal.getCompletedParts().size(), expected.getPartCount());
+        } else {
+            RangedDownloader.preallocate(outFile, size);
+        }
+        int partCount = expected.getPartCount();
+        byte[][] digests = new byte[partCount][];
+        List<Integer> remaining = journaledParts(journal, partCount, digests);
+        logger.cpmsInfo("Downloading {} of {} part(s) of [{}:{}]", remaining.size(), partCount, container,
+                transferPath.getPath());
+        TransferJournal finalJournal = journal;
+        try (FileChannel channel = FileChannel.open(outFile, StandardOpenOption.WRITE)) {
+            RangedDownloader.download(channel, size, partSize, remaining,
+                    AdaptiveConcurrency.fixed(transferConcurrency),
+                    (partNumber, offset, length, out) -> readRange(container, transferPath.getPath(),
+                            TransferOperation.GET_RANGE, offset, length, out),
+                    (partNumber, length, md5) -> {
+                        digests[partNumber - 1] = md5;
+                        if (finalJournal != null) {
+                            channel.force(false);
+                            finalJournal.recordPart(new TransferJournal.PartRecord(partNumber, length, null,
+                                    HexFormat.of().formatHex(md5), null));
+                        }
+                        logger.debug("Downloaded part {}/{} of [{}:{}]", partNumber, partCount, container,
+                                transferPath.getPath());
+                    });
+            channel.force(false);
+        } catch (IOException e) {
+            if (journal != null)
+                logger.cpmsError("Parallel download of [{}:{}] stopped, it will continue from the last completed " +
+                        "part when retried: {}", container, transferPath.getPath(), e.getMessage());
+            throw e;
+        }
+        if (journal != null)
+            journal.delete();
+        return partChecksums(size, digests);
+    }
 
+    /**
+     * Reads one range of a remote file over a pooled channel. Closing the JSch stream before its end cancels the
+     * reads it has queued ahead, so the channel can be reused.
+     * @param out Destination of the range, which receives exactly its length
+     * @throws IOException If the remote file ends before the range does
+     */
+    private void readRange(String container, String remotePath, TransferOperation operation, long offset,
+                           long length, OutputStream out) throws IOException, SftpException {
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+             TransferMetrics.Sample sample = acquirePermit(operation, container, length)) {
+            boolean read = false;
+            try (InputStream in = lease.getChannel().get(remotePath, null, offset)) {
+                OutputStream throttled = bandwidthLimiter.throttle(out);
+                byte[] buffer = new byte[CPMSStatics.DEFAULT_THROTTLE_CHUNK_SIZE];
+                long remaining = length;
+                int count;
+                while (remaining > 0 && (count = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) >= 0) {
+                    throttled.write(buffer, 0, count);
+                    remaining -= count;
+                }
+                throttled.flush();
+                if (remaining > 0)
+                    throw new IOException(String.format("Remote file [%s:%s] ended %d byte(s) short of range %d-%d",
+                            container, remotePath, remaining, offset, offset + length - 1));
+                read = true;
+            } finally {
+                if (!read)
+                    lease.invalidate();
+            }
+            sample.complete();
+        }
+    }
+
+    private SftpATTRS statRemote(String container, String remotePath) throws IOException, SftpException {
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+             TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.HEAD)) {
+            SftpATTRS attributes = lease.getChannel().stat(remotePath);
+            sample.complete();
+            return attributes;
+        }
+    }
+
+    /**
+     * Checks that a remote file still has the size and modification time it had when its transfer started, SFTP
+     * offering nothing like an ETag to pin a transfer to one version of a file
+     */
+    private boolean isUnchanged(String container, String remotePath, SftpATTRS before)
+            throws IOException, SftpException {
+        return remoteVersion(statRemote(container, remotePath)).equals(remoteVersion(before));
+    }
+
+    private static String remoteVersion(SftpATTRS attributes) {
+        return attributes.getSize() + "@" + attributes.getMTime();
+    }
+
+    /**
+     * Collects the digests of the parts a journal has already completed
+     * @param journal The journal of the transfer, or null if it is not resumable
+     * @param partCount Number of parts in the transfer
+     * @param digests Receives the MD5 of every completed part
+     * @return The parts still to transfer, in order
+     */
+    private static List<Integer> journaledParts(TransferJournal journal, int partCount, byte[][] digests) {
+        if (journal != null) {
+            for (TransferJournal.PartRecord part : journal.getCompletedParts().values())
+                digests[part.partNumber - 1] = HexFormat.of().parseHex(part.md5);
+            return journal.getRemainingParts();
+        }
+        List<Integer> remaining = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++)
+            remaining.add(partNumber);
+        return remaining;
+    }
+
+    private ChecksumResult partChecksums(long size, byte[][] digests) {
+        Map<DigestAlgorithm, byte[][]> result = new EnumMap<>(DigestAlgorithm.class);
+        result.put(DigestAlgorithm.MD5, digests);
+        return new ChecksumResult(size, partSize, digests.length, result);
+    }
+
+    private static ChecksumResult singlePartChecksum(long size, byte[] md5) {
+        Map<DigestAlgorithm, byte[][]> result = new EnumMap<>(DigestAlgorithm.class);
+        result.put(DigestAlgorithm.MD5, new byte[][]{md5});
+        return new ChecksumResult(size, size, 1, result);
+    }
+
+    /**
+     * Opens a remote file as a stream without saving it locally. The pooled SFTP channel stays leased until the
+     * stream is closed.
+     *
+     * @param transferPath  Remote path to download
+     * @return A stream of the remote file, which must be closed
+     * @throws IOException if the object doesn't exist remotely or cannot be opened
+     */
+    @Override
+    public InputStream downloadStream(TransferPath transferPath) throws IOException {
+        logger.debug("TransferPath: {}", transferPath);
+        SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer());
+        try {
+            ChannelSftp c = lease.getChannel();
+
+            logger.debug("Downloading stream from {}", transferPath.getPath());
+
+            long size;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.HEAD)) {
+                size = c.stat(transferPath.getPath()).getSize();
+                sample.complete();
+            }
+            TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET, transferPath.getContainer(), size);
+            try {
+                return new FilterInputStream(bandwidthLimiter.throttle(c.get(transferPath.getPath()))) {
+                    private boolean finished = false;
+
+                    @Override
+                    public int read() throws IOException {
+                        int read = super.read();
+                        finished |= read < 0;
+                        return read;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int read = super.read(b, off, len);
+                        finished |= read < 0;
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                            sample.complete();
+                        } finally {
+                            sample.close();
+                            // A channel closed part way through a read may still have replies in flight
+                            if (!finished)
+                                lease.invalidate();
+                            lease.close();
+                        }
+                    }
+                };
+            } catch (SftpException e) {
+                sample.close();
+                throw e;
+            }
+        } catch (SftpException e) {
+            lease.close();
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+                throw new IOException(String.format("Remote filesystem location [%s:%s] does not exist",
+                        transferPath.getContainer(), transferPath.getPath()));
+            else
+                throw new IOException(String.format("Failed to download from remote filesystem [%s:%s]",
+                        transferPath.getContainer(), transferPath.getPath()));
+        } catch (IOException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a remote file, or every file beneath a remote directory along with the directory itself
+     *
+     * @param transferPath  Remote path to delete
+     * @return The number of files deleted and the reason any file could not be deleted
+     * @throws IOException if the path cannot be listed
+     */
+    @Override
+    public DeleteResult deletePath(TransferPath transferPath) throws IOException {
+        if (transferPath == null || transferPath.getPath() == null || transferPath.getPath().isEmpty())
+            throw new IOException("Refusing to delete an empty path");
+        logger.debug("TransferPath: {}", transferPath);
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(transferPath.getContainer())) {
+            ChannelSftp c = lease.getChannel();
+
+            DeleteResult result = new DeleteResult();
+            try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("delete",
+                    transferPath.getContainer(), transferPath.getPath())) {
+                deleteRemotePath(c, transferPath.getPath(), result);
+                transfer.complete(result.isSuccess());
+            }
+            logger.cpmsInfo("Deleted {} file(s) from [{}:{}], {} failed", result.getDeletedCount(),
+                    transferPath.getContainer(), transferPath.getPath(), result.getFailedCount());
+            return result;
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+                return new DeleteResult();
+            throw new IOException(String.format("Failed to list remote filesystem [%s:%s]",
+                    transferPath.getContainer(), transferPath.getPath()));
+        }
+    }
+
+    private void deleteRemotePath(ChannelSftp c, String path, DeleteResult result) throws SftpException {
+        SftpATTRS attributes = c.lstat(path);
+        if (!attributes.isDir()) {
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.DELETE)) {
+                c.rm(path);
+                result.recordDeleted(1);
+                sample.complete();
+            } catch (SftpException e) {
+                result.recordFailure(path, e.getMessage());
+            }
+            return;
+        }
+        for (Object entry : c.ls(path)) {
+            String name = ((ChannelSftp.LsEntry) entry).getFilename();
+            if (!name.equals(".") && !name.equals(".."))
+                deleteRemotePath(c, path + "/" + name, result);
+        }
+        try {
+            c.rmdir(path);
+        } catch (SftpException e) {
+            result.recordFailure(path, e.getMessage());
+        }
+    }
+
+    /**
+     * Server-side copies are not available over SFTP, which has no request to copy a file without reading it back
+     * through the client
+     *
+     * @param sourcePath       Remote path to copy
+     * @param destinationPath  Remote path to copy to
+     * @return Never returns
+     * @throws IOException always, as the provider cannot copy in place
+     */
+    @Override
+    public boolean copyPath(TransferPath sourcePath, TransferPath destinationPath) throws IOException {
+        throw new IOException(String.format("Remote filesystem [%s] does not support server-side copies",
+                (sourcePath != null) ? sourcePath.getContainer() : null));
+    }
+
+    /**
+     * Brings a remote directory up to date with a local one, uploading only the files which are new or have changed.
+     * The local tree is walked while the remote tree is listed over several pooled channels, one directory per
+     * channel. A file is left alone when the remote copy has the same size and modification time; when checksum
+     * syncing is enabled, a file whose size matches but whose modification time differs is also left alone if the
+     * remote copy has the same MD5, which costs a read of the remote copy instead of a write. Uploaded files are
+     * given the local modification time so the next sync recognizes them. Remote files missing locally are kept.
+     *
+     * @param localDirectory  The local directory to sync from
+     * @param transferPath    The remote directory to sync into, created if missing
+     * @return The files uploaded, skipped as up to date, or failed
+     * @throws IOException if either tree cannot be walked
+     */
+    public BatchTransferResult syncDirectory(Path localDirectory, TransferPath transferPath) throws IOException {
+        logger.debug("syncDirectory({}, {})", localDirectory, transferPath);
+        String container = transferPath.getContainer();
+        String remoteRoot = transferPath.getPath().endsWith("/") ? transferPath.getPath() :
+                transferPath.getPath() + "/";
+        Set<String> remoteDirectories = ConcurrentHashMap.newKeySet();
+        Future<Map<String, SftpATTRS>> remoteListing = ParallelPartRunner.submit(() ->
+                listRemoteTree(container, remoteRoot, remoteDirectories));
+        Map<String, Path> localFiles = new TreeMap<>();
+        List<String> localDirectories = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(localDirectory)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                String key = localDirectory.relativize(path).toString().replace(path.getFileSystem().getSeparator(),
+                        "/");
+                if (Files.isDirectory(path))
+                    localDirectories.add(key);
+                else if (Files.isRegularFile(path) && !key.endsWith(CPMSStatics.TRANSFER_JOURNAL_SUFFIX))
+                    localFiles.put(key, path);
+            }
+        }
+        Map<String, SftpATTRS> remoteFiles;
+        try {
+            remoteFiles = remoteListing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            remoteListing.cancel(true);
+            throw new InterruptedIOException("Interrupted while listing " + remoteRoot);
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof IOException ioException) ? ioException :
+                    new IOException(e.getCause().getMessage(), e.getCause());
+        }
+
+        BatchTransferResult result = new BatchTransferResult();
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("sync", container, remoteRoot)) {
+            createRemoteDirectories(container, remoteRoot, localDirectories, remoteDirectories);
+            List<String> keys = new ArrayList<>(localFiles.keySet());
+            List<Integer> indices = new ArrayList<>(keys.size());
+            for (int index = 1; index <= keys.size(); index++)
+                indices.add(index);
+            ParallelPartRunner.run(indices, transferConcurrency, index -> {
+                String key = keys.get(index - 1);
+                try {
+                    syncFile(localFiles.get(key), container, remoteRoot + key, remoteFiles.get(key), key, result);
+                } catch (Exception e) {
+                    logger.cpmsError("Failed to sync [{}] to [{}:{}]: {}", localFiles.get(key), container,
+                            remoteRoot + key, e.getMessage());
+                    result.recordFailure(key, e.getMessage());
+                }
+            });
+            transfer.complete(result.isSuccess());
+        }
+        logger.cpmsInfo("Synced [{}] to [{}:{}]: {} file(s) uploaded ({} bytes), {} up to date ({} bytes), {} failed",
+                localDirectory, container, remoteRoot, result.getTransferredCount(), result.getTransferredBytes(),
+                result.getSkippedCount(), result.getSkippedBytes(), result.getFailedCount());
+        return result;
+    }
+
+    private void syncFile(Path localFile, String container, String remotePath, SftpATTRS remote, String key,
+                          BatchTransferResult result) throws IOException, SftpException {
+        long size = Files.size(localFile);
+        int modified = (int) (Files.getLastModifiedTime(localFile).toMillis() / 1000);
+        if (isIdentical(localFile, container, remotePath, remote)) {
+            if (remote.getMTime() != modified) {
+                logger.debug("[{}] is unchanged apart from its modification time", localFile);
+                setRemoteModified(container, remotePath, modified);
+            }
+            result.recordSkipped(key, size);
+            transferMetrics.recordSkipped(size);
+            return;
+        }
+        uploadFile(localFile, new TransferPath(container, remotePath), false);
+        setRemoteModified(container, remotePath, modified);
+        result.recordTransferred(key, size, null);
+    }
+
+    /**
+     * Checks whether a remote file already holds the content of a local one. SFTP keeps no hash of a file, so the two
+     * are taken to match when they have the same size and modification time to the second or, when sync checksums
+     * are enabled, when they have the same size and reading the remote file gives the MD5 of the local one.
+     * @param remote The attributes of the remote file, or null if it does not exist
+     */
+    private boolean isIdentical(Path localFile, String container, String remotePath, SftpATTRS remote)
+            throws IOException, SftpException {
+        if (remote == null || !Files.isRegularFile(localFile))
+            return false;
+        return switch (compareForSync(Files.size(localFile), Files.getLastModifiedTime(localFile).toMillis(),
+                remote.isReg(), remote.getSize(), remote.getMTime())) {
+            case DIFFERENT -> false;
+            case UNCHANGED -> true;
+            case SAME_SIZE -> syncChecksums && remoteMatches(localFile, container, remotePath);
+        };
+    }
+
+    /**
+     * Compares a local file with its remote copy without reading either. SFTP carries modification times in whole
+     * seconds, so the local time is truncated to the second before comparing.
+     * @param localSize The size of the local file
+     * @param localModified The modification time of the local file in milliseconds
+     * @param remoteRegular Whether the remote copy is a regular file
+     * @param remoteSize The size of the remote copy
+     * @param remoteModified The modification time of the remote copy in seconds
+     * @return Whether the two differ, are taken to be unchanged, or only share a size
+     */
+    static SyncMatch compareForSync(long localSize, long localModified, boolean remoteRegular, long remoteSize,
+                                    int remoteModified) {
+        if (!remoteRegular || remoteSize != localSize)
+            return SyncMatch.DIFFERENT;
+        if (remoteModified == (int) (localModified / 1000))
+            return SyncMatch.UNCHANGED;
+        return SyncMatch.SAME_SIZE;
+    }
+
+    /**
+     * @return The attributes of a remote file, or null if it does not exist
+     */
+    private SftpATTRS statRemoteIfExists(String container, String remotePath) throws IOException, SftpException {
+        try {
+            return statRemote(container, remotePath);
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE)
+                throw e;
+            return null;
+        }
+    }
+
+    /**
+     * Lists every file beneath a remote directory, listing the directories of each level concurrently
+     * @param container The user and host of the remote
+     * @param remoteRoot The remote directory, ending in a separator
+     * @param directoriesFound Receives every directory which could be listed, relative to the root and including it
+     * @return The attributes of every file, keyed by its path relative to the root, or nothing if the root is missing
+     */
+    private Map<String, SftpATTRS> listRemoteTree(String container, String remoteRoot, Set<String> directoriesFound)
+            throws IOException {
+        Map<String, SftpATTRS> files = new ConcurrentHashMap<>();
+        List<String> level = new ArrayList<>(List.of(""));
+        while (!level.isEmpty()) {
+            List<String> directories = level;
+            Queue<String> next = new ConcurrentLinkedQueue<>();
+            List<Integer> indices = new ArrayList<>(directories.size());
+            for (int index = 1; index <= directories.size(); index++)
+                indices.add(index);
+            ParallelPartRunner.run(indices, transferConcurrency, index -> {
+                String directory = directories.get(index - 1);
+                try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+                     TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.LIST)) {
+                    lease.getChannel().ls(remoteRoot + directory, entry -> {
+                        String name = entry.getFilename();
+                        if (name.equals(".") || name.equals(".."))
+                            return ChannelSftp.LsEntrySelector.CONTINUE;
+                        if (entry.getAttrs().isDir())
+                            next.add(directory + name + "/");
+                        else if (entry.getAttrs().isReg())
+                            files.put(directory + name, entry.getAttrs());
+                        return ChannelSftp.LsEntrySelector.CONTINUE;
+                    });
+                    directoriesFound.add(directory.isEmpty() ? "" : directory.substring(0, directory.length() - 1));
+                    sample.complete();
+                } catch (SftpException e) {
+                    if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE)
+                        throw new IOException(String.format("Failed to list remote filesystem [%s:%s]: %s",
+                                container, remoteRoot + directory, e.getMessage()), e);
+                }
+            });
+            level = new ArrayList<>(next);
+        }
+        return files;
+    }
+
+    /**
+     * Creates the remote directories of a sync which the remote listing did not find, parents before children
+     */
+    private void createRemoteDirectories(String container, String remoteRoot, List<String> localDirectories,
+                                         Set<String> remoteDirectories) throws IOException {
+        List<String> missing = localDirectories.stream().filter(directory -> !remoteDirectories.contains(directory))
+                .sorted().toList();
+        if (missing.isEmpty())
+            return;
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container)) {
+            for (String directory : missing) {
+                String remotePath = (remoteRoot + directory).replaceAll("/+$", "");
+                try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.PUT)) {
+                    lease.getChannel().mkdir(remotePath);
+                    sample.complete();
+                } catch (SftpException e) {
+                    throw new IOException(String.format("Failed to create remote directory [%s:%s]: %s",
+                            container, remotePath, e.getMessage()), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a remote file has the same content as a local one by reading the remote file through an MD5
+     */
+    private boolean remoteMatches(Path localFile, String container, String remotePath)
+            throws IOException, SftpException {
+        byte[] localMd5 = HexFormat.of().parseHex(contentHashCache.getMd5(localFile));
+        byte[] remoteMd5;
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container);
+             TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET, container,
+                     Files.size(localFile))) {
+            boolean read = false;
+            try {
+                remoteMd5 = computeMd5(bandwidthLimiter.throttle(lease.getChannel().get(remotePath)));
+                read = true;
+            } finally {
+                if (!read)
+                    lease.invalidate();
+            }
+            sample.complete();
+        }
+        return Arrays.equals(localMd5, remoteMd5);
+    }
+
+    private static byte[] computeMd5(InputStream stream) throws IOException {
+        DigestAlgorithm.Digester digester = DigestAlgorithm.MD5.newDigester();
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[CPMSStatics.DEFAULT_THROTTLE_CHUNK_SIZE];
+            int count;
+            while ((count = in.read(buffer)) >= 0)
+                digester.update(ByteBuffer.wrap(buffer, 0, count));
+        }
+        return digester.digest();
+    }
+
+    private void setRemoteModified(String container, String remotePath, int modified)
+            throws IOException, SftpException {
+        try (SftpSessionManager.SftpLease lease = sessionManager.lease(container)) {
+            lease.getChannel().setMtime(remotePath, modified);
+        }
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    /**
+     * @return The metrics of this adapter's transfers
+     */
+    @Override
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
 
     public CPMSLogger getLogger() {
         return logger;
@@ -2,12 +2,134 @@ package io.cresco.cpms.storage.transfer;
 
 import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
 import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferPriority;
+
+import java.util.UUID;
 
 public class RemoteFileSystemStorageBuilder {
+    private SftpSessionManager sessionManager;
+    private long partSize;
+    private int transferConcurrency;
+    private long parallelTransferThreshold;
+    private boolean resumableTransfers;
+    private boolean syncChecksums;
+    private TransferScheduler transferScheduler;
+    private TransferPriority transferPriority;
+    private String transferRun;
+    private BandwidthLimiter bandwidthLimiter;
+    private TransferMetrics transferMetrics;
+    private boolean skipIdentical;
+    private ContentHashCache contentHashCache;
+    private long bandwidthLimit;
+    private double requestLimit;
+
     private CPMSLogger logger;
 
     public RemoteFileSystemStorageBuilder() {
         this.logger = new BasicCPMSLoggerBuilder().withClass(RemoteFileSystemStorageBuilder.class).build();
+        this.sessionManager = SftpSessionManager.getInstance();
+        this.partSize = CPMSStatics.DEFAULT_SFTP_PART_SIZE;
+        this.transferConcurrency = CPMSStatics.DEFAULT_TRANSFER_CONCURRENCY;
+        this.parallelTransferThreshold = CPMSStatics.DEFAULT_SFTP_PARALLEL_TRANSFER_THRESHOLD;
+        this.resumableTransfers = CPMSStatics.DEFAULT_RESUMABLE_TRANSFERS;
+        this.syncChecksums = CPMSStatics.DEFAULT_SFTP_SYNC_CHECKSUMS;
+        this.transferScheduler = TransferScheduler.getSharedInstance();
+        this.transferPriority = CPMSStatics.DEFAULT_TRANSFER_PRIORITY;
+        this.transferRun = UUID.randomUUID().toString();
+        this.bandwidthLimiter = BandwidthLimiter.getGlobalInstance();
+        this.transferMetrics = TransferMetrics.getGlobalInstance();
+        this.skipIdentical = CPMSStatics.DEFAULT_SKIP_IDENTICAL;
+        this.contentHashCache = ContentHashCache.getSharedInstance();
+        this.bandwidthLimit = CPMSStatics.DEFAULT_BANDWIDTH_LIMIT;
+        this.requestLimit = CPMSStatics.DEFAULT_REQUEST_LIMIT;
+    }
+
+    public RemoteFileSystemStorageBuilder withSessionManager(SftpSessionManager sessionManager) {
+        if (sessionManager != null)
+            this.sessionManager = sessionManager;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withPartSize(long partSize) {
+        if (partSize > 0)
+            this.partSize = partSize;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withTransferConcurrency(int transferConcurrency) {
+        if (transferConcurrency > 0)
+            this.transferConcurrency = transferConcurrency;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withParallelTransferThreshold(long parallelTransferThreshold) {
+        if (parallelTransferThreshold > 0)
+            this.parallelTransferThreshold = parallelTransferThreshold;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withResumableTransfers(boolean resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withSyncChecksums(boolean syncChecksums) {
+        this.syncChecksums = syncChecksums;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withTransferScheduler(TransferScheduler transferScheduler) {
+        if (transferScheduler != null)
+            this.transferScheduler = transferScheduler;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withTransferPriority(TransferPriority transferPriority) {
+        if (transferPriority != null)
+            this.transferPriority = transferPriority;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withTransferRun(String transferRun) {
+        if (transferRun != null && !transferRun.isBlank())
+            this.transferRun = transferRun;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        if (bandwidthLimiter != null)
+            this.bandwidthLimiter = bandwidthLimiter;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withTransferMetrics(TransferMetrics transferMetrics) {
+        if (transferMetrics != null)
+            this.transferMetrics = transferMetrics;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withSkipIdentical(boolean skipIdentical) {
+        this.skipIdentical = skipIdentical;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withContentHashCache(ContentHashCache contentHashCache) {
+        if (contentHashCache != null)
+            this.contentHashCache = contentHashCache;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withBandwidthLimit(long bandwidthLimit) {
+        if (bandwidthLimit >= 0)
+            this.bandwidthLimit = bandwidthLimit;
+        return this;
+    }
+
+    public RemoteFileSystemStorageBuilder withRequestLimit(double requestLimit) {
+        if (requestLimit >= 0)
+            this.requestLimit = requestLimit;
+        return this;
     }
 
     public RemoteFileSystemStorageBuilder withLogger(CPMSLogger logger) {
@@ -25,6 +147,66 @@ public class RemoteFileSystemStorageBuilder {
         //Todo: Add some validation here
     }
 
+    public SftpSessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public int getTransferConcurrency() {
+        return transferConcurrency;
+    }
+
+    public long getParallelTransferThreshold() {
+        return parallelTransferThreshold;
+    }
+
+    public boolean isResumableTransfers() {
+        return resumableTransfers;
+    }
+
+    public boolean isSyncChecksums() {
+        return syncChecksums;
+    }
+
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
+
+    public String getTransferRun() {
+        return transferRun;
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    public boolean isSkipIdentical() {
+        return skipIdentical;
+    }
+
+    public ContentHashCache getContentHashCache() {
+        return contentHashCache;
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public double getRequestLimit() {
+        return requestLimit;
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
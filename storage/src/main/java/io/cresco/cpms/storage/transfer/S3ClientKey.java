@@ -0,0 +1,99 @@
+package io.cresco.cpms.storage.transfer;
+
+import software.amazon.awssdk.regions.Region;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Identifies a set of shared S3 clients held by the {@link S3ClientManager}. Two storage adapters built with the same
+ * credentials, region, endpoint and client tuning share the same underlying connections.
+ */
+public class S3ClientKey {
+    private final String accessKey;
+    private final String secretKey;
+    private final Region region;
+    private final URI endpoint;
+    private final long minimumUploadPartSize;
+    private final long multipartUploadThreshold;
+    private final int maxConnections;
+    private final Duration connectionMaxIdleTime;
+
+    public S3ClientKey(S3ObjectStorageBuilder builder) {
+        this.accessKey = builder.getAccessKey();
+        this.secretKey = builder.getSecretKey();
+        this.region = builder.getRegion();
+        this.endpoint = builder.getEndpoint();
+        this.minimumUploadPartSize = builder.getMinimumUploadPartSize();
+        this.multipartUploadThreshold = builder.getMultipartUploadThreshold();
+        this.maxConnections = builder.getMaxConnections();
+        this.connectionMaxIdleTime = builder.getConnectionMaxIdleTime();
+    }
+
+    public boolean hasStaticCredentials() {
+        return accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty();
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public Region getRegion() {
+        return region;
+    }
+
+    public URI getEndpoint() {
+        return endpoint;
+    }
+
+    public long getMinimumUploadPartSize() {
+        return minimumUploadPartSize;
+    }
+
+    public long getMultipartUploadThreshold() {
+        return multipartUploadThreshold;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public Duration getConnectionMaxIdleTime() {
+        return connectionMaxIdleTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof S3ClientKey that))
+            return false;
+        return minimumUploadPartSize == that.minimumUploadPartSize &&
+                multipartUploadThreshold == that.multipartUploadThreshold &&
+                maxConnections == that.maxConnections &&
+                Objects.equals(accessKey, that.accessKey) &&
+                Objects.equals(secretKey, that.secretKey) &&
+                Objects.equals(region, that.region) &&
+                Objects.equals(endpoint, that.endpoint) &&
+                Objects.equals(connectionMaxIdleTime, that.connectionMaxIdleTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(accessKey, secretKey, region, endpoint, minimumUploadPartSize, multipartUploadThreshold,
+                maxConnections, connectionMaxIdleTime);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        S3 Client Key (access key: %s, region: %s, endpoint: %s)""",
+                (accessKey == null) ? "default" : accessKey, region, endpoint
+        );
+    }
+}
@@ -0,0 +1,266 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3CrtAsyncClientBuilder;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide holder of long-lived S3 clients. One synchronous client, one CRT-based asynchronous client and one
+ * transfer manager are kept per {@link S3ClientKey}, handed out through leases and closed once they have sat unused
+ * for longer than the client idle timeout or when {@link #shutdown()} is called.
+ */
+@SuppressWarnings({"unused"})
+public class S3ClientManager {
+    private static final S3ClientManager instance = new S3ClientManager();
+
+    private final Map<S3ClientKey, S3ClientEntry> entries = new ConcurrentHashMap<>();
+    private final CPMSLogger logger;
+    private ScheduledExecutorService reaper;
+    private Duration clientIdleTimeout;
+
+    S3ClientManager() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(S3ClientManager.class).build();
+        this.clientIdleTimeout = Duration.ofSeconds(CPMSStatics.DEFAULT_S3_CLIENT_IDLE_TIMEOUT_SECONDS);
+    }
+
+    public static S3ClientManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Leases the shared clients for a key, building them on first use
+     * @param key The client key to lease
+     * @return A lease which must be closed once the caller is done with the clients
+     */
+    public S3ClientLease lease(S3ClientKey key) {
+        startReaper();
+        S3ClientEntry entry = entries.compute(key, (k, existing) -> {
+            if (existing == null || existing.isClosed())
+                existing = new S3ClientEntry(k);
+            existing.acquire();
+            return existing;
+        });
+        return new S3ClientLease(entry);
+    }
+
+    /**
+     * Closes every shared client that is not currently leased and has been idle longer than the idle timeout
+     */
+    public void evictIdleClients() {
+        long cutoff = System.currentTimeMillis() - clientIdleTimeout.toMillis();
+        List<S3ClientEntry> toClose = new ArrayList<>();
+        for (S3ClientKey key : entries.keySet()) {
+            entries.computeIfPresent(key, (k, entry) -> {
+                if (entry.isIdleSince(cutoff)) {
+                    toClose.add(entry);
+                    return null;
+                }
+                return entry;
+            });
+        }
+        for (S3ClientEntry entry : toClose) {
+            logger.debug("Evicting idle S3 clients for [{}]", entry.getKey());
+            entry.close();
+        }
+    }
+
+    /**
+     * Closes all shared clients and stops idle eviction. The manager can be used again afterward.
+     */
+    public synchronized void shutdown() {
+        logger.debug("Shutting down shared S3 clients");
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper = null;
+        }
+        for (S3ClientKey key : entries.keySet()) {
+            S3ClientEntry entry = entries.remove(key);
+            if (entry == null)
+                continue;
+            if (entry.getLeases() > 0)
+                logger.warn("Closing S3 clients for [{}] with {} active lease(s)", key, entry.getLeases());
+            entry.close();
+        }
+    }
+
+    public int getClientCount() {
+        return entries.size();
+    }
+
+    public Duration getClientIdleTimeout() {
+        return clientIdleTimeout;
+    }
+
+    public synchronized void setClientIdleTimeout(Duration clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper = null;
+        }
+    }
+
+    private synchronized void startReaper() {
+        if (reaper != null)
+            return;
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cpms-s3-client-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1L, clientIdleTimeout.toMillis() / 2);
+        reaper.scheduleAtFixedRate(() -> {
+            try {
+                evictIdleClients();
+            } catch (Exception e) {
+                logger.error("Failed to evict idle S3 clients: {}", e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static class S3ClientEntry {
+        private final S3ClientKey key;
+        private S3Client client;
+        private S3AsyncClient asyncClient;
+        private S3TransferManager transferManager;
+        private int leases = 0;
+        private long lastAccess;
+        private boolean closed = false;
+
+        S3ClientEntry(S3ClientKey key) {
+            this.key = key;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized void acquire() {
+            leases++;
+            lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized void release() {
+            leases--;
+            lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized boolean isIdleSince(long cutoff) {
+            return leases <= 0 && lastAccess < cutoff;
+        }
+
+        synchronized int getLeases() {
+            return leases;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        S3ClientKey getKey() {
+            return key;
+        }
+
+        synchronized S3Client getClient() {
+            if (client == null) {
+                S3ClientBuilder builder = S3Client.builder()
+                        .httpClientBuilder(ApacheHttpClient.builder()
+                                .maxConnections(key.getMaxConnections())
+                                .connectionMaxIdleTime(key.getConnectionMaxIdleTime())
+                                .useIdleConnectionReaper(true));
+                if (key.hasStaticCredentials())
+                    builder.credentialsProvider(StaticCredentialsProvider.create(
+                            AwsBasicCredentials.create(key.getAccessKey(), key.getSecretKey())));
+                if (key.getRegion() != null)
+                    builder.region(key.getRegion());
+                if (key.getEndpoint() != null)
+                    builder.endpointOverride(key.getEndpoint()).forcePathStyle(true);
+                client = builder.build();
+            }
+            return client;
+        }
+
+        synchronized S3AsyncClient getAsyncClient() {
+            if (asyncClient == null) {
+                S3CrtAsyncClientBuilder builder = S3AsyncClient.crtBuilder()
+                        .maxConcurrency(key.getMaxConnections())
+                        .minimumPartSizeInBytes(key.getMinimumUploadPartSize())
+                        .thresholdInBytes(key.getMultipartUploadThreshold());
+                if (key.hasStaticCredentials())
+                    builder.credentialsProvider(StaticCredentialsProvider.create(
+                            AwsBasicCredentials.create(key.getAccessKey(), key.getSecretKey())));
+                if (key.getRegion() != null)
+                    builder.region(key.getRegion());
+                if (key.getEndpoint() != null)
+                    builder.endpointOverride(key.getEndpoint()).forcePathStyle(true);
+                asyncClient = builder.build();
+            }
+            return asyncClient;
+        }
+
+        synchronized S3TransferManager getTransferManager() {
+            if (transferManager == null)
+                transferManager = S3TransferManager.builder().s3Client(getAsyncClient()).build();
+            return transferManager;
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (transferManager != null)
+                transferManager.close();
+            if (asyncClient != null)
+                asyncClient.close();
+            if (client != null)
+                client.close();
+            transferManager = null;
+            asyncClient = null;
+            client = null;
+        }
+    }
+
+    /**
+     * A borrowed handle on a set of shared S3 clients. Closing the lease returns the clients to the manager; it never
+     * closes the clients themselves.
+     */
+    public static class S3ClientLease implements AutoCloseable {
+        private final S3ClientEntry entry;
+        private boolean released = false;
+
+        S3ClientLease(S3ClientEntry entry) {
+            this.entry = entry;
+        }
+
+        public S3Client getClient() {
+            return entry.getClient();
+        }
+
+        public S3AsyncClient getAsyncClient() {
+            return entry.getAsyncClient();
+        }
+
+        public S3TransferManager getTransferManager() {
+            return entry.getTransferManager();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (released)
+                return;
+            released = true;
+            entry.release();
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package io.cresco.cpms.storage.transfer;
 
+import com.google.common.collect.Iterators;
 import io.cresco.cpms.logging.CPMSLogger;
 import io.cresco.cpms.statics.CPMSStatics;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import io.cresco.cpms.statics.TransferOperation;
+import io.cresco.cpms.statics.TransferVerification;
+import io.cresco.cpms.storage.transfer.S3ClientManager.S3ClientLease;
+import io.cresco.cpms.storage.utilities.StorageProvider;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.waiters.WaiterResponse;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.waiters.S3Waiter;
@@ -15,16 +24,46 @@ import software.amazon.awssdk.transfer.s3.S3TransferManager;
 import software.amazon.awssdk.transfer.s3.model.*;
 import software.amazon.awssdk.transfer.s3.progress.TransferListener;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class S3ObjectStorage implements TransferAdapter {
     private final String accessKey;
     private final String secretKey;
     private final Region region;
+    private final S3ClientKey clientKey;
+    private final S3ClientManager clientManager;
+    private final ChecksumEngine checksumEngine;
+    private final TransferVerification transferVerification;
+    private final boolean resumableTransfers;
+    private final long resumableTransferThreshold;
+    private final int transferConcurrency;
+    private final int maximumTransferConcurrency;
+    private final MetadataCache metadataCache;
+    private final String metadataNamespace;
+    private final boolean adaptiveTransfers;
+    private final TransferTuner transferTuner;
+    private final String transferDestination;
+    private final TransferScheduler.Lane transferLane;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final TransferMetrics transferMetrics;
+    private final boolean skipIdentical;
+    private final ContentHashCache contentHashCache;
 
     private final int partSize;
     private final long minimumUploadPartSize;
@@ -43,59 +82,42 @@ public class S3ObjectStorage implements TransferAdapter {
         this.partSize = builder.getPartSize();
         this.minimumUploadPartSize = builder.getMinimumUploadPartSize();
         this.multipartUploadThreshold = builder.getMultipartUploadThreshold();
+        this.clientKey = new S3ClientKey(builder);
+        this.clientManager = builder.getClientManager();
+        this.checksumEngine = builder.getChecksumEngine();
+        this.transferVerification = builder.getTransferVerification();
+        this.resumableTransfers = builder.isResumableTransfers();
+        this.resumableTransferThreshold = builder.getResumableTransferThreshold();
+        this.transferConcurrency = builder.getTransferConcurrency();
+        this.maximumTransferConcurrency = builder.getMaximumTransferConcurrency();
+        this.metadataCache = builder.getMetadataCache();
+        this.metadataNamespace = String.format("s3|%s|%s|%s", builder.getEndpoint(), region, accessKey);
+        this.adaptiveTransfers = builder.isAdaptiveTransfers();
+        this.transferTuner = builder.getTransferTuner();
+        this.transferDestination = String.format("s3|%s|%s", builder.getEndpoint(), region);
+        this.transferLane = builder.getTransferScheduler().lane(StorageProvider.AWS, transferDestination,
+                builder.getTransferPriority(), builder.getTransferRun());
+        this.bandwidthLimiter = new BandwidthLimiterBuilder().withBytesPerSecond(builder.getBandwidthLimit())
+                .withRequestsPerSecond(builder.getRequestLimit()).withParent(builder.getBandwidthLimiter())
+                .withLogger(builder.getLogger()).build();
+        this.transferMetrics = new TransferMetricsBuilder().withParent(builder.getTransferMetrics())
+                .withLogger(builder.getLogger()).build();
+        this.skipIdentical = builder.isSkipIdentical();
+        this.contentHashCache = builder.getContentHashCache();
         setLogger(builder.getLogger());
     }
 
-    private S3Client getClient() {
-        if (accessKey == null || accessKey.isEmpty() || secretKey == null || secretKey.isEmpty())
-            return getClientWithDefaultCredentials();
-        return getClientWithCredentials();
-    }
-
-    private S3Client getClientWithDefaultCredentials() {
-        return S3Client.builder()
-                .build();
-    }
-
-    private S3Client getClientWithCredentials() {
-        StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
-                AwsBasicCredentials.create(accessKey, secretKey)
-        );
-        if (region == null)
-            return S3Client.builder()
-                    .credentialsProvider(credentialsProvider)
-                    .build();
-        return S3Client.builder()
-                .region(region)
-                .credentialsProvider(credentialsProvider)
-                .build();
-    }
-
-    private S3AsyncClient getAsyncClient() {
-        return S3AsyncClient.crtBuilder()
-                .minimumPartSizeInBytes(minimumUploadPartSize)
-                .thresholdInBytes(multipartUploadThreshold)
-                .build();
-    }
-
-    private S3AsyncClient getAsyncClientWithCredentials() {
-        StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
-                AwsBasicCredentials.create(accessKey, secretKey)
-        );
-        return S3AsyncClient.crtBuilder()
-                .region(region)
-                .credentialsProvider(credentialsProvider)
-                .minimumPartSizeInBytes(minimumUploadPartSize)
-                .thresholdInBytes(multipartUploadThreshold)
-                .build();
-    }
-
     private List<Bucket> listBuckets() {
         logger.trace("listBuckets()");
-        try (S3Client s3Client = getClient()) {
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
             ListBucketsRequest listBucketsRequest = ListBucketsRequest.builder()
                     .build();
-            ListBucketsResponse listBucketsResponse = s3Client.listBuckets(listBucketsRequest);
+            ListBucketsResponse listBucketsResponse;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.LIST)) {
+                listBucketsResponse = s3Client.listBuckets(listBucketsRequest);
+                sample.complete();
+            }
             return new ArrayList<>(listBucketsResponse.buckets());
         } catch (SdkException e) {
             logger.error("listBuckets Error: {}", e.getMessage());
@@ -105,11 +127,23 @@ public class S3ObjectStorage implements TransferAdapter {
 
     private boolean doesBucketExist(String bucket) {
         logger.debug("doesBucketExist({})", bucket);
-        try (S3Client s3Client = getClient()) {
+        if (Boolean.TRUE.equals(metadataCache.getContainer(metadataNamespace, bucket)))
+            return true;
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
             HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
                     .bucket(bucket)
                     .build();
-            HeadBucketResponse headBucketResponse = s3Client.headBucket(headBucketRequest);
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.HEAD)) {
+                try {
+                    s3Client.headBucket(headBucketRequest);
+                } catch (NoSuchBucketException e) {
+                    sample.complete();
+                    throw e;
+                }
+                sample.complete();
+            }
+            metadataCache.putContainer(metadataNamespace, bucket, true);
             return true;
         } catch (NoSuchBucketException e) {
             return false;
@@ -121,7 +155,8 @@ public class S3ObjectStorage implements TransferAdapter {
 
     private void createBucket(String bucket) {
         logger.debug("createBucket({})", bucket);
-        try (S3Client s3Client = getClient()) {
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
             S3Waiter s3Waiter = s3Client.waiter();
             CreateBucketRequest createBucketRequest = CreateBucketRequest.builder()
                     .bucket(bucket)
@@ -132,6 +167,7 @@ public class S3ObjectStorage implements TransferAdapter {
                     .build();
             WaiterResponse<HeadBucketResponse> createWaiterResponse = s3Waiter.waitUntilBucketExists(waitForCreateBucket);
             createWaiterResponse.matched();
+            metadataCache.putContainer(metadataNamespace, bucket, true);
             logger.info("Created bucket: {}", bucket);
         } catch (SdkException e) {
             logger.error("createBucket Error: {}", e.getMessage());
@@ -139,18 +175,51 @@ public class S3ObjectStorage implements TransferAdapter {
     }
 
     private boolean doesObjectExist(String bucket, String key) {
-        return headObject(bucket, key) != null;
+        return cachedHeadObject(bucket, key) != null;
+    }
+
+    /**
+     * Returns the metadata of an object from the metadata cache, only sending a HEAD request on a miss
+     * @param bucket The bucket of the object
+     * @param key The object key
+     * @return The object metadata, or null if the object does not exist
+     */
+    private HeadObjectResponse cachedHeadObject(String bucket, String key) {
+        Optional<HeadObjectResponse> cached = metadataCache.getObject(metadataNamespace, bucket, key);
+        if (cached != null)
+            return cached.orElse(null);
+        return headObject(bucket, key);
     }
 
+    /**
+     * Sends a HEAD request for an object, refreshing its entry in the metadata cache. Used directly wherever the
+     * current ETag of the object is needed.
+     * @param bucket The bucket of the object
+     * @param key The object key
+     * @return The object metadata, or null if the object does not exist or the request failed
+     */
     private HeadObjectResponse headObject(String bucket, String key) {
         logger.debug("headObject({}, {})", bucket, key);
-        try (S3Client s3Client = getClient()) {
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
             HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .build();
-            return s3Client.headObject(headObjectRequest);
+            HeadObjectResponse headObjectResponse;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.HEAD)) {
+                try {
+                    headObjectResponse = s3Client.headObject(headObjectRequest);
+                } catch (NoSuchKeyException e) {
+                    sample.complete();
+                    throw e;
+                }
+                sample.complete();
+            }
+            metadataCache.putObject(metadataNamespace, bucket, key, headObjectResponse);
+            return headObjectResponse;
         } catch (NoSuchKeyException e) {
+            metadataCache.putObject(metadataNamespace, bucket, key, null);
             return null;
         } catch (SdkException e) {
             logger.error("headObject Error: {}", e.getMessage());
@@ -158,37 +227,38 @@ public class S3ObjectStorage implements TransferAdapter {
         }
     }
 
-    private List<S3Object> listBucketObjects(String bucket) {
-        logger.debug("listBucketObjects({})", bucket);
-        try (S3Client s3Client = getClient()) {
-            ListObjectsRequest listObjectsRequest = ListObjectsRequest.builder()
-                    .bucket(bucket)
-                    .build();
-            ListObjectsResponse listObjectsResponse = s3Client.listObjects(listObjectsRequest);
-            return listObjectsResponse.contents();
-        }
-    }
-
-    private List<S3Object> listBucketObjects(String bucket, String prefix) {
-        logger.debug("listBucketObjects({})", bucket);
-        try (S3Client s3Client = getClient()) {
-            ListObjectsRequest listObjectsRequest = ListObjectsRequest.builder()
+    private Stream<S3Object> streamBucketObjects(String bucket, String prefix) {
+        logger.debug("streamBucketObjects({}, {})", bucket, prefix);
+        S3ClientLease lease = clientManager.lease(clientKey);
+        try {
+            ListObjectsV2Request.Builder listObjectsRequest = ListObjectsV2Request.builder()
                     .bucket(bucket)
-                    .prefix(prefix)
-                    .build();
-            ListObjectsResponse listObjectsResponse = s3Client.listObjects(listObjectsRequest);
-            return listObjectsResponse.contents();
+                    .maxKeys(CPMSStatics.DEFAULT_LISTING_PAGE_SIZE);
+            if (prefix != null)
+                listObjectsRequest.prefix(prefix);
+            Iterator<List<S3Object>> pages = Iterators.transform(transferMetrics.meterPages(TransferOperation.LIST,
+                    lease.getClient().listObjectsV2Paginator(listObjectsRequest.build()).iterator()),
+                    ListObjectsV2Response::contents);
+            return PrefetchingIterator.fromPages(pages, lease).stream();
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
         }
     }
 
     private boolean deleteBucketObject(String bucket, String key) {
         logger.debug("deleteBucketObject({}, {})", bucket, key);
-        try (S3Client s3Client = getClient()) {
+        metadataCache.invalidateObject(metadataNamespace, bucket, key);
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
             DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .build();
-            DeleteObjectResponse deleteObjectResponse = s3Client.deleteObject(deleteObjectRequest);
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.DELETE)) {
+                s3Client.deleteObject(deleteObjectRequest);
+                sample.complete();
+            }
             return true;
         } catch (SdkException e) {
             logger.error("deleteBucketObject Error: {}", e.getMessage());
@@ -196,39 +266,309 @@ public class S3ObjectStorage implements TransferAdapter {
         }
     }
 
-    private boolean deleteBucketContents(String bucket, String prefix) {
+    /**
+     * Deletes every object under a prefix. Keys are streamed from the paginated listing into batches of up to 1,000
+     * which are deleted concurrently, so neither the listing nor the deletes are ever held in memory at once. Keys S3
+     * rejects as throttled or failed internally are retried with exponential backoff; any other per-key error is
+     * recorded in the result.
+     * @param bucket The bucket to delete from
+     * @param prefix The prefix of the objects to delete
+     * @param result The result to report deleted and failed keys into
+     * @throws IOException If the objects cannot be listed
+     */
+    private void deleteBucketContents(String bucket, String prefix, DeleteResult result) throws IOException {
         logger.debug("deleteBucketContents({}, {})", bucket, prefix);
-        try (S3Client s3Client = getClient()) {
-            List<ObjectIdentifier> toDelete = listBucketObjects(bucket, prefix).stream()
-                    .map(S3Object::key)
-                    .map(key -> ObjectIdentifier.builder().key(key).build())
-                    .collect(Collectors.toList());
-            if (toDelete.isEmpty())
-                return true;
-            DeleteObjectsRequest deleteObjectsRequest = DeleteObjectsRequest.builder()
-                    .bucket(bucket)
-                    .delete(Delete.builder().objects(toDelete).build())
-                    .build();
-            DeleteObjectsResponse deleteObjectsResponse = s3Client.deleteObjects(deleteObjectsRequest);
-            return true;
+        ArrayDeque<Future<?>> inFlight = new ArrayDeque<>();
+        try (S3ClientLease lease = clientManager.lease(clientKey);
+             Stream<S3Object> objects = streamBucketObjects(bucket, prefix)) {
+            S3Client s3Client = lease.getClient();
+            Iterator<S3Object> iterator = objects.iterator();
+            List<String> batch = new ArrayList<>(CPMSStatics.S3_MAXIMUM_DELETE_BATCH);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next().key());
+                if (batch.size() < CPMSStatics.S3_MAXIMUM_DELETE_BATCH && iterator.hasNext())
+                    continue;
+                List<String> keys = batch;
+                batch = new ArrayList<>(CPMSStatics.S3_MAXIMUM_DELETE_BATCH);
+                if (inFlight.size() >= transferConcurrency)
+                    awaitBatch(inFlight.poll());
+                inFlight.add(ParallelPartRunner.submit(() -> deleteObjectBatch(s3Client, bucket, keys, result)));
+            }
+            while (!inFlight.isEmpty())
+                awaitBatch(inFlight.poll());
         } catch (SdkException e) {
-            logger.error("deleteBucketContents Error: {}", e.getMessage());
+            throw new IOException(String.format("Failed to list [%s/%s] for deletion: %s", bucket, prefix,
+                    e.getMessage()), e);
+        } finally {
+            inFlight.forEach(batch -> batch.cancel(true));
+        }
+    }
+
+    private void awaitBatch(Future<?> batch) throws IOException {
+        try {
+            batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a batch of objects");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Deletes a batch of keys with a single DeleteObjects request, retrying throttled keys
+     */
+    private void deleteObjectBatch(S3Client s3Client, String bucket, List<String> keys, DeleteResult result) {
+        List<String> pending = keys;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            boolean retryable = attempt < CPMSStatics.DEFAULT_DELETE_RETRY_ATTEMPTS;
+            List<String> retry = new ArrayList<>();
+            pending.forEach(key -> metadataCache.invalidateObject(metadataNamespace, bucket, key));
+            try {
+                DeleteObjectsRequest deleteObjectsRequest = DeleteObjectsRequest.builder()
+                        .bucket(bucket)
+                        .delete(Delete.builder()
+                                .objects(pending.stream()
+                                        .map(key -> ObjectIdentifier.builder().key(key).build())
+                                        .collect(Collectors.toList()))
+                                .quiet(true)
+                                .build())
+                        .build();
+                DeleteObjectsResponse deleteObjectsResponse;
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.DELETE, 0)) {
+                    deleteObjectsResponse = s3Client.deleteObjects(deleteObjectsRequest);
+                    sample.complete();
+                }
+                for (S3Error error : deleteObjectsResponse.errors()) {
+                    if (retryable && isRetryableDeleteError(error.code()))
+                        retry.add(error.key());
+                    else
+                        result.recordFailure(error.key(), String.format("%s: %s", error.code(), error.message()));
+                }
+                result.recordDeleted(pending.size() - deleteObjectsResponse.errors().size());
+            } catch (AwsServiceException e) {
+                if (retryable && (e.isThrottlingException() || e.statusCode() >= 500))
+                    retry = pending;
+                else
+                    pending.forEach(key -> result.recordFailure(key, e.getMessage()));
+            } catch (SdkException e) {
+                pending.forEach(key -> result.recordFailure(key, e.getMessage()));
+            } catch (InterruptedIOException e) {
+                pending.forEach(key -> result.recordFailure(key, e.getMessage()));
+                return;
+            }
+            if (!retry.isEmpty()) {
+                transferMetrics.recordRetries(retry.size());
+                long backoff = CPMSStatics.DEFAULT_DELETE_RETRY_BACKOFF_MILLIS << (attempt - 1);
+                logger.debug("Retrying {} throttled delete(s) in [{}] after {} ms", retry.size(), bucket, backoff);
+                try {
+                    Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    retry.forEach(key -> result.recordFailure(key, "Interrupted before retrying delete"));
+                    return;
+                }
+            }
+            pending = retry;
+        }
+    }
+
+    private static boolean isRetryableDeleteError(String code) {
+        return "SlowDown".equals(code) || "InternalError".equals(code) || "ServiceUnavailable".equals(code);
+    }
+
+    /**
+     * Copies an object within S3 without downloading it. Single-part objects are copied with one CopyObject request,
+     * whose ETag must equal the source's. Multipart objects, and any object over the 5 GB CopyObject limit, are copied
+     * as concurrent UploadPartCopy ranges; multipart sources are split along their original parts so the copy
+     * reproduces the source ETag, which is then asserted. Every request is pinned to the source ETag, so a source
+     * replaced mid-copy fails the copy instead of mixing two versions.
+     * @param sourceBucket The source bucket
+     * @param sourceKey The source key
+     * @param destinationBucket The target bucket
+     * @param destinationKey The target key
+     * @return Whether the object was copied and its checksums match
+     */
+    private boolean copyBucketObject(String sourceBucket, String sourceKey, String destinationBucket,
+                                     String destinationKey) {
+        logger.debug("copyBucketObject({}, {}, {}, {})", sourceBucket, sourceKey, destinationBucket, destinationKey);
+        HeadObjectResponse s3Object = headObject(sourceBucket, sourceKey);
+        if (s3Object == null) {
+            logger.cpmsError("Bucket [{}] does not contain [{}]", sourceBucket, sourceKey);
+            return false;
+        }
+        String s3Checksum = s3Object.eTag().replace("\"", "");
+        metadataCache.invalidateObject(metadataNamespace, destinationBucket, destinationKey);
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
+            if (s3Checksum.contains("-") || s3Object.contentLength() > CPMSStatics.S3_MAXIMUM_COPY_OBJECT_SIZE)
+                return copyBucketObjectMultipart(s3Client, s3Object, sourceBucket, sourceKey, destinationBucket,
+                        destinationKey);
+            CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
+                    .sourceBucket(sourceBucket)
+                    .sourceKey(sourceKey)
+                    .destinationBucket(destinationBucket)
+                    .destinationKey(destinationKey)
+                    .copySourceIfMatch(s3Object.eTag())
+                    .metadataDirective(MetadataDirective.COPY)
+                    .build();
+            String copyChecksum;
+            try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COPY, 0)) {
+                copyChecksum = s3Client.copyObject(copyObjectRequest).copyObjectResult().eTag().replace("\"", "");
+                sample.complete();
+            }
+            logger.cpmsInfo("Verifying copy [{}/{}] via checksums", destinationBucket, destinationKey);
+            logger.trace("s3Checksum: {}, copyChecksum: {}", s3Checksum, copyChecksum);
+            if (!copyChecksum.equals(s3Checksum))
+                logger.cpmsError("Checksums do not match [source: {}, copy: {}]", s3Checksum, copyChecksum);
+            return copyChecksum.equals(s3Checksum);
+        } catch (SdkException | InterruptedIOException e) {
+            logger.cpmsError("Copy of [{}/{}] failed: {}", sourceBucket, sourceKey, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copies an object as a multipart upload of concurrent UploadPartCopy ranges
+     * @param s3Client The client to copy with
+     * @param s3Object The source object's current metadata
+     * @param sourceBucket The source bucket
+     * @param sourceKey The source key
+     * @param destinationBucket The target bucket
+     * @param destinationKey The target key
+     * @return Whether the object was copied and its checksums match
+     */
+    private boolean copyBucketObjectMultipart(S3Client s3Client, HeadObjectResponse s3Object, String sourceBucket,
+                                              String sourceKey, String destinationBucket, String destinationKey) {
+        String s3Checksum = s3Object.eTag().replace("\"", "");
+        boolean multipart = s3Checksum.contains("-");
+        long size = s3Object.contentLength();
+        long mebibyte = 1024L * 1024L;
+        Map<String, String> metadata = new HashMap<>(s3Object.metadata());
+        long copyPartSize = (multipart) ?
+                ChecksumEngine.optimalPartSize(size, uploadedPartSize(s3Object, sourceBucket, sourceKey) * mebibyte) :
+                (ChecksumEngine.optimalPartSize(size, minimumUploadPartSize) + mebibyte - 1) / mebibyte * mebibyte;
+        if (!multipart)
+            metadata.put(CPMSStatics.PART_SIZE_METADATA_TAG_KEY, String.valueOf(copyPartSize / mebibyte));
+        int partCount = (int) ((size - 1) / copyPartSize + 1);
+        CreateMultipartUploadRequest.Builder createRequest = CreateMultipartUploadRequest.builder()
+                .bucket(destinationBucket)
+                .key(destinationKey)
+                .metadata(metadata);
+        if (s3Object.contentType() != null)
+            createRequest.contentType(s3Object.contentType());
+        String uploadId = s3Client.createMultipartUpload(createRequest.build()).uploadId();
+        logger.cpmsInfo("Copying [{}/{}] to [{}/{}] as {} part(s) of {} bytes", sourceBucket, sourceKey,
+                destinationBucket, destinationKey, partCount, copyPartSize);
+        TransferProgress progress = new TransferProgress(logger,
+                String.format("Copy of [%s/%s]", sourceBucket, sourceKey), size);
+        Map<Integer, String> partETags = new TreeMap<>();
+        List<Integer> partNumbers = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++)
+            partNumbers.add(partNumber);
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(transferConcurrency, maximumTransferConcurrency,
+                S3ObjectStorage::isThrottling);
+        try {
+            ParallelPartRunner.run(partNumbers, concurrency,
+                    partNumber -> Math.min(copyPartSize, size - (partNumber - 1) * copyPartSize),
+                    partNumber -> {
+                        long offset = (partNumber - 1) * copyPartSize;
+                        long length = Math.min(copyPartSize, size - offset);
+                        UploadPartCopyRequest uploadPartCopyRequest = UploadPartCopyRequest.builder()
+                                .sourceBucket(sourceBucket)
+                                .sourceKey(sourceKey)
+                                .destinationBucket(destinationBucket)
+                                .destinationKey(destinationKey)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .copySourceRange(String.format("bytes=%d-%d", offset, offset + length - 1))
+                                .copySourceIfMatch(s3Object.eTag())
+                                .build();
+                        String partETag;
+                        try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.COPY, 0)) {
+                            partETag = s3Client.uploadPartCopy(uploadPartCopyRequest).copyPartResult().eTag()
+                                    .replace("\"", "");
+                            sample.complete();
+                        }
+                        synchronized (partETags) {
+                            partETags.put(partNumber, partETag);
+                        }
+                        progress.add(length);
+                        logger.debug("Copied part {}/{} of [{}/{}]", partNumber, partCount, sourceBucket, sourceKey);
+                    });
+            transferMetrics.recordRetries(concurrency.getThrottleCount());
+            CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+                    .bucket(destinationBucket)
+                    .key(destinationKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder()
+                            .parts(partETags.entrySet().stream()
+                                    .map(part -> CompletedPart.builder()
+                                            .partNumber(part.getKey())
+                                            .eTag(part.getValue())
+                                            .build())
+                                    .collect(Collectors.toList()))
+                            .build())
+                    .build();
+            String copyChecksum;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.COMMIT)) {
+                copyChecksum = s3Client.completeMultipartUpload(completeRequest).eTag().replace("\"", "");
+                sample.complete();
+            }
+            logger.cpmsInfo("Verifying copy [{}/{}] via checksums", destinationBucket, destinationKey);
+            String partChecksum = multipartETag(partETags.values(), size, copyPartSize);
+            logger.trace("s3Checksum: {}, partChecksum: {}, copyChecksum: {}", s3Checksum, partChecksum,
+                    copyChecksum);
+            if (!copyChecksum.equals(partChecksum)) {
+                logger.cpmsError("Checksums do not match [parts: {}, copy: {}]", partChecksum, copyChecksum);
+                return false;
+            }
+            if (!multipart)
+                return true;
+            if (!copyChecksum.equals(s3Checksum))
+                logger.cpmsError("Checksums do not match [source: {}, copy: {}]", s3Checksum, copyChecksum);
+            return copyChecksum.equals(s3Checksum);
+        } catch (SdkException | IOException e) {
+            abortUpload(s3Client, destinationBucket, destinationKey, uploadId);
+            logger.cpmsError("Copy of [{}/{}] failed: {}", sourceBucket, sourceKey, e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Builds the multipart ETag S3 reports for an object from the hex MD5 digests of its parts
+     */
+    private String multipartETag(Collection<String> partMd5s, long size, long partSize) {
+        byte[][] md5s = new byte[partMd5s.size()][];
+        int index = 0;
+        try {
+            for (String partMd5 : partMd5s)
+                md5s[index++] = Hex.decodeHex(partMd5);
+        } catch (DecoderException e) {
+            return "";
+        }
+        Map<DigestAlgorithm, byte[][]> partDigests = new EnumMap<>(DigestAlgorithm.class);
+        partDigests.put(DigestAlgorithm.MD5, md5s);
+        return new ChecksumResult(size, partSize, md5s.length, partDigests).getETag(true);
+    }
+
     private List<String> listBucketDirectoriesAsString(String bucket) {
         return listBucketDirectories(bucket).stream().map(CommonPrefix::prefix).collect(Collectors.toList());
     }
 
     private List<CommonPrefix> listBucketDirectories(String bucket) {
         logger.debug("listBucketDirectories({})", bucket);
-        try (S3Client s3Client = getClient()) {
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
             ListObjectsV2Request listObjectsRequest = ListObjectsV2Request.builder()
                     .bucket(bucket)
                     .delimiter("/")
                     .build();
-            ListObjectsV2Response listObjectsResponse = s3Client.listObjectsV2(listObjectsRequest);
+            ListObjectsV2Response listObjectsResponse;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.LIST)) {
+                listObjectsResponse = s3Client.listObjectsV2(listObjectsRequest);
+                sample.complete();
+            }
             return listObjectsResponse.commonPrefixes();
         } catch (SdkException e) {
             logger.error("listBucketDirectories Error: {}", e.getMessage());
@@ -242,32 +582,74 @@ public class S3ObjectStorage implements TransferAdapter {
             throw new IOException("file to upload does not exist");
         if (!doesBucketExist(bucket))
             throw new IOException("target bucket does not exist");
-        try (S3AsyncClient s3Client = getAsyncClient();
-             S3TransferManager s3TransferManager = S3TransferManager.builder().s3Client(s3Client).build()) {
-            Map<String, String> metadata = new HashMap<>();
-            metadata.put(CPMSStatics.UNCOMPRESSED_SIZE_METADATA_TAG_KEY, String.valueOf(Files.size(uploadPath)));
-            metadata.put(CPMSStatics.PART_SIZE_METADATA_TAG_KEY, String.valueOf(partSize));
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+        String contentMd5 = contentHashCache.getCachedMd5(uploadPath);
+        if (skipIdentical) {
+            HeadObjectResponse s3Object = cachedHeadObject(bucket, key);
+            boolean sameSize = hasSameSize(s3Object, uploadPath);
+            // An object of another size cannot match, so the file is only hashed to compare or to tag a new object
+            if (s3Object == null || sameSize)
+                contentMd5 = contentHashCache.getMd5(uploadPath);
+            if (sameSize && isIdentical(s3Object, contentMd5)) {
+                logger.cpmsInfo("Skipping upload of [{}], [{}/{}] already holds identical content", uploadPath,
+                        bucket, key);
+                transferMetrics.recordSkipped(Files.size(uploadPath));
+                return true;
+            }
+        }
+        if (resumableTransfers && Files.size(uploadPath) >= resumableTransferThreshold ||
+                adaptiveTransfers && Files.size(uploadPath) > multipartUploadThreshold)
+            return uploadFileToBucketResumable(uploadPath, bucket, key, contentMd5);
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3TransferManager s3TransferManager = lease.getTransferManager();
+            PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
-                    .metadata(metadata)
-                    .build();
-            UploadFileRequest uploadFileRequest = UploadFileRequest.builder()
-                    .putObjectRequest(putObjectRequest)
-                    .source(uploadPath)
-                    .addTransferListener(new CrescoS3LoggingTransferListener(logger))
-                    .build();
-            FileUpload fileUpload = s3TransferManager.uploadFile(uploadFileRequest);
-            CompletedFileUpload uploadResult = fileUpload.completionFuture().join();
-            logger.cpmsInfo("Verifying upload [{}/{}] via checksums", bucket, key);
-            String localChecksum;
-            String s3Checksum = uploadResult.response().eTag().replace("\"", "");
+                    .metadata(buildObjectMetadata(uploadPath, partSize, contentMd5));
+            String s3Checksum;
+            String localChecksum = null;
+            if (transferVerification == TransferVerification.INLINE || bandwidthLimiter.isLimited()) {
+                AsyncRequestBody requestBody = AsyncRequestBody.fromFile(uploadPath);
+                if (bandwidthLimiter.isLimited())
+                    requestBody = new ThrottlingAsyncRequestBody(requestBody, bandwidthLimiter);
+                StreamingDigester digester = null;
+                if (transferVerification == TransferVerification.INLINE) {
+                    long objectPartSize = ChecksumEngine.optimalPartSize(Files.size(uploadPath),
+                            minimumUploadPartSize);
+                    digester = new StreamingDigester(objectPartSize, EnumSet.of(DigestAlgorithm.MD5));
+                    requestBody = new DigestingAsyncRequestBody(requestBody, digester);
+                    putObjectRequest.checksumAlgorithm(ChecksumAlgorithm.CRC32_C);
+                }
+                UploadRequest uploadRequest = UploadRequest.builder()
+                        .putObjectRequest(putObjectRequest.build())
+                        .requestBody(requestBody)
+                        .addTransferListener(new CrescoS3LoggingTransferListener(logger))
+                        .build();
+                CompletedUpload uploadResult;
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT, Files.size(uploadPath))) {
+                    uploadResult = s3TransferManager.upload(uploadRequest).completionFuture().join();
+                    sample.complete();
+                }
+                logger.cpmsInfo("Verifying upload [{}/{}] via checksums", bucket, key);
+                s3Checksum = uploadResult.response().eTag().replace("\"", "");
+                if (digester != null)
+                    localChecksum = digester.finish().getETag(s3Checksum.contains("-"));
+            } else {
+                UploadFileRequest uploadFileRequest = UploadFileRequest.builder()
+                        .putObjectRequest(putObjectRequest.build())
+                        .source(uploadPath)
+                        .addTransferListener(new CrescoS3LoggingTransferListener(logger))
+                        .build();
+                CompletedFileUpload uploadResult;
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT, Files.size(uploadPath))) {
+                    uploadResult = s3TransferManager.uploadFile(uploadFileRequest).completionFuture().join();
+                    sample.complete();
+                }
+                logger.cpmsInfo("Verifying upload [{}/{}] via checksums", bucket, key);
+                s3Checksum = uploadResult.response().eTag().replace("\"", "");
+            }
             logger.trace("s3Checksum: {}", s3Checksum);
-            MD5Tools md5Tools = new MD5Tools(partSize * 1024 * 1024);
-            if (s3Checksum.contains("-"))
-                localChecksum = md5Tools.getMultiCheckSum(uploadPath.toString());
-            else
-                localChecksum = md5Tools.getCheckSum(uploadPath.toString());
+            if (localChecksum == null)
+                localChecksum = computeETag(uploadPath, minimumUploadPartSize, s3Checksum.contains("-"));
             logger.trace("localChecksum: {}", localChecksum);
             if (!localChecksum.equals(s3Checksum))
                 logger.cpmsError("Checksums do not match [local: {}, S3: {}]", localChecksum, s3Checksum);
@@ -275,6 +657,9 @@ public class S3ObjectStorage implements TransferAdapter {
         } catch (SdkException e) {
             logger.error("uploadFile Error: {}", e.getMessage());
             return false;
+        } catch (CompletionException e) {
+            logger.cpmsError("uploadFile Transfer Error: {}", e.getCause().getMessage());
+            return false;
         }
     }
 
@@ -289,16 +674,10 @@ public class S3ObjectStorage implements TransferAdapter {
             logger.cpmsError("Bucket [{}] does not contain [{}]", bucket, key);
             return null;
         }
-        try (S3AsyncClient s3Client = getAsyncClient();
-             S3TransferManager s3TransferManager = S3TransferManager.builder().s3Client(s3Client).build()) {
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3TransferManager s3TransferManager = lease.getTransferManager();
             String s3Checksum = s3Object.eTag().replace("\"", "");
-            int s3PartSize = partSize;
-            try {
-                if (s3Object.hasMetadata() && s3Object.metadata().containsKey(CPMSStatics.PART_SIZE_METADATA_TAG_KEY))
-                    s3PartSize = Integer.parseInt(s3Object.metadata().get(CPMSStatics.PART_SIZE_METADATA_TAG_KEY));
-            } catch (NumberFormatException e) {
-                logger.cpmsError("Invalid multipart upload partSize metadata tag for [{}/{}]", bucket, key);
-            }
+            int s3PartSize = uploadedPartSize(s3Object, bucket, key);
             logger.trace("downloadDir.getAbsolutePath(): {}", destinationDirectory.toAbsolutePath());
             if (!Files.exists(destinationDirectory)) {
                 try {
@@ -315,21 +694,50 @@ public class S3ObjectStorage implements TransferAdapter {
                     .build();
             int prefixLength = key.lastIndexOf("/") + 1;
             Path outFile = destinationDirectory.resolve(key.substring(prefixLength));
-            DownloadFileRequest downloadFileRequest = DownloadFileRequest.builder()
-                    .getObjectRequest(getObjectRequest)
-                    .destination(destinationDirectory.resolve(outFile))
-                    .addTransferListener(new CrescoS3LoggingTransferListener(logger))
-                    .build();
-            FileDownload fileDownload = s3TransferManager.downloadFile(downloadFileRequest);
-            CompletedFileDownload downloadResult = fileDownload.completionFuture().join();
-            logger.cpmsInfo("Verifying download [{}] via checksums", outFile);
+            if (skipIdentical && isIdentical(s3Object, outFile)) {
+                logger.cpmsInfo("Skipping download of [{}/{}], [{}] already holds identical content", bucket, key,
+                        outFile);
+                transferMetrics.recordSkipped(s3Object.contentLength());
+                return outFile;
+            }
+            if (resumableTransfers && s3Object.contentLength() >= resumableTransferThreshold)
+                return downloadObjectToFileResumable(s3Object, bucket, key, outFile, s3PartSize * 1024L * 1024L);
+            if (s3Object.contentLength() > multipartUploadThreshold ||
+                    bandwidthLimiter.isLimited() && s3Object.contentLength() > 0)
+                return downloadObjectToFileRanged(s3Object, bucket, key, outFile, s3PartSize * 1024L * 1024L);
+            String localChecksum = null;
+            if (transferVerification == TransferVerification.INLINE) {
+                long objectPartSize = s3Checksum.contains("-") ?
+                        ChecksumEngine.optimalPartSize(s3Object.contentLength(), s3PartSize * 1024L * 1024L) :
+                        Long.MAX_VALUE;
+                DigestingFileTransformer<GetObjectResponse> transformer = new DigestingFileTransformer<>(outFile,
+                        new StreamingDigester(objectPartSize, EnumSet.of(DigestAlgorithm.MD5)));
+                DownloadRequest<GetObjectResponse> downloadRequest = DownloadRequest.builder()
+                        .getObjectRequest(getObjectRequest)
+                        .responseTransformer(transformer)
+                        .addTransferListener(new CrescoS3LoggingTransferListener(logger))
+                        .build();
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET, s3Object.contentLength())) {
+                    s3TransferManager.download(downloadRequest).completionFuture().join();
+                    sample.complete();
+                }
+                logger.cpmsInfo("Verifying download [{}] via checksums", outFile);
+                localChecksum = transformer.getDigester().finish().getETag(s3Checksum.contains("-"));
+            } else {
+                DownloadFileRequest downloadFileRequest = DownloadFileRequest.builder()
+                        .getObjectRequest(getObjectRequest)
+                        .destination(outFile)
+                        .addTransferListener(new CrescoS3LoggingTransferListener(logger))
+                        .build();
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET, s3Object.contentLength())) {
+                    s3TransferManager.downloadFile(downloadFileRequest).completionFuture().join();
+                    sample.complete();
+                }
+                logger.cpmsInfo("Verifying download [{}] via checksums", outFile);
+            }
             logger.trace("s3Checksum: {}", s3Checksum);
-            String localChecksum;
-            MD5Tools md5Tools = new MD5Tools(s3PartSize * 1024 * 1024);
-            if (s3Checksum.contains("-"))
-                localChecksum = md5Tools.getMultiCheckSum(outFile.toAbsolutePath().toString());
-            else
-                localChecksum = md5Tools.getCheckSum(outFile.toAbsolutePath().toString());
+            if (localChecksum == null)
+                localChecksum = computeETag(outFile, s3PartSize * 1024L * 1024L, s3Checksum.contains("-"));
             logger.trace("localChecksum: {}", localChecksum);
             if (!localChecksum.equals(s3Checksum))
                 logger.cpmsError("Checksums do not match [local: {}, S3: {}]", localChecksum, s3Checksum);
@@ -337,12 +745,661 @@ public class S3ObjectStorage implements TransferAdapter {
                 return outFile;
         } catch (SdkException e) {
             logger.error("downloadObject SDK Error: {}", e.getMessage());
+        } catch (CompletionException e) {
+            logger.cpmsError("downloadObject Transfer Error: {}", e.getCause().getMessage());
         } catch (IOException e) {
             logger.cpmsError("downloadObject IO Error: {}", e.getMessage());
         }
         return null;
     }
 
+    /**
+     * Uploads a file as a journaled multipart upload. Each completed part is recorded next to the file, so an upload
+     * interrupted by a failure or restart continues from the last completed part instead of from the first byte.
+     * @param uploadPath The local file
+     * @param bucket The target bucket
+     * @param key The target key
+     * @param contentMd5 The hex MD5 of the file to store with the object, may be null
+     * @return Whether the upload completed and its checksums match
+     * @throws IOException If the local file or journal cannot be read
+     */
+    private boolean uploadFileToBucketResumable(Path uploadPath, String bucket, String key, String contentMd5)
+            throws IOException {
+        logger.debug("uploadFileToBucketResumable({}, {}, {})", uploadPath, bucket, key);
+        long size = Files.size(uploadPath);
+        long lastModified = Files.getLastModifiedTime(uploadPath).toMillis();
+        TransferTuner.Plan plan = planTransfer(size, minimumUploadPartSize, transferConcurrency);
+        TransferJournal.State expected = new TransferJournal.State("upload", "s3", bucket, key, size, lastModified,
+                plan.getPartSize());
+        Path journalPath = TransferJournal.journalPathFor(uploadPath);
+        if (adaptiveTransfers)
+            expected.partSize = journaledPartSize(journalPath, expected);
+        try (S3ClientLease lease = clientManager.lease(clientKey);
+             FileChannel channel = FileChannel.open(uploadPath, StandardOpenOption.READ)) {
+            S3Client s3Client = lease.getClient();
+            TransferJournal journal = resumeUpload(s3Client, uploadPath, journalPath, expected);
+            if (journal == null) {
+                CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .metadata(buildObjectMetadata(uploadPath, (adaptiveTransfers) ?
+                                (int) (expected.partSize / (1024L * 1024L)) : partSize, contentMd5))
+                        .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                        .build();
+                expected.transferId = s3Client.createMultipartUpload(createRequest).uploadId();
+                journal = TransferJournal.create(journalPath, expected);
+                logger.cpmsInfo("Starting resumable upload of [{}] to [{}/{}]", uploadPath, bucket, key);
+            }
+            TransferJournal.State state = journal.getState();
+            int partCount = state.getPartCount();
+            List<Integer> remaining = journal.getRemainingParts();
+            logger.cpmsInfo("Uploading {} of {} part(s) of [{}]", remaining.size(), partCount, uploadPath);
+            TransferJournal finalJournal = journal;
+            ParallelPartRunner.run(remaining, plan.getConcurrency(), state::getPartLength, partNumber -> {
+                long offset = state.getPartOffset(partNumber);
+                long length = state.getPartLength(partNumber);
+                FileRegionInputStream[] bodies = new FileRegionInputStream[1];
+                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(state.transferId)
+                        .partNumber(partNumber)
+                        .contentLength(length)
+                        .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                        .build();
+                UploadPartResponse response;
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT_PART, length)) {
+                    response = s3Client.uploadPart(uploadPartRequest,
+                            RequestBody.fromContentProvider(() -> bandwidthLimiter.throttle(bodies[0] =
+                                    new FileRegionInputStream(channel, offset, length, DigestAlgorithm.MD5)),
+                                    length, "application/octet-stream"));
+                    sample.complete();
+                }
+                String localMd5 = Hex.encodeHexString(bodies[0].digest());
+                String partETag = response.eTag().replace("\"", "");
+                if (!partETag.equals(localMd5))
+                    throw new IOException(String.format("Checksums do not match for part %d [local: %s, S3: %s]",
+                            partNumber, localMd5, partETag));
+                finalJournal.recordPart(new TransferJournal.PartRecord(partNumber, length, partETag, localMd5,
+                        response.checksumCRC32C()));
+                logger.debug("Uploaded part {}/{} of [{}]", partNumber, partCount, uploadPath);
+            });
+            transferTuner.record(StorageProvider.AWS, transferDestination, plan.getConcurrency());
+            transferMetrics.recordRetries(plan.getConcurrency().getThrottleCount());
+            List<CompletedPart> completedParts = new ArrayList<>(partCount);
+            for (TransferJournal.PartRecord part : journal.getCompletedParts().values())
+                completedParts.add(CompletedPart.builder()
+                        .partNumber(part.partNumber)
+                        .eTag(part.eTag)
+                        .checksumCRC32C(part.checksum)
+                        .build());
+            CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(state.transferId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build();
+            String s3Checksum;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.COMMIT)) {
+                s3Checksum = s3Client.completeMultipartUpload(completeRequest).eTag().replace("\"", "");
+                sample.complete();
+            }
+            logger.cpmsInfo("Verifying upload [{}/{}] via checksums", bucket, key);
+            String localChecksum = journaledETag(journal);
+            logger.trace("s3Checksum: {}, localChecksum: {}", s3Checksum, localChecksum);
+            journal.delete();
+            if (!localChecksum.equals(s3Checksum))
+                logger.cpmsError("Checksums do not match [local: {}, S3: {}]", localChecksum, s3Checksum);
+            return localChecksum.equals(s3Checksum);
+        } catch (SdkException | IOException e) {
+            logger.cpmsError("Resumable upload of [{}] stopped, it will continue from the last completed part " +
+                    "when retried: {}", uploadPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Picks up a journaled multipart upload, keeping only the parts S3 still holds with the recorded ETag. If the
+     * local file was rewritten since the journal was started, the kept parts are re-hashed locally before reuse.
+     * @return The journal to continue, or null if a new upload must be started
+     */
+    private TransferJournal resumeUpload(S3Client s3Client, Path uploadPath, Path journalPath,
+                                         TransferJournal.State expected) throws IOException {
+        TransferJournal journal = TransferJournal.load(journalPath);
+        if (journal == null)
+            return null;
+        TransferJournal.State state = journal.getState();
+        if (!state.matches(expected) || state.transferId == null) {
+            logger.debug("Discarding journal [{}] for a different transfer", journalPath);
+            abortUpload(s3Client, state);
+            journal.delete();
+            return null;
+        }
+        Map<Integer, String> remoteParts = new HashMap<>();
+        try {
+            ListPartsRequest listPartsRequest = ListPartsRequest.builder()
+                    .bucket(state.container)
+                    .key(state.key)
+                    .uploadId(state.transferId)
+                    .build();
+            for (Part part : s3Client.listPartsPaginator(listPartsRequest).parts())
+                remoteParts.put(part.partNumber(), part.eTag().replace("\"", ""));
+        } catch (NoSuchUploadException e) {
+            logger.debug("Multipart upload [{}] no longer exists, starting over", state.transferId);
+            journal.delete();
+            return null;
+        }
+        ChecksumResult localParts = null;
+        if (state.lastModified != expected.lastModified && !journal.getCompletedParts().isEmpty())
+            localParts = computePartDigests(uploadPath, state.partSize,
+                    EnumSet.of(DigestAlgorithm.MD5));
+        for (TransferJournal.PartRecord part : journal.getCompletedParts().values()) {
+            boolean usable = part.eTag.equals(remoteParts.get(part.partNumber));
+            if (usable && localParts != null)
+                usable = part.md5.equals(Hex.encodeHexString(localParts.getPartDigest(DigestAlgorithm.MD5,
+                        part.partNumber - 1)));
+            if (!usable)
+                journal.discardPart(part.partNumber);
+        }
+        logger.cpmsInfo("Resuming upload of [{}] with {} of {} part(s) already complete", uploadPath,
+                journal.getCompletedParts().size(), state.getPartCount());
+        return journal;
+    }
+
+    private void abortUpload(S3Client s3Client, TransferJournal.State state) {
+        if (state.transferId == null || !"upload".equals(state.direction))
+            return;
+        abortUpload(s3Client, state.container, state.key, state.transferId);
+    }
+
+    private void abortUpload(S3Client s3Client, String bucket, String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (SdkException e) {
+            logger.debug("Failed to abort multipart upload [{}]: {}", uploadId, e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads the output of a writer as a multipart upload, sending each part from memory as soon as it fills so
+     * producing the content and uploading it overlap and nothing is staged on disk. Part sizes are whole MiB so the
+     * part size recorded in the object metadata lets downloads verify the ETag.
+     * @param streamWriter Producer of the content
+     * @param sizeHint Expected size of the content in bytes
+     * @param bucket The target bucket
+     * @param key The target key
+     * @return Whether the upload completed and its checksums match
+     * @throws IOException If the target bucket does not exist
+     */
+    private boolean uploadStreamToBucket(TransferAdapter.StreamWriter streamWriter, long sizeHint, String bucket,
+                                         String key) throws IOException {
+        logger.debug("uploadStreamToBucket({}, {}, {})", sizeHint, bucket, key);
+        if (!doesBucketExist(bucket))
+            throw new IOException("target bucket does not exist");
+        long mebibyte = 1024L * 1024L;
+        TransferTuner.Plan plan = planTransfer(sizeHint, minimumUploadPartSize, transferConcurrency);
+        long streamPartSize = (plan.getPartSize() + mebibyte - 1) / mebibyte * mebibyte;
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put(CPMSStatics.UNCOMPRESSED_SIZE_METADATA_TAG_KEY, String.valueOf(sizeHint));
+            metadata.put(CPMSStatics.PART_SIZE_METADATA_TAG_KEY, String.valueOf(streamPartSize / mebibyte));
+            CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .metadata(metadata)
+                    .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                    .build();
+            String uploadId = s3Client.createMultipartUpload(createRequest).uploadId();
+            logger.cpmsInfo("Starting streamed upload to [{}/{}] in {} MiB parts", bucket, key,
+                    streamPartSize / mebibyte);
+            Map<Integer, CompletedPart> completedParts = new TreeMap<>();
+            MultipartUploadOutputStream out = new MultipartUploadOutputStream(streamPartSize,
+                    plan.getConcurrency().getLimit(), null, (partNumber, buffer, length, md5) -> {
+                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) length)
+                        .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                        .build();
+                UploadPartResponse response;
+                try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.PUT_PART, length)) {
+                    response = s3Client.uploadPart(uploadPartRequest,
+                            RequestBody.fromContentProvider(() ->
+                                    bandwidthLimiter.throttle(new ByteArrayInputStream(buffer, 0, length)), length,
+                                    "application/octet-stream"));
+                    sample.complete();
+                }
+                String localMd5 = Hex.encodeHexString(md5);
+                String partETag = response.eTag().replace("\"", "");
+                if (!partETag.equals(localMd5))
+                    throw new IOException(String.format("Checksums do not match for part %d [local: %s, S3: %s]",
+                            partNumber, localMd5, partETag));
+                synchronized (completedParts) {
+                    completedParts.put(partNumber, CompletedPart.builder()
+                            .partNumber(partNumber)
+                            .eTag(partETag)
+                            .checksumCRC32C(response.checksumCRC32C())
+                            .build());
+                }
+                logger.debug("Uploaded streamed part {} of [{}/{}]", partNumber, bucket, key);
+            });
+            try {
+                streamWriter.writeTo(out);
+                out.close();
+            } catch (IOException | RuntimeException e) {
+                out.cancel();
+                abortUpload(s3Client, bucket, key, uploadId);
+                logger.cpmsError("Streamed upload to [{}/{}] failed: {}", bucket, key, e.getMessage());
+                return false;
+            }
+            CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder()
+                            .parts(new ArrayList<>(completedParts.values()))
+                            .build())
+                    .build();
+            String s3Checksum;
+            try (TransferMetrics.Sample sample = transferMetrics.start(TransferOperation.COMMIT)) {
+                s3Checksum = s3Client.completeMultipartUpload(completeRequest).eTag().replace("\"", "");
+                sample.complete();
+            }
+            logger.cpmsInfo("Verifying upload [{}/{}] via checksums", bucket, key);
+            String localChecksum = out.getChecksumResult().getETag(true);
+            logger.trace("s3Checksum: {}, localChecksum: {}", s3Checksum, localChecksum);
+            if (!localChecksum.equals(s3Checksum))
+                logger.cpmsError("Checksums do not match [local: {}, S3: {}]", localChecksum, s3Checksum);
+            return localChecksum.equals(s3Checksum);
+        } catch (SdkException e) {
+            logger.cpmsError("Streamed upload to [{}/{}] failed: {}", bucket, key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Downloads an object as journaled byte ranges written into place, so a download interrupted by a failure or
+     * restart continues from the last completed range. For multipart objects the ranges follow the upload parts,
+     * which lets the ETag be verified from the journaled part digests without reading the file back.
+     * @param s3Object The object's current metadata
+     * @param bucket The source bucket
+     * @param key The source key
+     * @param outFile The local file to write
+     * @param uploadPartSize The minimum part size the object was uploaded with in bytes
+     * @return The downloaded file, or null if the download failed or could not be verified
+     */
+    private Path downloadObjectToFileResumable(HeadObjectResponse s3Object, String bucket, String key, Path outFile,
+                                               long uploadPartSize) {
+        logger.debug("downloadObjectToFileResumable({}, {}, {})", bucket, key, outFile);
+        String s3Checksum = s3Object.eTag().replace("\"", "");
+        boolean multipart = s3Checksum.contains("-");
+        long size = s3Object.contentLength();
+        TransferTuner.Plan plan = planTransfer(size, minimumUploadPartSize, maximumTransferConcurrency);
+        TransferJournal.State expected = new TransferJournal.State("download", "s3", bucket, key, size, 0L,
+                multipart ? ChecksumEngine.optimalPartSize(size, uploadPartSize) : plan.getPartSize());
+        expected.remoteETag = s3Checksum;
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
+            if (adaptiveTransfers && !multipart)
+                expected.partSize = journaledPartSize(TransferJournal.journalPathFor(outFile), expected);
+            TransferJournal journal = TransferJournal.openDownload(outFile, expected);
+            if (journal.getCompletedParts().isEmpty())
+                logger.cpmsInfo("Starting resumable download of [{}/{}] to [{}]", bucket, key, outFile);
+            else
+                logger.cpmsInfo("Resuming download of [{}/{}] with {} of {} part(s) already complete", bucket, key,
+                        journal.getCompletedParts().size(), journal.getState().getPartCount());
+            TransferJournal.State state = journal.getState();
+            int partCount = state.getPartCount();
+            List<Integer> remaining = journal.getRemainingParts();
+            try (FileChannel channel = FileChannel.open(outFile, StandardOpenOption.WRITE)) {
+                RangedDownloader.download(channel, size, state.partSize, remaining, plan.getConcurrency(),
+                        (partNumber, offset, length, out) ->
+                                getObjectRange(s3Client, bucket, key, s3Object.eTag(), offset, length, out),
+                        (partNumber, length, md5) -> {
+                            channel.force(false);
+                            journal.recordPart(new TransferJournal.PartRecord(partNumber, length, null,
+                                    Hex.encodeHexString(md5), null));
+                            logger.debug("Downloaded part {}/{} of [{}/{}]", partNumber, partCount, bucket, key);
+                        });
+            }
+            transferTuner.record(StorageProvider.AWS, transferDestination, plan.getConcurrency());
+            transferMetrics.recordRetries(plan.getConcurrency().getThrottleCount());
+            logger.cpmsInfo("Verifying download [{}] via checksums", outFile);
+            String localChecksum;
+            if (multipart || partCount == 1)
+                localChecksum = (multipart) ? journaledETag(journal) :
+                        journal.getCompletedParts().get(1).md5;
+            else
+                localChecksum = computeDigests(outFile, EnumSet.of(DigestAlgorithm.MD5))
+                        .getETag(false);
+            logger.trace("s3Checksum: {}, localChecksum: {}", s3Checksum, localChecksum);
+            journal.delete();
+            if (!localChecksum.equals(s3Checksum)) {
+                logger.cpmsError("Checksums do not match [local: {}, S3: {}]", localChecksum, s3Checksum);
+                return null;
+            }
+            return outFile;
+        } catch (SdkException | IOException e) {
+            logger.cpmsError("Resumable download of [{}/{}] stopped, it will continue from the last completed " +
+                    "part when retried: {}", bucket, key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Downloads an object as concurrent byte ranges written into place in a preallocated file. For multipart objects
+     * the ranges follow the upload parts so the ETag is assembled from the range digests as they land; other objects
+     * are hashed once after the download unless they fit in a single range.
+     * @param s3Object The object's current metadata
+     * @param bucket The source bucket
+     * @param key The source key
+     * @param outFile The local file to write
+     * @param uploadPartSize The minimum part size the object was uploaded with in bytes
+     * @return The downloaded file, or null if the download failed or could not be verified
+     */
+    private Path downloadObjectToFileRanged(HeadObjectResponse s3Object, String bucket, String key, Path outFile,
+                                            long uploadPartSize) {
+        logger.debug("downloadObjectToFileRanged({}, {}, {})", bucket, key, outFile);
+        String s3Checksum = s3Object.eTag().replace("\"", "");
+        boolean multipart = s3Checksum.contains("-");
+        long size = s3Object.contentLength();
+        TransferTuner.Plan plan = planTransfer(size, minimumUploadPartSize, maximumTransferConcurrency);
+        long rangeSize = multipart ? ChecksumEngine.optimalPartSize(size, uploadPartSize) : plan.getPartSize();
+        try (S3ClientLease lease = clientManager.lease(clientKey)) {
+            S3Client s3Client = lease.getClient();
+            AdaptiveConcurrency concurrency = plan.getConcurrency();
+            logger.cpmsInfo("Starting ranged download of [{}/{}] to [{}]", bucket, key, outFile);
+            ChecksumResult ranges = RangedDownloader.download(outFile, size, rangeSize, concurrency,
+                    (partNumber, offset, length, out) ->
+                            getObjectRange(s3Client, bucket, key, s3Object.eTag(), offset, length, out));
+            logger.debug("Downloaded {} range(s) of [{}/{}] with up to {} in flight", ranges.getPartCount(), bucket,
+                    key, concurrency.getLimit());
+            transferTuner.record(StorageProvider.AWS, transferDestination, concurrency);
+            transferMetrics.recordRetries(concurrency.getThrottleCount());
+            logger.cpmsInfo("Verifying download [{}] via checksums", outFile);
+            String localChecksum;
+            if (multipart)
+                localChecksum = ranges.getETag(true);
+            else if (ranges.getPartCount() == 1)
+                localChecksum = Hex.encodeHexString(ranges.getPartDigest(DigestAlgorithm.MD5, 0));
+            else
+                localChecksum = computeDigests(outFile, EnumSet.of(DigestAlgorithm.MD5))
+                        .getETag(false);
+            logger.trace("s3Checksum: {}, localChecksum: {}", s3Checksum, localChecksum);
+            if (!localChecksum.equals(s3Checksum)) {
+                logger.cpmsError("Checksums do not match [local: {}, S3: {}]", localChecksum, s3Checksum);
+                return null;
+            }
+            return outFile;
+        } catch (SdkException | IOException e) {
+            logger.cpmsError("downloadObject Transfer Error: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Copies a byte range of an object into a stream, pinned to the object's ETag so a replaced object fails the
+     * range instead of mixing two versions. Each range holds a transfer scheduler permit while it is read, and is read
+     * no faster than the adapter's bandwidth limit.
+     */
+    private void getObjectRange(S3Client s3Client, String bucket, String key, String eTag, long offset, long length,
+                                OutputStream out) throws IOException {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(String.format("bytes=%d-%d", offset, offset + length - 1))
+                .ifMatch(eTag)
+                .build();
+        try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET_RANGE, length);
+             ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getObjectRequest)) {
+            in.transferTo(bandwidthLimiter.throttle(out));
+            sample.complete();
+        }
+    }
+
+    /**
+     * Reads the part size an object was uploaded with from its metadata
+     * @return The part size in MiB, or the configured part size if the object does not record one
+     */
+    private int uploadedPartSize(HeadObjectResponse s3Object, String bucket, String key) {
+        try {
+            if (s3Object.hasMetadata() && s3Object.metadata().containsKey(CPMSStatics.PART_SIZE_METADATA_TAG_KEY))
+                return Integer.parseInt(s3Object.metadata().get(CPMSStatics.PART_SIZE_METADATA_TAG_KEY));
+        } catch (NumberFormatException e) {
+            logger.cpmsError("Invalid multipart upload partSize metadata tag for [{}/{}]", bucket, key);
+        }
+        return partSize;
+    }
+
+    /**
+     * Opens an object as a stream of ranged GETs fetched concurrently ahead of the reader. For multipart objects the
+     * ranges follow the upload parts so the ETag is checked from the range digests; otherwise the MD5 of the whole
+     * stream is checked. Every range is requested against the object's ETag, so an object replaced mid-read fails
+     * the stream instead of mixing two versions.
+     * @param bucket The source bucket
+     * @param key The source key
+     * @return The verifying stream of the object
+     * @throws IOException If the object does not exist
+     */
+    private InputStream openObjectStream(String bucket, String key) throws IOException {
+        logger.debug("openObjectStream({}, {})", bucket, key);
+        HeadObjectResponse s3Object = headObject(bucket, key);
+        if (s3Object == null)
+            throw new IOException(String.format("Bucket [%s] does not contain [%s]", bucket, key));
+        String s3Checksum = s3Object.eTag().replace("\"", "");
+        boolean multipart = s3Checksum.contains("-");
+        long size = s3Object.contentLength();
+        TransferTuner.Plan plan = planTransfer(size, minimumUploadPartSize, transferConcurrency);
+        long rangeSize = (multipart) ?
+                ChecksumEngine.optimalPartSize(size, uploadedPartSize(s3Object, bucket, key) * 1024L * 1024L) :
+                plan.getPartSize();
+        logger.cpmsInfo("Streaming [{}/{}] in {} byte ranges", bucket, key, rangeSize);
+        return new MultipartDownloadInputStream(size, rangeSize, plan.getConcurrency().getLimit(),
+                (multipart) ? null : DigestAlgorithm.MD5,
+                (partNumber, offset, buffer, length) -> {
+                    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .range(String.format("bytes=%d-%d", offset, offset + length - 1))
+                            .ifMatch(s3Object.eTag())
+                            .build();
+                    try (TransferMetrics.Sample sample = acquirePermit(TransferOperation.GET_RANGE, length);
+                         S3ClientLease lease = clientManager.lease(clientKey);
+                         ResponseInputStream<GetObjectResponse> in = lease.getClient().getObject(getObjectRequest)) {
+                        int read = bandwidthLimiter.throttle(in).readNBytes(buffer, 0, length);
+                        if (read != length)
+                            throw new IOException(String.format("Range %d ended after %d of %d bytes", partNumber,
+                                    read, length));
+                        sample.complete();
+                    }
+                },
+                stream -> {
+                    String localChecksum = (multipart) ? stream.getChecksumResult().getETag(true) :
+                            Hex.encodeHexString(stream.getStreamDigest());
+                    logger.trace("s3Checksum: {}, localChecksum: {}", s3Checksum, localChecksum);
+                    if (!localChecksum.equals(s3Checksum))
+                        throw new IOException(String.format("Checksums do not match for [%s/%s] [local: %s, S3: %s]",
+                                bucket, key, localChecksum, s3Checksum));
+                    logger.cpmsInfo("Verified streamed object [{}/{}] via checksums", bucket, key);
+                });
+    }
+
+    /**
+     * Builds the multipart ETag of a transfer from the part digests in its journal
+     */
+    private String journaledETag(TransferJournal journal) {
+        return multipartETag(journal.getCompletedParts().values().stream().map(part -> part.md5).toList(),
+                journal.getState().size, journal.getState().partSize);
+    }
+
+    /**
+     * @param uploadPath The local file
+     * @param uploadPartSize The part size the file is uploaded with in MiB
+     * @param contentMd5 The hex MD5 of the file, may be null
+     * @return The metadata to store with the object
+     */
+    private Map<String, String> buildObjectMetadata(Path uploadPath, int uploadPartSize, String contentMd5)
+            throws IOException {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(CPMSStatics.UNCOMPRESSED_SIZE_METADATA_TAG_KEY, String.valueOf(Files.size(uploadPath)));
+        metadata.put(CPMSStatics.PART_SIZE_METADATA_TAG_KEY, String.valueOf(uploadPartSize));
+        if (contentMd5 != null)
+            metadata.put(CPMSStatics.CONTENT_MD5_METADATA_TAG_KEY, contentMd5);
+        return metadata;
+    }
+
+    /**
+     * Whether an object already holds the content of a local file. The object must be the same size and carry the
+     * MD5 recorded when it was uploaded or, failing that, have been uploaded in a single part so its ETag is the MD5.
+     * @param s3Object The object metadata, or null if the object does not exist
+     * @param localPath The local file
+     * @return Whether the object and the file hold the same content
+     */
+    private boolean isIdentical(HeadObjectResponse s3Object, Path localPath) {
+        try {
+            return hasSameSize(s3Object, localPath) && isIdentical(s3Object, contentHashCache.getMd5(localPath));
+        } catch (IOException e) {
+            logger.debug("Failed to compare [{}] with its object: {}", localPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether an object carries a given MD5, either as the MD5 recorded when it was uploaded or, failing that, as
+     * the ETag of a single part upload
+     * @param s3Object The object metadata
+     * @param localMd5 The hex MD5 of the local content, may be null
+     * @return Whether the object holds content with that MD5
+     */
+    private boolean isIdentical(HeadObjectResponse s3Object, String localMd5) {
+        if (localMd5 == null)
+            return false;
+        String remoteMd5 = (s3Object.hasMetadata()) ?
+                s3Object.metadata().get(CPMSStatics.CONTENT_MD5_METADATA_TAG_KEY) : null;
+        if (remoteMd5 == null) {
+            String s3Checksum = s3Object.eTag().replace("\"", "");
+            if (s3Checksum.contains("-"))
+                return false;
+            remoteMd5 = s3Checksum;
+        }
+        return remoteMd5.equalsIgnoreCase(localMd5);
+    }
+
+    /**
+     * @param s3Object The object metadata, or null if the object does not exist
+     * @param localPath The local file
+     * @return Whether the object exists and is the size of the local file
+     */
+    private boolean hasSameSize(HeadObjectResponse s3Object, Path localPath) throws IOException {
+        return s3Object != null && Files.isRegularFile(localPath) && s3Object.contentLength() == Files.size(localPath);
+    }
+
+    /**
+     * Chooses the part size and concurrency of a multipart transfer. In adaptive mode they come from the transfer
+     * tuner; otherwise the part size is the smallest within the part count limit and the concurrency starts at the
+     * configured value.
+     * @param size Size of the object in bytes
+     * @param minimumPartSize Smallest part size to use in bytes
+     * @param maximumConcurrency Largest number of parts in flight when not adaptive
+     * @return The plan for the transfer
+     */
+    private TransferTuner.Plan planTransfer(long size, long minimumPartSize, int maximumConcurrency) {
+        if (adaptiveTransfers)
+            return transferTuner.plan(StorageProvider.AWS, transferDestination, size, minimumPartSize,
+                    CPMSStatics.S3_MAXIMUM_UPLOAD_PARTS, transferConcurrency, maximumTransferConcurrency,
+                    S3ObjectStorage::isThrottling);
+        return new TransferTuner.Plan(ChecksumEngine.optimalPartSize(size, minimumPartSize),
+                new AdaptiveConcurrency(transferConcurrency, maximumConcurrency, S3ObjectStorage::isThrottling));
+    }
+
+    /**
+     * Keeps the part size of an unfinished journaled transfer, which the tuner may plan differently since it started
+     * @return The journaled part size, or the planned one if there is no usable journal
+     */
+    private long journaledPartSize(Path journalPath, TransferJournal.State expected) throws IOException {
+        long journaled = TransferJournal.journaledPartSize(journalPath, expected);
+        return (journaled > 0 && journaled % (1024L * 1024L) == 0) ? journaled : expected.partSize;
+    }
+
+    /**
+     * @param failure The failure of a part
+     * @return Whether S3 failed the part because it is throttling requests, once the SDK's own retries ran out
+     */
+    private static boolean isThrottling(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause())
+            if (cause instanceof SdkServiceException e && (e.isThrottlingException() || e.statusCode() == 503))
+                return true;
+        return false;
+    }
+
+    /**
+     * Computes the ETag S3 reports for a file, hashing the parts of multipart objects concurrently
+     * @param path The local file
+     * @param minimumPartSize The minimum part size the object was uploaded with in bytes
+     * @param multipart Whether the object was uploaded in multiple parts
+     * @return The ETag of the local file
+     * @throws IOException If the file cannot be read
+     */
+    private String computeETag(Path path, long minimumPartSize, boolean multipart) throws IOException {
+        Set<DigestAlgorithm> algorithms = EnumSet.of(DigestAlgorithm.MD5);
+        if (!multipart)
+            return computeDigests(path, algorithms).getETag(false);
+        long objectPartSize = ChecksumEngine.optimalPartSize(Files.size(path), minimumPartSize);
+        return computePartDigests(path, objectPartSize, algorithms).getETag(true);
+    }
+
+    private ChecksumResult computeDigests(Path path, Set<DigestAlgorithm> algorithms) throws IOException {
+        return transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                () -> checksumEngine.computeDigests(path, algorithms));
+    }
+
+    private ChecksumResult computePartDigests(Path path, long partSize, Set<DigestAlgorithm> algorithms)
+            throws IOException {
+        return transferMetrics.timeStage(TransferMetrics.Stage.CHECKSUM,
+                () -> checksumEngine.computePartDigests(path, partSize, algorithms));
+    }
+
+    /**
+     * Waits for this adapter's request rate limit and then for a transfer scheduler permit, and starts timing the
+     * request
+     * @param operation The kind of request
+     * @param bytes Number of bytes the request transfers, zero for requests such as deletes
+     * @return The request's sample holding the permit, which must be completed once the request succeeds and closed
+     * once it has finished
+     */
+    private TransferMetrics.Sample acquirePermit(TransferOperation operation, long bytes)
+            throws InterruptedIOException {
+        long queuedAt = System.nanoTime();
+        bandwidthLimiter.acquireRequest();
+        return transferMetrics.start(operation, bytes, queuedAt, transferLane.acquire(bytes));
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * @return This adapter's bandwidth limiter, whose limits may be changed while transfers are running
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    /**
+     * @return The metrics of this adapter's requests and transfers
+     */
+    @Override
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
@@ -378,22 +1435,70 @@ public class S3ObjectStorage implements TransferAdapter {
      */
     @Override
     public List<String> listFilesInPath(TransferPath transferPath) {
-        if (transferPath == null)
-            return List.of();
-        if (transferPath.getContainer() != null) {
-            if (transferPath.getPath() != null) {
-                return listBucketObjects(transferPath.getContainer(), transferPath.getPath()).stream()
-                        .map(S3Object::key).collect(Collectors.toList());
-            } else {
-                return listBucketObjects(transferPath.getContainer()).stream()
-                        .map(S3Object::key).collect(Collectors.toList());
-            }
+        try (Stream<String> files = streamFilesInPath(transferPath)) {
+            return files.collect(Collectors.toList());
         }
-        else {
-            return listBuckets().stream().map(Bucket::name).collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily streams the files in a path in this provider, following provider pagination and fetching the next page
+     * in the background while the current one is consumed. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the contents of the path or an empty stream
+     */
+    @Override
+    public Stream<String> streamFilesInPath(TransferPath transferPath) {
+        if (transferPath == null)
+            return Stream.empty();
+        if (transferPath.getContainer() != null)
+            return streamBucketObjects(transferPath.getContainer(), transferPath.getPath()).map(S3Object::key);
+        return listBuckets().stream().map(Bucket::name);
+    }
+
+    /**
+     * List the files in a path in this provider along with the size, modification time, checksum and storage class
+     * the provider's listing returns for each, without requesting any file's metadata separately
+     *
+     * @param transferPath The path to list the contents of
+     * @return The entries in the path, in the order of {@link #listFilesInPath}, or an empty list
+     */
+    @Override
+    public List<StorageEntry> listEntriesInPath(TransferPath transferPath) {
+        try (Stream<StorageEntry> entries = streamEntriesInPath(transferPath)) {
+            return entries.collect(Collectors.toList());
         }
     }
 
+    /**
+     * Lazily streams the entries in a path in this provider as {@link #listEntriesInPath} lists them, following
+     * provider pagination like {@link #streamFilesInPath}. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the entries in the path or an empty stream
+     */
+    @Override
+    public Stream<StorageEntry> streamEntriesInPath(TransferPath transferPath) {
+        if (transferPath == null)
+            return Stream.empty();
+        if (transferPath.getContainer() != null)
+            return streamBucketObjects(transferPath.getContainer(), transferPath.getPath())
+                    .map(this::toStorageEntry);
+        return listBuckets().stream().map(bucket -> new StorageEntry(bucket.name(), true, -1,
+                bucket.creationDate(), null, null, null, null));
+    }
+
+    /**
+     * The ETag of an object uploaded in one request is the MD5 of its content, which is how the rest of this adapter
+     * verifies such objects; multipart ETags carry a part count suffix and are not listed as an MD5.
+     */
+    private StorageEntry toStorageEntry(S3Object s3Object) {
+        String eTag = (s3Object.eTag() == null) ? null : s3Object.eTag().replace("\"", "");
+        String contentMd5 = (eTag != null && !eTag.contains("-")) ? eTag : null;
+        return new StorageEntry(s3Object.key(), false, (s3Object.size() == null) ? -1 : s3Object.size(),
+                s3Object.lastModified(), eTag, contentMd5, s3Object.storageClassAsString(), null);
+    }
+
     /**
      * Uploads a local file to the indicated container
      *
@@ -404,7 +1509,34 @@ public class S3ObjectStorage implements TransferAdapter {
      */
     @Override
     public boolean uploadFile(Path uploadPath, TransferPath transferPath) throws IOException {
-        return uploadFileToBucket(uploadPath, transferPath.getContainer(), transferPath.getPath());
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("upload", transferPath.getContainer(),
+                transferPath.getPath())) {
+            return transfer.complete(uploadFileToBucket(uploadPath, transferPath.getContainer(),
+                    transferPath.getPath()));
+        } finally {
+            metadataCache.invalidateObject(metadataNamespace, transferPath.getContainer(), transferPath.getPath());
+        }
+    }
+
+    /**
+     * Uploads the bytes produced by a writer to the indicated container without staging them in a local file
+     *
+     * @param streamWriter  Producer of the content to upload
+     * @param sizeHint      Expected size of the content in bytes, used to size upload parts
+     * @param transferPath  Remote path for upload
+     * @return Whether the content was successfully uploaded
+     * @throws IOException if the container doesn't exist remotely
+     */
+    @Override
+    public boolean uploadStream(StreamWriter streamWriter, long sizeHint, TransferPath transferPath)
+            throws IOException {
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("stream upload",
+                transferPath.getContainer(), transferPath.getPath())) {
+            return transfer.complete(uploadStreamToBucket(streamWriter, sizeHint, transferPath.getContainer(),
+                    transferPath.getPath()));
+        } finally {
+            metadataCache.invalidateObject(metadataNamespace, transferPath.getContainer(), transferPath.getPath());
+        }
     }
 
     /**
@@ -417,7 +1549,125 @@ public class S3ObjectStorage implements TransferAdapter {
      */
     @Override
     public Path downloadFile(TransferPath transferPath, Path destinationFolder) throws IOException {
-        return downloadObjectToFile(transferPath.getContainer(), transferPath.getPath(), destinationFolder);
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("download", transferPath.getContainer(),
+                transferPath.getPath())) {
+            Path downloaded = downloadObjectToFile(transferPath.getContainer(), transferPath.getPath(),
+                    destinationFolder);
+            transfer.complete(downloaded != null);
+            return downloaded;
+        }
+    }
+
+    /**
+     * Opens a remote file as a stream without saving it locally. Where the provider supports it, the file is fetched
+     * as concurrent byte ranges ahead of the reader and checked against the provider's checksum once it has been
+     * read to the end, in which case a mismatch is reported as an IOException instead of the end of the stream.
+     *
+     * @param transferPath  Remote path to download
+     * @return A stream of the remote file, which must be closed
+     * @throws IOException if the object doesn't exist remotely or cannot be opened
+     */
+    @Override
+    public InputStream downloadStream(TransferPath transferPath) throws IOException {
+        return openObjectStream(transferPath.getContainer(), transferPath.getPath());
+    }
+
+    /**
+     * Deletes a remote file, or every file beneath a remote directory or prefix. Objects beneath a prefix are
+     * deleted in concurrent batches of up to 1,000 keys as the listing is paged through.
+     *
+     * @param transferPath  Remote path to delete, which must name more than a container
+     * @return The number of files deleted and the reason any file could not be deleted
+     * @throws IOException if the path cannot be listed or names a whole container
+     */
+    @Override
+    public DeleteResult deletePath(TransferPath transferPath) throws IOException {
+        if (transferPath == null || transferPath.getPath() == null || transferPath.getPath().isEmpty())
+            throw new IOException("Refusing to delete the whole of a bucket");
+        String bucket = transferPath.getContainer();
+        String path = transferPath.getPath();
+        if (!doesBucketExist(bucket))
+            throw new IOException("target bucket does not exist");
+        DeleteResult result = new DeleteResult();
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("delete", bucket, path)) {
+            if (!path.endsWith("/") && headObject(bucket, path) != null) {
+                if (deleteBucketObject(bucket, path))
+                    result.recordDeleted(1);
+                else
+                    result.recordFailure(path, "Failed to delete object");
+            }
+            deleteBucketContents(bucket, path.endsWith("/") ? path : path + "/", result);
+            transfer.complete(result.isSuccess());
+        }
+        logger.cpmsInfo("Deleted {} object(s) from [{}/{}], {} failed", result.getDeletedCount(), bucket, path,
+                result.getFailedCount());
+        return result;
+    }
+
+    /**
+     * Copies a remote file, or every file beneath a remote directory or prefix, to another path in this provider
+     * without passing the content through this node. Objects beneath a prefix are copied concurrently as the listing
+     * is paged through, and large objects are themselves copied as concurrent part ranges.
+     *
+     * @param sourcePath       Remote path to copy, which must name more than a container
+     * @param destinationPath  Remote path to copy to, keeping the source path if only a container is named
+     * @return Whether every file was copied and verified
+     * @throws IOException if the source doesn't exist, names a whole container or the provider cannot copy in place
+     */
+    @Override
+    public boolean copyPath(TransferPath sourcePath, TransferPath destinationPath) throws IOException {
+        if (sourcePath == null || sourcePath.getPath() == null || sourcePath.getPath().isEmpty())
+            throw new IOException("Refusing to copy the whole of a bucket");
+        String sourceBucket = sourcePath.getContainer();
+        String source = sourcePath.getPath();
+        String destinationBucket = destinationPath.getContainer();
+        String destination = (destinationPath.getPath() == null || destinationPath.getPath().isEmpty()) ?
+                source : destinationPath.getPath();
+        if (!doesBucketExist(sourceBucket))
+            throw new IOException("source bucket does not exist");
+        if (!doesBucketExist(destinationBucket))
+            throw new IOException("target bucket does not exist");
+        try (TransferMetrics.Transfer transfer = transferMetrics.beginTransfer("copy", sourceBucket, source)) {
+            return transfer.complete(copyBucketPath(sourceBucket, source, destinationBucket, destination));
+        }
+    }
+
+    /**
+     * Copies an object, or every object beneath a prefix, concurrently as the listing is paged through
+     */
+    private boolean copyBucketPath(String sourceBucket, String source, String destinationBucket, String destination)
+            throws IOException {
+        if (!source.endsWith("/") && headObject(sourceBucket, source) != null)
+            return copyBucketObject(sourceBucket, source, destinationBucket, destination);
+        String sourcePrefix = source.endsWith("/") ? source : source + "/";
+        String destinationPrefix = destination.endsWith("/") ? destination : destination + "/";
+        AtomicLong copied = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ArrayDeque<Future<?>> inFlight = new ArrayDeque<>();
+        try (Stream<S3Object> objects = streamBucketObjects(sourceBucket, sourcePrefix)) {
+            Iterator<S3Object> iterator = objects.iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next().key();
+                String destinationKey = destinationPrefix + key.substring(sourcePrefix.length());
+                if (inFlight.size() >= transferConcurrency)
+                    awaitBatch(inFlight.poll());
+                inFlight.add(ParallelPartRunner.submit(() ->
+                        (copyBucketObject(sourceBucket, key, destinationBucket, destinationKey) ? copied : failed)
+                                .incrementAndGet()));
+            }
+            while (!inFlight.isEmpty())
+                awaitBatch(inFlight.poll());
+        } catch (SdkException e) {
+            throw new IOException(String.format("Failed to list [%s/%s] for copying: %s", sourceBucket, source,
+                    e.getMessage()), e);
+        } finally {
+            inFlight.forEach(copy -> copy.cancel(true));
+        }
+        if (copied.get() + failed.get() == 0)
+            throw new IOException(String.format("Bucket [%s] does not contain [%s]", sourceBucket, source));
+        logger.cpmsInfo("Copied {} object(s) from [{}/{}] to [{}/{}], {} failed", copied.get(), sourceBucket, source,
+                destinationBucket, destination, failed.get());
+        return failed.get() == 0;
     }
 
     private static class CrescoS3LoggingTransferListener implements TransferListener {
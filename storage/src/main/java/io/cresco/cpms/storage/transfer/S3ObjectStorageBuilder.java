@@ -3,19 +3,49 @@ package io.cresco.cpms.storage.transfer;
 import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
 import io.cresco.cpms.logging.CPMSLogger;
 import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.statics.TransferPriority;
+import io.cresco.cpms.statics.TransferVerification;
 import software.amazon.awssdk.regions.Region;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
 @SuppressWarnings({"unused"})
 public class S3ObjectStorageBuilder {
     private static final long BYTES_ORDER_OF_MAGNITUDE = 1024L;
     private String accessKey;
     private String secretKey;
     private Region region;
+    private URI endpoint;
 
     private int partSize;
     private long minimumUploadPartSize;
     private long multipartUploadThreshold;
 
+    private int maxConnections;
+    private Duration connectionMaxIdleTime;
+    private S3ClientManager clientManager;
+    private ChecksumEngine checksumEngine;
+    private TransferVerification transferVerification;
+    private boolean resumableTransfers;
+    private long resumableTransferThreshold;
+    private int transferConcurrency;
+    private int maximumTransferConcurrency;
+    private MetadataCache metadataCache;
+    private boolean adaptiveTransfers;
+    private TransferTuner transferTuner;
+
+    private TransferScheduler transferScheduler;
+    private TransferPriority transferPriority;
+    private String transferRun;
+    private BandwidthLimiter bandwidthLimiter;
+    private TransferMetrics transferMetrics;
+    private boolean skipIdentical;
+    private ContentHashCache contentHashCache;
+    private long bandwidthLimit;
+    private double requestLimit;
+
     private CPMSLogger logger;
 
     public S3ObjectStorageBuilder() {
@@ -23,6 +53,27 @@ public class S3ObjectStorageBuilder {
         this.partSize = CPMSStatics.DEFAULT_PART_SIZE;
         this.minimumUploadPartSize = partSize * BYTES_ORDER_OF_MAGNITUDE * BYTES_ORDER_OF_MAGNITUDE;
         this.multipartUploadThreshold = minimumUploadPartSize;
+        this.maxConnections = CPMSStatics.DEFAULT_S3_MAX_CONNECTIONS;
+        this.connectionMaxIdleTime = Duration.ofSeconds(CPMSStatics.DEFAULT_S3_CONNECTION_MAX_IDLE_SECONDS);
+        this.clientManager = S3ClientManager.getInstance();
+        this.checksumEngine = ChecksumEngine.getSharedInstance();
+        this.transferVerification = CPMSStatics.DEFAULT_TRANSFER_VERIFICATION;
+        this.resumableTransfers = CPMSStatics.DEFAULT_RESUMABLE_TRANSFERS;
+        this.resumableTransferThreshold = CPMSStatics.DEFAULT_RESUMABLE_TRANSFER_THRESHOLD;
+        this.transferConcurrency = CPMSStatics.DEFAULT_TRANSFER_CONCURRENCY;
+        this.maximumTransferConcurrency = CPMSStatics.DEFAULT_MAXIMUM_TRANSFER_CONCURRENCY;
+        this.metadataCache = MetadataCache.getSharedInstance();
+        this.adaptiveTransfers = CPMSStatics.DEFAULT_ADAPTIVE_TRANSFERS;
+        this.transferTuner = TransferTuner.getSharedInstance();
+        this.transferScheduler = TransferScheduler.getSharedInstance();
+        this.transferPriority = CPMSStatics.DEFAULT_TRANSFER_PRIORITY;
+        this.transferRun = UUID.randomUUID().toString();
+        this.bandwidthLimiter = BandwidthLimiter.getGlobalInstance();
+        this.transferMetrics = TransferMetrics.getGlobalInstance();
+        this.skipIdentical = CPMSStatics.DEFAULT_SKIP_IDENTICAL;
+        this.contentHashCache = ContentHashCache.getSharedInstance();
+        this.bandwidthLimit = CPMSStatics.DEFAULT_BANDWIDTH_LIMIT;
+        this.requestLimit = CPMSStatics.DEFAULT_REQUEST_LIMIT;
     }
 
     public S3ObjectStorageBuilder withStaticCredentials(String accessKey, String secretKey) {
@@ -41,6 +92,16 @@ public class S3ObjectStorageBuilder {
         return this;
     }
 
+    public S3ObjectStorageBuilder withEndpoint(URI endpoint) {
+        this.endpoint = endpoint;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withEndpoint(String endpoint) {
+        this.endpoint = (endpoint == null || endpoint.isEmpty()) ? null : URI.create(endpoint);
+        return this;
+    }
+
     public S3ObjectStorageBuilder withPartSize(int partSize) {
         this.partSize = partSize;
         this.minimumUploadPartSize = partSize * BYTES_ORDER_OF_MAGNITUDE * BYTES_ORDER_OF_MAGNITUDE;
@@ -48,6 +109,129 @@ public class S3ObjectStorageBuilder {
         return this;
     }
 
+    public S3ObjectStorageBuilder withMaxConnections(int maxConnections) {
+        if (maxConnections > 0)
+            this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withConnectionMaxIdleTime(Duration connectionMaxIdleTime) {
+        if (connectionMaxIdleTime != null)
+            this.connectionMaxIdleTime = connectionMaxIdleTime;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withClientManager(S3ClientManager clientManager) {
+        if (clientManager != null)
+            this.clientManager = clientManager;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withChecksumEngine(ChecksumEngine checksumEngine) {
+        if (checksumEngine != null)
+            this.checksumEngine = checksumEngine;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferVerification(TransferVerification transferVerification) {
+        if (transferVerification != null)
+            this.transferVerification = transferVerification;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withResumableTransfers(boolean resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withResumableTransferThreshold(long resumableTransferThreshold) {
+        if (resumableTransferThreshold >= 0)
+            this.resumableTransferThreshold = resumableTransferThreshold;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferConcurrency(int transferConcurrency) {
+        if (transferConcurrency > 0)
+            this.transferConcurrency = transferConcurrency;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withMaximumTransferConcurrency(int maximumTransferConcurrency) {
+        if (maximumTransferConcurrency > 0)
+            this.maximumTransferConcurrency = maximumTransferConcurrency;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withMetadataCache(MetadataCache metadataCache) {
+        if (metadataCache != null)
+            this.metadataCache = metadataCache;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withAdaptiveTransfers(boolean adaptiveTransfers) {
+        this.adaptiveTransfers = adaptiveTransfers;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferTuner(TransferTuner transferTuner) {
+        if (transferTuner != null)
+            this.transferTuner = transferTuner;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferScheduler(TransferScheduler transferScheduler) {
+        if (transferScheduler != null)
+            this.transferScheduler = transferScheduler;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferPriority(TransferPriority transferPriority) {
+        if (transferPriority != null)
+            this.transferPriority = transferPriority;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferRun(String transferRun) {
+        if (transferRun != null && !transferRun.isBlank())
+            this.transferRun = transferRun;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        if (bandwidthLimiter != null)
+            this.bandwidthLimiter = bandwidthLimiter;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withTransferMetrics(TransferMetrics transferMetrics) {
+        if (transferMetrics != null)
+            this.transferMetrics = transferMetrics;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withSkipIdentical(boolean skipIdentical) {
+        this.skipIdentical = skipIdentical;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withContentHashCache(ContentHashCache contentHashCache) {
+        if (contentHashCache != null)
+            this.contentHashCache = contentHashCache;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withBandwidthLimit(long bandwidthLimit) {
+        if (bandwidthLimit >= 0)
+            this.bandwidthLimit = bandwidthLimit;
+        return this;
+    }
+
+    public S3ObjectStorageBuilder withRequestLimit(double requestLimit) {
+        if (requestLimit >= 0)
+            this.requestLimit = requestLimit;
+        return this;
+    }
+
     public S3ObjectStorageBuilder withLogger(CPMSLogger logger) {
         setLogger(logger);
         return this;
@@ -76,6 +260,10 @@ public class S3ObjectStorageBuilder {
         return region;
     }
 
+    public URI getEndpoint() {
+        return endpoint;
+    }
+
     public int getPartSize() {
         return partSize;
     }
@@ -88,6 +276,90 @@ public class S3ObjectStorageBuilder {
         return multipartUploadThreshold;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public Duration getConnectionMaxIdleTime() {
+        return connectionMaxIdleTime;
+    }
+
+    public S3ClientManager getClientManager() {
+        return clientManager;
+    }
+
+    public ChecksumEngine getChecksumEngine() {
+        return checksumEngine;
+    }
+
+    public TransferVerification getTransferVerification() {
+        return transferVerification;
+    }
+
+    public boolean isResumableTransfers() {
+        return resumableTransfers;
+    }
+
+    public long getResumableTransferThreshold() {
+        return resumableTransferThreshold;
+    }
+
+    public int getTransferConcurrency() {
+        return transferConcurrency;
+    }
+
+    public int getMaximumTransferConcurrency() {
+        return maximumTransferConcurrency;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    public boolean isAdaptiveTransfers() {
+        return adaptiveTransfers;
+    }
+
+    public TransferTuner getTransferTuner() {
+        return transferTuner;
+    }
+
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
+
+    public String getTransferRun() {
+        return transferRun;
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    public boolean isSkipIdentical() {
+        return skipIdentical;
+    }
+
+    public ContentHashCache getContentHashCache() {
+        return contentHashCache;
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public double getRequestLimit() {
+        return requestLimit;
+    }
+
     public CPMSLogger getLogger() {
         return logger;
     }
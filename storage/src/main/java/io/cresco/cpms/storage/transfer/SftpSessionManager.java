@@ -0,0 +1,428 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.jcraft.jsch.*;
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide pool of SSH sessions and SFTP channels. Sessions are kept per remote, the user and host a remote path
+ * names as its container, and each session carries up to a fixed number of SFTP channels. Channels are handed out
+ * through leases and kept open for the next operation when the lease is closed, so only the first operation on a
+ * remote pays for the SSH handshake. A remote gets another session once every channel of its sessions is in use, up
+ * to a fixed number of sessions, beyond which callers wait for a channel to be returned.
+ * <p>
+ * A channel left idle for longer than the health check interval is checked with a round trip before it is handed
+ * out, and channels or sessions found disconnected are dropped. Sessions without leased channels are disconnected
+ * once they have been idle longer than the session idle timeout, or when {@link #shutdown()} is called.
+ */
+@SuppressWarnings({"unused"})
+public class SftpSessionManager {
+    private static final SftpSessionManager instance = new SftpSessionManager();
+
+    private final Map<String, SftpRemote> remotes = new ConcurrentHashMap<>();
+    private final CPMSLogger logger;
+    private ScheduledExecutorService reaper;
+    private JSch jsch;
+    private int maxChannelsPerSession;
+    private int maxSessionsPerRemote;
+    private Duration sessionIdleTimeout;
+    private Duration healthCheckInterval;
+
+    SftpSessionManager() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(SftpSessionManager.class).build();
+        this.maxChannelsPerSession = CPMSStatics.DEFAULT_SFTP_MAX_CHANNELS_PER_SESSION;
+        this.maxSessionsPerRemote = CPMSStatics.DEFAULT_SFTP_MAX_SESSIONS_PER_REMOTE;
+        this.sessionIdleTimeout = Duration.ofSeconds(CPMSStatics.DEFAULT_SFTP_SESSION_IDLE_TIMEOUT_SECONDS);
+        this.healthCheckInterval = Duration.ofSeconds(CPMSStatics.DEFAULT_SFTP_HEALTH_CHECK_INTERVAL_SECONDS);
+    }
+
+    public static SftpSessionManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Leases an SFTP channel to a remote, reusing an idle channel or session where one is open and waiting for a
+     * channel to be returned if the remote already has as many as it may
+     * @param remote The user and host to connect to
+     * @return A lease which must be closed once the caller is done with the channel
+     * @throws IOException If no session or channel could be opened to the remote
+     */
+    public SftpLease lease(String remote) throws IOException {
+        startReaper();
+        return remotes.computeIfAbsent(remote, SftpRemote::new).acquire();
+    }
+
+    /**
+     * Disconnects every session that has no leased channels and has been idle longer than the idle timeout
+     */
+    public void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionIdleTimeout.toMillis();
+        for (SftpRemote entry : remotes.values())
+            entry.evictIdleSince(cutoff);
+    }
+
+    /**
+     * Disconnects all pooled sessions and stops idle eviction. The manager can be used again afterward.
+     */
+    public synchronized void shutdown() {
+        logger.debug("Shutting down pooled SFTP sessions");
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper = null;
+        }
+        for (String remote : remotes.keySet()) {
+            SftpRemote entry = remotes.remove(remote);
+            if (entry != null)
+                entry.disconnectAll();
+        }
+    }
+
+    public int getSessionCount() {
+        return remotes.values().stream().mapToInt(SftpRemote::getSessionCount).sum();
+    }
+
+    public int getChannelCount() {
+        return remotes.values().stream().mapToInt(SftpRemote::getChannelCount).sum();
+    }
+
+    public int getMaxChannelsPerSession() {
+        return maxChannelsPerSession;
+    }
+
+    public void setMaxChannelsPerSession(int maxChannelsPerSession) {
+        if (maxChannelsPerSession > 0)
+            this.maxChannelsPerSession = maxChannelsPerSession;
+    }
+
+    public int getMaxSessionsPerRemote() {
+        return maxSessionsPerRemote;
+    }
+
+    public void setMaxSessionsPerRemote(int maxSessionsPerRemote) {
+        if (maxSessionsPerRemote > 0)
+            this.maxSessionsPerRemote = maxSessionsPerRemote;
+    }
+
+    public Duration getSessionIdleTimeout() {
+        return sessionIdleTimeout;
+    }
+
+    public synchronized void setSessionIdleTimeout(Duration sessionIdleTimeout) {
+        if (sessionIdleTimeout == null || sessionIdleTimeout.isNegative() || sessionIdleTimeout.isZero())
+            return;
+        this.sessionIdleTimeout = sessionIdleTimeout;
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper = null;
+        }
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        if (healthCheckInterval != null && !healthCheckInterval.isNegative())
+            this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * The shared JSch instance, with the user's known hosts and identity loaded on first use
+     */
+    private synchronized JSch getJSch() throws JSchException {
+        if (jsch == null) {
+            JSch loaded = new JSch();
+            loaded.setKnownHosts("~/.ssh/known_hosts");
+            loaded.addIdentity("~/.ssh/id_rsa");
+            jsch = loaded;
+        }
+        return jsch;
+    }
+
+    private synchronized void startReaper() {
+        if (reaper != null)
+            return;
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cpms-sftp-session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1L, sessionIdleTimeout.toMillis() / 2);
+        reaper.scheduleAtFixedRate(() -> {
+            try {
+                evictIdleSessions();
+            } catch (Exception e) {
+                logger.error("Failed to evict idle SFTP sessions: {}", e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The sessions to one remote, guarded by the remote's monitor, which callers waiting for a channel wait on
+     */
+    private class SftpRemote {
+        private final String remote;
+        private final List<PooledSession> sessions = new ArrayList<>();
+        private int connecting = 0;
+
+        SftpRemote(String remote) {
+            this.remote = remote;
+        }
+
+        SftpLease acquire() throws IOException {
+            while (true) {
+                PooledChannel idle = null;
+                PooledSession session = null;
+                boolean connect = false;
+                synchronized (this) {
+                    pruneDisconnected();
+                    idle = pollIdleChannel();
+                    if (idle == null) {
+                        session = sessionWithRoom();
+                        if (session != null) {
+                            session.leased++;
+                        } else if (sessions.size() + connecting < maxSessionsPerRemote) {
+                            connecting++;
+                            connect = true;
+                        } else {
+                            try {
+                                wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new InterruptedIOException(String.format(
+                                        "Interrupted while waiting for an SFTP channel to [%s]", remote));
+                            }
+                            continue;
+                        }
+                    }
+                }
+                if (idle != null) {
+                    if (isHealthy(idle))
+                        return new SftpLease(this, idle);
+                    release(idle, false);
+                    continue;
+                }
+                if (connect)
+                    session = connectSession();
+                return new SftpLease(this, openChannel(session));
+            }
+        }
+
+        private PooledSession connectSession() throws IOException {
+            Session session;
+            try {
+                session = getJSch().getSession(remote);
+                session.setServerAliveInterval((int) Math.min(Integer.MAX_VALUE, healthCheckInterval.toMillis()));
+                session.connect();
+            } catch (JSchException e) {
+                synchronized (this) {
+                    connecting--;
+                    notifyAll();
+                }
+                throw new IOException(String.format("Failed to connect to remote filesystem [%s]: %s", remote,
+                        e.getMessage()), e);
+            }
+            logger.debug("Opened SSH session to [{}]", remote);
+            PooledSession pooled = new PooledSession(session);
+            synchronized (this) {
+                connecting--;
+                pooled.leased++;
+                sessions.add(pooled);
+            }
+            return pooled;
+        }
+
+        private PooledChannel openChannel(PooledSession session) throws IOException {
+            try {
+                ChannelSftp channel = (ChannelSftp) session.session.openChannel("sftp");
+                channel.connect();
+                return new PooledChannel(channel, session);
+            } catch (JSchException e) {
+                synchronized (this) {
+                    session.leased--;
+                    notifyAll();
+                }
+                throw new IOException(String.format("Failed to open an SFTP channel to [%s]: %s", remote,
+                        e.getMessage()), e);
+            }
+        }
+
+        /**
+         * Checks a channel that has sat idle for longer than the health check interval with a round trip
+         */
+        private boolean isHealthy(PooledChannel channel) {
+            if (!channel.channel.isConnected() || !channel.session.session.isConnected())
+                return false;
+            if (System.currentTimeMillis() - channel.lastUsed < healthCheckInterval.toMillis())
+                return true;
+            try {
+                channel.channel.stat(".");
+                return true;
+            } catch (SftpException e) {
+                logger.debug("Dropping SFTP channel to [{}] which failed its health check: {}", remote,
+                        e.getMessage());
+                return false;
+            }
+        }
+
+        synchronized void release(PooledChannel channel, boolean reusable) {
+            PooledSession session = channel.session;
+            session.leased--;
+            session.lastUsed = System.currentTimeMillis();
+            if (reusable && channel.channel.isConnected() && session.session.isConnected()) {
+                channel.lastUsed = session.lastUsed;
+                session.idle.push(channel);
+            } else {
+                channel.channel.disconnect();
+            }
+            notifyAll();
+        }
+
+        private PooledChannel pollIdleChannel() {
+            for (PooledSession session : sessions) {
+                PooledChannel channel = session.idle.poll();
+                if (channel != null) {
+                    session.leased++;
+                    return channel;
+                }
+            }
+            return null;
+        }
+
+        private PooledSession sessionWithRoom() {
+            for (PooledSession session : sessions)
+                if (session.session.isConnected() && session.leased + session.idle.size() < maxChannelsPerSession)
+                    return session;
+            return null;
+        }
+
+        private void pruneDisconnected() {
+            Iterator<PooledSession> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                PooledSession session = iterator.next();
+                if (!session.session.isConnected()) {
+                    logger.debug("Dropping disconnected SSH session to [{}]", remote);
+                    session.idle.forEach(channel -> channel.channel.disconnect());
+                    session.idle.clear();
+                    if (session.leased == 0)
+                        iterator.remove();
+                    continue;
+                }
+                session.idle.removeIf(channel -> {
+                    if (channel.channel.isConnected())
+                        return false;
+                    channel.channel.disconnect();
+                    return true;
+                });
+            }
+        }
+
+        synchronized void evictIdleSince(long cutoff) {
+            Iterator<PooledSession> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                PooledSession session = iterator.next();
+                if (session.leased > 0 || session.lastUsed >= cutoff)
+                    continue;
+                logger.debug("Disconnecting idle SSH session to [{}]", remote);
+                session.disconnect();
+                iterator.remove();
+            }
+        }
+
+        synchronized void disconnectAll() {
+            for (PooledSession session : sessions) {
+                if (session.leased > 0)
+                    logger.warn("Disconnecting SSH session to [{}] with {} leased channel(s)", remote,
+                            session.leased);
+                session.disconnect();
+            }
+            sessions.clear();
+            notifyAll();
+        }
+
+        synchronized int getSessionCount() {
+            return sessions.size();
+        }
+
+        synchronized int getChannelCount() {
+            return sessions.stream().mapToInt(session -> session.leased + session.idle.size()).sum();
+        }
+    }
+
+    private static class PooledSession {
+        private final Session session;
+        private final ArrayDeque<PooledChannel> idle = new ArrayDeque<>();
+        private int leased = 0;
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledSession(Session session) {
+            this.session = session;
+        }
+
+        void disconnect() {
+            idle.forEach(channel -> channel.channel.disconnect());
+            idle.clear();
+            session.disconnect();
+        }
+    }
+
+    private static class PooledChannel {
+        private final ChannelSftp channel;
+        private final PooledSession session;
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledChannel(ChannelSftp channel, PooledSession session) {
+            this.channel = channel;
+            this.session = session;
+        }
+    }
+
+    /**
+     * A borrowed SFTP channel. Closing the lease returns the channel to the pool for the next operation on the same
+     * remote, unless it has been invalidated, in which case it is disconnected.
+     */
+    public static class SftpLease implements AutoCloseable {
+        private final SftpRemote remote;
+        private final PooledChannel channel;
+        private boolean reusable = true;
+        private boolean released = false;
+
+        SftpLease(SftpRemote remote, PooledChannel channel) {
+            this.remote = remote;
+            this.channel = channel;
+        }
+
+        public ChannelSftp getChannel() {
+            return channel.channel;
+        }
+
+        /**
+         * Marks the channel as unfit for reuse, such as after a transfer over it was abandoned part way
+         */
+        public void invalidate() {
+            reusable = false;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (released)
+                return;
+            released = true;
+            remote.release(channel, reusable);
+        }
+    }
+}
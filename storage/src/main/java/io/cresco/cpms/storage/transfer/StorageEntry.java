@@ -0,0 +1,100 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A file, object or container found by a listing, carrying the attributes the provider returned with the listing
+ * itself so callers can plan and verify transfers without fetching each entry's metadata separately. Attributes the
+ * provider does not list are null, or -1 for the size.
+ */
+@SuppressWarnings({"unused"})
+public class StorageEntry {
+    private final String name;
+    private final boolean directory;
+    private final long size;
+    private final Instant lastModified;
+    private final String eTag;
+    private final String contentMd5;
+    private final String storageClass;
+    private final Map<String, String> metadata;
+
+    StorageEntry(String name, boolean directory, long size, Instant lastModified, String eTag, String contentMd5,
+                 String storageClass, Map<String, String> metadata) {
+        this.name = name;
+        this.directory = directory;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.eTag = eTag;
+        this.contentMd5 = contentMd5;
+        this.storageClass = storageClass;
+        this.metadata = (metadata == null) ? Collections.emptyMap() :
+                Collections.unmodifiableMap(new TreeMap<>(metadata));
+    }
+
+    /**
+     * @return The entry as it is named by the provider's file listing
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Whether the entry is a container, directory or common prefix rather than a file
+     */
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The size in bytes, or -1 if the listing did not include it
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return The provider's ETag without surrounding quotes, or null where the provider has none
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return The hex MD5 of the content as recorded by the provider, or null if the listing did not include it
+     */
+    public String getContentMd5() {
+        return contentMd5;
+    }
+
+    public String getStorageClass() {
+        return storageClass;
+    }
+
+    /**
+     * @return The user metadata returned with the listing, empty where the provider does not list it
+     */
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                StorageEntry {
+                    name: %s,
+                    directory: %b,
+                    size: %d,
+                    last_modified: %s,
+                    etag: %s,
+                    content_md5: %s,
+                    storage_class: %s
+                }""", name, directory, size, lastModified, eTag, contentMd5, storageClass);
+    }
+}
@@ -0,0 +1,110 @@
+package io.cresco.cpms.storage.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Digests an in-order stream of bytes as it passes through a transfer, splitting it into fixed-size parts so the
+ * result matches what the {@link ChecksumEngine} would compute from the file afterward. Buffers are digested in place
+ * and their positions are left untouched, so the same buffer can be handed on to the transfer unchanged.
+ */
+@SuppressWarnings({"unused"})
+public class StreamingDigester {
+    private final long partSize;
+    private final DigestAlgorithm[] algorithms;
+    private DigestAlgorithm.Digester[] current;
+    private Map<DigestAlgorithm, List<byte[]>> partDigests;
+    private int partIndex;
+    private long partBytes;
+    private long totalBytes;
+
+    public StreamingDigester(long partSize, Set<DigestAlgorithm> algorithms) {
+        if (partSize <= 0)
+            throw new IllegalArgumentException("Part size must be positive");
+        if (algorithms == null || algorithms.isEmpty())
+            throw new IllegalArgumentException("At least one digest algorithm is required");
+        this.partSize = partSize;
+        this.algorithms = EnumSet.copyOf(algorithms).toArray(new DigestAlgorithm[0]);
+        reset();
+    }
+
+    /**
+     * Discards everything digested so far, for example when a transfer is restarted from the beginning
+     */
+    public synchronized void reset() {
+        this.current = newDigesters();
+        this.partDigests = new EnumMap<>(DigestAlgorithm.class);
+        for (DigestAlgorithm algorithm : algorithms)
+            partDigests.put(algorithm, new ArrayList<>());
+        this.partIndex = 0;
+        this.partBytes = 0;
+        this.totalBytes = 0;
+    }
+
+    /**
+     * Digests the remaining bytes of a buffer without changing its position or limit
+     * @param buffer The next bytes of the stream
+     */
+    public synchronized void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        try {
+            int offset = position;
+            while (offset < limit) {
+                if (partBytes == partSize)
+                    completePart();
+                int chunk = (int) Math.min(limit - offset, partSize - partBytes);
+                for (DigestAlgorithm.Digester digester : current) {
+                    buffer.limit(offset + chunk).position(offset);
+                    digester.update(buffer);
+                }
+                offset += chunk;
+                partBytes += chunk;
+                totalBytes += chunk;
+            }
+        } finally {
+            buffer.limit(limit).position(position);
+        }
+    }
+
+    /**
+     * Completes the final part and returns the digests of the whole stream
+     * @return The per-part digests of every byte seen
+     */
+    public synchronized ChecksumResult finish() {
+        if (partBytes > 0 || partIndex == 0)
+            completePart();
+        Map<DigestAlgorithm, byte[][]> digests = new EnumMap<>(DigestAlgorithm.class);
+        for (Map.Entry<DigestAlgorithm, List<byte[]>> entry : partDigests.entrySet())
+            digests.put(entry.getKey(), entry.getValue().toArray(new byte[0][]));
+        return new ChecksumResult(totalBytes, partSize, partIndex, digests);
+    }
+
+    public synchronized long getBytesDigested() {
+        return totalBytes;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    private void completePart() {
+        for (int i = 0; i < algorithms.length; i++)
+            partDigests.get(algorithms[i]).add(current[i].digest());
+        current = newDigesters();
+        partIndex++;
+        partBytes = 0;
+    }
+
+    private DigestAlgorithm.Digester[] newDigesters() {
+        DigestAlgorithm.Digester[] digesters = new DigestAlgorithm.Digester[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++)
+            digesters[i] = algorithms[i].newDigester();
+        return digesters;
+    }
+}
@@ -0,0 +1,46 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream which reads in chunks of at most {@link CPMSStatics#DEFAULT_THROTTLE_CHUNK_SIZE} bytes, waiting on a
+ * bandwidth limiter for each chunk before it is returned, so a transfer is spread evenly over time rather than sent
+ * in bursts. Mark and reset are passed through, and re-read bytes are charged again as they are sent again.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+    private final BandwidthLimiter bandwidthLimiter;
+
+    /**
+     * @param in The stream to read from, closed with this stream
+     * @param bandwidthLimiter The limiter to wait on
+     */
+    public ThrottledInputStream(InputStream in, BandwidthLimiter bandwidthLimiter) {
+        super(in);
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = in.read();
+        if (read != -1)
+            bandwidthLimiter.acquireBytes(1);
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, Math.min(len, CPMSStatics.DEFAULT_THROTTLE_CHUNK_SIZE));
+        if (read > 0)
+            bandwidthLimiter.acquireBytes(read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return in.skip(n);
+    }
+}
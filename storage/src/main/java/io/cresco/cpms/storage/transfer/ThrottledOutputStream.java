@@ -0,0 +1,42 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which passes writes on in chunks of at most {@link CPMSStatics#DEFAULT_THROTTLE_CHUNK_SIZE} bytes,
+ * waiting on a bandwidth limiter before each chunk, so a transfer is spread evenly over time rather than sent in
+ * bursts.
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+    private final BandwidthLimiter bandwidthLimiter;
+
+    /**
+     * @param out The stream to write to, closed with this stream
+     * @param bandwidthLimiter The limiter to wait on
+     */
+    public ThrottledOutputStream(OutputStream out, BandwidthLimiter bandwidthLimiter) {
+        super(out);
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        bandwidthLimiter.acquireBytes(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int chunk = Math.min(len, CPMSStatics.DEFAULT_THROTTLE_CHUNK_SIZE);
+            bandwidthLimiter.acquireBytes(chunk);
+            out.write(b, off, chunk);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.cresco.cpms.storage.transfer;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Request body which waits on a bandwidth limiter before handing each chunk of another body to the SDK, so a limited
+ * upload keeps to the SDK's own single or multipart path. The wait blocks the thread delivering the chunk, which for
+ * a file body is the file channel's completion thread rather than the client's event loop.
+ */
+public class ThrottlingAsyncRequestBody implements AsyncRequestBody {
+    private final AsyncRequestBody delegate;
+    private final BandwidthLimiter bandwidthLimiter;
+
+    public ThrottlingAsyncRequestBody(AsyncRequestBody delegate, BandwidthLimiter bandwidthLimiter) {
+        this.delegate = delegate;
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public String contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        delegate.subscribe(new Subscriber<ByteBuffer>() {
+            private Subscription subscription;
+            private boolean failed = false;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                if (failed)
+                    return;
+                try {
+                    bandwidthLimiter.acquireBytes(buffer.remaining());
+                } catch (InterruptedIOException e) {
+                    failed = true;
+                    subscription.cancel();
+                    subscriber.onError(e);
+                    return;
+                }
+                subscriber.onNext(buffer);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                if (!failed)
+                    subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                if (!failed)
+                    subscriber.onComplete();
+            }
+        });
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+}
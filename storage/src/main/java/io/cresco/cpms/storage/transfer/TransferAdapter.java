@@ -1,8 +1,11 @@
 package io.cresco.cpms.storage.transfer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransferAdapter {
     /**
@@ -21,6 +24,33 @@ public interface TransferAdapter {
      */
     public List<String> listFilesInPath(TransferPath transferPath);
 
+    /**
+     * Lazily streams the files in a path in this provider, following provider pagination and fetching the next page
+     * in the background while the current one is consumed. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the contents of the path or an empty stream
+     */
+    public Stream<String> streamFilesInPath(TransferPath transferPath);
+
+    /**
+     * List the files in a path in this provider along with the size, modification time, checksum and storage class
+     * the provider's listing returns for each, without requesting any file's metadata separately
+     *
+     * @param transferPath The path to list the contents of
+     * @return The entries in the path, in the order of {@link #listFilesInPath}, or an empty list
+     */
+    public List<StorageEntry> listEntriesInPath(TransferPath transferPath);
+
+    /**
+     * Lazily streams the entries in a path in this provider as {@link #listEntriesInPath} lists them, following
+     * provider pagination like {@link #streamFilesInPath}. The stream holds provider resources and must be closed.
+     *
+     * @param transferPath The path to list the contents of
+     * @return A stream over the entries in the path or an empty stream
+     */
+    public Stream<StorageEntry> streamEntriesInPath(TransferPath transferPath);
+
     /**
      * Uploads a local file to the indicated container
      *
@@ -31,6 +61,18 @@ public interface TransferAdapter {
      */
     public boolean uploadFile(Path uploadPath, TransferPath transferPath) throws IOException;
 
+    /**
+     * Uploads the bytes produced by a writer to the indicated container without staging them in a local file
+     *
+     * @param streamWriter  Producer of the content to upload
+     * @param sizeHint      Expected size of the content in bytes, used to size upload parts
+     * @param transferPath  Remote path for upload
+     * @return Whether the content was successfully uploaded
+     * @throws IOException if the container doesn't exist remotely
+     */
+    public boolean uploadStream(StreamWriter streamWriter, long sizeHint, TransferPath transferPath)
+            throws IOException;
+
 
     /**
      * Downloads a remote file from the supplied location
@@ -41,4 +83,55 @@ public interface TransferAdapter {
      * @throws IOException if the object doesn't exist remotely or local download fails
      */
     public Path downloadFile(TransferPath transferPath, Path destinationFolder) throws IOException;
+
+    /**
+     * Opens a remote file as a stream without saving it locally. Where the provider supports it, the file is fetched
+     * as concurrent byte ranges ahead of the reader and checked against the provider's checksum once it has been
+     * read to the end, in which case a mismatch is reported as an IOException instead of the end of the stream.
+     *
+     * @param transferPath  Remote path to download
+     * @return A stream of the remote file, which must be closed
+     * @throws IOException if the object doesn't exist remotely or cannot be opened
+     */
+    public InputStream downloadStream(TransferPath transferPath) throws IOException;
+
+    /**
+     * Deletes a remote file, or every file beneath a remote directory or prefix
+     *
+     * @param transferPath  Remote path to delete, which must name more than a container
+     * @return The number of files deleted and the reason any file could not be deleted
+     * @throws IOException if the path cannot be listed or names a whole container
+     */
+    public DeleteResult deletePath(TransferPath transferPath) throws IOException;
+
+    /**
+     * Copies a remote file, or every file beneath a remote directory or prefix, to another path in this provider
+     * without passing the content through this node. Each copied file is checked against the checksum of its source.
+     *
+     * @param sourcePath       Remote path to copy, which must name more than a container
+     * @param destinationPath  Remote path to copy to, keeping the source path if only a container is named
+     * @return Whether every file was copied and verified
+     * @throws IOException if the source doesn't exist, names a whole container or the provider cannot copy in place
+     */
+    public boolean copyPath(TransferPath sourcePath, TransferPath destinationPath) throws IOException;
+
+    /**
+     * Metrics of the requests and transfers made through this adapter, which are also recorded into the metrics the
+     * adapter was built with
+     *
+     * @return This adapter's transfer metrics
+     */
+    public TransferMetrics getTransferMetrics();
+
+    /**
+     * Producer of streamed upload content
+     */
+    @FunctionalInterface
+    public interface StreamWriter {
+        /**
+         * @param out The upload stream to write the content to
+         * @throws IOException If the content could not be produced or uploaded
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
 }
@@ -0,0 +1,303 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import io.cresco.cpms.statics.CPMSStatics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Small append-only journal kept next to the local file of a multipart transfer. The first line records what is being
+ * transferred and the provider's transfer handle; each following line records one completed part. Every record is
+ * flushed to disk before the next part is reported, so a restarted transfer can continue from the last completed part.
+ * A partially written final line, left behind by a crash, is ignored on load.
+ */
+@SuppressWarnings({"unused"})
+public class TransferJournal {
+    private static final Gson gson = new Gson();
+
+    private final Path journalPath;
+    private final State state;
+    private final Map<Integer, PartRecord> completedParts = new TreeMap<>();
+
+    private TransferJournal(Path journalPath, State state) {
+        this.journalPath = journalPath;
+        this.state = state;
+    }
+
+    /**
+     * Returns the journal location for a local file
+     * @param file The local file being uploaded or downloaded
+     * @return The path of its journal
+     */
+    public static Path journalPathFor(Path file) {
+        return file.resolveSibling(file.getFileName() + CPMSStatics.TRANSFER_JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Loads an existing journal
+     * @param journalPath The journal to load
+     * @return The journal, or null if it does not exist or its header is unreadable
+     * @throws IOException If the journal exists but cannot be read
+     */
+    public static TransferJournal load(Path journalPath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            State state;
+            try {
+                state = gson.fromJson(reader.readLine(), State.class);
+            } catch (JsonSyntaxException e) {
+                return null;
+            }
+            if (state == null)
+                return null;
+            TransferJournal journal = new TransferJournal(journalPath, state);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    PartRecord part = gson.fromJson(line, PartRecord.class);
+                    if (part != null)
+                        journal.completedParts.put(part.partNumber, part);
+                } catch (JsonSyntaxException e) {
+                    break;
+                }
+            }
+            return journal;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the part size of an unfinished journaled transfer, so a transfer whose part size is chosen afresh each
+     * time can keep the layout of the parts already completed
+     * @param journalPath The journal of the transfer
+     * @param expected Description of the transfer about to start, whose part size is ignored
+     * @return The journaled part size, or zero if there is no journal for the same transfer
+     * @throws IOException If the journal exists but cannot be read
+     */
+    public static long journaledPartSize(Path journalPath, State expected) throws IOException {
+        TransferJournal journal = load(journalPath);
+        if (journal == null || !journal.state.isSameTransfer(expected) ||
+                (expected.remoteETag != null && !expected.remoteETag.equals(journal.state.remoteETag)))
+            return 0;
+        return journal.state.partSize;
+    }
+
+    /**
+     * Starts a new journal, replacing any existing one
+     * @param journalPath The journal to create
+     * @param state Description of the transfer
+     * @return The new journal
+     * @throws IOException If the journal cannot be written
+     */
+    public static TransferJournal create(Path journalPath, State state) throws IOException {
+        TransferJournal journal = new TransferJournal(journalPath, state);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeLine(channel, gson.toJson(state));
+        }
+        return journal;
+    }
+
+    /**
+     * Continues the journaled download of the same remote object into a file, or starts a new one. Starting a new
+     * download preallocates the file so ranges can be written into place in any order.
+     * @param file The local file being downloaded
+     * @param expected Description of the download, including the remote ETag
+     * @return The journal of the download
+     * @throws IOException If the file cannot be preallocated or the journal cannot be written
+     */
+    public static TransferJournal openDownload(Path file, State expected) throws IOException {
+        Path journalPath = journalPathFor(file);
+        TransferJournal journal = load(journalPath);
+        if (journal != null && journal.state.matches(expected) &&
+                Objects.equals(journal.state.remoteETag, expected.remoteETag) &&
+                Files.exists(file) && Files.size(file) == expected.size)
+            return journal;
+        RangedDownloader.preallocate(file, expected.size);
+        return create(journalPath, expected);
+    }
+
+    /**
+     * Durably records a completed part
+     * @param part The completed part
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized void recordPart(PartRecord part) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            writeLine(channel, gson.toJson(part));
+        }
+        completedParts.put(part.partNumber, part);
+    }
+
+    /**
+     * Forgets a part which turned out to be unusable on resume
+     * @param partNumber The one-based part number
+     */
+    public synchronized void discardPart(int partNumber) {
+        completedParts.remove(partNumber);
+    }
+
+    /**
+     * Removes the journal once the transfer has completed or can no longer be resumed
+     * @throws IOException If the journal cannot be removed
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(journalPath);
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return The part numbers which have not been completed yet, in order
+     */
+    public synchronized List<Integer> getRemainingParts() {
+        List<Integer> remaining = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= state.getPartCount(); partNumber++)
+            if (!completedParts.containsKey(partNumber))
+                remaining.add(partNumber);
+        return remaining;
+    }
+
+    public synchronized Map<Integer, PartRecord> getCompletedParts() {
+        return Collections.unmodifiableMap(new TreeMap<>(completedParts));
+    }
+
+    private static void writeLine(FileChannel channel, String json) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((json + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        channel.force(false);
+    }
+
+    /**
+     * Description of a journaled transfer
+     */
+    public static class State {
+        @SerializedName("direction")
+        public String direction;
+
+        @SerializedName("provider")
+        public String provider;
+
+        @SerializedName("container")
+        public String container;
+
+        @SerializedName("key")
+        public String key;
+
+        @SerializedName("size")
+        public long size;
+
+        @SerializedName("last_modified")
+        public long lastModified;
+
+        @SerializedName("part_size")
+        public long partSize;
+
+        @SerializedName("transfer_id")
+        public String transferId;
+
+        @SerializedName("remote_etag")
+        public String remoteETag;
+
+        @SerializedName("file_digest")
+        public String fileDigest;
+
+        public State(String direction, String provider, String container, String key, long size, long lastModified,
+                     long partSize) {
+            this.direction = direction;
+            this.provider = provider;
+            this.container = container;
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.partSize = partSize;
+        }
+
+        /**
+         * Whether a journal describes the same transfer with the same part layout
+         * @param other The state of the transfer about to start
+         * @return Whether the journaled transfer can be continued
+         */
+        public boolean matches(State other) {
+            return isSameTransfer(other) && partSize == other.partSize;
+        }
+
+        /**
+         * Whether a journal describes the same transfer, whatever its part layout
+         * @param other The state of the transfer about to start
+         * @return Whether both describe the same object moving in the same direction
+         */
+        public boolean isSameTransfer(State other) {
+            return other != null &&
+                    Objects.equals(direction, other.direction) &&
+                    Objects.equals(provider, other.provider) &&
+                    Objects.equals(container, other.container) &&
+                    Objects.equals(key, other.key) &&
+                    size == other.size;
+        }
+
+        public int getPartCount() {
+            return (int) ((size - 1) / partSize + 1);
+        }
+
+        public long getPartOffset(int partNumber) {
+            return (partNumber - 1) * partSize;
+        }
+
+        public long getPartLength(int partNumber) {
+            return Math.min(partSize, size - getPartOffset(partNumber));
+        }
+    }
+
+    /**
+     * A completed part of a journaled transfer
+     */
+    public static class PartRecord {
+        @SerializedName("part_number")
+        public int partNumber;
+
+        @SerializedName("length")
+        public long length;
+
+        @SerializedName("etag")
+        public String eTag;
+
+        @SerializedName("md5")
+        public String md5;
+
+        @SerializedName("checksum")
+        public String checksum;
+
+        public PartRecord(int partNumber, long length, String eTag, String md5, String checksum) {
+            this.partNumber = partNumber;
+            this.length = length;
+            this.eTag = eTag;
+            this.md5 = md5;
+            this.checksum = checksum;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.TransferOperation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency distributions of the requests a transfer adapter makes, with a record of each top-level
+ * transfer it runs. Every request is timed from the moment its scheduler permit is granted to the moment it is
+ * closed, and the time spent waiting for the permit and the bandwidth limiter is counted separately. Together with the
+ * time adapters report for checksum passes and local file I/O, this shows whether a slow transfer is waiting on the
+ * network, the CPU or the disk.
+ * <p>
+ * Metrics are recorded into their parent as well. Each adapter records into its own instance whose parent is the
+ * task's or, by default, the node-wide instance returned by {@link #getGlobalInstance()}, so a task can be summarized
+ * on its own while the node sees every request of every adapter.
+ */
+@SuppressWarnings({"unused"})
+public class TransferMetrics {
+    private static final TransferMetrics globalInstance = new TransferMetricsBuilder().build();
+
+    /**
+     * Time spent outside of requests, as reported by adapters
+     */
+    public enum Stage {
+        CHECKSUM, LOCAL_IO
+    }
+
+    private final TransferMetrics parent;
+    private final long createdAt = System.currentTimeMillis();
+    private final long createdNanos = System.nanoTime();
+    private final Map<TransferOperation, OperationMetrics> operations = new EnumMap<>(TransferOperation.class);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong skippedBytes = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong networkNanos = new AtomicLong();
+    private final Map<Stage, AtomicLong> stageNanos = new EnumMap<>(Stage.class);
+    private final List<TransferMetricsSummary.TransferRecord> transfers = new ArrayList<>();
+    private final int maximumTransferRecords;
+
+    private CPMSLogger logger;
+
+    /**
+     * Transfer metrics constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public TransferMetrics(TransferMetricsBuilder builder) {
+        this.parent = builder.getParent();
+        this.maximumTransferRecords = builder.getMaximumTransferRecords();
+        for (TransferOperation operation : TransferOperation.values())
+            operations.put(operation, new OperationMetrics());
+        for (Stage stage : Stage.values())
+            stageNanos.put(stage, new AtomicLong());
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide metrics which every other instance records into unless given another parent
+     * @return The global transfer metrics
+     */
+    public static TransferMetrics getGlobalInstance() {
+        return globalInstance;
+    }
+
+    /**
+     * Starts timing a request whose scheduler permit was just granted
+     * @param operation The kind of request
+     * @param bytes Number of bytes the request transfers
+     * @param queuedAt {@link System#nanoTime()} at which the request started waiting for its permit
+     * @param permit The granted permit, closed with the sample, or null for requests which are not scheduled
+     * @return The sample, which must be completed once the request succeeds and closed once it has finished
+     */
+    public Sample start(TransferOperation operation, long bytes, long queuedAt, TransferScheduler.Permit permit) {
+        return new Sample(operation, bytes, queuedAt, permit, null);
+    }
+
+    /**
+     * Starts timing a request served by local file I/O rather than the network, whose time is counted as
+     * {@link Stage#LOCAL_IO}
+     * @param operation The kind of request
+     * @param bytes Number of bytes the request transfers
+     * @param queuedAt {@link System#nanoTime()} at which the request started waiting for its permit
+     * @param permit The granted permit, closed with the sample
+     * @return The sample, which must be completed once the request succeeds and closed once it has finished
+     */
+    public Sample startLocal(TransferOperation operation, long bytes, long queuedAt,
+                             TransferScheduler.Permit permit) {
+        return new Sample(operation, bytes, queuedAt, permit, Stage.LOCAL_IO);
+    }
+
+    /**
+     * Starts timing a request which is not scheduled, such as a metadata lookup or a listing page
+     * @param operation The kind of request
+     * @return The sample, which must be completed once the request succeeds and closed once it has finished
+     */
+    public Sample start(TransferOperation operation) {
+        return new Sample(operation, 0, System.nanoTime(), null, null);
+    }
+
+    /**
+     * Times each page fetched by a paginated listing as one request
+     * @param operation The kind of request
+     * @param pages Iterator which requests a page from the provider when advanced
+     * @return An iterator over the same pages
+     */
+    public <T> Iterator<T> meterPages(TransferOperation operation, Iterator<T> pages) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return pages.hasNext();
+            }
+
+            @Override
+            public T next() {
+                try (Sample sample = start(operation)) {
+                    T page = pages.next();
+                    sample.complete();
+                    return page;
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs and times work done outside of requests
+     * @param stage What the work is
+     * @param work The work to run
+     * @return The result of the work
+     * @throws IOException If the work fails
+     */
+    public <T> T timeStage(Stage stage, StageWork<T> work) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            recordStage(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Starts a top-level transfer, whose bytes, requests and errors are the ones this instance records until it is
+     * closed
+     * @param kind What the transfer does, such as upload or download
+     * @param container The container or host of the path being transferred, or null for local paths
+     * @param path The path being transferred
+     * @return The transfer, which must be completed once it succeeds and closed once it has finished
+     */
+    public Transfer beginTransfer(String kind, String container, String path) {
+        return new Transfer(kind, (container == null) ? path : container + "/" + path);
+    }
+
+    /**
+     * Records requests which were retried, such as parts resent after the provider throttled them
+     * @param count Number of retries
+     */
+    public void recordRetries(long count) {
+        if (count <= 0)
+            return;
+        retries.addAndGet(count);
+        if (parent != null)
+            parent.recordRetries(count);
+    }
+
+    /**
+     * Records a file which was not transferred because its destination already held identical content
+     * @param bytes Size of the file in bytes
+     */
+    public void recordSkipped(long bytes) {
+        skipped.incrementAndGet();
+        skippedBytes.addAndGet(Math.max(0, bytes));
+        if (parent != null)
+            parent.recordSkipped(bytes);
+    }
+
+    /**
+     * Records time spent outside of requests
+     * @param stage What the time was spent on
+     * @param nanos Elapsed time in nanoseconds
+     */
+    public void recordStage(Stage stage, long nanos) {
+        stageNanos.get(stage).addAndGet(Math.max(0, nanos));
+        if (parent != null)
+            parent.recordStage(stage, nanos);
+    }
+
+    private void recordRequest(TransferOperation operation, Stage stage, long bytes, long waited, long elapsed,
+                               boolean succeeded) {
+        OperationMetrics metrics = operations.get(operation);
+        metrics.latency.record(elapsed / 1000);
+        metrics.count.incrementAndGet();
+        requests.incrementAndGet();
+        waitNanos.addAndGet(waited);
+        if (stage == null)
+            networkNanos.addAndGet(elapsed);
+        else
+            stageNanos.get(stage).addAndGet(elapsed);
+        if (succeeded) {
+            metrics.bytes.addAndGet(bytes);
+            this.bytes.addAndGet(bytes);
+        } else {
+            metrics.errors.incrementAndGet();
+            errors.incrementAndGet();
+        }
+        if (parent != null)
+            parent.recordRequest(operation, stage, bytes, waited, elapsed, succeeded);
+    }
+
+    private void recordTransfer(TransferMetricsSummary.TransferRecord record) {
+        synchronized (transfers) {
+            if (transfers.size() >= maximumTransferRecords && !transfers.isEmpty())
+                transfers.remove(0);
+            if (maximumTransferRecords > 0)
+                transfers.add(record);
+        }
+        if (parent != null)
+            parent.recordTransfer(record);
+    }
+
+    /**
+     * @return A point-in-time summary of everything recorded so far
+     */
+    public TransferMetricsSummary getSummary() {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - createdNanos) / 1_000_000);
+        Map<TransferOperation, TransferMetricsSummary.OperationSummary> operationSummaries =
+                new EnumMap<>(TransferOperation.class);
+        for (Map.Entry<TransferOperation, OperationMetrics> entry : operations.entrySet()) {
+            OperationMetrics metrics = entry.getValue();
+            if (metrics.count.get() > 0)
+                operationSummaries.put(entry.getKey(), new TransferMetricsSummary.OperationSummary(
+                        metrics.count.get(), metrics.errors.get(), metrics.bytes.get(), metrics.latency));
+        }
+        List<TransferMetricsSummary.TransferRecord> transferRecords;
+        synchronized (transfers) {
+            transferRecords = new ArrayList<>(transfers);
+        }
+        return new TransferMetricsSummary(createdAt, elapsedMillis, bytes.get(), requests.get(), errors.get(),
+                retries.get(), skipped.get(), skippedBytes.get(), waitNanos.get() / 1_000_000,
+                networkNanos.get() / 1_000_000,
+                stageNanos.get(Stage.CHECKSUM).get() / 1_000_000, stageNanos.get(Stage.LOCAL_IO).get() / 1_000_000,
+                operationSummaries, transferRecords);
+    }
+
+    /**
+     * @param operation The kind of request
+     * @return The latency distribution of the operation in microseconds
+     */
+    public LatencyHistogram getLatency(TransferOperation operation) {
+        return operations.get(operation).latency;
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getSkippedBytes() {
+        return skippedBytes.get();
+    }
+
+    public TransferMetrics getParent() {
+        return parent;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(TransferMetrics.class);
+    }
+
+    /**
+     * Work timed as a stage
+     */
+    @FunctionalInterface
+    public interface StageWork<T> {
+        T run() throws IOException;
+    }
+
+    private static final class OperationMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+    }
+
+    /**
+     * Timing of a single request. A sample closed without being completed counts as a failed request.
+     */
+    public final class Sample implements AutoCloseable {
+        private final TransferOperation operation;
+        private final long bytes;
+        private final long waited;
+        private final long startNanos;
+        private final TransferScheduler.Permit permit;
+        private final Stage stage;
+        private boolean succeeded = false;
+        private boolean closed = false;
+
+        private Sample(TransferOperation operation, long bytes, long queuedAt, TransferScheduler.Permit permit,
+                       Stage stage) {
+            this.operation = operation;
+            this.bytes = bytes;
+            this.startNanos = System.nanoTime();
+            this.waited = Math.max(0, startNanos - queuedAt);
+            this.permit = permit;
+            this.stage = stage;
+        }
+
+        /**
+         * Marks the request as successful
+         */
+        public void complete() {
+            succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            if (permit != null)
+                permit.close();
+            recordRequest(operation, stage, bytes, waited, System.nanoTime() - startNanos, succeeded);
+        }
+    }
+
+    /**
+     * A top-level transfer, such as one upload or download. A transfer closed without being completed counts as
+     * failed.
+     */
+    public final class Transfer implements AutoCloseable {
+        private final String kind;
+        private final String path;
+        private final long startedAt = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final long startBytes = bytes.get();
+        private final long startRequests = requests.get();
+        private final long startErrors = errors.get();
+        private final long startRetries = retries.get();
+        private boolean succeeded = false;
+        private boolean closed = false;
+
+        private Transfer(String kind, String path) {
+            this.kind = kind;
+            this.path = path;
+        }
+
+        /**
+         * Records the outcome of the transfer
+         * @param succeeded Whether the transfer completed
+         * @return The outcome, for returning directly
+         */
+        public boolean complete(boolean succeeded) {
+            this.succeeded = succeeded;
+            return succeeded;
+        }
+
+        /**
+         * Records the transfer, logging its throughput
+         */
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            TransferMetricsSummary.TransferRecord record = new TransferMetricsSummary.TransferRecord(kind, path,
+                    succeeded, startedAt, elapsedMillis, bytes.get() - startBytes, requests.get() - startRequests,
+                    errors.get() - startErrors, retries.get() - startRetries);
+            recordTransfer(record);
+            logger.debug("{} of [{}] {} after {} ms: {} bytes in {} request(s) at {} MB/s", kind, path,
+                    succeeded ? "finished" : "failed", elapsedMillis, record.getBytes(), record.getRequests(),
+                    String.format("%.1f", record.getBytesPerSecond() / 1e6));
+        }
+    }
+}
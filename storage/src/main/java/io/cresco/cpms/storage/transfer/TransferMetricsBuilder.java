@@ -0,0 +1,60 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+@SuppressWarnings({"unused"})
+public class TransferMetricsBuilder {
+    private TransferMetrics parent;
+    private int maximumTransferRecords;
+
+    private CPMSLogger logger;
+
+    public TransferMetricsBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(TransferMetricsBuilder.class).build();
+        this.maximumTransferRecords = CPMSStatics.DEFAULT_METRICS_MAXIMUM_TRANSFER_RECORDS;
+    }
+
+    public TransferMetricsBuilder withParent(TransferMetrics parent) {
+        this.parent = parent;
+        return this;
+    }
+
+    public TransferMetricsBuilder withMaximumTransferRecords(int maximumTransferRecords) {
+        if (maximumTransferRecords >= 0)
+            this.maximumTransferRecords = maximumTransferRecords;
+        return this;
+    }
+
+    public TransferMetricsBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public TransferMetrics build() {
+        TransferMetrics transferMetrics = new TransferMetrics(this);
+        validateTransferMetricsObject(transferMetrics);
+        return transferMetrics;
+    }
+
+    public void validateTransferMetricsObject(TransferMetrics transferMetrics) {
+        //Todo: Add some validation here
+    }
+
+    public TransferMetrics getParent() {
+        return parent;
+    }
+
+    public int getMaximumTransferRecords() {
+        return maximumTransferRecords;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(TransferMetricsBuilder.class);
+    }
+}
@@ -0,0 +1,362 @@
+package io.cresco.cpms.storage.transfer;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import io.cresco.cpms.statics.TransferOperation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time summary of {@link TransferMetrics}, serialized as the metrics attached to a storage task result and
+ * forwarded through the data plane. Times are in milliseconds and rates in bytes per second. Request, wait, checksum
+ * and local I/O times are summed over all threads, so with concurrent parts they can exceed the elapsed time; what
+ * matters is which of them dominates, which is reported as the bound of the transfers.
+ */
+@SuppressWarnings({"unused"})
+public class TransferMetricsSummary {
+    private static final Gson gson = new Gson();
+
+    @SerializedName("started_at")
+    private final long startedAt;
+
+    @SerializedName("elapsed_millis")
+    private final long elapsedMillis;
+
+    @SerializedName("bytes")
+    private final long bytes;
+
+    @SerializedName("bytes_per_second")
+    private final double bytesPerSecond;
+
+    @SerializedName("requests")
+    private final long requests;
+
+    @SerializedName("errors")
+    private final long errors;
+
+    @SerializedName("error_rate")
+    private final double errorRate;
+
+    @SerializedName("retries")
+    private final long retries;
+
+    @SerializedName("skipped")
+    private final long skipped;
+
+    @SerializedName("skipped_bytes")
+    private final long skippedBytes;
+
+    @SerializedName("wait_millis")
+    private final long waitMillis;
+
+    @SerializedName("network_millis")
+    private final long networkMillis;
+
+    @SerializedName("checksum_millis")
+    private final long checksumMillis;
+
+    @SerializedName("local_io_millis")
+    private final long localIoMillis;
+
+    @SerializedName("bound")
+    private final String bound;
+
+    @SerializedName("operations")
+    private final Map<TransferOperation, OperationSummary> operations;
+
+    @SerializedName("transfers")
+    private final List<TransferRecord> transfers;
+
+    public TransferMetricsSummary(long startedAt, long elapsedMillis, long bytes, long requests, long errors,
+                                  long retries, long skipped, long skippedBytes, long waitMillis,
+                                  long networkMillis, long checksumMillis, long localIoMillis,
+                                  Map<TransferOperation, OperationSummary> operations, List<TransferRecord> transfers) {
+        this.startedAt = startedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.bytes = bytes;
+        this.bytesPerSecond = bytes * 1000.0 / Math.max(1, elapsedMillis);
+        this.requests = requests;
+        this.errors = errors;
+        this.errorRate = (requests == 0) ? 0 : (double) errors / requests;
+        this.retries = retries;
+        this.skipped = skipped;
+        this.skippedBytes = skippedBytes;
+        this.waitMillis = waitMillis;
+        this.networkMillis = networkMillis;
+        this.checksumMillis = checksumMillis;
+        this.localIoMillis = localIoMillis;
+        this.bound = bound(waitMillis, networkMillis, checksumMillis, localIoMillis);
+        this.operations = Collections.unmodifiableMap(operations);
+        this.transfers = Collections.unmodifiableList(transfers);
+    }
+
+    /**
+     * Names what most of the time went to: "queue" for scheduler permits and bandwidth limits, "network" for
+     * requests, "cpu" for checksum passes and "disk" for local file I/O
+     */
+    private static String bound(long waitMillis, long networkMillis, long checksumMillis, long localIoMillis) {
+        long most = Math.max(Math.max(waitMillis, networkMillis), Math.max(checksumMillis, localIoMillis));
+        if (most == 0)
+            return "none";
+        if (most == networkMillis)
+            return "network";
+        if (most == checksumMillis)
+            return "cpu";
+        if (most == localIoMillis)
+            return "disk";
+        return "queue";
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return Number of files not transferred because their destination already held identical content
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    public long getNetworkMillis() {
+        return networkMillis;
+    }
+
+    public long getChecksumMillis() {
+        return checksumMillis;
+    }
+
+    public long getLocalIoMillis() {
+        return localIoMillis;
+    }
+
+    public String getBound() {
+        return bound;
+    }
+
+    public Map<TransferOperation, OperationSummary> getOperations() {
+        return operations;
+    }
+
+    public List<TransferRecord> getTransfers() {
+        return transfers;
+    }
+
+    public String toJson() {
+        return gson.toJson(this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                TransferMetricsSummary {
+                    bytes: %d,
+                    bytes_per_second: %.0f,
+                    requests: %d,
+                    errors: %d,
+                    retries: %d,
+                    skipped: %d,
+                    skipped_bytes: %d,
+                    bound: %s
+                }""", bytes, bytesPerSecond, requests, errors, retries, skipped, skippedBytes, bound);
+    }
+
+    /**
+     * Counts and latency percentiles of one kind of request
+     */
+    public static final class OperationSummary {
+        @SerializedName("count")
+        private final long count;
+
+        @SerializedName("errors")
+        private final long errors;
+
+        @SerializedName("bytes")
+        private final long bytes;
+
+        @SerializedName("mean_millis")
+        private final double meanMillis;
+
+        @SerializedName("p50_millis")
+        private final double p50Millis;
+
+        @SerializedName("p90_millis")
+        private final double p90Millis;
+
+        @SerializedName("p99_millis")
+        private final double p99Millis;
+
+        @SerializedName("max_millis")
+        private final double maxMillis;
+
+        public OperationSummary(long count, long errors, long bytes, LatencyHistogram latency) {
+            this.count = count;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.meanMillis = latency.getMean() / 1000;
+            this.p50Millis = latency.getValueAtPercentile(50) / 1000.0;
+            this.p90Millis = latency.getValueAtPercentile(90) / 1000.0;
+            this.p99Millis = latency.getValueAtPercentile(99) / 1000.0;
+            this.maxMillis = latency.getMax() / 1000.0;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    /**
+     * One top-level transfer, such as an upload or download
+     */
+    public static final class TransferRecord {
+        @SerializedName("kind")
+        private final String kind;
+
+        @SerializedName("path")
+        private final String path;
+
+        @SerializedName("success")
+        private final boolean success;
+
+        @SerializedName("started_at")
+        private final long startedAt;
+
+        @SerializedName("elapsed_millis")
+        private final long elapsedMillis;
+
+        @SerializedName("bytes")
+        private final long bytes;
+
+        @SerializedName("bytes_per_second")
+        private final double bytesPerSecond;
+
+        @SerializedName("requests")
+        private final long requests;
+
+        @SerializedName("errors")
+        private final long errors;
+
+        @SerializedName("retries")
+        private final long retries;
+
+        public TransferRecord(String kind, String path, boolean success, long startedAt, long elapsedMillis,
+                              long bytes, long requests, long errors, long retries) {
+            this.kind = kind;
+            this.path = path;
+            this.success = success;
+            this.startedAt = startedAt;
+            this.elapsedMillis = elapsedMillis;
+            this.bytes = bytes;
+            this.bytesPerSecond = bytes * 1000.0 / Math.max(1, elapsedMillis);
+            this.requests = requests;
+            this.errors = errors;
+            this.retries = retries;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRetries() {
+            return retries;
+        }
+    }
+}
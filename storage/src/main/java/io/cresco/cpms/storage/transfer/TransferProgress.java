@@ -0,0 +1,63 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+/**
+ * Progress of a transfer which is not streamed through this node, such as a server-side copy, logged each time
+ * another step of the total completes. Parts completing concurrently may report into the same progress.
+ */
+@SuppressWarnings({"unused"})
+public class TransferProgress {
+    private final CPMSLogger logger;
+    private final String description;
+    private final long totalBytes;
+    private final long startNanos = System.nanoTime();
+    private long transferredBytes = 0;
+    private int nextUpdate = CPMSStatics.DEFAULT_PROGRESS_PERCENT_STEP;
+
+    /**
+     * @param logger The logger of the adapter running the transfer
+     * @param description What is being transferred, as it should appear in progress messages
+     * @param totalBytes Size of the transfer in bytes
+     */
+    public TransferProgress(CPMSLogger logger, String description, long totalBytes) {
+        this.logger = logger.cloneLogger(TransferProgress.class);
+        this.description = description;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Records a completed part of the transfer
+     * @param bytes Size of the part
+     */
+    public synchronized void add(long bytes) {
+        update(transferredBytes + bytes);
+    }
+
+    /**
+     * Records the total transferred so far, as reported by the provider
+     * @param bytes Number of bytes transferred, ignored if lower than already recorded
+     */
+    public synchronized void update(long bytes) {
+        transferredBytes = Math.max(transferredBytes, Math.min(bytes, totalBytes));
+        if (totalBytes <= 0)
+            return;
+        int percent = (int) (transferredBytes * 100 / totalBytes);
+        if (percent < nextUpdate)
+            return;
+        double seconds = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+        logger.cpmsInfo("{} {}% complete ({} of {} bytes at {} MB/s)", description, percent, transferredBytes,
+                totalBytes, String.format("%.1f", transferredBytes / seconds / 1e6));
+        int step = CPMSStatics.DEFAULT_PROGRESS_PERCENT_STEP;
+        nextUpdate = (percent / step + 1) * step;
+    }
+
+    public synchronized long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,322 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.TransferPriority;
+import io.cresco.cpms.storage.utilities.StorageProvider;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide admission control for transfer work. Adapters ask for a permit before every part, range or request they
+ * send, so concurrent storage tasks on one node share a single budget instead of each sizing its own thread pools
+ * against the network and disks.
+ * <p>
+ * Permits are capped for the node as a whole, for each storage provider and for each destination, such as a single
+ * endpoint or host. Waiting work is granted in priority order, skipping work whose provider or destination is at its
+ * cap so other work can use the free permits. Within a priority the run with the fewest permits in flight goes first,
+ * so a run with many queued parts cannot starve a run with few, and each run's own work is granted first come, first
+ * served.
+ */
+@SuppressWarnings({"unused"})
+public class TransferScheduler {
+    private static final TransferScheduler sharedInstance = new TransferSchedulerBuilder().build();
+
+    private final int maximumParts;
+    private final Map<StorageProvider, Integer> providerLimits;
+    private final int destinationLimit;
+    private final Map<String, Integer> destinationLimits;
+
+    private final List<Request> waiting = new ArrayList<>();
+    private final Map<StorageProvider, Integer> providerParts = new EnumMap<>(StorageProvider.class);
+    private final Map<String, Integer> destinationParts = new HashMap<>();
+    private final Map<String, Integer> runParts = new HashMap<>();
+    private final Map<TransferPriority, Integer> queuedByPriority = new EnumMap<>(TransferPriority.class);
+    private int inFlightParts = 0;
+    private long inFlightBytes = 0;
+    private long grantedCount = 0;
+    private long totalWaitNanos = 0;
+    private long maximumWaitNanos = 0;
+    private long sequence = 0;
+
+    private CPMSLogger logger;
+
+    /**
+     * Transfer scheduler constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public TransferScheduler(TransferSchedulerBuilder builder) {
+        this.maximumParts = builder.getMaximumParts();
+        this.providerLimits = new EnumMap<>(builder.getProviderLimits());
+        this.destinationLimit = builder.getDestinationLimit();
+        this.destinationLimits = new HashMap<>(builder.getDestinationLimits());
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide scheduler shared by adapters which are not given their own
+     * @return The shared transfer scheduler
+     */
+    public static TransferScheduler getSharedInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * Creates the lane through which one adapter asks for permits
+     * @param provider The storage provider the adapter transfers to or from
+     * @param destination The endpoint or host the adapter transfers to or from
+     * @param priority The priority of the adapter's work
+     * @param run The run the adapter's work is shared fairly with other runs as
+     * @return The lane for the adapter
+     */
+    public Lane lane(StorageProvider provider, String destination, TransferPriority priority, String run) {
+        return new Lane(provider, destination, priority, run);
+    }
+
+    private Permit acquire(Lane lane, long bytes) throws InterruptedIOException {
+        Request request;
+        synchronized (this) {
+            request = new Request(lane, bytes, sequence++, System.nanoTime());
+            waiting.add(request);
+            queuedByPriority.merge(lane.priority, 1, Integer::sum);
+            dispatch();
+            try {
+                while (!request.granted)
+                    wait();
+            } catch (InterruptedException e) {
+                if (request.granted) {
+                    release(request);
+                } else {
+                    waiting.remove(request);
+                    queuedByPriority.merge(lane.priority, -1, Integer::sum);
+                }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a transfer permit");
+            }
+        }
+        return new Permit(request);
+    }
+
+    private synchronized void release(Request request) {
+        inFlightParts--;
+        inFlightBytes -= request.bytes;
+        providerParts.merge(request.lane.provider, -1, Integer::sum);
+        destinationParts.merge(request.lane.destination, -1, Integer::sum);
+        runParts.merge(request.lane.run, -1, Integer::sum);
+        dispatch();
+    }
+
+    /**
+     * Grants waiting requests until none of them fits under the caps
+     */
+    private void dispatch() {
+        boolean grantedAny = false;
+        while (inFlightParts < maximumParts) {
+            Request next = null;
+            for (Request request : waiting) {
+                if (!fits(request.lane))
+                    continue;
+                if (next == null || isAhead(request, next))
+                    next = request;
+            }
+            if (next == null)
+                break;
+            grant(next);
+            grantedAny = true;
+        }
+        if (grantedAny)
+            notifyAll();
+    }
+
+    private boolean fits(Lane lane) {
+        return providerParts.getOrDefault(lane.provider, 0) <
+                providerLimits.getOrDefault(lane.provider, maximumParts) &&
+                destinationParts.getOrDefault(lane.destination, 0) <
+                        destinationLimits.getOrDefault(lane.destination, destinationLimit);
+    }
+
+    private boolean isAhead(Request request, Request other) {
+        if (request.lane.priority != other.lane.priority)
+            return request.lane.priority.ordinal() < other.lane.priority.ordinal();
+        int runParts = this.runParts.getOrDefault(request.lane.run, 0);
+        int otherRunParts = this.runParts.getOrDefault(other.lane.run, 0);
+        if (runParts != otherRunParts)
+            return runParts < otherRunParts;
+        return request.sequence < other.sequence;
+    }
+
+    private void grant(Request request) {
+        waiting.remove(request);
+        queuedByPriority.merge(request.lane.priority, -1, Integer::sum);
+        request.granted = true;
+        inFlightParts++;
+        inFlightBytes += request.bytes;
+        providerParts.merge(request.lane.provider, 1, Integer::sum);
+        destinationParts.merge(request.lane.destination, 1, Integer::sum);
+        runParts.merge(request.lane.run, 1, Integer::sum);
+        long waitNanos = System.nanoTime() - request.queuedAt;
+        grantedCount++;
+        totalWaitNanos += waitNanos;
+        maximumWaitNanos = Math.max(maximumWaitNanos, waitNanos);
+    }
+
+    /**
+     * @return Number of requests waiting for a permit
+     */
+    public synchronized int getQueueDepth() {
+        return waiting.size();
+    }
+
+    /**
+     * @param priority The priority class to count
+     * @return Number of requests of a priority waiting for a permit
+     */
+    public synchronized int getQueueDepth(TransferPriority priority) {
+        return queuedByPriority.getOrDefault(priority, 0);
+    }
+
+    public synchronized int getInFlightParts() {
+        return inFlightParts;
+    }
+
+    /**
+     * @return Number of bytes in the parts currently holding a permit
+     */
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    public synchronized long getGrantedCount() {
+        return grantedCount;
+    }
+
+    /**
+     * @return Average time granted requests waited for their permit in milliseconds
+     */
+    public synchronized double getAverageWaitMillis() {
+        return (grantedCount == 0) ? 0 : totalWaitNanos / (double) grantedCount / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return Longest time a granted request waited for its permit in milliseconds
+     */
+    public synchronized long getMaximumWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maximumWaitNanos);
+    }
+
+    public int getMaximumParts() {
+        return maximumParts;
+    }
+
+    public int getDestinationLimit() {
+        return destinationLimit;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(TransferScheduler.class);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("""
+                        {
+                            "queue_depth": %d,
+                            "in_flight_parts": %d,
+                            "in_flight_bytes": %d,
+                            "granted": %d,
+                            "average_wait_ms": %.1f,
+                            "maximum_wait_ms": %d
+                        }""",
+                getQueueDepth(), getInFlightParts(), getInFlightBytes(), getGrantedCount(), getAverageWaitMillis(),
+                getMaximumWaitMillis());
+    }
+
+    /**
+     * The work of one adapter, identifying where its permits are counted and how they are prioritized
+     */
+    public final class Lane {
+        private final StorageProvider provider;
+        private final String destination;
+        private final TransferPriority priority;
+        private final String run;
+
+        private Lane(StorageProvider provider, String destination, TransferPriority priority, String run) {
+            this.provider = provider;
+            this.destination = destination;
+            this.priority = priority;
+            this.run = run;
+        }
+
+        /**
+         * Blocks until the scheduler grants a permit for one part
+         * @param bytes Number of bytes the part transfers through this node, zero for requests such as deletes
+         * @return The permit, which must be closed once the part has finished
+         * @throws InterruptedIOException If interrupted while waiting
+         */
+        public Permit acquire(long bytes) throws InterruptedIOException {
+            return TransferScheduler.this.acquire(this, Math.max(0, bytes));
+        }
+
+        public StorageProvider getProvider() {
+            return provider;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public TransferPriority getPriority() {
+            return priority;
+        }
+
+        public String getRun() {
+            return run;
+        }
+    }
+
+    /**
+     * Permission to transfer one part, returned to the scheduler when closed
+     */
+    public final class Permit implements AutoCloseable {
+        private final Request request;
+        private boolean closed = false;
+
+        private Permit(Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public void close() {
+            synchronized (TransferScheduler.this) {
+                if (closed)
+                    return;
+                closed = true;
+            }
+            release(request);
+        }
+    }
+
+    private static final class Request {
+        private final Lane lane;
+        private final long bytes;
+        private final long sequence;
+        private final long queuedAt;
+        private boolean granted = false;
+
+        private Request(Lane lane, long bytes, long sequence, long queuedAt) {
+            this.lane = lane;
+            this.bytes = bytes;
+            this.sequence = sequence;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.storage.utilities.StorageProvider;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+@SuppressWarnings({"unused"})
+public class TransferSchedulerBuilder {
+    private int maximumParts;
+    private final Map<StorageProvider, Integer> providerLimits = new EnumMap<>(StorageProvider.class);
+    private int destinationLimit;
+    private final Map<String, Integer> destinationLimits = new HashMap<>();
+
+    private CPMSLogger logger;
+
+    public TransferSchedulerBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(TransferSchedulerBuilder.class).build();
+        this.maximumParts = CPMSStatics.DEFAULT_SCHEDULER_MAXIMUM_PARTS;
+        for (StorageProvider provider : StorageProvider.values())
+            this.providerLimits.put(provider, CPMSStatics.DEFAULT_SCHEDULER_PROVIDER_PARTS);
+        this.destinationLimit = CPMSStatics.DEFAULT_SCHEDULER_DESTINATION_PARTS;
+    }
+
+    public TransferSchedulerBuilder withMaximumParts(int maximumParts) {
+        if (maximumParts > 0)
+            this.maximumParts = maximumParts;
+        return this;
+    }
+
+    public TransferSchedulerBuilder withProviderLimit(StorageProvider provider, int limit) {
+        if (provider != null && limit > 0)
+            this.providerLimits.put(provider, limit);
+        return this;
+    }
+
+    public TransferSchedulerBuilder withDestinationLimit(int destinationLimit) {
+        if (destinationLimit > 0)
+            this.destinationLimit = destinationLimit;
+        return this;
+    }
+
+    public TransferSchedulerBuilder withDestinationLimit(String destination, int limit) {
+        if (destination != null && limit > 0)
+            this.destinationLimits.put(destination, limit);
+        return this;
+    }
+
+    public TransferSchedulerBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public TransferScheduler build() {
+        TransferScheduler transferScheduler = new TransferScheduler(this);
+        validateTransferSchedulerObject(transferScheduler);
+        return transferScheduler;
+    }
+
+    public void validateTransferSchedulerObject(TransferScheduler transferScheduler) {
+        //Todo: Add some validation here
+    }
+
+    public int getMaximumParts() {
+        return maximumParts;
+    }
+
+    public Map<StorageProvider, Integer> getProviderLimits() {
+        return providerLimits;
+    }
+
+    public int getDestinationLimit() {
+        return destinationLimit;
+    }
+
+    public Map<String, Integer> getDestinationLimits() {
+        return destinationLimits;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(TransferSchedulerBuilder.class);
+    }
+}
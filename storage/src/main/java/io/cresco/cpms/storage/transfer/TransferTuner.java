@@ -0,0 +1,214 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+import io.cresco.cpms.storage.utilities.StorageProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Chooses the part size and concurrency of multipart transfers from the size of the object and from what earlier
+ * transfers to the same destination measured. Each destination remembers the throughput of a single part and the
+ * concurrency its last transfers settled on, so the next transfer starts near where the last one ended instead of
+ * from the configured defaults.
+ * <p>
+ * Without measurements the object is split so each worker gets a few parts. With measurements, parts are sized to
+ * take about {@code targetPartMillis} at the measured per-part throughput, which keeps the fixed latency of each
+ * request small against its transfer time while leaving parts small enough to retry cheaply. Either way the part
+ * size stays within the provider's part size and part count limits and is a whole number of MiB, so it can be
+ * recorded in the object's part size metadata.
+ */
+@SuppressWarnings({"unused"})
+public class TransferTuner {
+    private static final TransferTuner sharedInstance = new TransferTunerBuilder().build();
+    private static final long MEBIBYTE = 1024L * 1024L;
+    private static final double SMOOTHING = 0.5;
+
+    private final long targetPartMillis;
+    private final int partsPerWorker;
+    private final long maximumPartSize;
+    private final Map<String, Measurement> measurements = new ConcurrentHashMap<>();
+
+    private CPMSLogger logger;
+
+    /**
+     * Transfer tuner constructor utilizing the Builder paradigm
+     * @param builder - Builder object
+     */
+    public TransferTuner(TransferTunerBuilder builder) {
+        this.targetPartMillis = builder.getTargetPartMillis();
+        this.partsPerWorker = builder.getPartsPerWorker();
+        this.maximumPartSize = builder.getMaximumPartSize();
+        setLogger(builder.getLogger());
+    }
+
+    /**
+     * Node-wide tuner shared by adapters which are not given their own
+     * @return The shared transfer tuner
+     */
+    public static TransferTuner getSharedInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * Plans a multipart transfer
+     * @param provider The storage provider of the transfer
+     * @param destination The endpoint or account of the transfer
+     * @param size Size of the object in bytes
+     * @param minimumPartSize Smallest part size to use in bytes
+     * @param maximumParts Maximum number of parts the provider accepts
+     * @param initialConcurrency Parts in flight at the start when the destination has no measurements
+     * @param maximumConcurrency Largest number of parts ever in flight
+     * @param throttling Recognizes the provider's throttling responses among part failures
+     * @return The part size and concurrency to transfer the object with
+     */
+    public Plan plan(StorageProvider provider, String destination, long size, long minimumPartSize,
+                     int maximumParts, int initialConcurrency, int maximumConcurrency,
+                     Predicate<Throwable> throttling) {
+        Measurement measurement = measurements.get(key(provider, destination));
+        int concurrency = (measurement != null) ?
+                (int) Math.max(1, Math.min(maximumConcurrency, Math.round(measurement.concurrency))) :
+                initialConcurrency;
+        long floor = ChecksumEngine.optimalPartSize(size, minimumPartSize, maximumParts);
+        long ceiling = Math.max(floor, Math.min(maximumPartSize, providerMaximumPartSize(provider)));
+        long target = (measurement != null) ?
+                (long) (measurement.partThroughput * targetPartMillis / 1000) :
+                size / ((long) concurrency * partsPerWorker);
+        target = Math.min(target, (size + concurrency - 1) / concurrency);
+        long partSize = Math.max(floor, Math.min(ceiling, target));
+        partSize = (partSize + MEBIBYTE - 1) / MEBIBYTE * MEBIBYTE;
+        logger.debug("Planned {} byte transfer to [{}|{}] in {} MiB parts with {} in flight", size, provider,
+                destination, partSize / MEBIBYTE, concurrency);
+        return new Plan(partSize, new AdaptiveConcurrency(concurrency, maximumConcurrency, throttling));
+    }
+
+    /**
+     * Records what a finished transfer measured, for the next transfer to the same destination to start from
+     * @param provider The storage provider of the transfer
+     * @param destination The endpoint or account of the transfer
+     * @param concurrency The concurrency the transfer ran with
+     */
+    public void record(StorageProvider provider, String destination, AdaptiveConcurrency concurrency) {
+        if (concurrency.getCompletedParts() == 0)
+            return;
+        double partThroughput = concurrency.getPartThroughput();
+        int limit = concurrency.getLimit();
+        measurements.compute(key(provider, destination), (key, previous) -> {
+            if (previous == null)
+                return new Measurement(partThroughput, limit, concurrency.getAveragePartMillis());
+            return new Measurement(
+                    previous.partThroughput + SMOOTHING * (partThroughput - previous.partThroughput),
+                    previous.concurrency + SMOOTHING * (limit - previous.concurrency),
+                    previous.partMillis + SMOOTHING * (concurrency.getAveragePartMillis() - previous.partMillis));
+        });
+        logger.debug("Transfer to [{}|{}] settled on {} part(s) in flight at {} bytes/s per part, {} throttled",
+                provider, destination, limit, Math.round(partThroughput), concurrency.getThrottleCount());
+    }
+
+    /**
+     * @param provider The storage provider
+     * @param destination The endpoint or account
+     * @return What transfers to the destination have measured so far, or null if there have been none
+     */
+    public Measurement getMeasurement(StorageProvider provider, String destination) {
+        return measurements.get(key(provider, destination));
+    }
+
+    private static String key(StorageProvider provider, String destination) {
+        return provider + "|" + destination;
+    }
+
+    private static long providerMaximumPartSize(StorageProvider provider) {
+        return switch (provider) {
+            case AWS, GCS -> CPMSStatics.S3_MAXIMUM_PART_SIZE;
+            case Azure -> CPMSStatics.AZURE_MAXIMUM_BLOCK_SIZE;
+            default -> Long.MAX_VALUE;
+        };
+    }
+
+    public long getTargetPartMillis() {
+        return targetPartMillis;
+    }
+
+    public int getPartsPerWorker() {
+        return partsPerWorker;
+    }
+
+    public long getMaximumPartSize() {
+        return maximumPartSize;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(TransferTuner.class);
+    }
+
+    /**
+     * The part size and concurrency chosen for one transfer
+     */
+    public static final class Plan {
+        private final long partSize;
+        private final AdaptiveConcurrency concurrency;
+
+        public Plan(long partSize, AdaptiveConcurrency concurrency) {
+            this.partSize = partSize;
+            this.concurrency = concurrency;
+        }
+
+        public long getPartSize() {
+            return partSize;
+        }
+
+        /**
+         * @return The part size in whole MiB, as recorded in part size metadata
+         */
+        public int getPartSizeMebibytes() {
+            return (int) (partSize / MEBIBYTE);
+        }
+
+        public AdaptiveConcurrency getConcurrency() {
+            return concurrency;
+        }
+    }
+
+    /**
+     * Smoothed measurements of the transfers to one destination
+     */
+    public static final class Measurement {
+        private final double partThroughput;
+        private final double concurrency;
+        private final double partMillis;
+
+        private Measurement(double partThroughput, double concurrency, double partMillis) {
+            this.partThroughput = partThroughput;
+            this.concurrency = concurrency;
+            this.partMillis = partMillis;
+        }
+
+        /**
+         * @return Bytes per second of a single part
+         */
+        public double getPartThroughput() {
+            return partThroughput;
+        }
+
+        /**
+         * @return Number of parts in flight the transfers settled on
+         */
+        public double getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * @return Time taken by a single part in milliseconds
+         */
+        public double getPartMillis() {
+            return partMillis;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.CPMSStatics;
+
+@SuppressWarnings({"unused"})
+public class TransferTunerBuilder {
+    private long targetPartMillis;
+    private int partsPerWorker;
+    private long maximumPartSize;
+
+    private CPMSLogger logger;
+
+    public TransferTunerBuilder() {
+        this.logger = new BasicCPMSLoggerBuilder().withClass(TransferTunerBuilder.class).build();
+        this.targetPartMillis = CPMSStatics.DEFAULT_ADAPTIVE_TARGET_PART_MILLIS;
+        this.partsPerWorker = CPMSStatics.DEFAULT_ADAPTIVE_PARTS_PER_WORKER;
+        this.maximumPartSize = CPMSStatics.DEFAULT_ADAPTIVE_MAXIMUM_PART_SIZE;
+    }
+
+    public TransferTunerBuilder withTargetPartMillis(long targetPartMillis) {
+        if (targetPartMillis > 0)
+            this.targetPartMillis = targetPartMillis;
+        return this;
+    }
+
+    public TransferTunerBuilder withPartsPerWorker(int partsPerWorker) {
+        if (partsPerWorker > 0)
+            this.partsPerWorker = partsPerWorker;
+        return this;
+    }
+
+    public TransferTunerBuilder withMaximumPartSize(long maximumPartSize) {
+        if (maximumPartSize > 0)
+            this.maximumPartSize = maximumPartSize;
+        return this;
+    }
+
+    public TransferTunerBuilder withLogger(CPMSLogger logger) {
+        setLogger(logger);
+        return this;
+    }
+
+    public TransferTuner build() {
+        TransferTuner transferTuner = new TransferTuner(this);
+        validateTransferTunerObject(transferTuner);
+        return transferTuner;
+    }
+
+    public void validateTransferTunerObject(TransferTuner transferTuner) {
+        //Todo: Add some validation here
+    }
+
+    public long getTargetPartMillis() {
+        return targetPartMillis;
+    }
+
+    public int getPartsPerWorker() {
+        return partsPerWorker;
+    }
+
+    public long getMaximumPartSize() {
+        return maximumPartSize;
+    }
+
+    public CPMSLogger getLogger() {
+        return logger;
+    }
+
+    public void setLogger(CPMSLogger logger) {
+        this.logger = logger.cloneLogger(TransferTunerBuilder.class);
+    }
+}
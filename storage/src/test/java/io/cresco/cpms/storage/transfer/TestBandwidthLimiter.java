@@ -0,0 +1,110 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+public class TestBandwidthLimiter {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestBandwidthLimiter.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Bandwidth-Limiter-Test")
+            .withRunID("1")
+            .build();
+
+    @Test
+    void testUnlimited() throws Exception {
+        logger.info("Testing unlimited BandwidthLimiter");
+        BandwidthLimiter bandwidthLimiter = new BandwidthLimiterBuilder()
+                .withBytesPerSecond(0)
+                .withLogger(logger)
+                .build();
+        Assertions.assertFalse(bandwidthLimiter.isLimited());
+        long elapsed = time(() -> bandwidthLimiter.acquireBytes(Long.MAX_VALUE / 2));
+        Assertions.assertTrue(elapsed < 100, "An unlimited acquire waited " + elapsed + " ms");
+    }
+
+    @Test
+    void testTokenRefill() throws Exception {
+        logger.info("Testing BandwidthLimiter token refill");
+        BandwidthLimiter bandwidthLimiter = new BandwidthLimiterBuilder()
+                .withBytesPerSecond(1_000_000)
+                .withBurstMillis(100)
+                .withLogger(logger)
+                .build();
+        Assertions.assertTrue(bandwidthLimiter.isLimited());
+        // The bucket starts empty, so 500 KB at 1 MB/s takes half a second
+        long elapsed = time(() -> {
+            for (int i = 0; i < 5; i++)
+                bandwidthLimiter.acquireBytes(100_000);
+        });
+        Assertions.assertTrue(elapsed >= 450, "500 KB at 1 MB/s took only " + elapsed + " ms");
+
+        // Idling refills the bucket up to its burst, which is then spent without waiting
+        Thread.sleep(300);
+        elapsed = time(() -> bandwidthLimiter.acquireBytes(90_000));
+        Assertions.assertTrue(elapsed < 60, "A refilled bucket still waited " + elapsed + " ms");
+
+        // A long idle banks no more than the burst, so the rest of a large amount is waited off
+        Thread.sleep(500);
+        elapsed = time(() -> bandwidthLimiter.acquireBytes(300_000));
+        Assertions.assertTrue(elapsed >= 180, "300 KB with a 100 ms burst took only " + elapsed + " ms");
+    }
+
+    @Test
+    void testParentLimit() throws Exception {
+        logger.info("Testing BandwidthLimiter parent limits");
+        BandwidthLimiter parent = new BandwidthLimiterBuilder()
+                .withBytesPerSecond(1_000_000)
+                .withBurstMillis(100)
+                .withLogger(logger)
+                .build();
+        BandwidthLimiter child = new BandwidthLimiterBuilder()
+                .withBytesPerSecond(0)
+                .withParent(parent)
+                .withLogger(logger)
+                .build();
+        Assertions.assertTrue(child.isLimited());
+        Assertions.assertEquals(0, child.getEffectiveBytesPerSecond());
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        long elapsed = time(() -> {
+            try (OutputStream out = child.throttle(sink)) {
+                out.write(new byte[300_000]);
+            }
+        });
+        Assertions.assertEquals(300_000, sink.size());
+        Assertions.assertTrue(elapsed >= 250, "300 KB through a 1 MB/s parent took only " + elapsed + " ms");
+    }
+
+    @Test
+    void testRequestLimit() throws Exception {
+        logger.info("Testing BandwidthLimiter request limit");
+        BandwidthLimiter bandwidthLimiter = new BandwidthLimiterBuilder()
+                .withRequestsPerSecond(20)
+                .withBurstMillis(100)
+                .withLogger(logger)
+                .build();
+        long elapsed = time(() -> {
+            for (int i = 0; i < 10; i++)
+                bandwidthLimiter.acquireRequest();
+        });
+        Assertions.assertTrue(elapsed >= 400, "10 requests at 20 per second took only " + elapsed + " ms");
+    }
+
+    private static long time(Acquisition acquisition) throws Exception {
+        long start = System.nanoTime();
+        acquisition.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @FunctionalInterface
+    private interface Acquisition {
+        void run() throws Exception;
+    }
+}
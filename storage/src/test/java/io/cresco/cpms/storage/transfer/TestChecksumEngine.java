@@ -0,0 +1,126 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Random;
+
+public class TestChecksumEngine {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestChecksumEngine.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Checksum-Engine-Test")
+            .withRunID("1")
+            .build();
+
+    // A buffer smaller than a part, so every part takes several reads
+    static ChecksumEngine checksumEngine = new ChecksumEngineBuilder()
+            .withConcurrency(3)
+            .withBufferSize(256)
+            .withLogger(logger)
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPartDigests() throws Exception {
+        logger.info("Testing ChecksumEngine part digests");
+        byte[] data = randomBytes(2500);
+        Path file = Files.write(tempDir.resolve("parts.bin"), data);
+        ChecksumResult result = checksumEngine.computePartDigests(file, 1000,
+                EnumSet.of(DigestAlgorithm.MD5, DigestAlgorithm.SHA256));
+        Assertions.assertEquals(2500, result.getSize());
+        Assertions.assertEquals(3, result.getPartCount());
+        for (int part = 0; part < 3; part++) {
+            byte[] slice = Arrays.copyOfRange(data, part * 1000, Math.min(data.length, (part + 1) * 1000));
+            Assertions.assertArrayEquals(digest("MD5", slice), result.getPartDigest(DigestAlgorithm.MD5, part));
+            Assertions.assertArrayEquals(digest("SHA-256", slice),
+                    result.getPartDigest(DigestAlgorithm.SHA256, part));
+        }
+        Assertions.assertNull(result.getDigest(DigestAlgorithm.MD5));
+        Assertions.assertNull(result.getPartDigest(DigestAlgorithm.CRC32C, 0));
+    }
+
+    @Test
+    void testMultipartETag() throws Exception {
+        logger.info("Testing ChecksumResult multipart ETag");
+        byte[] data = randomBytes(2500);
+        Path file = Files.write(tempDir.resolve("etag.bin"), data);
+        ChecksumResult result = checksumEngine.computePartDigests(file, 1000, EnumSet.of(DigestAlgorithm.MD5));
+        ByteArrayOutputStream partDigests = new ByteArrayOutputStream();
+        for (int part = 0; part < 3; part++)
+            partDigests.write(digest("MD5", Arrays.copyOfRange(data, part * 1000,
+                    Math.min(data.length, (part + 1) * 1000))));
+        String expected = HexFormat.of().formatHex(digest("MD5", partDigests.toByteArray())) + "-3";
+        Assertions.assertEquals(expected, result.getETag(true));
+        Assertions.assertEquals(Base64.getEncoder().encodeToString(digest("MD5", partDigests.toByteArray())) + "-3",
+                result.getCompositeDigestBase64(DigestAlgorithm.MD5));
+        Assertions.assertNull(result.getCompositeDigestBase64(DigestAlgorithm.SHA1));
+
+        ChecksumResult whole = checksumEngine.computeDigests(file, EnumSet.of(DigestAlgorithm.MD5));
+        Assertions.assertEquals(1, whole.getPartCount());
+        Assertions.assertEquals(HexFormat.of().formatHex(digest("MD5", data)), whole.getETag(false));
+        Assertions.assertEquals(whole.getETag(false), whole.getDigestHex(DigestAlgorithm.MD5));
+    }
+
+    @Test
+    void testEmptyFile() throws Exception {
+        logger.info("Testing ChecksumEngine on an empty file");
+        Path file = Files.createFile(tempDir.resolve("empty.bin"));
+        ChecksumResult result = checksumEngine.computeDigests(file, EnumSet.of(DigestAlgorithm.MD5));
+        Assertions.assertEquals(1, result.getPartCount());
+        Assertions.assertEquals("d41d8cd98f00b204e9800998ecf8427e", result.getDigestHex(DigestAlgorithm.MD5));
+    }
+
+    @Test
+    void testCopyWithDigests() throws Exception {
+        logger.info("Testing ChecksumEngine copies");
+        byte[] data = randomBytes(10_000);
+        Path source = Files.write(tempDir.resolve("source.bin"), data);
+        Path destination = tempDir.resolve("destination.bin");
+        Files.write(destination, randomBytes(20_000));
+        ChecksumResult copied = checksumEngine.copyWithDigests(source, destination, Long.MAX_VALUE,
+                EnumSet.of(DigestAlgorithm.MD5));
+        Assertions.assertArrayEquals(data, Files.readAllBytes(destination));
+        Assertions.assertEquals(HexFormat.of().formatHex(digest("MD5", data)),
+                copied.getDigestHex(DigestAlgorithm.MD5));
+
+        Path parts = tempDir.resolve("parts.bin");
+        ChecksumResult copiedParts = checksumEngine.copyPartsWithDigests(source, parts, 4096, 2,
+                EnumSet.of(DigestAlgorithm.MD5), null);
+        Assertions.assertArrayEquals(data, Files.readAllBytes(parts));
+        Assertions.assertEquals(checksumEngine.computePartDigests(source, 4096, EnumSet.of(DigestAlgorithm.MD5))
+                .getETag(true), copiedParts.getETag(true));
+    }
+
+    @Test
+    void testOptimalPartSize() {
+        logger.info("Testing ChecksumEngine part sizing");
+        Assertions.assertEquals(10, ChecksumEngine.optimalPartSize(100, 10, 50));
+        Assertions.assertEquals(20, ChecksumEngine.optimalPartSize(1000, 10, 50));
+        Assertions.assertEquals(21, ChecksumEngine.optimalPartSize(1001, 10, 50));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] digest(String algorithm, byte[] data) throws Exception {
+        return MessageDigest.getInstance(algorithm).digest(data);
+    }
+}
@@ -0,0 +1,115 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+public class TestContentHashCache {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestContentHashCache.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Content-Hash-Cache-Test")
+            .withRunID("1")
+            .build();
+
+    static final String RECORDED_MD5 = "0123456789abcdef0123456789abcdef";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testHashing() throws Exception {
+        logger.info("Testing ContentHashCache hashing");
+        ContentHashCache contentHashCache = newCache();
+        Path file = Files.writeString(tempDir.resolve("hashed.txt"), "hello", StandardCharsets.UTF_8);
+        Assertions.assertNull(contentHashCache.getCachedMd5(file));
+        Assertions.assertEquals(md5("hello"), contentHashCache.getMd5(file));
+        Assertions.assertEquals(md5("hello"), contentHashCache.getCachedMd5(file));
+        // Unnormalized paths to the file share its entry
+        Assertions.assertEquals(md5("hello"), contentHashCache.getCachedMd5(
+                tempDir.resolve(".").resolve("hashed.txt")));
+        Assertions.assertEquals(1, contentHashCache.getSize());
+        contentHashCache.invalidate(file);
+        Assertions.assertNull(contentHashCache.getCachedMd5(file));
+        Assertions.assertNull(contentHashCache.getCachedMd5(tempDir.resolve("missing.txt")));
+    }
+
+    @Test
+    void testModifiedTimeChange() throws Exception {
+        logger.info("Testing ContentHashCache invalidation on modification time");
+        ContentHashCache contentHashCache = newCache();
+        Path file = Files.writeString(tempDir.resolve("touched.txt"), "hello", StandardCharsets.UTF_8);
+        FileTime modified = FileTime.fromMillis(1_600_000_000_000L);
+        Files.setLastModifiedTime(file, modified);
+        // A recorded hash stands in for the content until the file changes, so it is never read here
+        contentHashCache.putMd5(file, RECORDED_MD5);
+        Assertions.assertEquals(RECORDED_MD5, contentHashCache.getMd5(file));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+        Assertions.assertNull(contentHashCache.getCachedMd5(file));
+        Assertions.assertEquals(md5("hello"), contentHashCache.getMd5(file));
+    }
+
+    @Test
+    void testSizeChange() throws Exception {
+        logger.info("Testing ContentHashCache invalidation on size");
+        ContentHashCache contentHashCache = newCache();
+        Path file = Files.writeString(tempDir.resolve("grown.txt"), "hello", StandardCharsets.UTF_8);
+        FileTime modified = FileTime.fromMillis(1_600_000_000_000L);
+        Files.setLastModifiedTime(file, modified);
+        contentHashCache.putMd5(file, RECORDED_MD5);
+        Files.writeString(file, " world", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        // The same modification time does not hide a change of size
+        Files.setLastModifiedTime(file, modified);
+        Assertions.assertNull(contentHashCache.getCachedMd5(file));
+        Assertions.assertEquals(md5("hello world"), contentHashCache.getMd5(file));
+    }
+
+    @Test
+    void testExtendedAttributes() throws Exception {
+        logger.info("Testing ContentHashCache extended attributes");
+        Path file = Files.writeString(tempDir.resolve("tagged.txt"), "hello", StandardCharsets.UTF_8);
+        ContentHashCache writer = new ContentHashCacheBuilder()
+                .withExtendedAttributes(true)
+                .withLogger(logger)
+                .build();
+        writer.putMd5(file, RECORDED_MD5);
+        ContentHashCache reader = new ContentHashCacheBuilder()
+                .withExtendedAttributes(true)
+                .withLogger(logger)
+                .build();
+        String found = reader.getCachedMd5(file);
+        // File stores without user-defined attributes keep the hash in memory only
+        if (found != null) {
+            Assertions.assertEquals(RECORDED_MD5, found);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            Assertions.assertNull(new ContentHashCacheBuilder()
+                    .withExtendedAttributes(true)
+                    .withLogger(logger)
+                    .build()
+                    .getCachedMd5(file));
+        }
+    }
+
+    private static ContentHashCache newCache() {
+        return new ContentHashCacheBuilder()
+                .withExtendedAttributes(false)
+                .withLogger(logger)
+                .build();
+    }
+
+    private static String md5(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                .digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,114 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class TestPrefetchingIterator {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestPrefetchingIterator.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Prefetching-Iterator-Test")
+            .withRunID("1")
+            .build();
+
+    @Test
+    void testListing() {
+        logger.info("Testing PrefetchingIterator listings");
+        List<List<Integer>> pages = List.of(List.of(1, 2), List.of(), List.of(3), List.of(4, 5, 6));
+        AtomicBoolean pagesClosed = new AtomicBoolean(false);
+        try (Stream<Integer> stream = PrefetchingIterator.fromPages(pages.iterator(),
+                () -> pagesClosed.set(true)).stream()) {
+            Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6), stream.collect(Collectors.toList()));
+        }
+        Assertions.assertTrue(pagesClosed.get());
+
+        AtomicBoolean producerClosed = new AtomicBoolean(false);
+        try (PrefetchingIterator<Integer> iterator = PrefetchingIterator.fromProducer(sink -> {
+            for (int i = 0; i < 25; i++)
+                if (!sink.test(i))
+                    return;
+        }, 10, () -> producerClosed.set(true))) {
+            List<Integer> listed = new ArrayList<>();
+            iterator.forEachRemaining(listed::add);
+            Assertions.assertEquals(IntStream.range(0, 25).boxed().collect(Collectors.toList()), listed);
+            Assertions.assertFalse(iterator.hasNext());
+        }
+        Assertions.assertTrue(producerClosed.get());
+    }
+
+    @Test
+    void testCancellation() throws Exception {
+        logger.info("Testing PrefetchingIterator cancellation");
+        AtomicInteger produced = new AtomicInteger();
+        CountDownLatch stopped = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean(false);
+        PrefetchingIterator<Integer> iterator = PrefetchingIterator.fromProducer(sink -> {
+            try {
+                // An endless listing, which only ends when the consumer stops wanting entries
+                while (sink.test(produced.get()))
+                    produced.incrementAndGet();
+            } finally {
+                stopped.countDown();
+            }
+        }, 10, () -> closed.set(true));
+        Assertions.assertTrue(iterator.hasNext());
+        Assertions.assertEquals(0, iterator.next());
+        iterator.close();
+        Assertions.assertTrue(stopped.await(10, TimeUnit.SECONDS), "The producer kept running after close");
+        Assertions.assertTrue(closed.get());
+        Assertions.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testErrorPropagation() {
+        logger.info("Testing PrefetchingIterator error propagation");
+        PrefetchingIterator<Integer> failing = PrefetchingIterator.fromProducer(sink -> {
+            for (int i = 0; i < 3; i++)
+                sink.test(i);
+            throw new IOException("listing failed");
+        }, 2, null);
+        // Published pages are served first, the unfinished page is dropped along with the failed listing
+        Assertions.assertEquals(0, failing.next());
+        Assertions.assertEquals(1, failing.next());
+        UncheckedIOException unchecked = Assertions.assertThrows(UncheckedIOException.class, failing::hasNext);
+        Assertions.assertEquals("listing failed", unchecked.getCause().getMessage());
+        Assertions.assertFalse(failing.hasNext());
+
+        List<List<Integer>> pages = List.of(List.of(1));
+        PrefetchingIterator<Integer> runtimeFailure = PrefetchingIterator.fromPages(new Iterator<>() {
+            private int served = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public List<Integer> next() {
+                if (served++ == 0)
+                    return pages.getFirst();
+                throw new IllegalArgumentException("page failed");
+            }
+        }, null);
+        Assertions.assertEquals(1, runtimeFailure.next());
+        IllegalArgumentException runtime = Assertions.assertThrows(IllegalArgumentException.class,
+                runtimeFailure::hasNext);
+        Assertions.assertEquals("page failed", runtime.getMessage());
+    }
+}
@@ -0,0 +1,56 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestRemoteFileSystemStorage {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestRemoteFileSystemStorage.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Remote-File-System-Storage-Test")
+            .withRunID("1")
+            .build();
+
+    static final long MODIFIED_MILLIS = 1_600_000_000_250L;
+    static final int MODIFIED_SECONDS = 1_600_000_000;
+
+    @Test
+    void testSyncSkip() {
+        logger.info("Testing syncDirectory skip decisions");
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.UNCHANGED,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_MILLIS, true, 1024, MODIFIED_SECONDS));
+        // SFTP keeps whole seconds, so the milliseconds of the local time are not a change
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.UNCHANGED,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_SECONDS * 1000L + 999, true, 1024,
+                        MODIFIED_SECONDS));
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.UNCHANGED,
+                RemoteFileSystemStorage.compareForSync(0, MODIFIED_MILLIS, true, 0, MODIFIED_SECONDS));
+    }
+
+    @Test
+    void testSyncCompare() {
+        logger.info("Testing syncDirectory checksum decisions");
+        // Only the size matching leaves the content to a checksum comparison, when enabled
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.SAME_SIZE,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_MILLIS + 1000, true, 1024,
+                        MODIFIED_SECONDS));
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.SAME_SIZE,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_MILLIS, true, 1024, MODIFIED_SECONDS - 1));
+    }
+
+    @Test
+    void testSyncUpload() {
+        logger.info("Testing syncDirectory upload decisions");
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.DIFFERENT,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_MILLIS, true, 1023, MODIFIED_SECONDS));
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.DIFFERENT,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_MILLIS + 5000, true, 2048,
+                        MODIFIED_SECONDS));
+        // A directory or link in the file's place is never taken for the file
+        Assertions.assertEquals(RemoteFileSystemStorage.SyncMatch.DIFFERENT,
+                RemoteFileSystemStorage.compareForSync(1024, MODIFIED_MILLIS, false, 1024, MODIFIED_SECONDS));
+    }
+}
@@ -0,0 +1,98 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Duration;
+
+public class TestS3ClientManager {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestS3ClientManager.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("S3-Client-Manager-Test")
+            .withRunID("1")
+            .build();
+
+    private S3ClientManager clientManager;
+
+    @BeforeEach
+    void createManager() {
+        clientManager = new S3ClientManager();
+    }
+
+    @AfterEach
+    void shutdownManager() {
+        clientManager.shutdown();
+    }
+
+    @Test
+    void testLeaseReuse() {
+        logger.info("Testing S3ClientManager lease reuse");
+        S3ClientKey key = clientKey("access-1");
+        try (S3ClientManager.S3ClientLease first = clientManager.lease(key);
+             S3ClientManager.S3ClientLease second = clientManager.lease(clientKey("access-1"));
+             S3ClientManager.S3ClientLease other = clientManager.lease(clientKey("access-2"))) {
+            // Equal keys share one client, another key gets its own
+            Assertions.assertSame(first.getClient(), second.getClient());
+            Assertions.assertNotSame(first.getClient(), other.getClient());
+            Assertions.assertEquals(2, clientManager.getClientCount());
+        }
+        // Closing the leases hands the clients back without closing them
+        try (S3ClientManager.S3ClientLease again = clientManager.lease(key)) {
+            Assertions.assertEquals(2, clientManager.getClientCount());
+            Assertions.assertNotNull(again.getClient());
+        }
+    }
+
+    @Test
+    void testIdleEviction() throws Exception {
+        logger.info("Testing S3ClientManager idle eviction");
+        clientManager.setClientIdleTimeout(Duration.ofMillis(50));
+        S3ClientManager.S3ClientLease held = clientManager.lease(clientKey("held"));
+        S3ClientManager.S3ClientLease released = clientManager.lease(clientKey("released"));
+        S3Client heldClient = held.getClient();
+        S3Client releasedClient = released.getClient();
+        released.close();
+        // A lease closed twice must not hand its client back twice
+        released.close();
+        Thread.sleep(150);
+        clientManager.evictIdleClients();
+        Assertions.assertEquals(1, clientManager.getClientCount());
+        Assertions.assertSame(heldClient, held.getClient());
+        held.close();
+
+        try (S3ClientManager.S3ClientLease renewed = clientManager.lease(clientKey("released"))) {
+            Assertions.assertNotSame(releasedClient, renewed.getClient());
+        }
+    }
+
+    @Test
+    void testShutdown() {
+        logger.info("Testing S3ClientManager shutdown");
+        S3ClientKey key = clientKey("access-1");
+        S3Client closedClient;
+        try (S3ClientManager.S3ClientLease lease = clientManager.lease(key)) {
+            closedClient = lease.getClient();
+        }
+        clientManager.shutdown();
+        Assertions.assertEquals(0, clientManager.getClientCount());
+        // The manager builds new clients for leases taken after a shutdown
+        try (S3ClientManager.S3ClientLease lease = clientManager.lease(key)) {
+            Assertions.assertNotSame(closedClient, lease.getClient());
+            Assertions.assertEquals(1, clientManager.getClientCount());
+        }
+    }
+
+    private static S3ClientKey clientKey(String accessKey) {
+        return new S3ClientKey(new S3ObjectStorageBuilder()
+                .withStaticCredentials(accessKey, "secret")
+                .withRegion("us-east-1")
+                .withEndpoint("http://localhost:9000"));
+    }
+}
@@ -0,0 +1,123 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+public class TestTransferJournal {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestTransferJournal.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Transfer-Journal-Test")
+            .withRunID("1")
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testResume() throws Exception {
+        logger.info("Testing TransferJournal resume");
+        Path file = tempDir.resolve("object.bin");
+        TransferJournal journal = TransferJournal.openDownload(file, downloadState("etag-1", 100));
+        Assertions.assertEquals(350, Files.size(file));
+        Assertions.assertEquals(TransferJournal.journalPathFor(file), journal.getJournalPath());
+        Assertions.assertEquals(List.of(1, 2, 3, 4), journal.getRemainingParts());
+        journal.recordPart(new TransferJournal.PartRecord(1, 100, null, "md5-1", null));
+        journal.recordPart(new TransferJournal.PartRecord(3, 100, null, "md5-3", null));
+
+        TransferJournal resumed = TransferJournal.openDownload(file, downloadState("etag-1", 100));
+        Assertions.assertEquals(Set.of(1, 3), resumed.getCompletedParts().keySet());
+        Assertions.assertEquals("md5-3", resumed.getCompletedParts().get(3).md5);
+        Assertions.assertEquals(List.of(2, 4), resumed.getRemainingParts());
+        Assertions.assertEquals(50, resumed.getState().getPartLength(4));
+        Assertions.assertEquals(300, resumed.getState().getPartOffset(4));
+        resumed.discardPart(3);
+        Assertions.assertEquals(List.of(2, 3, 4), resumed.getRemainingParts());
+
+        resumed.delete();
+        Assertions.assertFalse(Files.exists(journal.getJournalPath()));
+        Assertions.assertNull(TransferJournal.load(journal.getJournalPath()));
+    }
+
+    @Test
+    void testTornRecord() throws Exception {
+        logger.info("Testing TransferJournal torn records");
+        Path file = tempDir.resolve("torn.bin");
+        TransferJournal journal = TransferJournal.openDownload(file, downloadState("etag-1", 100));
+        journal.recordPart(new TransferJournal.PartRecord(2, 100, null, "md5-2", null));
+        // A crash part way through appending a record leaves half a line behind
+        Files.writeString(journal.getJournalPath(), "{\"part_number\":3,\"len", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        TransferJournal loaded = TransferJournal.load(journal.getJournalPath());
+        Assertions.assertNotNull(loaded);
+        Assertions.assertEquals(Set.of(2), loaded.getCompletedParts().keySet());
+
+        Files.writeString(journal.getJournalPath(), "not a journal", StandardCharsets.UTF_8);
+        Assertions.assertNull(TransferJournal.load(journal.getJournalPath()));
+    }
+
+    @Test
+    void testMismatch() throws Exception {
+        logger.info("Testing TransferJournal mismatches");
+        Path file = tempDir.resolve("changed.bin");
+        TransferJournal journal = TransferJournal.openDownload(file, downloadState("etag-1", 100));
+        journal.recordPart(new TransferJournal.PartRecord(1, 100, null, "md5-1", null));
+
+        // A changed remote object starts the download again
+        TransferJournal changed = TransferJournal.openDownload(file, downloadState("etag-2", 100));
+        Assertions.assertTrue(changed.getCompletedParts().isEmpty());
+        Assertions.assertEquals("etag-2", changed.getState().remoteETag);
+        changed.recordPart(new TransferJournal.PartRecord(1, 100, null, "md5-1", null));
+
+        // So does another part layout
+        TransferJournal relaid = TransferJournal.openDownload(file, downloadState("etag-2", 200));
+        Assertions.assertTrue(relaid.getCompletedParts().isEmpty());
+        Assertions.assertEquals(2, relaid.getState().getPartCount());
+        relaid.recordPart(new TransferJournal.PartRecord(1, 200, null, "md5-1", null));
+
+        // And a local file which no longer has the size the journal preallocated
+        Files.write(file, new byte[10]);
+        TransferJournal truncated = TransferJournal.openDownload(file, downloadState("etag-2", 200));
+        Assertions.assertTrue(truncated.getCompletedParts().isEmpty());
+        Assertions.assertEquals(350, Files.size(file));
+    }
+
+    @Test
+    void testJournaledPartSize() throws Exception {
+        logger.info("Testing TransferJournal part sizes");
+        Path journalPath = TransferJournal.journalPathFor(tempDir.resolve("upload.bin"));
+        Assertions.assertEquals(0, TransferJournal.journaledPartSize(journalPath, uploadState(100)));
+        TransferJournal.create(journalPath, uploadState(100));
+        Assertions.assertEquals(100, TransferJournal.journaledPartSize(journalPath, uploadState(50)));
+        TransferJournal.State otherKey = uploadState(100);
+        otherKey.key = "other";
+        Assertions.assertEquals(0, TransferJournal.journaledPartSize(journalPath, otherKey));
+        TransferJournal.State otherSize = uploadState(100);
+        otherSize.size = 351;
+        Assertions.assertEquals(0, TransferJournal.journaledPartSize(journalPath, otherSize));
+        Assertions.assertFalse(uploadState(100).matches(uploadState(50)));
+        Assertions.assertTrue(uploadState(100).isSameTransfer(uploadState(50)));
+    }
+
+    private static TransferJournal.State downloadState(String remoteETag, long partSize) {
+        TransferJournal.State state = new TransferJournal.State("download", "s3", "bucket", "object.bin", 350, 0L,
+                partSize);
+        state.remoteETag = remoteETag;
+        return state;
+    }
+
+    private static TransferJournal.State uploadState(long partSize) {
+        return new TransferJournal.State("upload", "s3", "bucket", "upload.bin", 350, 1000L, partSize);
+    }
+}
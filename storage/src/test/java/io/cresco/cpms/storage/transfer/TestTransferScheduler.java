@@ -0,0 +1,200 @@
+package io.cresco.cpms.storage.transfer;
+
+import io.cresco.cpms.logging.BasicCPMSLoggerBuilder;
+import io.cresco.cpms.logging.CPMSLogger;
+import io.cresco.cpms.statics.TransferPriority;
+import io.cresco.cpms.storage.utilities.StorageProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class TestTransferScheduler {
+    static CPMSLogger logger = new BasicCPMSLoggerBuilder()
+            .withClass(TestTransferScheduler.class)
+            .withPipelineID("Maven-Test-Environment")
+            .withJobID("Storage-Testing")
+            .withTaskID("Transfer-Scheduler-Test")
+            .withRunID("1")
+            .build();
+
+    @Test
+    void testNodeLimit() throws Exception {
+        logger.info("Testing TransferScheduler node permits");
+        TransferScheduler scheduler = new TransferSchedulerBuilder()
+                .withMaximumParts(2)
+                .withProviderLimit(StorageProvider.AWS, 2)
+                .withDestinationLimit(2)
+                .withLogger(logger)
+                .build();
+        TransferScheduler.Lane lane = scheduler.lane(StorageProvider.AWS, "s3.example", TransferPriority.NORMAL,
+                "run-1");
+        TransferScheduler.Permit first = lane.acquire(100);
+        TransferScheduler.Permit second = lane.acquire(200);
+        Assertions.assertEquals(2, scheduler.getInFlightParts());
+        Assertions.assertEquals(300, scheduler.getInFlightBytes());
+        CompletableFuture<TransferScheduler.Permit> third = acquireAsync(lane, 50);
+        awaitQueueDepth(scheduler, 1);
+        Assertions.assertFalse(third.isDone());
+        first.close();
+        TransferScheduler.Permit granted = third.get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(250, scheduler.getInFlightBytes());
+        // Closing a permit twice must not hand its part back twice
+        first.close();
+        Assertions.assertEquals(2, scheduler.getInFlightParts());
+        second.close();
+        granted.close();
+        Assertions.assertEquals(0, scheduler.getInFlightParts());
+        Assertions.assertEquals(0, scheduler.getInFlightBytes());
+        Assertions.assertEquals(3, scheduler.getGrantedCount());
+    }
+
+    @Test
+    void testLanes() throws Exception {
+        logger.info("Testing TransferScheduler provider and destination lanes");
+        TransferScheduler scheduler = new TransferSchedulerBuilder()
+                .withMaximumParts(4)
+                .withProviderLimit(StorageProvider.AWS, 4)
+                .withProviderLimit(StorageProvider.Azure, 1)
+                .withDestinationLimit(4)
+                .withDestinationLimit("busy.example", 1)
+                .withLogger(logger)
+                .build();
+        TransferScheduler.Lane busy = scheduler.lane(StorageProvider.AWS, "busy.example", TransferPriority.NORMAL,
+                "run-1");
+        TransferScheduler.Lane idle = scheduler.lane(StorageProvider.AWS, "idle.example", TransferPriority.NORMAL,
+                "run-1");
+        TransferScheduler.Lane azure = scheduler.lane(StorageProvider.Azure, "azure.example",
+                TransferPriority.NORMAL, "run-1");
+        TransferScheduler.Permit busyPermit = busy.acquire(0);
+        CompletableFuture<TransferScheduler.Permit> busyWaiting = acquireAsync(busy, 0);
+        awaitQueueDepth(scheduler, 1);
+        // Work for another destination is not held up behind the destination at its cap
+        TransferScheduler.Permit idlePermit = idle.acquire(0);
+        TransferScheduler.Permit azurePermit = azure.acquire(0);
+        CompletableFuture<TransferScheduler.Permit> azureWaiting = acquireAsync(azure, 0);
+        awaitQueueDepth(scheduler, 2);
+        Assertions.assertFalse(busyWaiting.isDone());
+        Assertions.assertFalse(azureWaiting.isDone());
+        busyPermit.close();
+        busyWaiting.get(10, TimeUnit.SECONDS).close();
+        Assertions.assertFalse(azureWaiting.isDone());
+        azurePermit.close();
+        azureWaiting.get(10, TimeUnit.SECONDS).close();
+        idlePermit.close();
+        Assertions.assertEquals(0, scheduler.getInFlightParts());
+    }
+
+    @Test
+    void testPriorityAndFairness() throws Exception {
+        logger.info("Testing TransferScheduler priorities and runs");
+        TransferScheduler scheduler = new TransferSchedulerBuilder()
+                .withMaximumParts(1)
+                .withProviderLimit(StorageProvider.local, 1)
+                .withDestinationLimit(1)
+                .withLogger(logger)
+                .build();
+        TransferScheduler.Lane bulk = scheduler.lane(StorageProvider.local, "disk", TransferPriority.BULK, "bulk");
+        TransferScheduler.Lane urgent = scheduler.lane(StorageProvider.local, "disk", TransferPriority.URGENT,
+                "urgent");
+        BlockingQueue<String> order = new LinkedBlockingQueue<>();
+        TransferScheduler.Permit held = bulk.acquire(0);
+        CompletableFuture<Void> bulkWaiting = recordGrant(bulk, "bulk", order);
+        awaitQueueDepth(scheduler, 1);
+        CompletableFuture<Void> urgentWaiting = recordGrant(urgent, "urgent", order);
+        awaitQueueDepth(scheduler, 2);
+        Assertions.assertEquals(1, scheduler.getQueueDepth(TransferPriority.URGENT));
+        held.close();
+        bulkWaiting.get(10, TimeUnit.SECONDS);
+        urgentWaiting.get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of("urgent", "bulk"), List.copyOf(order));
+
+        // Within a priority the run with fewer parts in flight goes first
+        TransferScheduler fair = new TransferSchedulerBuilder()
+                .withMaximumParts(2)
+                .withProviderLimit(StorageProvider.local, 2)
+                .withDestinationLimit(2)
+                .withLogger(logger)
+                .build();
+        TransferScheduler.Lane busyRun = fair.lane(StorageProvider.local, "disk", TransferPriority.NORMAL, "busy");
+        TransferScheduler.Lane quietRun = fair.lane(StorageProvider.local, "disk", TransferPriority.NORMAL, "quiet");
+        TransferScheduler.Permit busyFirst = busyRun.acquire(0);
+        TransferScheduler.Permit busySecond = busyRun.acquire(0);
+        order.clear();
+        CompletableFuture<Void> busyThird = recordGrant(busyRun, "busy", order);
+        awaitQueueDepth(fair, 1);
+        CompletableFuture<Void> quietFirst = recordGrant(quietRun, "quiet", order);
+        awaitQueueDepth(fair, 2);
+        busyFirst.close();
+        Assertions.assertEquals("quiet", order.poll(10, TimeUnit.SECONDS));
+        busySecond.close();
+        Assertions.assertEquals("busy", order.poll(10, TimeUnit.SECONDS));
+        busyThird.get(10, TimeUnit.SECONDS);
+        quietFirst.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testInterruptedWait() throws Exception {
+        logger.info("Testing TransferScheduler interrupted waits");
+        TransferScheduler scheduler = new TransferSchedulerBuilder()
+                .withMaximumParts(1)
+                .withLogger(logger)
+                .build();
+        TransferScheduler.Lane lane = scheduler.lane(StorageProvider.local, "disk", TransferPriority.NORMAL, "run");
+        TransferScheduler.Permit held = lane.acquire(0);
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                lane.acquire(0).close();
+                failure.complete(null);
+            } catch (InterruptedIOException e) {
+                failure.complete(e);
+            }
+        });
+        waiter.start();
+        awaitQueueDepth(scheduler, 1);
+        waiter.interrupt();
+        Assertions.assertInstanceOf(InterruptedIOException.class, failure.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, scheduler.getQueueDepth());
+        held.close();
+        Assertions.assertEquals(0, scheduler.getInFlightParts());
+    }
+
+    private static CompletableFuture<TransferScheduler.Permit> acquireAsync(TransferScheduler.Lane lane,
+                                                                            long bytes) {
+        CompletableFuture<TransferScheduler.Permit> permit = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                permit.complete(lane.acquire(bytes));
+            } catch (Throwable t) {
+                permit.completeExceptionally(t);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return permit;
+    }
+
+    private static CompletableFuture<Void> recordGrant(TransferScheduler.Lane lane, String name,
+                                                       BlockingQueue<String> order) {
+        return acquireAsync(lane, 0).thenAccept(permit -> {
+            order.add(name);
+            permit.close();
+        });
+    }
+
+    private static void awaitQueueDepth(TransferScheduler scheduler, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (scheduler.getQueueDepth() != depth) {
+            if (System.nanoTime() > deadline)
+                Assertions.fail(String.format("Expected %d waiting request(s), found %d", depth,
+                        scheduler.getQueueDepth()));
+            Thread.sleep(5);
+        }
+    }
+}